@@ -0,0 +1,103 @@
+package com.udacity.webcrawler;
+
+import java.util.Arrays;
+import java.util.function.BinaryOperator;
+
+/**
+ * A node of a prefix trie of strings, each of which carries a value. Children are kept in arrays
+ * sorted by character, which takes much less memory than a map per node.
+ *
+ * <p>A string can be inserted as anchored, in which case its value only applies to a string that
+ * ends where it ends, or not, in which case its value applies whatever follows.
+ *
+ * <p>Tries are built by a single thread, and can then be read by any number of threads, as long as
+ * they are published safely, for example through a final field.
+ *
+ * @param <V> the type of the values.
+ */
+final class CharTrie<V> {
+  private static final char[] NO_KEYS = {};
+  private static final Object[] NO_CHILDREN = {};
+
+  private char[] keys = NO_KEYS;
+  private Object[] children = NO_CHILDREN;
+
+  /**
+   * The value of a string that ends at this node, which applies whatever follows.
+   */
+  private V value;
+
+  /**
+   * The value of a string that ends at this node, which only applies if nothing follows.
+   */
+  private V anchoredValue;
+
+  /**
+   * Returns the child for the given next character, or {@code null} if no string continues with
+   * it.
+   */
+  @SuppressWarnings("unchecked")
+  CharTrie<V> child(char c) {
+    int index = Arrays.binarySearch(keys, c);
+    return index >= 0 ? (CharTrie<V>) children[index] : null;
+  }
+
+  /**
+   * Returns the value of the string that ends at this node without an anchor, if any.
+   */
+  V value() {
+    return value;
+  }
+
+  /**
+   * Returns the value of the anchored string that ends at this node, if any.
+   */
+  V anchoredValue() {
+    return anchoredValue;
+  }
+
+  boolean isEmpty() {
+    return keys.length == 0 && value == null && anchoredValue == null;
+  }
+
+  /**
+   * Inserts the given string with the given value. If the same string was inserted before, with
+   * the same anchoring, the two values are combined with {@code merge}.
+   */
+  @SuppressWarnings("unchecked")
+  void insert(CharSequence string, boolean anchored, V newValue, BinaryOperator<V> merge) {
+    CharTrie<V> node = this;
+    for (int i = 0; i < string.length(); i++) {
+      char c = string.charAt(i);
+      int index = Arrays.binarySearch(node.keys, c);
+      if (index < 0) {
+        index = -index - 1;
+        node.keys = insertAt(node.keys, index, c);
+        node.children = insertAt(node.children, index, new CharTrie<V>());
+      }
+      node = (CharTrie<V>) node.children[index];
+    }
+    if (anchored) {
+      node.anchoredValue =
+          node.anchoredValue == null ? newValue : merge.apply(node.anchoredValue, newValue);
+    } else {
+      node.value = node.value == null ? newValue : merge.apply(node.value, newValue);
+    }
+  }
+
+  private static char[] insertAt(char[] array, int index, char value) {
+    char[] result = new char[array.length + 1];
+    System.arraycopy(array, 0, result, 0, index);
+    result[index] = value;
+    System.arraycopy(array, index, result, index + 1, array.length - index);
+    return result;
+  }
+
+  private static Object[] insertAt(Object[] array, int index, Object value) {
+    Object[] result = new Object[array.length + 1];
+    System.arraycopy(array, 0, result, 0, index);
+    result[index] = value;
+    System.arraycopy(array, index, result, index + 1, array.length - index);
+    return result;
+  }
+}
@@ -0,0 +1,392 @@
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.profiler.Profiler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Periodically saves the progress of a single crawl to a file, so that a crawl that was cut short,
+ * for example because the process died or the crawl timed out, can be resumed where it stopped.
+ *
+ * <p>A checkpoint holds the crawl's partial word counts, the URLs of the pages it has finished,
+ * and its frontier: the URLs it still has to visit, with their remaining depth. A page that was
+ * being visited when the checkpoint was taken is still in the frontier, so a resumed crawl visits
+ * it again, and its words are never counted twice.
+ *
+ * <p>Crawler threads only hand each finished page to a lock-free queue with
+ * {@link #recordPage(String, Map, Collection, int)}, and never wait for a checkpoint. A background
+ * thread applies the queued pages to its own copy of the crawl's state, and writes that copy to
+ * the file, compressed, every {@code interval}. The file is replaced atomically, so it always
+ * holds a whole checkpoint.
+ *
+ * <p>Once a crawl's frontier has drained, the crawl is complete and there is nothing left to
+ * resume, so the file is deleted when the crawl ends. Otherwise a later crawl that resumes would
+ * only pick up the old counts, and visit nothing.
+ *
+ * <p>A new checkpointer is provided by {@link WebCrawlerModule} for each crawl.
+ */
+final class CrawlCheckpointer {
+
+  static final String WRITES_METRIC = CrawlCheckpointer.class.getName() + "#writes";
+  static final String BYTES_METRIC = CrawlCheckpointer.class.getName() + "#bytes";
+
+  private static final int MAGIC = 0x43484b50;
+  private static final int VERSION = 1;
+
+  private static final CrawlCheckpointer DISABLED = new CrawlCheckpointer();
+
+  private final Path file;
+  private final Duration interval;
+  private final boolean resume;
+  private final Profiler profiler;
+
+  /**
+   * The pages that crawler threads have finished, but that are not in {@link #state} yet.
+   */
+  private final ConcurrentLinkedQueue<Page> finished = new ConcurrentLinkedQueue<>();
+
+  /**
+   * The crawl's progress as of the last applied page. Only used while holding this object's lock.
+   */
+  private State state;
+  private boolean dirty = false;
+  private boolean finishing = false;
+  private long writes = 0;
+  private ScheduledExecutorService executor;
+
+  private CrawlCheckpointer() {
+    this.file = null;
+    this.interval = null;
+    this.resume = false;
+    this.profiler = null;
+  }
+
+  /**
+   * Creates a checkpointer that saves the crawl to the given file every {@code interval}.
+   *
+   * @param resume whether the crawl should start from the checkpoint in the file, if there is
+   *               one, rather than from its starting URLs.
+   */
+  CrawlCheckpointer(Path file, Duration interval, boolean resume, Profiler profiler) {
+    if (interval.isNegative() || interval.isZero()) {
+      throw new IllegalArgumentException("interval must be positive");
+    }
+    this.file = Objects.requireNonNull(file);
+    this.interval = interval;
+    this.resume = resume;
+    this.profiler = Objects.requireNonNull(profiler);
+  }
+
+  /**
+   * Returns a checkpointer that never saves anything, and always starts crawls from their starting
+   * URLs.
+   */
+  static CrawlCheckpointer disabled() {
+    return DISABLED;
+  }
+
+  /**
+   * Returns the state that the crawl should start from, and starts taking checkpoints.
+   *
+   * <p>When resuming from an existing checkpoint, that is the checkpoint's state. Otherwise it is
+   * a new crawl of the given starting URLs, which should already have been checked against the
+   * ignored URLs and the robots.txt rules.
+   *
+   * @throws UncheckedIOException if the checkpoint exists but cannot be read.
+   */
+  synchronized State start(List<String> startingUrls, int maxDepth) {
+    State initial;
+    boolean resumed = resume && Files.exists(file);
+    if (resumed) {
+      try {
+        initial = readFile(file);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    } else {
+      initial = new State();
+      if (maxDepth > 0) {
+        for (String url : startingUrls) {
+          initial.pendingUrls.merge(url, maxDepth, Math::max);
+        }
+      }
+    }
+    if (this == DISABLED) {
+      return initial;
+    }
+    state = initial.copy();
+    // A new crawl is saved right away, so that it can be resumed even before any page is finished.
+    dirty = !resumed;
+    executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "crawl-checkpoint");
+      thread.setDaemon(true);
+      return thread;
+    });
+    executor.scheduleWithFixedDelay(
+        this::checkpointQuietly, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    return initial;
+  }
+
+  /**
+   * Records that the crawl is done with the page at the given URL. Does not block.
+   *
+   * <p>Crawlers also record, with no words or links, the URLs they skip because the page was
+   * already visited, perhaps under another spelling of its URL. The checkpoint keys its frontier
+   * by URL as given, so otherwise such a URL would stay in it for good.
+   *
+   * @param url        the page's URL.
+   * @param wordCounts the words that were counted for the page.
+   * @param links      the links on the page that the crawl will follow.
+   * @param linkDepth  the remaining depth the links will be crawled with.
+   */
+  void recordPage(
+      String url, Map<String, Integer> wordCounts, Collection<String> links, int linkDepth) {
+    if (this == DISABLED) {
+      return;
+    }
+    List<String> followed = linkDepth > 0 ? List.copyOf(links) : List.of();
+    finished.add(new Page(url, wordCounts, followed, linkDepth));
+  }
+
+  /**
+   * Stops taking periodic checkpoints, and writes a last one with every page recorded so far. If
+   * that leaves nothing to visit, deletes the checkpoint instead. Call it once the crawl is over,
+   * whether or not it completed.
+   *
+   * @throws UncheckedIOException if the last checkpoint could not be written or deleted.
+   */
+  void finish() {
+    if (this == DISABLED) {
+      return;
+    }
+    executor.shutdownNow();
+    synchronized (this) {
+      // A periodic checkpoint that already started must not write the file again afterwards.
+      finishing = true;
+      try {
+        applyFinishedPages();
+        if (state.pendingUrls.isEmpty()) {
+          Files.deleteIfExists(file);
+          dirty = false;
+        } else if (dirty) {
+          write();
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  private void checkpointQuietly() {
+    try {
+      checkpoint();
+    } catch (IOException | RuntimeException e) {
+      // The next checkpoint tries again.
+    }
+  }
+
+  /**
+   * Applies the finished pages to the state, and writes it if it changed.
+   */
+  private synchronized void checkpoint() throws IOException {
+    if (finishing) {
+      return;
+    }
+    applyFinishedPages();
+    if (dirty) {
+      write();
+    }
+  }
+
+  private void applyFinishedPages() {
+    Page page;
+    while ((page = finished.poll()) != null) {
+      state.apply(page);
+      dirty = true;
+    }
+  }
+
+  private void write() throws IOException {
+    Path parent = file.toAbsolutePath().getParent();
+    Files.createDirectories(parent);
+    Path temp = Files.createTempFile(parent, "checkpoint", ".tmp");
+    try {
+      writeFile(temp, state);
+      long bytes = Files.size(temp);
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      dirty = false;
+      profiler.recordMetric(WRITES_METRIC, ++writes);
+      profiler.recordMetric(BYTES_METRIC, bytes);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  private static State readFile(Path file) throws IOException {
+    try (DataInputStream in = new DataInputStream(
+        new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file))))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        throw new IOException("Not a crawl checkpoint: " + file);
+      }
+      State state = new State();
+      for (int i = in.readInt(); i > 0; i--) {
+        state.wordCounts.put(readString(in), in.readLong());
+      }
+      for (int i = in.readInt(); i > 0; i--) {
+        state.visitedUrls.add(readString(in));
+      }
+      for (int i = in.readInt(); i > 0; i--) {
+        state.pendingUrls.put(readString(in), in.readInt());
+      }
+      return state;
+    }
+  }
+
+  /**
+   * Lays out a checkpoint file: a header, then the word counts, the finished URLs and the frontier.
+   */
+  private static void writeFile(Path file, State state) throws IOException {
+    try (DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(file))))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(state.wordCounts.size());
+      for (Map.Entry<String, Long> word : state.wordCounts.entrySet()) {
+        writeString(out, word.getKey());
+        out.writeLong(word.getValue());
+      }
+      out.writeInt(state.visitedUrls.size());
+      for (String url : state.visitedUrls) {
+        writeString(out, url);
+      }
+      out.writeInt(state.pendingUrls.size());
+      for (Map.Entry<String, Integer> pending : state.pendingUrls.entrySet()) {
+        writeString(out, pending.getKey());
+        out.writeInt(pending.getValue());
+      }
+    }
+  }
+
+  /**
+   * Reads a length-prefixed string. The file is compressed, so its size says little about the
+   * length. Instead, the bytes are read as they arrive, so that a corrupt length runs out of data
+   * rather than allocating a huge array up front.
+   */
+  private static String readString(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    if (length < 0) {
+      throw new EOFException("Negative length " + length);
+    }
+    byte[] bytes = in.readNBytes(length);
+    if (bytes.length < length) {
+      throw new EOFException("Length " + length + " runs past the end of the checkpoint");
+    }
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static void writeString(DataOutputStream out, String string) throws IOException {
+    byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  /**
+   * A page that a crawler thread is done with.
+   */
+  private static final class Page {
+    private final String url;
+    private final Map<String, Integer> wordCounts;
+    private final List<String> links;
+    private final int linkDepth;
+
+    Page(String url, Map<String, Integer> wordCounts, List<String> links, int linkDepth) {
+      this.url = url;
+      this.wordCounts = wordCounts;
+      this.links = links;
+      this.linkDepth = linkDepth;
+    }
+  }
+
+  /**
+   * The progress of a crawl: what it has counted so far, and what it still has to visit.
+   */
+  static final class State {
+    private final Map<String, Long> wordCounts = new HashMap<>();
+    private final Set<String> visitedUrls = new HashSet<>();
+    private final Map<String, Integer> pendingUrls = new LinkedHashMap<>();
+
+    /**
+     * Returns the words counted on the finished pages.
+     */
+    Map<String, Long> getWordCounts() {
+      return wordCounts;
+    }
+
+    /**
+     * Returns the URLs of the finished pages, which the crawl should not visit again.
+     */
+    Set<String> getVisitedUrls() {
+      return visitedUrls;
+    }
+
+    /**
+     * Returns the URLs that the crawl still has to visit, and the remaining depth of each.
+     */
+    Map<String, Integer> getPendingUrls() {
+      return pendingUrls;
+    }
+
+    /**
+     * Adds the word counts and the finished URLs of this state to those of a crawl.
+     */
+    void restore(WordCountAccumulator counts, VisitedUrlSet visited) {
+      wordCounts.forEach(counts::add);
+      visitedUrls.forEach(visited::add);
+    }
+
+    private void apply(Page page) {
+      page.wordCounts.forEach((word, count) -> wordCounts.merge(word, (long) count, Long::sum));
+      visitedUrls.add(page.url);
+      pendingUrls.remove(page.url);
+      for (String link : page.links) {
+        // The link's own page may have been recorded first, if it was crawled in the meantime.
+        if (!visitedUrls.contains(link)) {
+          pendingUrls.merge(link, page.linkDepth, Math::max);
+        }
+      }
+    }
+
+    private State copy() {
+      State copy = new State();
+      copy.wordCounts.putAll(wordCounts);
+      copy.visitedUrls.addAll(visitedUrls);
+      copy.pendingUrls.putAll(pendingUrls);
+      return copy;
+    }
+  }
+}
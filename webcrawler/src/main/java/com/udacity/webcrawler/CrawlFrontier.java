@@ -0,0 +1,258 @@
+package com.udacity.webcrawler;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded, thread-safe queue of URLs that are waiting to be crawled.
+ *
+ * <p>Queued URLs are grouped by their remaining depth, i.e. the number of links the crawler is
+ * still allowed to follow from them. Workers always take from the shallowest level first, so the
+ * crawl proceeds breadth-first and no worker ever has to wait for another worker's links to be
+ * processed.
+ *
+ * <p>If the frontier has a {@link HostLimiter} that is not {@link HostLimiter#isUnlimited()
+ * unlimited}, URLs are also grouped by host, and each host gets its own breadth-first queue.
+ * Workers then take URLs from the hosts in turn, skipping hosts whose limits do not allow another
+ * download yet, so that a host with many queued URLs neither gets more than its share of
+ * downloads nor holds up the others.
+ *
+ * <p>The frontier also counts the URLs that have been taken but not yet {@link #complete(Entry)
+ * completed}, which lets it tell waiting workers when the crawl has run out of work.
+ */
+final class CrawlFrontier {
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition changed = lock.newCondition();
+  private final HostLimiter limiter;
+  private final Map<String, HostQueue> hosts = new HashMap<>();
+
+  /**
+   * The hosts that have queued URLs, in the order that workers should try them.
+   */
+  private final ArrayDeque<HostQueue> rotation = new ArrayDeque<>();
+  private final int capacity;
+  private int size = 0;
+  private int peakSize = 0;
+  private int inFlight = 0;
+  private boolean closed = false;
+
+  /**
+   * Creates an empty frontier that holds at most {@code capacity} queued URLs.
+   */
+  CrawlFrontier(int capacity) {
+    this(capacity, HostLimiter.unlimited());
+  }
+
+  /**
+   * Creates an empty frontier that holds at most {@code capacity} queued URLs, and only hands out
+   * URLs when the given limiter allows a download from their host.
+   */
+  CrawlFrontier(int capacity, HostLimiter limiter) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be positive");
+    }
+    this.capacity = capacity;
+    this.limiter = Objects.requireNonNull(limiter);
+  }
+
+  /**
+   * Queues the given URL to be crawled with the given remaining depth.
+   *
+   * @return {@code false} if the URL was not queued because the frontier is full or closed.
+   */
+  boolean offer(String url, int depth) {
+    Objects.requireNonNull(url);
+    if (depth <= 0) {
+      throw new IllegalArgumentException("depth must be positive");
+    }
+    // Without limits, every URL goes in the same queue, which keeps the crawl strictly
+    // breadth-first.
+    String host = limiter.isUnlimited() ? "" : HostLimiter.hostOf(url);
+    lock.lock();
+    try {
+      if (closed || size >= capacity) {
+        return false;
+      }
+      HostQueue queue = hosts.get(host);
+      if (queue == null) {
+        queue = new HostQueue(host);
+        hosts.put(host, queue);
+        rotation.add(queue);
+      }
+      queue.levels.computeIfAbsent(depth, d -> new ArrayDeque<>()).add(url);
+      queue.size++;
+      limiter.recordQueueSize(host, queue.size);
+      size++;
+      peakSize = Math.max(peakSize, size);
+      changed.signal();
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Takes the next URL to crawl, waiting for one to become available if necessary.
+   *
+   * <p>Every {@link Entry} returned by this method must be followed by exactly one call to
+   * {@link #complete(Entry)} once the caller is done with it.
+   *
+   * @return the next URL to crawl, or {@code null} if there is no more work, either because the
+   *     frontier is empty and no URLs are in flight or because the frontier was closed.
+   */
+  Entry take() throws InterruptedException {
+    lock.lock();
+    try {
+      while (true) {
+        if (size == 0) {
+          if (closed || inFlight == 0) {
+            return null;
+          }
+          changed.await();
+          continue;
+        }
+        long wait = Long.MAX_VALUE;
+        for (int i = rotation.size(); i > 0; i--) {
+          HostQueue queue = rotation.poll();
+          long hostWait = limiter.tryAcquire(queue.host);
+          if (hostWait == 0) {
+            return take(queue);
+          }
+          rotation.add(queue);
+          wait = Math.min(wait, hostWait);
+        }
+        // Every host with queued URLs is at its limit. Wait until one of them is not.
+        if (wait == Long.MAX_VALUE) {
+          changed.await();
+        } else {
+          changed.awaitNanos(wait);
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private Entry take(HostQueue queue) {
+    Map.Entry<Integer, ArrayDeque<String>> level = queue.levels.lastEntry();
+    String url = level.getValue().poll();
+    if (level.getValue().isEmpty()) {
+      queue.levels.pollLastEntry();
+    }
+    queue.size--;
+    if (queue.size > 0) {
+      rotation.add(queue);
+    } else {
+      hosts.remove(queue.host);
+    }
+    size--;
+    inFlight++;
+    return new Entry(url, level.getKey(), queue.host);
+  }
+
+  /**
+   * Lets the next URL from the same host as the given entry start, even though the entry is not
+   * complete yet. Use this once the page has been downloaded, if it still needs more work that
+   * does not involve its host.
+   */
+  void releaseHost(Entry entry) {
+    lock.lock();
+    try {
+      if (!entry.hostReleased) {
+        entry.hostReleased = true;
+        limiter.release(entry.host);
+        changed.signalAll();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Marks a URL previously returned by {@link #take()} as done.
+   */
+  void complete(Entry entry) {
+    lock.lock();
+    try {
+      releaseHost(entry);
+      inFlight--;
+      if (inFlight == 0 && size == 0) {
+        changed.signalAll();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Drops all queued URLs and stops accepting new ones. Workers that are waiting in
+   * {@link #take()} return immediately.
+   */
+  void close() {
+    lock.lock();
+    try {
+      closed = true;
+      hosts.clear();
+      rotation.clear();
+      size = 0;
+      changed.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the largest number of URLs that have been queued in this frontier at the same time.
+   */
+  int getPeakSize() {
+    lock.lock();
+    try {
+      return peakSize;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * The queued URLs of a single host, grouped by remaining depth.
+   */
+  private static final class HostQueue {
+    private final String host;
+    private final TreeMap<Integer, ArrayDeque<String>> levels = new TreeMap<>();
+    private int size = 0;
+
+    private HostQueue(String host) {
+      this.host = host;
+    }
+  }
+
+  /**
+   * A URL taken from the frontier, along with its remaining depth.
+   */
+  static final class Entry {
+    private final String url;
+    private final int depth;
+    private final String host;
+    private boolean hostReleased = false;
+
+    private Entry(String url, int depth, String host) {
+      this.url = url;
+      this.depth = depth;
+      this.host = host;
+    }
+
+    String getUrl() {
+      return url;
+    }
+
+    int getDepth() {
+      return depth;
+    }
+  }
+}
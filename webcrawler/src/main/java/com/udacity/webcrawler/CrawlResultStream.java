@@ -0,0 +1,244 @@
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.json.CrawlResult;
+import com.udacity.webcrawler.json.JsonCodec;
+import com.udacity.webcrawler.json.StreamingCrawlResultWriter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streams the progress of each crawl as newline-delimited JSON while the crawl runs, rather than
+ * writing its result once at the end. See {@link StreamingCrawlResultWriter} for the events.
+ *
+ * <p>Crawler threads only hand each visited page to a lock-free queue with
+ * {@link #pageVisited(String, Map)}, and never wait for the output. A background thread writes the
+ * queued pages every {@link #DRAIN_INTERVAL}, and a snapshot of the most popular words so far
+ * every {@code snapshotInterval}, which it keeps its own running counts for.
+ *
+ * <p>The stream is shared by the crawls of one {@link WebCrawler}, which are expected to run one
+ * at a time. {@link StreamingWebCrawler} starts and finishes it around each crawl.
+ */
+final class CrawlResultStream {
+
+  /**
+   * How long a visited page can wait in the queue before it is written.
+   */
+  static final Duration DRAIN_INTERVAL = Duration.ofMillis(100);
+
+  private static final CrawlResultStream DISABLED = new CrawlResultStream();
+
+  private final Path path;
+  private final Duration snapshotInterval;
+  private final int popularWordCount;
+  private final JsonCodec codec;
+
+  /**
+   * The pages that crawler threads have visited, but that are not written yet.
+   */
+  private final ConcurrentLinkedQueue<Page> visited = new ConcurrentLinkedQueue<>();
+
+  // Only used while holding this object's lock.
+  private Writer out;
+  private StreamingCrawlResultWriter writer;
+  private Map<String, Integer> counts;
+  private int urlsVisited;
+  private IOException failure;
+  private ScheduledExecutorService executor;
+
+  private CrawlResultStream() {
+    this.path = null;
+    this.snapshotInterval = null;
+    this.popularWordCount = 0;
+    this.codec = null;
+  }
+
+  /**
+   * Creates a stream that writes to the given file, or to {@link System#out} if it is
+   * {@code null}.
+   *
+   * @param snapshotInterval how often to write the most popular words so far.
+   * @param popularWordCount how many of the most popular words each snapshot has.
+   * @param codec            the codec to write the events with.
+   */
+  CrawlResultStream(
+      Path path, Duration snapshotInterval, int popularWordCount, JsonCodec codec) {
+    if (snapshotInterval.isNegative() || snapshotInterval.isZero()) {
+      throw new IllegalArgumentException("snapshotInterval must be positive");
+    }
+    this.path = path;
+    this.snapshotInterval = snapshotInterval;
+    this.popularWordCount = popularWordCount;
+    this.codec = Objects.requireNonNull(codec);
+  }
+
+  /**
+   * Returns a stream that never writes anything.
+   */
+  static CrawlResultStream disabled() {
+    return DISABLED;
+  }
+
+  /**
+   * Returns whether the stream writes anything.
+   */
+  boolean isEnabled() {
+    return this != DISABLED;
+  }
+
+  /**
+   * Opens the output, replacing the file if there already is one, and starts writing the pages
+   * that the crawl visits.
+   *
+   * @throws UncheckedIOException if the file cannot be opened.
+   */
+  synchronized void start() {
+    if (this == DISABLED) {
+      return;
+    }
+    try {
+      out = path == null
+          ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+          : Files.newBufferedWriter(path);
+      writer = new StreamingCrawlResultWriter(out, codec);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    visited.clear();
+    counts = new HashMap<>();
+    urlsVisited = 0;
+    failure = null;
+    executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "crawl-result-stream");
+      thread.setDaemon(true);
+      return thread;
+    });
+    executor.scheduleWithFixedDelay(
+        this::drain,
+        DRAIN_INTERVAL.toMillis(),
+        DRAIN_INTERVAL.toMillis(),
+        TimeUnit.MILLISECONDS);
+    executor.scheduleWithFixedDelay(
+        this::snapshot,
+        snapshotInterval.toMillis(),
+        snapshotInterval.toMillis(),
+        TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Records that the crawl visited the page at the given URL, and counted the given words on it.
+   * Does not block.
+   */
+  void pageVisited(String url, Map<String, Integer> wordCounts) {
+    if (this == DISABLED) {
+      return;
+    }
+    visited.add(new Page(url, wordCounts));
+  }
+
+  /**
+   * Writes every page visited so far and the crawl's result, and closes the output. Call it once
+   * the crawl is over, whether or not it completed.
+   *
+   * @param result the crawl's result, or {@code null} if the crawl failed and has none.
+   * @throws UncheckedIOException if any event could not be written.
+   */
+  void finish(CrawlResult result) {
+    if (this == DISABLED) {
+      return;
+    }
+    // Lets a write in progress complete, rather than interrupting it and closing the file.
+    executor.shutdown();
+    try {
+      executor.awaitTermination(1, TimeUnit.MINUTES);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    synchronized (this) {
+      drain();
+      try {
+        if (failure == null && result != null) {
+          writer.writeResult(result);
+        }
+        writer.close();
+        if (path == null) {
+          // Leaves System.out open for whatever is written after the crawl.
+          out.flush();
+        } else {
+          out.close();
+        }
+      } catch (IOException e) {
+        failure = failure == null ? e : failure;
+      }
+      if (failure != null) {
+        throw new UncheckedIOException(failure);
+      }
+    }
+  }
+
+  /**
+   * Writes the queued pages, and adds their words to the running counts.
+   */
+  private synchronized void drain() {
+    if (failure != null) {
+      visited.clear();
+      return;
+    }
+    try {
+      Page page;
+      boolean wrote = false;
+      while ((page = visited.poll()) != null) {
+        writer.writePage(page.url, page.wordCounts);
+        page.wordCounts.forEach((word, count) -> counts.merge(word, count, Integer::sum));
+        urlsVisited++;
+        wrote = true;
+      }
+      if (wrote) {
+        writer.flush();
+      }
+    } catch (IOException e) {
+      // Stops writing, and reports the failure when the crawl finishes.
+      failure = e;
+    }
+  }
+
+  private synchronized void snapshot() {
+    drain();
+    if (failure != null) {
+      return;
+    }
+    try {
+      writer.writeSnapshot(urlsVisited, WordCounts.sort(counts, popularWordCount));
+      writer.flush();
+    } catch (IOException e) {
+      failure = e;
+    }
+  }
+
+  /**
+   * A page that a crawler thread has visited.
+   */
+  private static final class Page {
+    private final String url;
+    private final Map<String, Integer> wordCounts;
+
+    Page(String url, Map<String, Integer> wordCounts) {
+      this.url = Objects.requireNonNull(url);
+      this.wordCounts = Objects.requireNonNull(wordCounts);
+    }
+  }
+}
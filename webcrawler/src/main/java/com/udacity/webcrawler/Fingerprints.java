@@ -0,0 +1,33 @@
+package com.udacity.webcrawler;
+
+/**
+ * Utility class that computes well-mixed 64-bit hashes ("fingerprints") of strings.
+ *
+ * <p>Unlike {@link String#hashCode()}, every bit of a fingerprint depends on every character of
+ * the string, so fingerprints can be split into several independent smaller hashes.
+ */
+final class Fingerprints {
+
+  /**
+   * Returns the 64-bit fingerprint of the given characters.
+   */
+  static long fingerprint64(CharSequence chars) {
+    // FNV-1a over the UTF-16 code units, followed by MurmurHash3's 64-bit finalizer to spread the
+    // entropy of the last few characters across all the bits.
+    long h = 0xcbf29ce484222325L;
+    for (int i = 0; i < chars.length(); i++) {
+      h ^= chars.charAt(i);
+      h *= 0x100000001b3L;
+    }
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+
+  private Fingerprints() {
+    // This class cannot be instantiated
+  }
+}
@@ -0,0 +1,207 @@
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.json.CrawlResult;
+import com.udacity.webcrawler.parser.PageParser;
+import com.udacity.webcrawler.parser.PageParserFactory;
+import com.udacity.webcrawler.profiler.Profiler;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A concrete implementation of {@link WebCrawler} that runs a fixed pool of worker threads, all
+ * pulling URLs from a shared {@link CrawlFrontier}.
+ *
+ * <p>Unlike {@link ParallelWebCrawler}, workers never wait on each other: links discovered on a
+ * page are pushed onto the frontier, and whichever worker is free next picks them up.
+ */
+final class FrontierWebCrawler implements WebCrawler {
+
+  /**
+   * The maximum number of URLs that can be waiting in the frontier at once. Links discovered while
+   * the frontier is full are not followed.
+   */
+  private static final int FRONTIER_CAPACITY = 1_000_000;
+
+  private final Clock clock;
+  private final PageParserFactory parserFactory;
+  private final Provider<VisitedUrlSet> visitedUrlSets;
+  private final Provider<HostLimiter> hostLimiters;
+  private final Provider<CrawlCheckpointer> checkpointers;
+  private final CrawlResultStream resultStream;
+  private final RobotsTxtCache robotsTxt;
+  private final Profiler profiler;
+  private final Duration timeout;
+  private final int popularWordCount;
+  private final int maxDepth;
+  private final IgnoredUrlMatcher ignoredUrls;
+  private final int threadCount;
+
+  @Inject
+  FrontierWebCrawler(
+      Clock clock,
+      PageParserFactory parserFactory,
+      Provider<VisitedUrlSet> visitedUrlSets,
+      Provider<HostLimiter> hostLimiters,
+      Provider<CrawlCheckpointer> checkpointers,
+      CrawlResultStream resultStream,
+      RobotsTxtCache robotsTxt,
+      Profiler profiler,
+      @Timeout Duration timeout,
+      @PopularWordCount int popularWordCount,
+      @MaxDepth int maxDepth,
+      IgnoredUrlMatcher ignoredUrls,
+      @TargetParallelism int threadCount) {
+    this.clock = clock;
+    this.parserFactory = parserFactory;
+    this.visitedUrlSets = visitedUrlSets;
+    this.hostLimiters = hostLimiters;
+    this.checkpointers = checkpointers;
+    this.resultStream = resultStream;
+    this.robotsTxt = robotsTxt;
+    this.profiler = profiler;
+    this.timeout = timeout;
+    this.popularWordCount = popularWordCount;
+    this.maxDepth = maxDepth;
+    this.ignoredUrls = ignoredUrls;
+    this.threadCount = Math.max(1, Math.min(threadCount, getMaxParallelism()));
+  }
+
+  @Override
+  public CrawlResult crawl(List<String> startingUrls) {
+    Instant deadline = clock.instant().plus(timeout);
+    WordCountAccumulator counts = new WordCountAccumulator();
+    VisitedUrlSet visitedUrls = visitedUrlSets.get();
+    LongAdder cancelledFetches = new LongAdder();
+    HostLimiter hostLimiter = hostLimiters.get();
+    CrawlFrontier frontier = new CrawlFrontier(FRONTIER_CAPACITY, hostLimiter);
+    CrawlCheckpointer checkpointer = checkpointers.get();
+    List<String> allowedUrls = new ArrayList<>();
+    for (String url : startingUrls) {
+      if (!ignoredUrls.matches(url) && robotsTxt.isAllowed(url, deadline)) {
+        allowedUrls.add(url);
+      }
+    }
+    CrawlCheckpointer.State initial = checkpointer.start(allowedUrls, maxDepth);
+    initial.restore(counts, visitedUrls);
+    initial.getPendingUrls().forEach(frontier::offer);
+
+    ExecutorService workers = Executors.newFixedThreadPool(threadCount);
+    try {
+      List<Callable<Void>> tasks = new ArrayList<>();
+      for (int i = 0; i < threadCount; i++) {
+        tasks.add(() -> {
+          work(frontier, deadline, counts, visitedUrls, cancelledFetches, checkpointer);
+          return null;
+        });
+      }
+      for (Future<Void> future : workers.invokeAll(tasks)) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      frontier.close();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new RuntimeException(e.getCause());
+    } finally {
+      workers.shutdownNow();
+      checkpointer.finish();
+    }
+    hostLimiter.recordQueueSizes(profiler, FrontierWebCrawler.class);
+
+    if (counts.isEmpty()) {
+      return new CrawlResult.Builder()
+          .setWordCounts(counts.toMap())
+          .setUrlsVisited(visitedUrls.size())
+          .setCancelledFetches(cancelledFetches.intValue())
+          .build();
+    }
+
+    return new CrawlResult.Builder()
+        .setWordCounts(WordCounts.sort(counts.toMap(), popularWordCount))
+        .setUrlsVisited(visitedUrls.size())
+        .setCancelledFetches(cancelledFetches.intValue())
+        .build();
+  }
+
+  @Override
+  public int getMaxParallelism() {
+    return Runtime.getRuntime().availableProcessors();
+  }
+
+  /**
+   * Runs on each worker thread until the frontier runs out of work.
+   */
+  private void work(
+      CrawlFrontier frontier,
+      Instant deadline,
+      WordCountAccumulator counts,
+      VisitedUrlSet visitedUrls,
+      LongAdder cancelledFetches,
+      CrawlCheckpointer checkpointer) throws InterruptedException {
+    CrawlFrontier.Entry entry;
+    while ((entry = frontier.take()) != null) {
+      try {
+        visit(entry, frontier, deadline, counts, visitedUrls, cancelledFetches, checkpointer);
+      } finally {
+        frontier.complete(entry);
+      }
+    }
+  }
+
+  private void visit(
+      CrawlFrontier.Entry entry,
+      CrawlFrontier frontier,
+      Instant deadline,
+      WordCountAccumulator counts,
+      VisitedUrlSet visitedUrls,
+      LongAdder cancelledFetches,
+      CrawlCheckpointer checkpointer) {
+    if (clock.instant().isAfter(deadline)) {
+      frontier.close();
+      return;
+    }
+    String url = entry.getUrl();
+    if (!visitedUrls.add(url)) {
+      // Already visited, perhaps under another spelling of the URL. Take it off the checkpoint's
+      // frontier too.
+      checkpointer.recordPage(url, Map.of(), List.of(), 0);
+      return;
+    }
+    PageParser.Result result = parserFactory.get(url, deadline).parse();
+    if (result.isCancelled()) {
+      cancelledFetches.increment();
+      frontier.close();
+      return;
+    }
+    counts.addAll(result.getWordCounts());
+    List<String> links = new ArrayList<>();
+    if (entry.getDepth() > 1) {
+      for (String link : result.getLinks()) {
+        if (!visitedUrls.contains(link)
+            && !ignoredUrls.matches(link)
+            && robotsTxt.isAllowed(link, deadline)) {
+          frontier.offer(link, entry.getDepth() - 1);
+          links.add(link);
+        }
+      }
+    }
+    checkpointer.recordPage(url, result.getWordCounts(), links, entry.getDepth() - 1);
+    resultStream.pageVisited(url, result.getWordCounts());
+  }
+}
@@ -0,0 +1,48 @@
+package com.udacity.webcrawler;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link VisitedUrlSet} that keeps the canonical form of each visited URL in a concurrent hash
+ * set.
+ *
+ * <p>There is deliberately no Bloom filter in front of the set. Every URL has to be normalized
+ * before either could be checked, which costs more than the hash lookup a filter would save, and
+ * since the set still holds every URL in full, a filter would only add memory. Crawls that need
+ * a smaller set should use {@link OffHeapVisitedUrlSet}, which keeps compact fingerprints instead.
+ */
+final class HashVisitedUrlSet implements VisitedUrlSet {
+
+  private final Set<String> urls;
+
+  /**
+   * Creates an empty set.
+   */
+  HashVisitedUrlSet() {
+    urls = ConcurrentHashMap.newKeySet();
+  }
+
+  /**
+   * Creates an empty set with room for the given number of URLs, so that it does not have to grow
+   * while they are added.
+   */
+  HashVisitedUrlSet(int expectedSize) {
+    urls = ConcurrentHashMap.newKeySet(expectedSize);
+  }
+
+  @Override
+  public boolean add(String url) {
+    return urls.add(UrlNormalizer.normalize(url));
+  }
+
+  @Override
+  public boolean contains(String url) {
+    return urls.contains(UrlNormalizer.normalize(url));
+  }
+
+  @Override
+  public int size() {
+    return urls.size();
+  }
+}
@@ -0,0 +1,180 @@
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.profiler.Profiler;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps a crawl polite to each host, by limiting how many of its pages are downloaded at once and
+ * how soon one download from it may start after another.
+ *
+ * <p>Each crawl should use its own instance. All methods are thread-safe.
+ */
+final class HostLimiter {
+
+  /**
+   * The number of hosts, with the longest queues, that {@link #recordQueueSizes} reports.
+   */
+  static final int REPORTED_HOSTS = 10;
+
+  private final int maxConcurrency;
+  private final long minDelayNanos;
+  private final LongSupplier nanoTime;
+  private final Map<String, Host> hosts = new HashMap<>();
+
+  /**
+   * Creates a limiter that lets at most {@code maxConcurrency} downloads from each host run at
+   * once, and starts them at least {@code minDelay} apart. A {@code maxConcurrency} of 0 means no
+   * limit.
+   */
+  HostLimiter(int maxConcurrency, Duration minDelay) {
+    this(maxConcurrency, minDelay, System::nanoTime);
+  }
+
+  HostLimiter(int maxConcurrency, Duration minDelay, LongSupplier nanoTime) {
+    if (maxConcurrency < 0) {
+      throw new IllegalArgumentException("maxConcurrency cannot be negative");
+    }
+    if (minDelay.isNegative()) {
+      throw new IllegalArgumentException("minDelay cannot be negative");
+    }
+    this.maxConcurrency = maxConcurrency;
+    this.minDelayNanos = minDelay.toNanos();
+    this.nanoTime = nanoTime;
+  }
+
+  /**
+   * Returns a limiter that never holds back any downloads.
+   */
+  static HostLimiter unlimited() {
+    return new HostLimiter(0, Duration.ZERO);
+  }
+
+  /**
+   * Returns whether this limiter never holds back any downloads.
+   */
+  boolean isUnlimited() {
+    return maxConcurrency == 0 && minDelayNanos == 0;
+  }
+
+  /**
+   * Returns the host that limits apply to for the given URL, which is empty for URLs without a
+   * host, such as local files.
+   */
+  static String hostOf(String url) {
+    try {
+      String host = new URI(url).getHost();
+      return host == null ? "" : host.toLowerCase(Locale.ROOT);
+    } catch (URISyntaxException e) {
+      return "";
+    }
+  }
+
+  /**
+   * Starts a download from the given host, if its limits allow it right now.
+   *
+   * @return 0 if the download may start, in which case it must be followed by a call to
+   *     {@link #release(String)}. Otherwise, the number of nanoseconds until the next download from
+   *     the host may start, or {@link Long#MAX_VALUE} if that depends on a current download from
+   *     the host finishing first.
+   */
+  synchronized long tryAcquire(String host) {
+    if (isUnlimited()) {
+      return 0;
+    }
+    Host state = hosts.computeIfAbsent(host, h -> new Host());
+    if (maxConcurrency > 0 && state.active >= maxConcurrency) {
+      return Long.MAX_VALUE;
+    }
+    long now = nanoTime.getAsLong();
+    if (state.started && state.nextStart - now > 0) {
+      return state.nextStart - now;
+    }
+    state.started = true;
+    state.nextStart = now + minDelayNanos;
+    state.active++;
+    return 0;
+  }
+
+  /**
+   * Starts a download from the given host, waiting until its limits allow it. Must be followed by
+   * a call to {@link #release(String)}.
+   */
+  synchronized void acquire(String host) throws InterruptedException {
+    if (isUnlimited()) {
+      return;
+    }
+    Host state = hosts.computeIfAbsent(host, h -> new Host());
+    state.queued++;
+    state.peakQueued = Math.max(state.peakQueued, state.queued);
+    try {
+      long wait;
+      while ((wait = tryAcquire(host)) != 0) {
+        if (wait == Long.MAX_VALUE) {
+          wait();
+        } else {
+          TimeUnit.NANOSECONDS.timedWait(this, wait);
+        }
+      }
+    } finally {
+      state.queued--;
+    }
+  }
+
+  /**
+   * Marks a download from the given host, started by {@link #tryAcquire(String)} or
+   * {@link #acquire(String)}, as finished.
+   */
+  synchronized void release(String host) {
+    if (isUnlimited()) {
+      return;
+    }
+    hosts.get(host).active--;
+    notifyAll();
+  }
+
+  /**
+   * Records that {@code size} URLs from the given host are waiting to be downloaded, for
+   * {@link #recordQueueSizes}.
+   */
+  synchronized void recordQueueSize(String host, int size) {
+    if (isUnlimited()) {
+      return;
+    }
+    Host state = hosts.computeIfAbsent(host, h -> new Host());
+    state.peakQueued = Math.max(state.peakQueued, size);
+  }
+
+  /**
+   * Records the largest number of URLs that were waiting at once for each of the
+   * {@link #REPORTED_HOSTS} hosts with the longest queues, as {@code
+   * <crawler class name>#host.<host>.queuePeakSize} metrics. Does nothing if this limiter is
+   * {@link #isUnlimited() unlimited}.
+   */
+  synchronized void recordQueueSizes(Profiler profiler, Class<?> crawler) {
+    String prefix = crawler.getName() + "#host.";
+    hosts.entrySet()
+        .stream()
+        .sorted(Comparator.comparingInt(
+            (Map.Entry<String, Host> e) -> e.getValue().peakQueued).reversed())
+        .limit(REPORTED_HOSTS)
+        .forEach(e -> profiler.recordMetric(
+            prefix + e.getKey() + ".queuePeakSize", e.getValue().peakQueued));
+  }
+
+  private static final class Host {
+    private int active = 0;
+    private boolean started = false;
+    private long nextStart;
+    private int queued = 0;
+    private int peakQueued = 0;
+  }
+}
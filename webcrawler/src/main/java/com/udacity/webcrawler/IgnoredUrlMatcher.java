@@ -0,0 +1,182 @@
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.regex.PatternLiterals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Decides whether a URL is matched by any of the ignored URL {@link Pattern}s, at a cost that stays
+ * nearly flat as the list grows.
+ *
+ * <p>The list is compiled once, in two parts:
+ *
+ * <ul>
+ *   <li>Patterns that are a plain piece of URL with {@code .*} on either side or neither, like
+ *       {@code "https://example\\.com/private/.*"} or {@code ".*-loop\\.html"}, go into prefix
+ *       tries, so that all of them are checked with a few walks along the URL.</li>
+ *   <li>All the other patterns are joined into a single alternation, so that they are checked with
+ *       one regular expression match instead of one per pattern. The few patterns that cannot be
+ *       joined without changing their meaning, such as ones with compile flags or backreferences,
+ *       are kept apart.</li>
+ * </ul>
+ *
+ * <p>Instances are immutable and thread-safe.
+ */
+final class IgnoredUrlMatcher {
+
+  /**
+   * The patterns without a leading {@code .*}, read from the start of the URL.
+   */
+  private final CharTrie<Boolean> prefixes;
+
+  /**
+   * The patterns with only a leading {@code .*}, read backwards from the end of the URL.
+   */
+  private final CharTrie<Boolean> suffixes;
+
+  /**
+   * The patterns with a leading and a trailing {@code .*}, read from every position in the URL.
+   */
+  private final CharTrie<Boolean> infixes;
+  private final List<Pattern> patterns;
+
+  private IgnoredUrlMatcher(
+      CharTrie<Boolean> prefixes,
+      CharTrie<Boolean> suffixes,
+      CharTrie<Boolean> infixes,
+      List<Pattern> patterns) {
+    this.prefixes = prefixes;
+    this.suffixes = suffixes;
+    this.infixes = infixes;
+    this.patterns = patterns;
+  }
+
+  /**
+   * Compiles the given ignored URL patterns. A URL is ignored if it fully matches any of them.
+   */
+  static IgnoredUrlMatcher compile(List<Pattern> ignoredUrls) {
+    CharTrie<Boolean> prefixes = new CharTrie<>();
+    CharTrie<Boolean> suffixes = new CharTrie<>();
+    CharTrie<Boolean> infixes = new CharTrie<>();
+    List<Pattern> others = new ArrayList<>();
+    for (Pattern pattern : ignoredUrls) {
+      if (!addToTrie(prefixes, suffixes, infixes, pattern)) {
+        others.add(pattern);
+      }
+    }
+    return new IgnoredUrlMatcher(prefixes, suffixes, infixes, PatternLiterals.join(others));
+  }
+
+  /**
+   * Returns whether the given URL fully matches any of the ignored URL patterns.
+   */
+  boolean matches(String url) {
+    // A ".*" does not match line terminators, so it cannot stand for a part of the URL that
+    // includes one. URLs almost never have any.
+    int firstTerminator = url.length();
+    int lastTerminator = -1;
+    for (int i = 0; i < url.length(); i++) {
+      if (isLineTerminator(url.charAt(i))) {
+        firstTerminator = Math.min(firstTerminator, i);
+        lastTerminator = i;
+      }
+    }
+
+    CharTrie<Boolean> node = prefixes;
+    for (int i = 0; node != null; i++) {
+      if (node.value() != null && lastTerminator < i) {
+        return true;
+      }
+      if (i == url.length()) {
+        if (node.anchoredValue() != null) {
+          return true;
+        }
+        break;
+      }
+      node = node.child(url.charAt(i));
+    }
+
+    node = suffixes;
+    for (int i = url.length(); node != null; i--) {
+      if (node.value() != null && firstTerminator >= i) {
+        return true;
+      }
+      if (i == 0) {
+        break;
+      }
+      node = node.child(url.charAt(i - 1));
+    }
+
+    if (!infixes.isEmpty()) {
+      for (int start = 0; start <= Math.min(url.length(), firstTerminator); start++) {
+        node = infixes;
+        for (int i = start; node != null; i++) {
+          if (node.value() != null && lastTerminator < i) {
+            return true;
+          }
+          if (i == url.length()) {
+            break;
+          }
+          node = node.child(url.charAt(i));
+        }
+      }
+    }
+
+    for (Pattern pattern : patterns) {
+      if (pattern.matcher(url).matches()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Adds the given pattern to one of the tries, if it is a plain piece of URL, optionally with
+   * {@code .*} before or after it.
+   *
+   * @return whether the pattern was added.
+   */
+  private static boolean addToTrie(
+      CharTrie<Boolean> prefixes,
+      CharTrie<Boolean> suffixes,
+      CharTrie<Boolean> infixes,
+      Pattern pattern) {
+    if (pattern.flags() != 0) {
+      return false;
+    }
+    String regex = PatternLiterals.stripAnchors(pattern.pattern());
+    int start = 0;
+    int end = regex.length();
+    boolean leading = end - start >= 2 && regex.startsWith(".*", start);
+    if (leading) {
+      start += 2;
+    }
+    boolean trailing =
+        end - start >= 2
+            && regex.startsWith(".*", end - 2)
+            && !PatternLiterals.isEscaped(regex, end - 2);
+    if (trailing) {
+      end -= 2;
+    }
+    String literal = PatternLiterals.toLiteral(regex, start, end);
+    if (literal == null) {
+      return false;
+    }
+    // A pattern with a trailing ".*" matches whatever follows it, and one without only matches if
+    // nothing does.
+    if (!leading) {
+      prefixes.insert(literal, !trailing, true, Boolean::logicalOr);
+    } else if (!trailing) {
+      suffixes.insert(new StringBuilder(literal).reverse(), false, true, Boolean::logicalOr);
+    } else {
+      infixes.insert(literal, false, true, Boolean::logicalOr);
+    }
+    return true;
+  }
+
+  private static boolean isLineTerminator(char c) {
+    return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+  }
+}
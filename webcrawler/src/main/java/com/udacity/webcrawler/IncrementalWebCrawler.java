@@ -0,0 +1,39 @@
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.json.CrawlResult;
+import com.udacity.webcrawler.parser.CrawlHistory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A {@link WebCrawler} that saves the {@link CrawlHistory} at the end of every crawl, so that the
+ * next crawl, in this run or a later one, only parses the pages that changed.
+ */
+final class IncrementalWebCrawler implements WebCrawler {
+  private final WebCrawler delegate;
+  private final CrawlHistory history;
+
+  IncrementalWebCrawler(WebCrawler delegate, CrawlHistory history) {
+    this.delegate = Objects.requireNonNull(delegate);
+    this.history = Objects.requireNonNull(history);
+  }
+
+  @Override
+  public CrawlResult crawl(List<String> startingUrls) {
+    CrawlResult result = delegate.crawl(startingUrls);
+    try {
+      history.save();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return result;
+  }
+
+  @Override
+  public int getMaxParallelism() {
+    return delegate.getMaxParallelism();
+  }
+}
@@ -0,0 +1,119 @@
+package com.udacity.webcrawler;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link VisitedUrlSet} that keeps a 64-bit {@link Fingerprints fingerprint} of each visited URL
+ * in a fixed-size, open-addressing hash table outside of the Java heap.
+ *
+ * <p>The table is allocated once, up front, so it uses the same 8 bytes per slot however long the
+ * URLs are, and adds nothing for the garbage collector to scan. In exchange:
+ *
+ * <ul>
+ *   <li>Two different URLs with the same fingerprint are treated as the same page. With 64-bit
+ *       fingerprints this is vanishingly unlikely, even for hundreds of millions of URLs.</li>
+ *   <li>Once the table holds {@link #getMaxSize()} URLs, it is full and every new URL is reported
+ *       as already visited, so the crawler stops following new links.</li>
+ * </ul>
+ */
+final class OffHeapVisitedUrlSet implements VisitedUrlSet {
+
+  /**
+   * The largest number of slots in a table, which keeps it within a single {@link ByteBuffer}.
+   */
+  static final int MAX_SLOTS = 1 << 27;
+
+  private static final int MIN_SLOTS = 1 << 10;
+
+  /**
+   * Inserts stop once this fraction of the slots are in use, so that probes stay short.
+   */
+  private static final double MAX_LOAD_FACTOR = 0.75;
+
+  /**
+   * Marks an empty slot. A URL whose fingerprint happens to be 0 is stored as 1 instead.
+   */
+  private static final long EMPTY = 0;
+
+  private static final VarHandle SLOTS =
+      MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+  private final ByteBuffer table;
+  private final int mask;
+  private final int maxSize;
+  private final AtomicInteger size = new AtomicInteger();
+
+  /**
+   * Creates an empty set with room for at least {@code expectedSize} URLs, or as many as fit in
+   * {@link #MAX_SLOTS} slots.
+   */
+  OffHeapVisitedUrlSet(int expectedSize) {
+    long wanted = Math.max(MIN_SLOTS, (long) Math.ceil(expectedSize / MAX_LOAD_FACTOR));
+    int slots = (int) Math.min(MAX_SLOTS, Long.highestOneBit(wanted - 1) << 1);
+    this.table = ByteBuffer.allocateDirect(slots * Long.BYTES);
+    this.mask = slots - 1;
+    this.maxSize = (int) (slots * MAX_LOAD_FACTOR);
+  }
+
+  @Override
+  public boolean add(String url) {
+    long fingerprint = fingerprint(url);
+    int slot = (int) fingerprint & mask;
+    while (true) {
+      long current = (long) SLOTS.getVolatile(table, slot * Long.BYTES);
+      if (current == fingerprint) {
+        return false;
+      }
+      if (current == EMPTY) {
+        if (size.get() >= maxSize) {
+          // The table is full. Treat the URL as visited rather than growing past the fixed size.
+          return false;
+        }
+        if (SLOTS.compareAndSet(table, slot * Long.BYTES, EMPTY, fingerprint)) {
+          size.incrementAndGet();
+          return true;
+        }
+        // Another thread just claimed this slot, possibly for the same URL. Look at it again.
+        continue;
+      }
+      slot = (slot + 1) & mask;
+    }
+  }
+
+  @Override
+  public boolean contains(String url) {
+    long fingerprint = fingerprint(url);
+    int slot = (int) fingerprint & mask;
+    while (true) {
+      long current = (long) SLOTS.getVolatile(table, slot * Long.BYTES);
+      if (current == fingerprint) {
+        return true;
+      }
+      if (current == EMPTY) {
+        return false;
+      }
+      slot = (slot + 1) & mask;
+    }
+  }
+
+  @Override
+  public int size() {
+    return size.get();
+  }
+
+  /**
+   * Returns the number of URLs this set can hold before it is full.
+   */
+  int getMaxSize() {
+    return maxSize;
+  }
+
+  private static long fingerprint(String url) {
+    long fingerprint = Fingerprints.fingerprint64(UrlNormalizer.normalize(url));
+    return fingerprint == EMPTY ? 1 : fingerprint;
+  }
+}
@@ -3,14 +3,16 @@ package com.udacity.webcrawler;
 import com.udacity.webcrawler.json.CrawlResult;
 import com.udacity.webcrawler.parser.PageParser;
 import com.udacity.webcrawler.parser.PageParserFactory;
+import com.udacity.webcrawler.profiler.Profiler;
 
 import javax.inject.Inject;
+import javax.inject.Provider;
 import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.regex.Pattern;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * A concrete implementation of {@link WebCrawler} that runs multiple threads on a
@@ -21,51 +23,109 @@ final class ParallelWebCrawler implements WebCrawler {
     private final Duration timeout;
     private final int popularWordCount;
     private final int maxDepth;
-    private final List<Pattern> ignoredUrls;
+    private final IgnoredUrlMatcher ignoredUrls;
     private final ForkJoinPool pool;
     private final PageParserFactory parserFactory;
-
+    private final Provider<VisitedUrlSet> visitedUrlSets;
+    private final Provider<HostLimiter> hostLimiters;
+    private final Provider<CrawlCheckpointer> checkpointers;
+    private final CrawlResultStream resultStream;
+    private final RobotsTxtCache robotsTxt;
+    private final Profiler profiler;
 
     @Inject
     ParallelWebCrawler(
             Clock clock,
             PageParserFactory parserFactory,
+            Provider<VisitedUrlSet> visitedUrlSets,
+            Provider<HostLimiter> hostLimiters,
+            Provider<CrawlCheckpointer> checkpointers,
+            CrawlResultStream resultStream,
+            RobotsTxtCache robotsTxt,
+            Profiler profiler,
             @Timeout Duration timeout,
             @PopularWordCount int popularWordCount,
             @MaxDepth int maxDepth,
-            @IgnoredUrls List<Pattern> ignoredUrls,
+            IgnoredUrlMatcher ignoredUrls,
             @TargetParallelism int threadCount) {
         this.clock = clock;
         this.parserFactory = parserFactory;
+        this.visitedUrlSets = visitedUrlSets;
+        this.hostLimiters = hostLimiters;
+        this.checkpointers = checkpointers;
+        this.resultStream = resultStream;
+        this.robotsTxt = robotsTxt;
+        this.profiler = profiler;
         this.timeout = timeout;
         this.popularWordCount = popularWordCount;
         this.maxDepth = maxDepth;
         this.ignoredUrls = ignoredUrls;
-        this.pool = new ForkJoinPool(Math.min(threadCount, getMaxParallelism()));
+        int parallelism = Math.min(threadCount, getMaxParallelism());
+        // A worker that waits on a per-host limit asks the pool for a spare thread. Allow at most
+        // one spare for each worker, rather than the default of thousands, so that a crawl of a
+        // single host cannot grow a thread for every queued page. Past that, the waiting worker
+        // just blocks.
+        this.pool = new ForkJoinPool(
+                parallelism,
+                ForkJoinPool.defaultForkJoinWorkerThreadFactory,
+                null,
+                false,
+                parallelism,
+                2 * parallelism,
+                1,
+                forkJoinPool -> true,
+                60,
+                TimeUnit.SECONDS);
     }
 
     @Override
     public CrawlResult crawl(List<String> startingUrls) {
         Instant deadline = clock.instant().plus(timeout);
-        ConcurrentMap<String, Integer> counts = new ConcurrentHashMap<>();
-        ConcurrentSkipListSet<String> visitedUrls = new ConcurrentSkipListSet<>();
+        WordCountAccumulator counts = new WordCountAccumulator();
+        VisitedUrlSet visitedUrls = visitedUrlSets.get();
+        LongAdder cancelledFetches = new LongAdder();
+        HostLimiter hostLimiter = hostLimiters.get();
+        CrawlCheckpointer checkpointer = checkpointers.get();
 
+        List<String> allowedUrls = new ArrayList<>();
         for (String url : startingUrls) {
-            pool.invoke(
+            if (!ignoredUrls.matches(url) && robotsTxt.isAllowed(url, deadline)) {
+                allowedUrls.add(url);
+            }
+        }
+        CrawlCheckpointer.State initial = checkpointer.start(allowedUrls, maxDepth);
+        initial.restore(counts, visitedUrls);
+        List<CrawlInternalTask> tasks = new ArrayList<>();
+        for (Map.Entry<String, Integer> pending : initial.getPendingUrls().entrySet()) {
+            tasks.add(
                     new CrawlInternalTask(
-                            url, deadline, maxDepth, counts, visitedUrls, clock, parserFactory, ignoredUrls));
+                            pending.getKey(), deadline, pending.getValue(), counts, visitedUrls,
+                            cancelledFetches, hostLimiter, robotsTxt, clock, parserFactory,
+                            ignoredUrls, checkpointer, resultStream));
         }
+        try {
+            // All in one go, so that a resumed crawl's frontier is crawled in parallel, rather than
+            // one pending URL at a time.
+            pool.invoke(ForkJoinTask.adapt(() -> {
+                ForkJoinTask.invokeAll(tasks);
+            }));
+        } finally {
+            checkpointer.finish();
+        }
+        hostLimiter.recordQueueSizes(profiler, ParallelWebCrawler.class);
         if (counts.isEmpty()) {
             return new CrawlResult
                     .Builder()
-                    .setWordCounts(counts)
+                    .setWordCounts(counts.toMap())
                     .setUrlsVisited(visitedUrls.size())
+                    .setCancelledFetches(cancelledFetches.intValue())
                     .build();
         }
         return new CrawlResult
                 .Builder()
-                .setWordCounts(WordCounts.sort(counts, popularWordCount))
+                .setWordCounts(WordCounts.sort(counts.toMap(), popularWordCount))
                 .setUrlsVisited(visitedUrls.size())
+                .setCancelledFetches(cancelledFetches.intValue())
                 .build();
     }
 
@@ -78,30 +138,45 @@ final class ParallelWebCrawler implements WebCrawler {
         private final String url;
         private final Instant deadline;
         private final int maxDepth;
-        private final ConcurrentMap<String, Integer> counts;
-        private final ConcurrentSkipListSet<String> visitedUrls;
+        private final WordCountAccumulator counts;
+        private final VisitedUrlSet visitedUrls;
+        private final LongAdder cancelledFetches;
+        private final HostLimiter hostLimiter;
+        private final RobotsTxtCache robotsTxt;
         private final Clock clock;
         @Inject
         private final PageParserFactory parserFactory;
-        private final List<Pattern> ignoredUrls;
+        private final IgnoredUrlMatcher ignoredUrls;
+        private final CrawlCheckpointer checkpointer;
+        private final CrawlResultStream resultStream;
 
         public CrawlInternalTask(
                 String url,
                 Instant deadline,
                 int maxDepth,
-                ConcurrentMap<String, Integer> counts,
-                ConcurrentSkipListSet<String> visitedUrls,
+                WordCountAccumulator counts,
+                VisitedUrlSet visitedUrls,
+                LongAdder cancelledFetches,
+                HostLimiter hostLimiter,
+                RobotsTxtCache robotsTxt,
                 Clock clock,
                 PageParserFactory parserFactory,
-                List<Pattern> ignoredUrls) {
+                IgnoredUrlMatcher ignoredUrls,
+                CrawlCheckpointer checkpointer,
+                CrawlResultStream resultStream) {
             this.url = url;
             this.deadline = deadline;
             this.maxDepth = maxDepth;
             this.counts = counts;
             this.visitedUrls = visitedUrls;
+            this.cancelledFetches = cancelledFetches;
+            this.hostLimiter = hostLimiter;
+            this.robotsTxt = robotsTxt;
             this.clock = clock;
             this.parserFactory = parserFactory;
             this.ignoredUrls = ignoredUrls;
+            this.checkpointer = checkpointer;
+            this.resultStream = resultStream;
         }
 
         @Override
@@ -109,33 +184,85 @@ final class ParallelWebCrawler implements WebCrawler {
             if (maxDepth == 0 || clock.instant().isAfter(deadline)) {
                 return false;
             }
-            for (Pattern pattern : ignoredUrls) {
-                if (pattern.matcher(url).matches()) {
-                    return false;
-                }
-            }
 //            if (!visitedUrls.contains(url)) {
 //                return false;
 //            }
 //            visitedUrls.add(url);
 //             for threadsafe (atomic)
             if(!visitedUrls.add(url)) {
+                // Already visited, perhaps under another spelling of the URL. Take it off the
+                // checkpoint's frontier too.
+                checkpointer.recordPage(url, Map.of(), List.of(), 0);
+                return false;
+            }
+            PageParser.Result result = parse();
+            if (result == null) {
                 return false;
             }
-            PageParser.Result result = parserFactory.get(url).parse();
-            for (Map.Entry<String, Integer> e : result.getWordCounts().entrySet()) {
-                counts.compute(e.getKey(), (k, v) -> (v == null) ? e.getValue() : e.getValue() + v);
+            if (result.isCancelled()) {
+                cancelledFetches.increment();
+                return false;
             }
+            counts.addAll(result.getWordCounts());
             List<CrawlInternalTask> subTasks = new ArrayList<>();
+            List<String> links = new ArrayList<>();
             for (String link : result.getLinks()) {
+                // Ignored links are dropped here, so they never become tasks.
+                if (visitedUrls.contains(link)
+                        || ignoredUrls.matches(link)
+                        || !robotsTxt.isAllowed(link, deadline)) {
+                    continue;
+                }
+                links.add(link);
                 subTasks.add(
                         new CrawlInternalTask(
-                                link, deadline, maxDepth - 1, counts, visitedUrls,
-                                clock, parserFactory, ignoredUrls));
+                                link, deadline, maxDepth - 1, counts, visitedUrls, cancelledFetches,
+                                hostLimiter, robotsTxt, clock, parserFactory, ignoredUrls,
+                                checkpointer, resultStream));
             }
+            checkpointer.recordPage(url, result.getWordCounts(), links, maxDepth - 1);
+            resultStream.pageVisited(url, result.getWordCounts());
             invokeAll(subTasks);
             return true;
         }
+
+        /**
+         * Downloads and parses the page, once its host's limits allow it. Returns {@code null} if
+         * the thread was interrupted while waiting.
+         */
+        private PageParser.Result parse() {
+            if (hostLimiter.isUnlimited()) {
+                return parserFactory.get(url, deadline).parse();
+            }
+            String host = HostLimiter.hostOf(url);
+            try {
+                // Tells the pool that this worker is blocked, so it can start another one, if it
+                // has a spare, to keep pages from other hosts moving in the meantime.
+                ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+                    private boolean acquired = false;
+
+                    @Override
+                    public boolean block() throws InterruptedException {
+                        hostLimiter.acquire(host);
+                        acquired = true;
+                        return true;
+                    }
+
+                    @Override
+                    public boolean isReleasable() {
+                        return acquired;
+                    }
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            try {
+                return parserFactory.get(url, deadline).parse();
+            } finally {
+                hostLimiter.release(host);
+            }
+        }
     }
 
 }
@@ -0,0 +1,35 @@
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.json.CrawlResult;
+import com.udacity.webcrawler.parser.ParseResultCache;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A {@link WebCrawler} that records the hits and misses of the {@link ParseResultCache} with the
+ * profiler at the end of every crawl, so that the crawler threads only have to count them.
+ */
+final class ParseCacheMetricsWebCrawler implements WebCrawler {
+  private final WebCrawler delegate;
+  private final ParseResultCache cache;
+
+  ParseCacheMetricsWebCrawler(WebCrawler delegate, ParseResultCache cache) {
+    this.delegate = Objects.requireNonNull(delegate);
+    this.cache = Objects.requireNonNull(cache);
+  }
+
+  @Override
+  public CrawlResult crawl(List<String> startingUrls) {
+    try {
+      return delegate.crawl(startingUrls);
+    } finally {
+      cache.recordMetrics();
+    }
+  }
+
+  @Override
+  public int getMaxParallelism() {
+    return delegate.getMaxParallelism();
+  }
+}
@@ -0,0 +1,367 @@
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.json.CrawlResult;
+import com.udacity.webcrawler.parser.FetchedPage;
+import com.udacity.webcrawler.parser.PageFetcher;
+import com.udacity.webcrawler.parser.PageParser;
+import com.udacity.webcrawler.parser.PageParserFactory;
+import com.udacity.webcrawler.profiler.Profiler;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link WebCrawler} that splits each page into two pipelined stages: a download stage and a
+ * parse stage, each running on its own pool of threads.
+ *
+ * <p>The download stage runs up to {@code "parallelism"} threads, since they spend most of their
+ * time waiting for the network. Downloaded pages are handed to the parse stage, which runs one
+ * thread per CPU core, through a bounded queue. When the parse stage falls behind and the queue
+ * fills up, downloads pause until there is room again.
+ *
+ * <p>At the end of each crawl, the size of each stage's queue and the throughput of each stage are
+ * recorded with the {@link Profiler}.
+ */
+final class PipelinedWebCrawler implements WebCrawler {
+
+  private static final int MAX_FETCH_THREADS = 256;
+
+  private static final int FRONTIER_CAPACITY = 1_000_000;
+
+  /**
+   * The number of downloaded pages that can wait for each parse thread before downloads pause.
+   */
+  private static final int PAGES_PER_PARSE_THREAD = 4;
+
+  /**
+   * Put on the parse queue once per parse thread to tell it that there are no more pages.
+   */
+  private static final DownloadedPage END_OF_PAGES = new DownloadedPage(null, null);
+
+  private final Clock clock;
+  private final PageFetcher fetcher;
+  private final PageParserFactory parserFactory;
+  private final Provider<VisitedUrlSet> visitedUrlSets;
+  private final Provider<HostLimiter> hostLimiters;
+  private final Provider<CrawlCheckpointer> checkpointers;
+  private final CrawlResultStream resultStream;
+  private final RobotsTxtCache robotsTxt;
+  private final Profiler profiler;
+  private final Duration timeout;
+  private final int popularWordCount;
+  private final int maxDepth;
+  private final IgnoredUrlMatcher ignoredUrls;
+  private final int fetchThreads;
+  private final int parseThreads;
+
+  @Inject
+  PipelinedWebCrawler(
+      Clock clock,
+      PageFetcher fetcher,
+      PageParserFactory parserFactory,
+      Provider<VisitedUrlSet> visitedUrlSets,
+      Provider<HostLimiter> hostLimiters,
+      Provider<CrawlCheckpointer> checkpointers,
+      CrawlResultStream resultStream,
+      RobotsTxtCache robotsTxt,
+      Profiler profiler,
+      @Timeout Duration timeout,
+      @PopularWordCount int popularWordCount,
+      @MaxDepth int maxDepth,
+      IgnoredUrlMatcher ignoredUrls,
+      @TargetParallelism int fetchThreads) {
+    this.clock = clock;
+    this.fetcher = fetcher;
+    this.parserFactory = parserFactory;
+    this.visitedUrlSets = visitedUrlSets;
+    this.hostLimiters = hostLimiters;
+    this.checkpointers = checkpointers;
+    this.resultStream = resultStream;
+    this.robotsTxt = robotsTxt;
+    this.profiler = profiler;
+    this.timeout = timeout;
+    this.popularWordCount = popularWordCount;
+    this.maxDepth = maxDepth;
+    this.ignoredUrls = ignoredUrls;
+    this.fetchThreads = Math.max(1, Math.min(fetchThreads, getMaxParallelism()));
+    this.parseThreads = Runtime.getRuntime().availableProcessors();
+  }
+
+  @Override
+  public CrawlResult crawl(List<String> startingUrls) {
+    Instant start = clock.instant();
+    Instant deadline = start.plus(timeout);
+    WordCountAccumulator counts = new WordCountAccumulator();
+    VisitedUrlSet visitedUrls = visitedUrlSets.get();
+    HostLimiter hostLimiter = hostLimiters.get();
+    CrawlFrontier frontier = new CrawlFrontier(FRONTIER_CAPACITY, hostLimiter);
+    CrawlCheckpointer checkpointer = checkpointers.get();
+    List<String> allowedUrls = new ArrayList<>();
+    for (String url : startingUrls) {
+      if (!ignoredUrls.matches(url) && robotsTxt.isAllowed(url, deadline)) {
+        allowedUrls.add(url);
+      }
+    }
+    CrawlCheckpointer.State initial = checkpointer.start(allowedUrls, maxDepth);
+    initial.restore(counts, visitedUrls);
+    initial.getPendingUrls().forEach(frontier::offer);
+    BlockingQueue<DownloadedPage> parseQueue =
+        new ArrayBlockingQueue<>(parseThreads * PAGES_PER_PARSE_THREAD);
+    Stats stats = new Stats();
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    ExecutorService fetchPool = Executors.newFixedThreadPool(fetchThreads);
+    ExecutorService parsePool = Executors.newFixedThreadPool(parseThreads);
+    try {
+      List<Future<Void>> parsers = new ArrayList<>();
+      for (int i = 0; i < parseThreads; i++) {
+        parsers.add(parsePool.submit(() -> {
+          parseStage(
+              parseQueue, frontier, deadline, counts, visitedUrls, stats, failure, checkpointer);
+          return null;
+        }));
+      }
+      List<Callable<Void>> fetchers = new ArrayList<>();
+      for (int i = 0; i < fetchThreads; i++) {
+        fetchers.add(() -> {
+          fetchStage(frontier, parseQueue, deadline, visitedUrls, stats, checkpointer);
+          return null;
+        });
+      }
+      for (Future<Void> future : fetchPool.invokeAll(fetchers)) {
+        future.get();
+      }
+      for (int i = 0; i < parseThreads; i++) {
+        parseQueue.put(END_OF_PAGES);
+      }
+      for (Future<Void> future : parsers) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      frontier.close();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new RuntimeException(e.getCause());
+    } finally {
+      fetchPool.shutdownNow();
+      parsePool.shutdownNow();
+      checkpointer.finish();
+    }
+    Throwable parseFailure = failure.get();
+    if (parseFailure instanceof RuntimeException) {
+      throw (RuntimeException) parseFailure;
+    }
+    if (parseFailure instanceof Error) {
+      throw (Error) parseFailure;
+    }
+    if (parseFailure != null) {
+      throw new RuntimeException(parseFailure);
+    }
+    recordStats(frontier, parseQueue, stats, Duration.between(start, clock.instant()));
+    hostLimiter.recordQueueSizes(profiler, PipelinedWebCrawler.class);
+
+    if (counts.isEmpty()) {
+      return new CrawlResult.Builder()
+          .setWordCounts(counts.toMap())
+          .setUrlsVisited(visitedUrls.size())
+          .setCancelledFetches(stats.cancelled.intValue())
+          .build();
+    }
+
+    return new CrawlResult.Builder()
+        .setWordCounts(WordCounts.sort(counts.toMap(), popularWordCount))
+        .setUrlsVisited(visitedUrls.size())
+        .setCancelledFetches(stats.cancelled.intValue())
+        .build();
+  }
+
+  @Override
+  public int getMaxParallelism() {
+    return MAX_FETCH_THREADS;
+  }
+
+  /**
+   * Runs on each download thread until the frontier runs out of work.
+   *
+   * <p>Frontier entries stay in flight until the parse stage is done with them, so that the
+   * frontier does not run dry while links are still waiting to be discovered.
+   */
+  private void fetchStage(
+      CrawlFrontier frontier,
+      BlockingQueue<DownloadedPage> parseQueue,
+      Instant deadline,
+      VisitedUrlSet visitedUrls,
+      Stats stats,
+      CrawlCheckpointer checkpointer) throws InterruptedException {
+    CrawlFrontier.Entry entry;
+    while ((entry = frontier.take()) != null) {
+      FetchedPage page = fetch(entry, frontier, deadline, visitedUrls, stats, checkpointer);
+      // Parsing does not involve the host, so let its next download start.
+      frontier.releaseHost(entry);
+      if (page == null) {
+        frontier.complete(entry);
+        continue;
+      }
+      stats.fetched.increment();
+      parseQueue.put(new DownloadedPage(entry, page));
+      stats.recordParseQueueDepth(parseQueue.size());
+    }
+  }
+
+  /**
+   * Downloads the given frontier entry, or returns {@code null} if it should not be parsed.
+   */
+  private FetchedPage fetch(
+      CrawlFrontier.Entry entry,
+      CrawlFrontier frontier,
+      Instant deadline,
+      VisitedUrlSet visitedUrls,
+      Stats stats,
+      CrawlCheckpointer checkpointer) {
+    Duration remaining = Duration.between(clock.instant(), deadline);
+    if (remaining.isNegative() || remaining.isZero()) {
+      frontier.close();
+      return null;
+    }
+    String url = entry.getUrl();
+    if (!visitedUrls.add(url)) {
+      // Already visited, perhaps under another spelling of the URL. Take it off the checkpoint's
+      // frontier too.
+      checkpointer.recordPage(url, Map.of(), List.of(), 0);
+      return null;
+    }
+    try {
+      // Give the download no more time than is left, so it cannot hold up the end of the crawl.
+      return fetcher.fetch(url, remaining.compareTo(timeout) < 0 ? remaining : timeout);
+    } catch (Exception e) {
+      if (clock.instant().isAfter(deadline)) {
+        stats.cancelled.increment();
+        frontier.close();
+      } else {
+        checkpointer.recordPage(url, Map.of(), List.of(), 0);
+        resultStream.pageVisited(url, Map.of());
+      }
+      // The page still counts as visited, but there is nothing to parse.
+      return null;
+    }
+  }
+
+  /**
+   * Runs on each parse thread until it takes {@link #END_OF_PAGES} from the queue.
+   */
+  private void parseStage(
+      BlockingQueue<DownloadedPage> parseQueue,
+      CrawlFrontier frontier,
+      Instant deadline,
+      WordCountAccumulator counts,
+      VisitedUrlSet visitedUrls,
+      Stats stats,
+      AtomicReference<Throwable> failure,
+      CrawlCheckpointer checkpointer) throws InterruptedException {
+    while (true) {
+      DownloadedPage downloaded = parseQueue.take();
+      if (downloaded == END_OF_PAGES) {
+        return;
+      }
+      try {
+        PageParser.Result result = parserFactory.get(downloaded.page, deadline).parse();
+        if (result.isCancelled()) {
+          stats.cancelled.increment();
+          frontier.close();
+          continue;
+        }
+        stats.parsed.increment();
+        counts.addAll(result.getWordCounts());
+        int linkDepth = downloaded.entry.getDepth() - 1;
+        List<String> links = new ArrayList<>();
+        if (linkDepth > 0) {
+          for (String link : result.getLinks()) {
+            if (!visitedUrls.contains(link)
+                && !ignoredUrls.matches(link)
+                && robotsTxt.isAllowed(link, deadline)) {
+              frontier.offer(link, linkDepth);
+              links.add(link);
+            }
+          }
+        }
+        checkpointer.recordPage(
+            downloaded.entry.getUrl(), result.getWordCounts(), links, linkDepth);
+        resultStream.pageVisited(downloaded.entry.getUrl(), result.getWordCounts());
+      } catch (Throwable e) {
+        // Keep draining the queue, even after an Error, so that the download threads are never
+        // stuck waiting for room. The failure is rethrown once the crawl has stopped.
+        failure.compareAndSet(null, e);
+        frontier.close();
+      } finally {
+        frontier.complete(downloaded.entry);
+      }
+    }
+  }
+
+  private void recordStats(
+      CrawlFrontier frontier,
+      BlockingQueue<DownloadedPage> parseQueue,
+      Stats stats,
+      Duration elapsed) {
+    String prefix = PipelinedWebCrawler.class.getName() + "#";
+    long elapsedMillis = Math.max(1, elapsed.toMillis());
+    profiler.recordMetric(prefix + "fetch.threads", fetchThreads);
+    profiler.recordMetric(prefix + "fetch.pages", stats.fetched.sum());
+    profiler.recordMetric(
+        prefix + "fetch.pagesPerSecond", stats.fetched.sum() * 1000 / elapsedMillis);
+    profiler.recordMetric(prefix + "fetch.queuePeakDepth", frontier.getPeakSize());
+    profiler.recordMetric(prefix + "parse.threads", parseThreads);
+    profiler.recordMetric(prefix + "parse.pages", stats.parsed.sum());
+    profiler.recordMetric(
+        prefix + "parse.pagesPerSecond", stats.parsed.sum() * 1000 / elapsedMillis);
+    profiler.recordMetric(prefix + "parse.queuePeakDepth", stats.parseQueuePeakDepth.get());
+    profiler.recordMetric(
+        prefix + "parse.queueCapacity", parseQueue.size() + parseQueue.remainingCapacity());
+  }
+
+  /**
+   * A downloaded page waiting to be parsed, along with the frontier entry it was downloaded for.
+   */
+  private static final class DownloadedPage {
+    private final CrawlFrontier.Entry entry;
+    private final FetchedPage page;
+
+    DownloadedPage(CrawlFrontier.Entry entry, FetchedPage page) {
+      this.entry = entry;
+      this.page = page;
+    }
+  }
+
+  /**
+   * Per-stage counters for a single crawl.
+   */
+  private static final class Stats {
+    private final LongAdder fetched = new LongAdder();
+    private final LongAdder parsed = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final AtomicInteger parseQueuePeakDepth = new AtomicInteger();
+
+    void recordParseQueueDepth(int depth) {
+      parseQueuePeakDepth.accumulateAndGet(depth, Math::max);
+    }
+  }
+}
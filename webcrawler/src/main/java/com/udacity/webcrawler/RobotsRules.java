@@ -0,0 +1,187 @@
+package com.udacity.webcrawler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * The rules of a robots.txt file that apply to this crawler, as defined by
+ * <a href="https://www.rfc-editor.org/rfc/rfc9309">RFC 9309</a>.
+ *
+ * <p>The rule that matches the longest part of a URL's path decides whether the crawler may visit
+ * it, and an {@code Allow} rule wins a tie with a {@code Disallow} rule. Plain path prefixes are
+ * stored in a prefix trie, so that they are all checked in a single walk along the path. The
+ * rare rules with {@code *} wildcards are checked one by one afterwards.
+ *
+ * <p>Instances are immutable and thread-safe.
+ */
+final class RobotsRules {
+
+  /**
+   * Rules that allow every path, used when a site has no robots.txt file.
+   */
+  static final RobotsRules ALLOW_ALL = new RobotsRules(new CharTrie<>(), List.of());
+
+  /**
+   * Rules that allow no paths, used when a site's robots.txt file cannot be downloaded.
+   */
+  static final RobotsRules DISALLOW_ALL;
+
+  static {
+    CharTrie<Verdict> root = new CharTrie<>();
+    root.insert("", false, Verdict.DISALLOW, Verdict::combine);
+    DISALLOW_ALL = new RobotsRules(root, List.of());
+  }
+
+  private final CharTrie<Verdict> root;
+  private final List<WildcardRule> wildcardRules;
+
+  private RobotsRules(CharTrie<Verdict> root, List<WildcardRule> wildcardRules) {
+    this.root = root;
+    this.wildcardRules = wildcardRules;
+  }
+
+  /**
+   * Parses the given robots.txt file, keeping the rules of the groups for the given user agent.
+   * If the file has no group for it, the rules of the {@code *} groups are kept instead.
+   *
+   * @param text      the contents of a robots.txt file.
+   * @param userAgent the product token of this crawler, which is compared case-insensitively.
+   */
+  static RobotsRules parse(String text, String userAgent) {
+    List<String[]> ownRules = new ArrayList<>();
+    List<String[]> defaultRules = new ArrayList<>();
+    boolean inAgentLines = false;
+    boolean ownGroup = false;
+    boolean defaultGroup = false;
+    for (String line : text.split("\r\n|\r|\n")) {
+      int comment = line.indexOf('#');
+      if (comment >= 0) {
+        line = line.substring(0, comment);
+      }
+      int colon = line.indexOf(':');
+      if (colon < 0) {
+        continue;
+      }
+      String field = line.substring(0, colon).strip().toLowerCase(Locale.ROOT);
+      String value = line.substring(colon + 1).strip();
+      if (field.equals("user-agent")) {
+        if (!inAgentLines) {
+          // The first user-agent line after some rules starts a new group.
+          ownGroup = false;
+          defaultGroup = false;
+          inAgentLines = true;
+        }
+        ownGroup |= value.equalsIgnoreCase(userAgent);
+        defaultGroup |= value.equals("*");
+      } else if (field.equals("allow") || field.equals("disallow")) {
+        inAgentLines = false;
+        String[] rule = {field, value};
+        if (ownGroup) {
+          ownRules.add(rule);
+        }
+        if (defaultGroup) {
+          defaultRules.add(rule);
+        }
+      }
+      // Other fields, like sitemap and crawl-delay, do not affect which paths may be visited.
+    }
+
+    CharTrie<Verdict> root = new CharTrie<>();
+    List<WildcardRule> wildcardRules = new ArrayList<>();
+    for (String[] rule : ownRules.isEmpty() ? defaultRules : ownRules) {
+      String path = rule[1];
+      if (path.isEmpty()) {
+        // An empty Disallow rule allows everything, which is already the default.
+        continue;
+      }
+      Verdict verdict = rule[0].equals("allow") ? Verdict.ALLOW : Verdict.DISALLOW;
+      boolean anchored = path.endsWith("$");
+      String prefix = anchored ? path.substring(0, path.length() - 1) : path;
+      if (prefix.indexOf('*') >= 0) {
+        wildcardRules.add(new WildcardRule(path, verdict));
+      } else {
+        root.insert(prefix, anchored, verdict, Verdict::combine);
+      }
+    }
+    if (root.isEmpty() && wildcardRules.isEmpty()) {
+      return ALLOW_ALL;
+    }
+    return new RobotsRules(root, List.copyOf(wildcardRules));
+  }
+
+  /**
+   * Returns whether the crawler may visit the given path, including its query string, if any.
+   */
+  boolean isAllowed(String path) {
+    if (path.equals("/robots.txt")) {
+      return true;
+    }
+    int bestLength = -1;
+    Verdict best = Verdict.ALLOW;
+    CharTrie<Verdict> node = root;
+    for (int depth = 0; node != null; depth++) {
+      Verdict verdict = depth == path.length()
+          ? Verdict.combine(node.value(), node.anchoredValue())
+          : node.value();
+      if (verdict != null) {
+        bestLength = depth;
+        best = verdict;
+      }
+      if (depth == path.length()) {
+        break;
+      }
+      node = node.child(path.charAt(depth));
+    }
+    for (WildcardRule rule : wildcardRules) {
+      boolean wouldWin =
+          rule.length > bestLength || (rule.length == bestLength && rule.verdict == Verdict.ALLOW);
+      if (wouldWin && rule.pattern.matcher(path).lookingAt()) {
+        bestLength = rule.length;
+        best = rule.verdict;
+      }
+    }
+    return best == Verdict.ALLOW;
+  }
+
+  private enum Verdict {
+    ALLOW,
+    DISALLOW;
+
+    /**
+     * Combines two rules for the same path, where {@link #ALLOW} wins.
+     */
+    static Verdict combine(Verdict a, Verdict b) {
+      if (a == null) {
+        return b;
+      }
+      if (b == null) {
+        return a;
+      }
+      return a == ALLOW || b == ALLOW ? ALLOW : DISALLOW;
+    }
+  }
+
+  /**
+   * A rule with {@code *} wildcards, which is matched with a regular expression.
+   */
+  private static final class WildcardRule {
+    private final Pattern pattern;
+    private final int length;
+    private final Verdict verdict;
+
+    WildcardRule(String path, Verdict verdict) {
+      boolean anchored = path.endsWith("$");
+      String regex = Arrays.stream(
+              (anchored ? path.substring(0, path.length() - 1) : path).split("\\*", -1))
+          .map(Pattern::quote)
+          .collect(Collectors.joining(".*"));
+      this.pattern = Pattern.compile(anchored ? regex + "$" : regex, Pattern.DOTALL);
+      this.length = path.length();
+      this.verdict = verdict;
+    }
+  }
+}
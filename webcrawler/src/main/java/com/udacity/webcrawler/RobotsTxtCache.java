@@ -0,0 +1,274 @@
+package com.udacity.webcrawler;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.LongSupplier;
+
+/**
+ * Decides whether the crawler may visit a URL, according to the robots.txt file of its site.
+ *
+ * <p>Each site's robots.txt file is downloaded the first time one of its URLs is checked, and its
+ * {@link RobotsRules rules} are cached for a while. Checks against cached rules take no locks, so
+ * they are cheap enough to make for every discovered link. Only the first check for a site waits
+ * for the download, and concurrent first checks share a single download.
+ *
+ * <p>Downloads are asynchronous, and give up after {@link #FETCH_TIMEOUT} or at the crawl's
+ * deadline, whichever comes first. A check stops waiting for its site's rules at the deadline,
+ * and then treats the URL as disallowed. The wait goes through
+ * {@link CompletableFuture#get(long, TimeUnit)}, which blocks through
+ * {@link java.util.concurrent.ForkJoinPool#managedBlock}, so that a fork-join pool can start
+ * another worker while one of its threads waits.
+ *
+ * <p>The cache holds a bounded number of sites. Once it is full, the sites that were added first
+ * are dropped first.
+ */
+final class RobotsTxtCache {
+
+  /**
+   * The product token that this crawler looks for in robots.txt {@code User-agent} lines.
+   */
+  static final String USER_AGENT = "udacity-webcrawler";
+
+  /**
+   * How long a site's rules are cached. RFC 9309 asks crawlers not to use them for longer.
+   */
+  static final Duration TIME_TO_LIVE = Duration.ofHours(24);
+
+  /**
+   * The longest a robots.txt download may take, however much time the crawl has left.
+   */
+  static final Duration FETCH_TIMEOUT = Duration.ofSeconds(5);
+
+  static final int MAX_SITES = 10_000;
+
+  private static final RobotsTxtCache DISABLED =
+      new RobotsTxtCache(
+          (origin, timeout) -> CompletableFuture.completedFuture(RobotsRules.ALLOW_ALL),
+          1,
+          Duration.ZERO,
+          System::nanoTime,
+          Clock.systemUTC());
+
+  private final Loader loader;
+  private final int maxSites;
+  private final long timeToLiveNanos;
+  private final LongSupplier nanoTime;
+  private final Clock clock;
+  private final ConcurrentHashMap<String, Entry> sites = new ConcurrentHashMap<>();
+  private final ConcurrentLinkedQueue<String> insertionOrder = new ConcurrentLinkedQueue<>();
+
+  /**
+   * Creates a cache that downloads robots.txt files with the given client, and compares crawl
+   * deadlines with the given clock.
+   */
+  RobotsTxtCache(HttpClient client, Clock clock) {
+    this(
+        (origin, timeout) -> download(client, origin, timeout),
+        MAX_SITES,
+        TIME_TO_LIVE,
+        System::nanoTime,
+        clock);
+  }
+
+  /**
+   * Creates a cache that gets the rules for each site from the given loader.
+   *
+   * @param loader   starts getting the rules for a site.
+   * @param maxSites the largest number of sites to cache.
+   * @param ttl      how long to cache the rules of each site.
+   * @param nanoTime the source of the current time, in nanoseconds, for the time to live.
+   * @param clock    the clock that crawl deadlines are compared with.
+   */
+  RobotsTxtCache(
+      Loader loader, int maxSites, Duration ttl, LongSupplier nanoTime, Clock clock) {
+    if (maxSites <= 0) {
+      throw new IllegalArgumentException("maxSites must be positive");
+    }
+    this.loader = Objects.requireNonNull(loader);
+    this.maxSites = maxSites;
+    this.timeToLiveNanos = ttl.toNanos();
+    this.nanoTime = Objects.requireNonNull(nanoTime);
+    this.clock = Objects.requireNonNull(clock);
+  }
+
+  /**
+   * Returns a cache that allows every URL, without downloading anything.
+   */
+  static RobotsTxtCache disabled() {
+    return DISABLED;
+  }
+
+  /**
+   * Returns whether the crawler may visit the given URL. URLs that are not {@code http} or
+   * {@code https}, such as local files, are always allowed.
+   *
+   * <p>If the rules for the URL's site are not known by the given deadline, the URL is not
+   * allowed.
+   */
+  boolean isAllowed(String url, Instant deadline) {
+    if (this == DISABLED) {
+      return true;
+    }
+    URI uri;
+    try {
+      uri = new URI(url);
+    } catch (URISyntaxException e) {
+      // Not something the crawler can visit anyway.
+      return true;
+    }
+    String scheme = uri.getScheme() == null ? "" : uri.getScheme().toLowerCase(Locale.ROOT);
+    if ((!scheme.equals("http") && !scheme.equals("https")) || uri.getHost() == null) {
+      return true;
+    }
+    String origin = scheme + "://" + uri.getHost().toLowerCase(Locale.ROOT)
+        + (uri.getPort() == -1 ? "" : ":" + uri.getPort());
+    String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+    if (uri.getRawQuery() != null) {
+      path += "?" + uri.getRawQuery();
+    }
+    return rulesFor(origin, deadline).isAllowed(path);
+  }
+
+  /**
+   * Returns the number of sites whose rules are cached.
+   */
+  int size() {
+    return sites.size();
+  }
+
+  private RobotsRules rulesFor(String origin, Instant deadline) {
+    long now = nanoTime.getAsLong();
+    Entry entry = sites.get(origin);
+    if (entry != null && entry.expiresAt - now > 0) {
+      return await(entry.rules, deadline);
+    }
+    Duration remaining = Duration.between(clock.instant(), deadline);
+    if (remaining.isNegative() || remaining.isZero()) {
+      // Too late to download anything for this crawl, and nothing to cache for later ones.
+      return RobotsRules.DISALLOW_ALL;
+    }
+
+    Entry fresh = new Entry(new CompletableFuture<>(), now + timeToLiveNanos);
+    boolean added;
+    if (entry == null) {
+      Entry existing = sites.putIfAbsent(origin, fresh);
+      if (existing != null) {
+        // Another thread is already downloading the rules.
+        return await(existing.rules, deadline);
+      }
+      added = true;
+    } else if (sites.replace(origin, entry, fresh)) {
+      added = false;
+    } else {
+      return rulesFor(origin, deadline);
+    }
+
+    Duration timeout = remaining.compareTo(FETCH_TIMEOUT) < 0 ? remaining : FETCH_TIMEOUT;
+    try {
+      loader.load(origin, timeout).whenComplete((rules, failure) ->
+          fresh.rules.complete(failure == null ? rules : RobotsRules.DISALLOW_ALL));
+    } catch (RuntimeException e) {
+      fresh.rules.complete(RobotsRules.DISALLOW_ALL);
+    }
+    if (added) {
+      insertionOrder.add(origin);
+      while (sites.size() > maxSites) {
+        String oldest = insertionOrder.poll();
+        if (oldest == null) {
+          break;
+        }
+        sites.remove(oldest);
+      }
+    }
+    return await(fresh.rules, deadline);
+  }
+
+  /**
+   * Waits until the given rules are known or the deadline passes, and returns them, or rules that
+   * disallow everything if they are still not known.
+   */
+  private RobotsRules await(CompletableFuture<RobotsRules> rules, Instant deadline) {
+    RobotsRules known = rules.getNow(null);
+    if (known != null) {
+      return known;
+    }
+    long remainingNanos = Duration.between(clock.instant(), deadline).toNanos();
+    try {
+      return rules.get(Math.max(0, remainingNanos), TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return RobotsRules.DISALLOW_ALL;
+    } catch (ExecutionException | TimeoutException e) {
+      return RobotsRules.DISALLOW_ALL;
+    }
+  }
+
+  /**
+   * Downloads and parses the robots.txt file of the given site.
+   *
+   * <p>Following RFC 9309, a site without a robots.txt file (a 4xx response) may be crawled
+   * freely, while a site whose file could not be downloaded (a 5xx response or a network error)
+   * may not be crawled at all.
+   */
+  private static CompletableFuture<RobotsRules> download(
+      HttpClient client, String origin, Duration timeout) {
+    HttpRequest request =
+        HttpRequest.newBuilder(URI.create(origin + "/robots.txt"))
+            .timeout(timeout)
+            .header("User-Agent", USER_AGENT)
+            .build();
+    return client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+        .handle((response, failure) -> {
+          if (failure != null) {
+            return RobotsRules.DISALLOW_ALL;
+          }
+          int status = response.statusCode();
+          if (status >= 200 && status < 300) {
+            return RobotsRules.parse(
+                new String(response.body(), StandardCharsets.UTF_8), USER_AGENT);
+          }
+          if (status >= 400 && status < 500) {
+            return RobotsRules.ALLOW_ALL;
+          }
+          return RobotsRules.DISALLOW_ALL;
+        });
+  }
+
+  /**
+   * Gets the robots.txt rules of a site.
+   */
+  @FunctionalInterface
+  interface Loader {
+
+    /**
+     * Starts getting the rules for the site with the given origin, such as
+     * {@code "https://example.com:8080"}, giving up after the given timeout.
+     */
+    CompletableFuture<RobotsRules> load(String origin, Duration timeout);
+  }
+
+  private static final class Entry {
+    private final CompletableFuture<RobotsRules> rules;
+    private final long expiresAt;
+
+    private Entry(CompletableFuture<RobotsRules> rules, long expiresAt) {
+      this.rules = rules;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
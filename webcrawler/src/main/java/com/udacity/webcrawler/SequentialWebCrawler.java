@@ -5,38 +5,55 @@ import com.udacity.webcrawler.parser.PageParser;
 import com.udacity.webcrawler.parser.PageParserFactory;
 
 import javax.inject.Inject;
+import javax.inject.Provider;
 import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.regex.Pattern;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * A {@link WebCrawler} that downloads and processes one page at a time.
+ *
+ * <p>Since it never downloads two pages at once, a per-host concurrency limit makes no difference
+ * to it, but it still waits out the per-host delay between downloads from the same host.
  */
 final class SequentialWebCrawler implements WebCrawler {
 
   private final Clock clock;
   private final PageParserFactory parserFactory;
+  private final Provider<VisitedUrlSet> visitedUrlSets;
+  private final Provider<HostLimiter> hostLimiters;
+  private final Provider<CrawlCheckpointer> checkpointers;
+  private final CrawlResultStream resultStream;
+  private final RobotsTxtCache robotsTxt;
   private final Duration timeout;
   private final int popularWordCount;
   private final int maxDepth;
-  private final List<Pattern> ignoredUrls;
+  private final IgnoredUrlMatcher ignoredUrls;
 
   @Inject
   SequentialWebCrawler(
       Clock clock,
       PageParserFactory parserFactory,
+      Provider<VisitedUrlSet> visitedUrlSets,
+      Provider<HostLimiter> hostLimiters,
+      Provider<CrawlCheckpointer> checkpointers,
+      CrawlResultStream resultStream,
+      RobotsTxtCache robotsTxt,
       @Timeout Duration timeout,
       @PopularWordCount int popularWordCount,
       @MaxDepth int maxDepth,
-      @IgnoredUrls List<Pattern> ignoredUrls) {
+      IgnoredUrlMatcher ignoredUrls) {
     this.clock = clock;
     this.parserFactory = parserFactory;
+    this.visitedUrlSets = visitedUrlSets;
+    this.hostLimiters = hostLimiters;
+    this.checkpointers = checkpointers;
+    this.resultStream = resultStream;
+    this.robotsTxt = robotsTxt;
     this.timeout = timeout;
     this.popularWordCount = popularWordCount;
     this.maxDepth = maxDepth;
@@ -46,22 +63,41 @@ final class SequentialWebCrawler implements WebCrawler {
   @Override
   public CrawlResult crawl(List<String> startingUrls) {
     Instant deadline = clock.instant().plus(timeout);
-    Map<String, Integer> counts = new HashMap<>();
-    Set<String> visitedUrls = new HashSet<>();
-    for (String url : startingUrls) {
-      crawlInternal(url, deadline, maxDepth, counts, visitedUrls);
+    WordCountAccumulator counts = new WordCountAccumulator();
+    VisitedUrlSet visitedUrls = visitedUrlSets.get();
+    LongAdder cancelledFetches = new LongAdder();
+    HostLimiter hostLimiter = hostLimiters.get();
+    CrawlCheckpointer checkpointer = checkpointers.get();
+    CrawlCheckpointer.State initial = checkpointer.start(startingUrls, maxDepth);
+    initial.restore(counts, visitedUrls);
+    try {
+      for (Map.Entry<String, Integer> pending : initial.getPendingUrls().entrySet()) {
+        crawlInternal(
+            pending.getKey(),
+            deadline,
+            pending.getValue(),
+            counts,
+            visitedUrls,
+            cancelledFetches,
+            hostLimiter,
+            checkpointer);
+      }
+    } finally {
+      checkpointer.finish();
     }
 
     if (counts.isEmpty()) {
       return new CrawlResult.Builder()
-          .setWordCounts(counts)
+          .setWordCounts(counts.toMap())
           .setUrlsVisited(visitedUrls.size())
+          .setCancelledFetches(cancelledFetches.intValue())
           .build();
     }
 
     return new CrawlResult.Builder()
-        .setWordCounts(WordCounts.sort(counts, popularWordCount))
+        .setWordCounts(WordCounts.sort(counts.toMap(), popularWordCount))
         .setUrlsVisited(visitedUrls.size())
+        .setCancelledFetches(cancelledFetches.intValue())
         .build();
   }
 
@@ -69,30 +105,73 @@ final class SequentialWebCrawler implements WebCrawler {
       String url,
       Instant deadline,
       int maxDepth,
-      Map<String, Integer> counts,
-      Set<String> visitedUrls) {
+      WordCountAccumulator counts,
+      VisitedUrlSet visitedUrls,
+      LongAdder cancelledFetches,
+      HostLimiter hostLimiter,
+      CrawlCheckpointer checkpointer) {
     if (maxDepth == 0 || clock.instant().isAfter(deadline)) {
       return;
     }
-    for (Pattern pattern : ignoredUrls) {
-      if (pattern.matcher(url).matches()) {
-        return;
-      }
+    if (ignoredUrls.matches(url) || !robotsTxt.isAllowed(url, deadline)) {
+      return;
     }
-    if (visitedUrls.contains(url)) {
+    if (!visitedUrls.add(url)) {
+      // The page, or another spelling of its URL, was already visited. It still has to leave the
+      // checkpoint's frontier.
+      checkpointer.recordPage(url, Map.of(), List.of(), 0);
       return;
     }
-    visitedUrls.add(url);
-    PageParser.Result result = parserFactory.get(url).parse();
-    for (Map.Entry<String, Integer> e : result.getWordCounts().entrySet()) {
-      if (counts.containsKey(e.getKey())) {
-        counts.put(e.getKey(), e.getValue() + counts.get(e.getKey()));
-      } else {
-        counts.put(e.getKey(), e.getValue());
-      }
+    PageParser.Result result = parse(url, deadline, hostLimiter);
+    if (result == null) {
+      return;
+    }
+    if (result.isCancelled()) {
+      cancelledFetches.increment();
+      return;
     }
+    counts.addAll(result.getWordCounts());
+    // Only the links that will be visited are recorded, so that the checkpoint's frontier drains.
+    List<String> links = new ArrayList<>();
     for (String link : result.getLinks()) {
-      crawlInternal(link, deadline, maxDepth - 1, counts, visitedUrls);
+      if (!ignoredUrls.matches(link) && robotsTxt.isAllowed(link, deadline)) {
+        links.add(link);
+      }
+    }
+    checkpointer.recordPage(url, result.getWordCounts(), links, maxDepth - 1);
+    resultStream.pageVisited(url, result.getWordCounts());
+    for (String link : links) {
+      crawlInternal(
+          link,
+          deadline,
+          maxDepth - 1,
+          counts,
+          visitedUrls,
+          cancelledFetches,
+          hostLimiter,
+          checkpointer);
+    }
+  }
+
+  /**
+   * Downloads and parses the page, once its host's limits allow it. Returns {@code null} if the
+   * thread was interrupted while waiting.
+   */
+  private PageParser.Result parse(String url, Instant deadline, HostLimiter hostLimiter) {
+    if (hostLimiter.isUnlimited()) {
+      return parserFactory.get(url, deadline).parse();
+    }
+    String host = HostLimiter.hostOf(url);
+    try {
+      hostLimiter.acquire(host);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    }
+    try {
+      return parserFactory.get(url, deadline).parse();
+    } finally {
+      hostLimiter.release(host);
     }
   }
 }
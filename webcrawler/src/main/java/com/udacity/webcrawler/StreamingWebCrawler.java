@@ -0,0 +1,37 @@
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.json.CrawlResult;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A {@link WebCrawler} that streams the progress of every crawl to a {@link CrawlResultStream},
+ * which the crawler writes each visited page to.
+ */
+final class StreamingWebCrawler implements WebCrawler {
+  private final WebCrawler delegate;
+  private final CrawlResultStream stream;
+
+  StreamingWebCrawler(WebCrawler delegate, CrawlResultStream stream) {
+    this.delegate = Objects.requireNonNull(delegate);
+    this.stream = Objects.requireNonNull(stream);
+  }
+
+  @Override
+  public CrawlResult crawl(List<String> startingUrls) {
+    CrawlResult result = null;
+    stream.start();
+    try {
+      result = delegate.crawl(startingUrls);
+    } finally {
+      stream.finish(result);
+    }
+    return result;
+  }
+
+  @Override
+  public int getMaxParallelism() {
+    return delegate.getMaxParallelism();
+  }
+}
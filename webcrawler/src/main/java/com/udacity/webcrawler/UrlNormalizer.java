@@ -0,0 +1,87 @@
+package com.udacity.webcrawler;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Locale;
+
+/**
+ * Utility class that maps URLs to a canonical form, so that different spellings of the same page
+ * are only crawled once.
+ *
+ * <p>The canonical form of a URL:
+ *
+ * <ul>
+ *   <li>has a lower-case scheme and host,</li>
+ *   <li>has no port if the port is the default for the scheme,</li>
+ *   <li>has no fragment,</li>
+ *   <li>has no {@code "."} or {@code ".."} path segments,</li>
+ *   <li>has the path {@code "/"} if the path is empty, and</li>
+ *   <li>has no trailing slash otherwise.</li>
+ * </ul>
+ *
+ * <p>Strings that cannot be parsed as a URI are returned as-is.
+ */
+final class UrlNormalizer {
+
+  /**
+   * Returns the canonical form of the given URL.
+   */
+  static String normalize(String url) {
+    URI uri;
+    try {
+      uri = new URI(url).normalize();
+    } catch (URISyntaxException e) {
+      return url;
+    }
+    if (uri.getScheme() == null || uri.isOpaque()) {
+      int fragment = url.indexOf('#');
+      return fragment < 0 ? url : url.substring(0, fragment);
+    }
+
+    String scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+    StringBuilder normalized = new StringBuilder(url.length()).append(scheme).append(':');
+    if (uri.getRawAuthority() != null) {
+      normalized.append("//");
+      if (uri.getHost() == null) {
+        // A registry-based authority, which has no host or port to normalize.
+        normalized.append(uri.getRawAuthority());
+      } else {
+        if (uri.getRawUserInfo() != null) {
+          normalized.append(uri.getRawUserInfo()).append('@');
+        }
+        normalized.append(uri.getHost().toLowerCase(Locale.ROOT));
+        if (uri.getPort() != -1 && uri.getPort() != defaultPort(scheme)) {
+          normalized.append(':').append(uri.getPort());
+        }
+      }
+    }
+
+    String path = uri.getRawPath();
+    if (path.isEmpty()) {
+      normalized.append('/');
+    } else if (path.length() > 1 && path.endsWith("/")) {
+      normalized.append(path, 0, path.length() - 1);
+    } else {
+      normalized.append(path);
+    }
+    if (uri.getRawQuery() != null) {
+      normalized.append('?').append(uri.getRawQuery());
+    }
+    return normalized.toString();
+  }
+
+  private static int defaultPort(String scheme) {
+    switch (scheme) {
+      case "http":
+        return 80;
+      case "https":
+        return 443;
+      default:
+        return -1;
+    }
+  }
+
+  private UrlNormalizer() {
+    // This class cannot be instantiated
+  }
+}
@@ -0,0 +1,238 @@
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.json.CrawlResult;
+import com.udacity.webcrawler.parser.PageParser;
+import com.udacity.webcrawler.parser.PageParserFactory;
+import com.udacity.webcrawler.profiler.Profiler;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import java.lang.reflect.Method;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link WebCrawler} for I/O-bound crawls that downloads each page on its own thread, with up to
+ * {@code "parallelism"} page downloads in flight at once.
+ *
+ * <p>Most of the time spent crawling a page is spent waiting for the network, so this crawler
+ * allows many more concurrent downloads than there are CPU cores. On Java 21 and newer each page
+ * runs on a virtual thread, which makes blocked downloads nearly free. On older runtimes it falls
+ * back to a fixed pool of platform threads, one per allowed download.
+ */
+final class VirtualThreadWebCrawler implements WebCrawler {
+
+  /**
+   * The largest number of page downloads this crawler will allow in flight at once.
+   */
+  private static final int MAX_IN_FLIGHT = 1024;
+
+  private static final int FRONTIER_CAPACITY = 1_000_000;
+
+  private final Clock clock;
+  private final PageParserFactory parserFactory;
+  private final Provider<VisitedUrlSet> visitedUrlSets;
+  private final Provider<HostLimiter> hostLimiters;
+  private final Provider<CrawlCheckpointer> checkpointers;
+  private final CrawlResultStream resultStream;
+  private final RobotsTxtCache robotsTxt;
+  private final Profiler profiler;
+  private final Duration timeout;
+  private final int popularWordCount;
+  private final int maxDepth;
+  private final IgnoredUrlMatcher ignoredUrls;
+  private final int inFlightLimit;
+
+  @Inject
+  VirtualThreadWebCrawler(
+      Clock clock,
+      PageParserFactory parserFactory,
+      Provider<VisitedUrlSet> visitedUrlSets,
+      Provider<HostLimiter> hostLimiters,
+      Provider<CrawlCheckpointer> checkpointers,
+      CrawlResultStream resultStream,
+      RobotsTxtCache robotsTxt,
+      Profiler profiler,
+      @Timeout Duration timeout,
+      @PopularWordCount int popularWordCount,
+      @MaxDepth int maxDepth,
+      IgnoredUrlMatcher ignoredUrls,
+      @TargetParallelism int inFlightLimit) {
+    this.clock = clock;
+    this.parserFactory = parserFactory;
+    this.visitedUrlSets = visitedUrlSets;
+    this.hostLimiters = hostLimiters;
+    this.checkpointers = checkpointers;
+    this.resultStream = resultStream;
+    this.robotsTxt = robotsTxt;
+    this.profiler = profiler;
+    this.timeout = timeout;
+    this.popularWordCount = popularWordCount;
+    this.maxDepth = maxDepth;
+    this.ignoredUrls = ignoredUrls;
+    this.inFlightLimit = Math.max(1, Math.min(inFlightLimit, getMaxParallelism()));
+  }
+
+  @Override
+  public CrawlResult crawl(List<String> startingUrls) {
+    Instant deadline = clock.instant().plus(timeout);
+    WordCountAccumulator counts = new WordCountAccumulator();
+    VisitedUrlSet visitedUrls = visitedUrlSets.get();
+    LongAdder cancelledFetches = new LongAdder();
+    HostLimiter hostLimiter = hostLimiters.get();
+    CrawlFrontier frontier = new CrawlFrontier(FRONTIER_CAPACITY, hostLimiter);
+    CrawlCheckpointer checkpointer = checkpointers.get();
+    List<String> allowedUrls = new ArrayList<>();
+    for (String url : startingUrls) {
+      if (!ignoredUrls.matches(url) && robotsTxt.isAllowed(url, deadline)) {
+        allowedUrls.add(url);
+      }
+    }
+    CrawlCheckpointer.State initial = checkpointer.start(allowedUrls, maxDepth);
+    initial.restore(counts, visitedUrls);
+    initial.getPendingUrls().forEach(frontier::offer);
+
+    Semaphore slots = new Semaphore(inFlightLimit);
+    AtomicReference<RuntimeException> failure = new AtomicReference<>();
+    ExecutorService executor = newPerTaskExecutor(inFlightLimit);
+    try {
+      while (true) {
+        slots.acquire();
+        CrawlFrontier.Entry entry = frontier.take();
+        if (entry == null) {
+          slots.release();
+          break;
+        }
+        executor.execute(() -> {
+          try {
+            visit(
+                entry, frontier, deadline, counts, visitedUrls, cancelledFetches, checkpointer);
+          } catch (RuntimeException e) {
+            failure.compareAndSet(null, e);
+            frontier.close();
+          } finally {
+            frontier.complete(entry);
+            slots.release();
+          }
+        });
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      frontier.close();
+    } finally {
+      executor.shutdownNow();
+      // The frontier may have been closed with visits still in flight. Wait for them, so that none
+      // of them adds to the results, the checkpoint or the result stream after they are read.
+      awaitTermination(executor);
+      checkpointer.finish();
+    }
+    hostLimiter.recordQueueSizes(profiler, VirtualThreadWebCrawler.class);
+    if (failure.get() != null) {
+      throw failure.get();
+    }
+
+    if (counts.isEmpty()) {
+      return new CrawlResult.Builder()
+          .setWordCounts(counts.toMap())
+          .setUrlsVisited(visitedUrls.size())
+          .setCancelledFetches(cancelledFetches.intValue())
+          .build();
+    }
+
+    return new CrawlResult.Builder()
+        .setWordCounts(WordCounts.sort(counts.toMap(), popularWordCount))
+        .setUrlsVisited(visitedUrls.size())
+        .setCancelledFetches(cancelledFetches.intValue())
+        .build();
+  }
+
+  @Override
+  public int getMaxParallelism() {
+    return MAX_IN_FLIGHT;
+  }
+
+  private void visit(
+      CrawlFrontier.Entry entry,
+      CrawlFrontier frontier,
+      Instant deadline,
+      WordCountAccumulator counts,
+      VisitedUrlSet visitedUrls,
+      LongAdder cancelledFetches,
+      CrawlCheckpointer checkpointer) {
+    if (clock.instant().isAfter(deadline)) {
+      frontier.close();
+      return;
+    }
+    String url = entry.getUrl();
+    if (!visitedUrls.add(url)) {
+      // Already visited, perhaps under another spelling of the URL. Take it off the checkpoint's
+      // frontier too.
+      checkpointer.recordPage(url, Map.of(), List.of(), 0);
+      return;
+    }
+    PageParser.Result result = parserFactory.get(url, deadline).parse();
+    if (result.isCancelled()) {
+      cancelledFetches.increment();
+      frontier.close();
+      return;
+    }
+    counts.addAll(result.getWordCounts());
+    List<String> links = new ArrayList<>();
+    if (entry.getDepth() > 1) {
+      for (String link : result.getLinks()) {
+        if (!visitedUrls.contains(link)
+            && !ignoredUrls.matches(link)
+            && robotsTxt.isAllowed(link, deadline)) {
+          frontier.offer(link, entry.getDepth() - 1);
+          links.add(link);
+        }
+      }
+    }
+    checkpointer.recordPage(url, result.getWordCounts(), links, entry.getDepth() - 1);
+    resultStream.pageVisited(url, result.getWordCounts());
+  }
+
+  /**
+   * Waits for every task of the given executor, which has been shut down, to finish. If the
+   * thread is interrupted, it keeps waiting and sets its interrupt status again afterwards.
+   */
+  private static void awaitTermination(ExecutorService executor) {
+    boolean interrupted = false;
+    while (true) {
+      try {
+        if (executor.awaitTermination(1, TimeUnit.MINUTES)) {
+          break;
+        }
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Returns an executor that starts a new virtual thread for each task, or, if virtual threads are
+   * not supported by the running JVM, a pool of {@code fallbackThreads} platform threads.
+   */
+  private static ExecutorService newPerTaskExecutor(int fallbackThreads) {
+    try {
+      // Looked up reflectively so that the crawler still compiles and runs on Java 17.
+      Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) factory.invoke(null);
+    } catch (ReflectiveOperationException e) {
+      return Executors.newFixedThreadPool(fallbackThreads);
+    }
+  }
+}
@@ -0,0 +1,32 @@
+package com.udacity.webcrawler;
+
+/**
+ * The set of pages that have been visited during a single crawl.
+ *
+ * <p>URLs are compared in their {@link UrlNormalizer canonical form}, so, for example,
+ * {@code "http://a/b"}, {@code "http://a/b/"} and {@code "http://a/b#x"} are the same page.
+ *
+ * <p>Implementations must be thread-safe. A new, empty set is provided by {@link WebCrawlerModule}
+ * for each crawl.
+ */
+interface VisitedUrlSet {
+
+  /**
+   * Marks the page at the given URL as visited.
+   *
+   * @return {@code true} if the page had not been visited before, in which case the caller should
+   *     go on to visit it. When several threads add the same page at once, exactly one of them gets
+   *     {@code true}.
+   */
+  boolean add(String url);
+
+  /**
+   * Returns whether the page at the given URL has already been visited.
+   */
+  boolean contains(String url);
+
+  /**
+   * Returns the number of distinct pages that have been visited.
+   */
+  int size();
+}
@@ -6,6 +6,9 @@ import com.google.inject.Provides;
 import com.google.inject.ProvisionException;
 import com.google.inject.multibindings.Multibinder;
 import com.udacity.webcrawler.json.CrawlerConfiguration;
+import com.udacity.webcrawler.json.JsonCodec;
+import com.udacity.webcrawler.parser.CrawlHistory;
+import com.udacity.webcrawler.parser.ParseResultCache;
 import com.udacity.webcrawler.parser.ParserModule;
 import com.udacity.webcrawler.profiler.Profiler;
 
@@ -13,6 +16,8 @@ import javax.inject.Qualifier;
 import javax.inject.Singleton;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
+import java.net.http.HttpClient;
+import java.nio.file.Path;
 import java.time.Clock;
 import java.time.Duration;
 import java.util.List;
@@ -33,6 +38,12 @@ import java.util.regex.Pattern;
  */
 public final class WebCrawlerModule extends AbstractModule {
 
+  /**
+   * The number of URLs an off-heap visited URL store has room for if the configuration does not
+   * say how many to expect. This takes about 16 MB.
+   */
+  private static final int DEFAULT_OFF_HEAP_URL_COUNT = 1_000_000;
+
   private final CrawlerConfiguration config;
 
   /**
@@ -49,6 +60,9 @@ public final class WebCrawlerModule extends AbstractModule {
         Multibinder.newSetBinder(binder(), WebCrawler.class, Internal.class);
     multibinder.addBinding().to(SequentialWebCrawler.class);
     multibinder.addBinding().to(ParallelWebCrawler.class);
+    multibinder.addBinding().to(FrontierWebCrawler.class);
+    multibinder.addBinding().to(VirtualThreadWebCrawler.class);
+    multibinder.addBinding().to(PipelinedWebCrawler.class);
 
     bind(Clock.class).toInstance(Clock.systemUTC());
     bind(Key.get(Integer.class, MaxDepth.class)).toInstance(config.getMaxDepth());
@@ -56,11 +70,25 @@ public final class WebCrawlerModule extends AbstractModule {
     bind(Key.get(Duration.class, Timeout.class)).toInstance(config.getTimeout());
     bind(new Key<List<Pattern>>(IgnoredUrls.class) {
     }).toInstance(config.getIgnoredUrls());
+    bind(IgnoredUrlMatcher.class).toInstance(IgnoredUrlMatcher.compile(config.getIgnoredUrls()));
+    bind(JsonCodec.class).toInstance(JsonCodec.getDefault());
 
     install(
         new ParserModule.Builder()
             .setTimeout(config.getTimeout())
             .setIgnoredWords(config.getIgnoredWords())
+            .setUseHttpClient(config.getFetcher() == CrawlerConfiguration.Fetcher.HTTPCLIENT)
+            .setPageCacheDirectory(
+                config.getPageCacheDirectory().isEmpty()
+                    ? null
+                    : Path.of(config.getPageCacheDirectory()))
+            .setPageCacheMaxBytes(config.getPageCacheMaxMegabytes() * 1024L * 1024L)
+            .setPageCacheMaxEntries(config.getPageCacheMaxEntries())
+            .setParseResultCacheSize(config.getParseResultCacheSize())
+            .setCrawlHistoryFile(
+                config.getCrawlHistoryPath().isEmpty()
+                    ? null
+                    : Path.of(config.getCrawlHistoryPath()))
             .build());
   }
 
@@ -98,10 +126,96 @@ public final class WebCrawlerModule extends AbstractModule {
     return Runtime.getRuntime().availableProcessors();
   }
 
+  /**
+   * Provides a new, empty {@link VisitedUrlSet}. Crawlers should request a new one for each crawl.
+   */
+  @Provides
+  VisitedUrlSet provideVisitedUrlSet() {
+    if (config.getVisitedUrlStore() == CrawlerConfiguration.VisitedUrlStore.OFFHEAP) {
+      return new OffHeapVisitedUrlSet(
+          config.getExpectedUrlCount() > 0
+              ? config.getExpectedUrlCount()
+              : DEFAULT_OFF_HEAP_URL_COUNT);
+    }
+    if (config.getExpectedUrlCount() > 0) {
+      return new HashVisitedUrlSet(config.getExpectedUrlCount());
+    }
+    return new HashVisitedUrlSet();
+  }
+
+  /**
+   * Provides a new {@link HostLimiter} with the configured per-host limits. Crawlers should request
+   * a new one for each crawl.
+   */
+  @Provides
+  HostLimiter provideHostLimiter() {
+    return new HostLimiter(config.getPerHostConcurrency(), config.getPerHostDelay());
+  }
+
+  /**
+   * Provides a new {@link CrawlCheckpointer} that saves to the configured checkpoint file. Crawlers
+   * should request a new one for each crawl.
+   */
+  @Provides
+  CrawlCheckpointer provideCrawlCheckpointer(Profiler profiler) {
+    if (config.getCheckpointPath().isEmpty()) {
+      return CrawlCheckpointer.disabled();
+    }
+    return new CrawlCheckpointer(
+        Path.of(config.getCheckpointPath()),
+        config.getCheckpointInterval(),
+        config.isResumeFromCheckpoint(),
+        profiler);
+  }
+
+  /**
+   * Provides the {@link RobotsTxtCache}, which is shared by all crawls so that each site's
+   * robots.txt file is only downloaded once.
+   */
+  @Provides
+  @Singleton
+  RobotsTxtCache provideRobotsTxtCache(Clock clock) {
+    if (!config.isRespectRobotsTxt()) {
+      return RobotsTxtCache.disabled();
+    }
+    HttpClient client =
+        HttpClient.newBuilder().followRedirects(HttpClient.Redirect.NORMAL).build();
+    return new RobotsTxtCache(client, clock);
+  }
+
+  /**
+   * Provides the {@link CrawlResultStream} that crawlers write each visited page to. It only writes
+   * anything if the configuration asks for streamed results.
+   */
   @Provides
   @Singleton
-  WebCrawler provideWebCrawlerProxy(Profiler wrapper, @Internal WebCrawler delegate) {
-    return wrapper.wrap(WebCrawler.class, delegate);
+  CrawlResultStream provideCrawlResultStream(JsonCodec codec) {
+    if (!config.isStreamResults()) {
+      return CrawlResultStream.disabled();
+    }
+    return new CrawlResultStream(
+        config.getResultPath().isEmpty() ? null : Path.of(config.getResultPath()),
+        config.getStreamSnapshotInterval(),
+        config.getPopularWordCount(),
+        codec);
+  }
+
+  @Provides
+  @Singleton
+  WebCrawler provideWebCrawlerProxy(
+      Profiler wrapper,
+      @Internal WebCrawler delegate,
+      CrawlHistory history,
+      ParseResultCache parseResults,
+      CrawlResultStream stream) {
+    WebCrawler crawler = wrapper.wrap(WebCrawler.class, delegate);
+    if (parseResults.isEnabled()) {
+      crawler = new ParseCacheMetricsWebCrawler(crawler, parseResults);
+    }
+    if (history.isEnabled()) {
+      crawler = new IncrementalWebCrawler(crawler, history);
+    }
+    return stream.isEnabled() ? new StreamingWebCrawler(crawler, stream) : crawler;
   }
 
   @Qualifier
@@ -0,0 +1,59 @@
+package com.udacity.webcrawler;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thread-safe running total of word counts, shared by all the threads of a crawl.
+ *
+ * <p>Each word has its own {@link LongAdder}, so adding to an existing word never locks and never
+ * boxes, and threads that add to the same popular word (like "the") at the same time update
+ * separate cells instead of contending on a single value. A lock is only taken the first time a
+ * word is seen.
+ */
+final class WordCountAccumulator {
+  private final ConcurrentHashMap<String, LongAdder> counts = new ConcurrentHashMap<>();
+
+  /**
+   * Adds the given per-page word counts to the running totals.
+   */
+  void addAll(Map<String, Integer> wordCounts) {
+    for (Map.Entry<String, Integer> e : wordCounts.entrySet()) {
+      add(e.getKey(), e.getValue());
+    }
+  }
+
+  /**
+   * Adds {@code count} occurrences of the given word to the running totals.
+   */
+  void add(String word, long count) {
+    LongAdder adder = counts.get(Objects.requireNonNull(word));
+    if (adder == null) {
+      adder = counts.computeIfAbsent(word, w -> new LongAdder());
+    }
+    adder.add(count);
+  }
+
+  /**
+   * Returns whether no words have been added yet.
+   */
+  boolean isEmpty() {
+    return counts.isEmpty();
+  }
+
+  /**
+   * Returns a snapshot of the running totals.
+   *
+   * <p>Should be called once all threads have stopped adding; counts that are added concurrently
+   * with this call may or may not be included.
+   */
+  Map<String, Integer> toMap() {
+    Map<String, Integer> snapshot = new HashMap<>(Math.max(16, counts.size() * 4 / 3 + 1));
+    counts.forEach(
+        (word, adder) -> snapshot.put(word, (int) Math.min(Integer.MAX_VALUE, adder.sum())));
+    return snapshot;
+  }
+}
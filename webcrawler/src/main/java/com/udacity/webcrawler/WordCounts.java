@@ -4,8 +4,9 @@ import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.PriorityQueue;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collector;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Utility class that sorts the map of word counts.
@@ -15,41 +16,80 @@ import java.util.stream.Collectors;
  */
 final class WordCounts {
 
+    /**
+     * Maps with at least this many words are sorted using a parallel stream.
+     */
+    static final int PARALLEL_THRESHOLD = 100_000;
+
+    private static final Comparator<Map.Entry<String, Integer>> COMPARATOR =
+            new WordCountComparator();
+
     /**
      * Given an unsorted map of word counts, returns a new map whose word counts are sorted according
      * to the provided {@link WordCountComparator}, and includes only the top
      * {@param popluarWordCount} words and counts.
      *
-     * <p>TODO: Reimplement this method using only the Stream API and lambdas and/or method
-     * references.
+     * <p>Only the top words are ever sorted: the others are dropped as soon as it is clear that they
+     * are not popular enough, so this takes O(n log k) time for n words and k popular words. Large
+     * maps are split across threads, each selecting its own top words, and the results are merged.
      *
      * @param wordCounts       the unsorted map of word counts.
      * @param popularWordCount the number of popular words to include in the result map.
      * @return a map containing the top {@param popularWordCount} words and counts in the right order.
      */
     static Map<String, Integer> sort(Map<String, Integer> wordCounts, int popularWordCount) {
+        return sort(wordCounts, popularWordCount, wordCounts.size() >= PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Like {@link #sort(Map, int)}, but lets the caller choose whether to use a parallel stream.
+     */
+    static Map<String, Integer> sort(
+            Map<String, Integer> wordCounts, int popularWordCount, boolean parallel) {
+        Stream<Map.Entry<String, Integer>> entries = wordCounts.entrySet().stream();
+        if (parallel) {
+            entries = entries.parallel();
+        }
+        return entries.collect(topWords(popularWordCount));
+    }
+
+    /**
+     * Returns a {@link Collector} that keeps the {@code k} most popular word counts in a bounded
+     * heap, and then returns them in order.
+     *
+     * <p>The head of each heap is the least popular word it holds, so a new word only has to be
+     * compared against the head to know whether it displaces anything.
+     */
+    private static Collector<Map.Entry<String, Integer>, ?, Map<String, Integer>> topWords(int k) {
+        return Collector.of(
+                () -> new PriorityQueue<>(Math.max(1, k), COMPARATOR.reversed()),
+                (PriorityQueue<Map.Entry<String, Integer>> heap, Map.Entry<String, Integer> e) ->
+                        offer(heap, e, k),
+                (a, b) -> {
+                    PriorityQueue<Map.Entry<String, Integer>> larger = a.size() >= b.size() ? a : b;
+                    PriorityQueue<Map.Entry<String, Integer>> smaller = larger == a ? b : a;
+                    smaller.forEach(e -> offer(larger, e, k));
+                    return larger;
+                },
+                heap -> heap
+                        .stream()
+                        .sorted(COMPARATOR)
+                        .collect(Collectors
+                                .toMap(
+                                        Map.Entry::getKey,
+                                        Map.Entry::getValue,
+                                        (k1, k2) -> k1,
+                                        LinkedHashMap::new)));
+    }
 
-        // TODO: Reimplement this method using only the Stream API and lambdas and/or method references.
-        return wordCounts
-                .entrySet()
-                .stream()
-                .sorted(new WordCountComparator())
-                .limit(Math.min(popularWordCount, wordCounts.size()))
-                .collect(Collectors
-                        .toMap(
-                                Map.Entry::getKey,
-                                Map.Entry::getValue,
-                                (k, v) -> k,
-                                LinkedHashMap::new));
-//    PriorityQueue<Map.Entry<String, Integer>> sortedCounts =
-//        new PriorityQueue<>(wordCounts.size(), new WordCountComparator());
-//    sortedCounts.addAll(wordCounts.entrySet());
-//    Map<String, Integer> topCounts = new LinkedHashMap<>();
-//    for (int i = 0; i < Math.min(popularWordCount, wordCounts.size()); i++) {
-//      Map.Entry<String, Integer> entry = sortedCounts.poll();
-//      topCounts.put(entry.getKey(), entry.getValue());
-//    }
-//    return topCounts;
+    private static void offer(
+            PriorityQueue<Map.Entry<String, Integer>> heap, Map.Entry<String, Integer> e, int k) {
+        if (heap.size() < k) {
+            heap.add(e);
+        } else if (k > 0 && COMPARATOR.compare(e, heap.peek()) < 0) {
+            heap.poll();
+            heap.add(e);
+        }
     }
 
     /**
@@ -1,8 +1,5 @@
 package com.udacity.webcrawler.json;
 
-import com.fasterxml.jackson.core.JsonParser;
-import com.fasterxml.jackson.databind.ObjectMapper;
-
 import java.io.IOException;
 import java.io.Reader;
 import java.nio.file.Files;
@@ -15,12 +12,22 @@ import java.util.Objects;
 public final class ConfigurationLoader {
 
     private final Path path;
+    private final JsonCodec codec;
 
     /**
      * Create a {@link ConfigurationLoader} that loads configuration from the given {@link Path}.
      */
     public ConfigurationLoader(Path path) {
+        this(path, JsonCodec.getDefault());
+    }
+
+    /**
+     * Create a {@link ConfigurationLoader} that loads configuration from the given {@link Path},
+     * using the given {@link JsonCodec}.
+     */
+    public ConfigurationLoader(Path path, JsonCodec codec) {
         this.path = Objects.requireNonNull(path);
+        this.codec = Objects.requireNonNull(codec);
     }
 
     /**
@@ -31,7 +38,7 @@ public final class ConfigurationLoader {
     public CrawlerConfiguration load() {
         // TODO: Fill in this method.
         try (Reader reader = Files.newBufferedReader(this.path)) {
-            return read(reader);
+            return read(reader, codec);
         } catch (IOException e) {
             System.out.println(e.getLocalizedMessage());
             return null;
@@ -45,14 +52,15 @@ public final class ConfigurationLoader {
      * @return a crawler configuration
      */
     public static CrawlerConfiguration read(Reader reader) {
+        return read(reader, JsonCodec.getDefault());
+    }
+
+    private static CrawlerConfiguration read(Reader reader, JsonCodec codec) {
         // This is here to get rid of the unused variable warning.
         Objects.requireNonNull(reader);
         // TODO: Fill in this method
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
         try {
-            return mapper.readValue(Objects.requireNonNull(reader), CrawlerConfiguration.Builder.class)
-                    .build();
+            return codec.readConfiguration(reader);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -12,13 +12,16 @@ public final class CrawlResult {
 
   private final Map<String, Integer> wordCounts;
   private final int urlsVisited;
+  private final int cancelledFetches;
 
   /**
-   * Constructs a {@link CrawlResult} with the given word counts and visited URL count.
+   * Constructs a {@link CrawlResult} with the given word counts, visited URL count and cancelled
+   * fetch count.
    */
-  private CrawlResult(Map<String, Integer> wordCounts, int urlsVisited) {
+  private CrawlResult(Map<String, Integer> wordCounts, int urlsVisited, int cancelledFetches) {
     this.wordCounts = wordCounts;
     this.urlsVisited = urlsVisited;
+    this.cancelledFetches = cancelledFetches;
   }
 
   /**
@@ -52,12 +55,24 @@ public final class CrawlResult {
     return urlsVisited;
   }
 
+  /**
+   * Returns the number of pages whose download or parsing was abandoned because the crawl's
+   * timeout ran out while they were in progress.
+   *
+   * <p>These pages are included in {@link #getUrlsVisited()}, but none of their words or links
+   * are.
+   */
+  public int getCancelledFetches() {
+    return cancelledFetches;
+  }
+
   /**
    * A package-private builder class for constructing web crawl {@link CrawlResult}s.
    */
   public static final class Builder {
     private Map<String, Integer> wordFrequencies = new HashMap<>();
     private int pageCount;
+    private int cancelledFetches;
 
     /**
      * Sets the word counts. See {@link #getWordCounts()}
@@ -75,11 +90,20 @@ public final class CrawlResult {
       return this;
     }
 
+    /**
+     * Sets the number of cancelled fetches. See {@link #getCancelledFetches()}.
+     */
+    public Builder setCancelledFetches(int cancelledFetches) {
+      this.cancelledFetches = cancelledFetches;
+      return this;
+    }
+
     /**
      * Constructs a {@link CrawlResult} from this builder.
      */
     public CrawlResult build() {
-      return new CrawlResult(Collections.unmodifiableMap(wordFrequencies), pageCount);
+      return new CrawlResult(
+          Collections.unmodifiableMap(wordFrequencies), pageCount, cancelledFetches);
     }
   }
 }
\ No newline at end of file
@@ -1,8 +1,5 @@
 package com.udacity.webcrawler.json;
 
-import com.fasterxml.jackson.core.JsonGenerator;
-import com.fasterxml.jackson.databind.ObjectMapper;
-
 import java.io.IOException;
 import java.io.Writer;
 import java.nio.file.Files;
@@ -14,12 +11,22 @@ import java.util.Objects;
  */
 public final class CrawlResultWriter {
     private final CrawlResult result;
+    private final JsonCodec codec;
 
     /**
      * Creates a new {@link CrawlResultWriter} that will write the given {@link CrawlResult}.
      */
     public CrawlResultWriter(CrawlResult result) {
+        this(result, JsonCodec.getDefault());
+    }
+
+    /**
+     * Creates a new {@link CrawlResultWriter} that will write the given {@link CrawlResult} using
+     * the given {@link JsonCodec}.
+     */
+    public CrawlResultWriter(CrawlResult result, JsonCodec codec) {
         this.result = Objects.requireNonNull(result);
+        this.codec = Objects.requireNonNull(codec);
     }
 
     /**
@@ -49,10 +56,8 @@ public final class CrawlResultWriter {
         // This is here to get rid of the unused variable warning.
         Objects.requireNonNull(writer);
         // TODO: Fill in this method.
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
         try {
-            mapper.writeValue(writer, result);
+            codec.writeResult(result, writer);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
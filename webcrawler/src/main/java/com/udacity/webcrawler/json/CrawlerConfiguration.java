@@ -6,6 +6,7 @@ import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import java.time.Duration;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
 import java.util.Set;
 import java.util.regex.Pattern;
@@ -27,6 +28,24 @@ public final class CrawlerConfiguration {
   private final int popularWordCount;
   private final String profileOutputPath;
   private final String resultPath;
+  private final int expectedUrlCount;
+  private final VisitedUrlStore visitedUrlStore;
+  private final Fetcher fetcher;
+  private final int perHostConcurrency;
+  private final Duration perHostDelay;
+  private final boolean respectRobotsTxt;
+  private final String pageCacheDirectory;
+  private final int pageCacheMaxMegabytes;
+  private final int pageCacheMaxEntries;
+  private final int parseResultCacheSize;
+  private final String crawlHistoryPath;
+  private final String checkpointPath;
+  private final Duration checkpointInterval;
+  private final boolean resumeFromCheckpoint;
+  private final boolean streamResults;
+  private final Duration streamSnapshotInterval;
+  private final int profileSampleEvery;
+  private final Duration profileSampleWindow;
 
   private CrawlerConfiguration(
       List<String> startPages,
@@ -38,7 +57,25 @@ public final class CrawlerConfiguration {
       Duration timeout,
       int popularWordCount,
       String profileOutputPath,
-      String resultPath) {
+      String resultPath,
+      int expectedUrlCount,
+      VisitedUrlStore visitedUrlStore,
+      Fetcher fetcher,
+      int perHostConcurrency,
+      Duration perHostDelay,
+      boolean respectRobotsTxt,
+      String pageCacheDirectory,
+      int pageCacheMaxMegabytes,
+      int pageCacheMaxEntries,
+      int parseResultCacheSize,
+      String crawlHistoryPath,
+      String checkpointPath,
+      Duration checkpointInterval,
+      boolean resumeFromCheckpoint,
+      boolean streamResults,
+      Duration streamSnapshotInterval,
+      int profileSampleEvery,
+      Duration profileSampleWindow) {
     this.startPages = startPages;
     this.ignoredUrls = ignoredUrls;
     this.ignoredWords = ignoredWords;
@@ -49,6 +86,24 @@ public final class CrawlerConfiguration {
     this.popularWordCount = popularWordCount;
     this.profileOutputPath = profileOutputPath;
     this.resultPath = resultPath;
+    this.expectedUrlCount = expectedUrlCount;
+    this.visitedUrlStore = visitedUrlStore;
+    this.fetcher = fetcher;
+    this.perHostConcurrency = perHostConcurrency;
+    this.perHostDelay = perHostDelay;
+    this.respectRobotsTxt = respectRobotsTxt;
+    this.pageCacheDirectory = pageCacheDirectory;
+    this.pageCacheMaxMegabytes = pageCacheMaxMegabytes;
+    this.pageCacheMaxEntries = pageCacheMaxEntries;
+    this.parseResultCacheSize = parseResultCacheSize;
+    this.crawlHistoryPath = crawlHistoryPath;
+    this.checkpointPath = checkpointPath;
+    this.checkpointInterval = checkpointInterval;
+    this.resumeFromCheckpoint = resumeFromCheckpoint;
+    this.streamResults = streamResults;
+    this.streamSnapshotInterval = streamSnapshotInterval;
+    this.profileSampleEvery = profileSampleEvery;
+    this.profileSampleWindow = profileSampleWindow;
   }
 
   /**
@@ -174,6 +229,219 @@ public final class CrawlerConfiguration {
     return resultPath;
   }
 
+  /**
+   * The number of distinct URLs this crawl is expected to visit, or 0 if unknown.
+   *
+   * <p>If positive, the set of visited URLs is sized for this many URLs up front, so that it does
+   * not have to grow during the crawl. The set still grows past that if needed, except for the
+   * {@link VisitedUrlStore#OFFHEAP} store, which is fixed-size.
+   */
+  public int getExpectedUrlCount() {
+    return expectedUrlCount;
+  }
+
+  /**
+   * Where the crawler keeps track of the URLs it has already visited.
+   */
+  public VisitedUrlStore getVisitedUrlStore() {
+    return visitedUrlStore;
+  }
+
+  /**
+   * The kinds of storage the crawler can use to keep track of visited URLs.
+   */
+  public enum VisitedUrlStore {
+
+    /**
+     * Keeps the full text of each visited URL in an on-heap hash set. The set grows as needed.
+     */
+    MEMORY,
+
+    /**
+     * Keeps a 64-bit fingerprint of each visited URL in a fixed-size table outside of the Java
+     * heap, sized from {@link CrawlerConfiguration#getExpectedUrlCount()}. Once the table is full,
+     * no new URLs are visited.
+     */
+    OFFHEAP
+  }
+
+  /**
+   * How the crawler downloads remote pages.
+   */
+  public Fetcher getFetcher() {
+    return fetcher;
+  }
+
+  /**
+   * The largest number of pages from the same host that the crawler downloads at once, or 0 for no
+   * limit.
+   *
+   * <p>Links to a host that is at its limit wait their turn while the crawler works on other hosts.
+   */
+  public int getPerHostConcurrency() {
+    return perHostConcurrency;
+  }
+
+  /**
+   * The shortest time the crawler waits between starting two downloads from the same host. Zero
+   * means no wait.
+   */
+  public Duration getPerHostDelay() {
+    return perHostDelay;
+  }
+
+  /**
+   * Whether the crawler skips URLs that their site's robots.txt file asks crawlers not to visit.
+   */
+  public boolean isRespectRobotsTxt() {
+    return respectRobotsTxt;
+  }
+
+  /**
+   * Path to a directory where downloaded pages are cached between crawls.
+   *
+   * <p>Pages that the server marks with an {@code ETag} or {@code Last-Modified} header are kept
+   * in the cache. When a later crawl visits the same page, it asks the server whether the page
+   * has changed, and only downloads it again if it has. Pages are then always downloaded with the
+   * {@link Fetcher#HTTPCLIENT} fetcher.
+   *
+   * <p>If the path is empty, pages are not cached.
+   */
+  public String getPageCacheDirectory() {
+    return pageCacheDirectory;
+  }
+
+  /**
+   * The largest total size of the page cache, in megabytes, or 0 for no limit. Once the cache is
+   * full, the least recently used pages are dropped.
+   */
+  public int getPageCacheMaxMegabytes() {
+    return pageCacheMaxMegabytes;
+  }
+
+  /**
+   * The largest number of pages in the page cache, or 0 for no limit. Once the cache is full, the
+   * least recently used pages are dropped.
+   */
+  public int getPageCacheMaxEntries() {
+    return pageCacheMaxEntries;
+  }
+
+  /**
+   * How many distinct page bodies the crawler remembers the words and links of, or 0 to parse
+   * every page.
+   *
+   * <p>A page whose body is byte-for-byte the same as one of the remembered ones, for example
+   * because a site serves it under several URLs, is not parsed again. Its links are still resolved
+   * against its own URL. Once the limit is reached, the least recently used bodies are forgotten.
+   */
+  public int getParseResultCacheSize() {
+    return parseResultCacheSize;
+  }
+
+  /**
+   * Path to the file where the crawler keeps the state of its last crawl, so that a later crawl of
+   * the same sites only parses the pages that changed.
+   *
+   * <p>For each visited page, the file holds a hash of the page's contents and the words and links
+   * parsed out of it. A page whose hash has not changed since the last crawl is not parsed again,
+   * and its words and links are taken from the file instead. The file is rewritten at the end of
+   * every crawl, with the pages that crawl visited.
+   *
+   * <p>If the path is empty, no state is kept between crawls.
+   */
+  public String getCrawlHistoryPath() {
+    return crawlHistoryPath;
+  }
+
+  /**
+   * Path to the file where the crawler saves the progress of the current crawl, so that the crawl
+   * can be resumed if it is cut short.
+   *
+   * <p>A checkpoint holds the crawl's partial word counts, the pages it has finished and the pages
+   * it still has to visit. It is written in the background every {@link #getCheckpointInterval()},
+   * and once more when the crawl ends, whether or not the crawl completed.
+   *
+   * <p>If the path is empty, no checkpoints are saved.
+   */
+  public String getCheckpointPath() {
+    return checkpointPath;
+  }
+
+  /**
+   * How often the crawler saves a checkpoint of the current crawl.
+   */
+  public Duration getCheckpointInterval() {
+    return checkpointInterval;
+  }
+
+  /**
+   * Whether the crawl starts from the checkpoint at {@link #getCheckpointPath()}, if there is one,
+   * rather than from the start pages.
+   *
+   * <p>The resumed crawl picks up the checkpoint's word counts and does not visit the pages it had
+   * finished again. Its result covers the pages of both runs.
+   */
+  public boolean isResumeFromCheckpoint() {
+    return resumeFromCheckpoint;
+  }
+
+  /**
+   * Whether the crawler streams its progress to {@link #getResultPath()} while it crawls, as
+   * newline-delimited JSON events, rather than writing the result once at the end.
+   *
+   * <p>There is an event for each page visited, with the words counted on it, a snapshot of the
+   * most popular words so far every {@link #getStreamSnapshotInterval()}, and a last event with
+   * the crawl's result.
+   */
+  public boolean isStreamResults() {
+    return streamResults;
+  }
+
+  /**
+   * How often a streaming crawl writes a snapshot of its most popular words so far.
+   */
+  public Duration getStreamSnapshotInterval() {
+    return streamSnapshotInterval;
+  }
+
+  /**
+   * The profiler times one in this many calls to each profiled method, picked at random, and
+   * extrapolates the profile data from them.
+   *
+   * <p>If this is 1, every call is timed.
+   */
+  public int getProfileSampleEvery() {
+    return profileSampleEvery;
+  }
+
+  /**
+   * The profiler only times calls that start within this much of each second, and extrapolates
+   * the profile data from them.
+   *
+   * <p>If this is one second, calls are timed whenever they start.
+   */
+  public Duration getProfileSampleWindow() {
+    return profileSampleWindow;
+  }
+
+  /**
+   * The ways the crawler can download remote pages.
+   */
+  public enum Fetcher {
+
+    /**
+     * Downloads each page with Jsoup, over a new connection.
+     */
+    JSOUP,
+
+    /**
+     * Downloads pages with a single, shared {@link java.net.http.HttpClient}, which reuses
+     * connections to each host, prefers HTTP/2 and asks for compressed responses.
+     */
+    HTTPCLIENT
+  }
+
   /**
    * A builder class to create {@link CrawlerConfiguration} instances.
    */
@@ -188,6 +456,24 @@ public final class CrawlerConfiguration {
     private int popularWordCount = 0;
     private String profileOutputPath = "";
     private String resultPath = "";
+    private int expectedUrlCount = 0;
+    private VisitedUrlStore visitedUrlStore = VisitedUrlStore.MEMORY;
+    private Fetcher fetcher = Fetcher.JSOUP;
+    private int perHostConcurrency = 0;
+    private int perHostDelayMillis = 0;
+    private boolean respectRobotsTxt = false;
+    private String pageCacheDirectory = "";
+    private int pageCacheMaxMegabytes = 256;
+    private int pageCacheMaxEntries = 0;
+    private int parseResultCacheSize = 0;
+    private String crawlHistoryPath = "";
+    private String checkpointPath = "";
+    private int checkpointIntervalSeconds = 30;
+    private boolean resumeFromCheckpoint = false;
+    private boolean streamResults = false;
+    private int streamSnapshotIntervalSeconds = 5;
+    private int profileSampleEvery = 1;
+    private int profileSampleWindowMillis = 1000;
 
     /**
      * Adds a start page URL.
@@ -314,6 +600,215 @@ public final class CrawlerConfiguration {
       return this;
     }
 
+    /**
+     * Sets the number of distinct URLs this crawl is expected to visit.
+     *
+     * <p>See {@link #getExpectedUrlCount()}.
+     */
+    @JsonProperty("expectedUrlCount")
+    public Builder setExpectedUrlCount(int expectedUrlCount) {
+      this.expectedUrlCount = expectedUrlCount;
+      return this;
+    }
+
+    /**
+     * Sets where the crawler keeps track of the URLs it has already visited, either
+     * {@code "memory"} or {@code "offheap"}.
+     *
+     * <p>See {@link #getVisitedUrlStore()}.
+     */
+    @JsonProperty("visitedUrlStore")
+    public Builder setVisitedUrlStore(String visitedUrlStore) {
+      try {
+        this.visitedUrlStore =
+            VisitedUrlStore.valueOf(visitedUrlStore.toUpperCase(Locale.ROOT));
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException("Unknown visitedUrlStore: " + visitedUrlStore, e);
+      }
+      return this;
+    }
+
+    /**
+     * Sets how the crawler downloads remote pages, either {@code "jsoup"} or
+     * {@code "httpclient"}.
+     *
+     * <p>See {@link #getFetcher()}.
+     */
+    @JsonProperty("fetcher")
+    public Builder setFetcher(String fetcher) {
+      try {
+        this.fetcher = Fetcher.valueOf(fetcher.toUpperCase(Locale.ROOT));
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException("Unknown fetcher: " + fetcher, e);
+      }
+      return this;
+    }
+
+    /**
+     * Sets the largest number of pages from the same host that the crawler downloads at once.
+     *
+     * <p>See {@link #getPerHostConcurrency()}.
+     */
+    @JsonProperty("perHostConcurrency")
+    public Builder setPerHostConcurrency(int perHostConcurrency) {
+      this.perHostConcurrency = perHostConcurrency;
+      return this;
+    }
+
+    /**
+     * Sets the shortest time between two downloads from the same host, specified in milliseconds.
+     *
+     * <p>See {@link #getPerHostDelay()}.
+     */
+    @JsonProperty("perHostDelayMillis")
+    public Builder setPerHostDelayMillis(int millis) {
+      this.perHostDelayMillis = millis;
+      return this;
+    }
+
+    /**
+     * Sets whether the crawler follows the robots.txt files of the sites it visits.
+     *
+     * <p>See {@link #isRespectRobotsTxt()}.
+     */
+    @JsonProperty("respectRobotsTxt")
+    public Builder setRespectRobotsTxt(boolean respectRobotsTxt) {
+      this.respectRobotsTxt = respectRobotsTxt;
+      return this;
+    }
+
+    /**
+     * Sets the path to the directory where downloaded pages are cached between crawls.
+     *
+     * <p>See {@link #getPageCacheDirectory()}.
+     */
+    @JsonProperty("pageCacheDirectory")
+    public Builder setPageCacheDirectory(String pageCacheDirectory) {
+      this.pageCacheDirectory = Objects.requireNonNull(pageCacheDirectory);
+      return this;
+    }
+
+    /**
+     * Sets the largest total size of the page cache, specified in megabytes.
+     *
+     * <p>See {@link #getPageCacheMaxMegabytes()}.
+     */
+    @JsonProperty("pageCacheMaxMegabytes")
+    public Builder setPageCacheMaxMegabytes(int pageCacheMaxMegabytes) {
+      this.pageCacheMaxMegabytes = pageCacheMaxMegabytes;
+      return this;
+    }
+
+    /**
+     * Sets the largest number of pages in the page cache.
+     *
+     * <p>See {@link #getPageCacheMaxEntries()}.
+     */
+    @JsonProperty("pageCacheMaxEntries")
+    public Builder setPageCacheMaxEntries(int pageCacheMaxEntries) {
+      this.pageCacheMaxEntries = pageCacheMaxEntries;
+      return this;
+    }
+
+    /**
+     * Sets how many distinct page bodies the crawler remembers the words and links of.
+     *
+     * <p>See {@link #getParseResultCacheSize()}.
+     */
+    @JsonProperty("parseResultCacheSize")
+    public Builder setParseResultCacheSize(int parseResultCacheSize) {
+      this.parseResultCacheSize = parseResultCacheSize;
+      return this;
+    }
+
+    /**
+     * Sets the path to the file where the crawler keeps the state of its last crawl.
+     *
+     * <p>See {@link #getCrawlHistoryPath()}.
+     */
+    @JsonProperty("crawlHistoryPath")
+    public Builder setCrawlHistoryPath(String crawlHistoryPath) {
+      this.crawlHistoryPath = Objects.requireNonNull(crawlHistoryPath);
+      return this;
+    }
+
+    /**
+     * Sets the path to the file where the crawler saves the progress of the current crawl.
+     *
+     * <p>See {@link #getCheckpointPath()}.
+     */
+    @JsonProperty("checkpointPath")
+    public Builder setCheckpointPath(String checkpointPath) {
+      this.checkpointPath = Objects.requireNonNull(checkpointPath);
+      return this;
+    }
+
+    /**
+     * Sets how often, in seconds, the crawler saves a checkpoint of the current crawl.
+     *
+     * <p>See {@link #getCheckpointInterval()}.
+     */
+    @JsonProperty("checkpointIntervalSeconds")
+    public Builder setCheckpointIntervalSeconds(int seconds) {
+      this.checkpointIntervalSeconds = seconds;
+      return this;
+    }
+
+    /**
+     * Sets whether the crawl starts from the last checkpoint.
+     *
+     * <p>See {@link #isResumeFromCheckpoint()}.
+     */
+    @JsonProperty("resumeFromCheckpoint")
+    public Builder setResumeFromCheckpoint(boolean resumeFromCheckpoint) {
+      this.resumeFromCheckpoint = resumeFromCheckpoint;
+      return this;
+    }
+
+    /**
+     * Sets whether the crawler streams its progress while it crawls.
+     *
+     * <p>See {@link #isStreamResults()}.
+     */
+    @JsonProperty("streamResults")
+    public Builder setStreamResults(boolean streamResults) {
+      this.streamResults = streamResults;
+      return this;
+    }
+
+    /**
+     * Sets how often, in seconds, a streaming crawl writes a snapshot of its most popular words.
+     *
+     * <p>See {@link #getStreamSnapshotInterval()}.
+     */
+    @JsonProperty("streamSnapshotIntervalSeconds")
+    public Builder setStreamSnapshotIntervalSeconds(int seconds) {
+      this.streamSnapshotIntervalSeconds = seconds;
+      return this;
+    }
+
+    /**
+     * Sets the profiler to time one in this many calls to each profiled method.
+     *
+     * <p>See {@link #getProfileSampleEvery()}.
+     */
+    @JsonProperty("profileSampleEvery")
+    public Builder setProfileSampleEvery(int every) {
+      this.profileSampleEvery = every;
+      return this;
+    }
+
+    /**
+     * Sets how much of each second, in milliseconds, the profiler times the calls that start in.
+     *
+     * <p>See {@link #getProfileSampleWindow()}.
+     */
+    @JsonProperty("profileSampleWindowMillis")
+    public Builder setProfileSampleWindowMillis(int millis) {
+      this.profileSampleWindowMillis = millis;
+      return this;
+    }
+
     /**
      * Constructs a {@link CrawlerConfiguration} from this builder.
      */
@@ -327,6 +822,36 @@ public final class CrawlerConfiguration {
       if (popularWordCount < 0) {
         throw new IllegalArgumentException("popularWordCount cannot be negative");
       }
+      if (expectedUrlCount < 0) {
+        throw new IllegalArgumentException("expectedUrlCount cannot be negative");
+      }
+      if (perHostConcurrency < 0) {
+        throw new IllegalArgumentException("perHostConcurrency cannot be negative");
+      }
+      if (perHostDelayMillis < 0) {
+        throw new IllegalArgumentException("perHostDelayMillis cannot be negative");
+      }
+      if (pageCacheMaxMegabytes < 0) {
+        throw new IllegalArgumentException("pageCacheMaxMegabytes cannot be negative");
+      }
+      if (pageCacheMaxEntries < 0) {
+        throw new IllegalArgumentException("pageCacheMaxEntries cannot be negative");
+      }
+      if (parseResultCacheSize < 0) {
+        throw new IllegalArgumentException("parseResultCacheSize cannot be negative");
+      }
+      if (checkpointIntervalSeconds <= 0) {
+        throw new IllegalArgumentException("checkpointIntervalSeconds must be positive");
+      }
+      if (streamSnapshotIntervalSeconds <= 0) {
+        throw new IllegalArgumentException("streamSnapshotIntervalSeconds must be positive");
+      }
+      if (profileSampleEvery <= 0) {
+        throw new IllegalArgumentException("profileSampleEvery must be positive");
+      }
+      if (profileSampleWindowMillis <= 0 || profileSampleWindowMillis > 1000) {
+        throw new IllegalArgumentException("profileSampleWindowMillis must be between 1 and 1000");
+      }
 
       return new CrawlerConfiguration(
           startPages.stream().collect(Collectors.toUnmodifiableList()),
@@ -338,7 +863,25 @@ public final class CrawlerConfiguration {
           Duration.ofSeconds(timeoutSeconds),
           popularWordCount,
           profileOutputPath,
-          resultPath);
+          resultPath,
+          expectedUrlCount,
+          visitedUrlStore,
+          fetcher,
+          perHostConcurrency,
+          Duration.ofMillis(perHostDelayMillis),
+          respectRobotsTxt,
+          pageCacheDirectory,
+          pageCacheMaxMegabytes,
+          pageCacheMaxEntries,
+          parseResultCacheSize,
+          crawlHistoryPath,
+          checkpointPath,
+          Duration.ofSeconds(checkpointIntervalSeconds),
+          resumeFromCheckpoint,
+          streamResults,
+          Duration.ofSeconds(streamSnapshotIntervalSeconds),
+          profileSampleEvery,
+          Duration.ofMillis(profileSampleWindowMillis));
     }
   }
 }
@@ -0,0 +1,77 @@
+package com.udacity.webcrawler.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+
+/**
+ * Reads and writes the JSON of the crawler's configuration and results.
+ *
+ * <p>Creating an {@link ObjectMapper} is expensive, and each one builds and caches its own
+ * serializers and deserializers the first time it sees a type. A codec creates its mapper once,
+ * and keeps an {@link ObjectReader} and an {@link ObjectWriter} already bound to the
+ * configuration and result types, so that every later read or write reuses them.
+ *
+ * <p>A codec is immutable and thread-safe. The {@link #getDefault() default} codec is shared by the
+ * classes in this package when they are not given one, and is the one that
+ * {@link com.udacity.webcrawler.WebCrawlerModule} binds.
+ */
+public final class JsonCodec {
+
+  private static final JsonCodec DEFAULT = new JsonCodec(new ObjectMapper());
+
+  private final ObjectMapper mapper;
+  private final ObjectReader configurationReader;
+  private final ObjectWriter resultWriter;
+
+  /**
+   * Creates a codec that uses the given mapper, for example one with extra modules registered. The
+   * mapper should not be changed afterwards.
+   */
+  public JsonCodec(ObjectMapper mapper) {
+    this.mapper = mapper;
+    this.configurationReader =
+        mapper.readerFor(CrawlerConfiguration.Builder.class)
+            .without(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+    this.resultWriter =
+        mapper.writerFor(CrawlResult.class)
+            .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+  }
+
+  /**
+   * Returns the shared codec, with Jackson's default settings.
+   */
+  public static JsonCodec getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * Reads a crawler configuration from the given reader, which is not closed.
+   */
+  public CrawlerConfiguration readConfiguration(Reader reader) throws IOException {
+    CrawlerConfiguration.Builder builder = configurationReader.readValue(reader);
+    return builder.build();
+  }
+
+  /**
+   * Writes the given crawl result to the given writer, which is not closed.
+   */
+  public void writeResult(CrawlResult result, Writer writer) throws IOException {
+    resultWriter.writeValue(writer, result);
+  }
+
+  /**
+   * Creates a streaming generator that writes to the given writer, and does not close it.
+   */
+  public JsonGenerator createGenerator(Writer writer) throws IOException {
+    JsonGenerator generator = mapper.getFactory().createGenerator(writer);
+    generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    return generator;
+  }
+}
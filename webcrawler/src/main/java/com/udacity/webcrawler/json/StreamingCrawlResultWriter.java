@@ -0,0 +1,120 @@
+package com.udacity.webcrawler.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Writes the progress of a crawl as newline-delimited JSON (NDJSON): one JSON object per line,
+ * each one an event that can be read as soon as it is written.
+ *
+ * <p>There are three kinds of events, told apart by their {@code "event"} field:
+ *
+ * <ul>
+ *   <li>{@code "page"}: a page was visited. Has the page's {@code "url"}, and the
+ *       {@code "wordCounts"} that it adds to the crawl's totals.</li>
+ *   <li>{@code "snapshot"}: the crawl's most popular words so far. Has the {@code "urlsVisited"}
+ *       and the {@code "wordCounts"} of the most popular words, in order.</li>
+ *   <li>{@code "result"}: the crawl is over. Has the same fields as the JSON written by
+ *       {@link CrawlResultWriter}.</li>
+ * </ul>
+ *
+ * <p>Events are written with Jackson's streaming {@link JsonGenerator}, straight to the
+ * {@link Writer}, without building a tree or a map first.
+ *
+ * <p>Instances are not thread-safe.
+ */
+public final class StreamingCrawlResultWriter implements Flushable, Closeable {
+
+  private final JsonGenerator generator;
+
+  /**
+   * Creates a {@link StreamingCrawlResultWriter} that writes to the given {@link Writer}. The
+   * writer is not closed by {@link #close()}.
+   */
+  public StreamingCrawlResultWriter(Writer writer) throws IOException {
+    this(writer, JsonCodec.getDefault());
+  }
+
+  /**
+   * Creates a {@link StreamingCrawlResultWriter} that writes to the given {@link Writer} with a
+   * generator from the given {@link JsonCodec}. The writer is not closed by {@link #close()}.
+   */
+  public StreamingCrawlResultWriter(Writer writer, JsonCodec codec) throws IOException {
+    this.generator = Objects.requireNonNull(codec).createGenerator(writer);
+    // Each event ends with its own line break instead.
+    generator.setRootValueSeparator(null);
+  }
+
+  /**
+   * Writes a {@code "page"} event.
+   */
+  public void writePage(String url, Map<String, Integer> wordCounts) throws IOException {
+    generator.writeStartObject();
+    generator.writeStringField("event", "page");
+    generator.writeStringField("url", url);
+    writeWordCounts(wordCounts);
+    endEvent();
+  }
+
+  /**
+   * Writes a {@code "snapshot"} event.
+   *
+   * @param urlsVisited  the number of pages visited so far.
+   * @param popularWords the most popular words so far, in order.
+   */
+  public void writeSnapshot(int urlsVisited, Map<String, Integer> popularWords)
+      throws IOException {
+    generator.writeStartObject();
+    generator.writeStringField("event", "snapshot");
+    generator.writeNumberField("urlsVisited", urlsVisited);
+    writeWordCounts(popularWords);
+    endEvent();
+  }
+
+  /**
+   * Writes the {@code "result"} event of the given finished crawl.
+   */
+  public void writeResult(CrawlResult result) throws IOException {
+    generator.writeStartObject();
+    generator.writeStringField("event", "result");
+    writeWordCounts(result.getWordCounts());
+    generator.writeNumberField("urlsVisited", result.getUrlsVisited());
+    generator.writeNumberField("cancelledFetches", result.getCancelledFetches());
+    endEvent();
+  }
+
+  /**
+   * Flushes the events written so far through to the {@link Writer}.
+   */
+  @Override
+  public void flush() throws IOException {
+    generator.flush();
+  }
+
+  /**
+   * Flushes the events written so far, and stops writing. Does not close the {@link Writer}.
+   */
+  @Override
+  public void close() throws IOException {
+    generator.close();
+  }
+
+  private void writeWordCounts(Map<String, Integer> wordCounts) throws IOException {
+    generator.writeObjectFieldStart("wordCounts");
+    for (Map.Entry<String, Integer> word : wordCounts.entrySet()) {
+      generator.writeNumberField(word.getKey(), word.getValue());
+    }
+    generator.writeEndObject();
+  }
+
+  private void endEvent() throws IOException {
+    generator.writeEndObject();
+    generator.writeRaw('\n');
+  }
+}
@@ -8,6 +8,7 @@ import com.udacity.webcrawler.json.ConfigurationLoader;
 import com.udacity.webcrawler.json.CrawlResult;
 import com.udacity.webcrawler.json.CrawlResultWriter;
 import com.udacity.webcrawler.json.CrawlerConfiguration;
+import com.udacity.webcrawler.json.JsonCodec;
 import com.udacity.webcrawler.profiler.Profiler;
 import com.udacity.webcrawler.profiler.ProfilerModule;
 
@@ -33,17 +34,27 @@ public final class WebCrawlerMain {
     @Inject
     private Profiler profiler;
 
+    @Inject
+    private JsonCodec codec;
+
     private void run() throws Exception {
-        Guice.createInjector(new WebCrawlerModule(config), new ProfilerModule()).injectMembers(this);
+        ProfilerModule profilerModule = new ProfilerModule.Builder()
+                .setSampleEvery(config.getProfileSampleEvery())
+                .setSampleWindow(config.getProfileSampleWindow())
+                .build();
+        Guice.createInjector(new WebCrawlerModule(config), profilerModule).injectMembers(this);
 
         CrawlResult result = crawler.crawl(config.getStartPages());
-        CrawlResultWriter resultWriter = new CrawlResultWriter(result);
         // TODO: Write the crawl results to a JSON file (or System.out if the file name is empty)
-        if (Strings.isNullOrEmpty(config.getResultPath())) {
-            resultWriter.write(new OutputStreamWriter(System.out));
-        } else {
-            Path path = Paths.get(config.getProfileOutputPath());
-            resultWriter.write(path);
+        // A streaming crawler has already written the result, along with its progress.
+        if (!config.isStreamResults()) {
+            CrawlResultWriter resultWriter = new CrawlResultWriter(result, codec);
+            if (Strings.isNullOrEmpty(config.getResultPath())) {
+                resultWriter.write(new OutputStreamWriter(System.out));
+            } else {
+                Path path = Paths.get(config.getResultPath());
+                resultWriter.write(path);
+            }
         }
         // TODO: Write the profile data to a text file (or System.out if the file name is empty)
         if (Strings.isNullOrEmpty(config.getProfileOutputPath())) {
@@ -0,0 +1,62 @@
+package com.udacity.webcrawler.parser;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Objects;
+
+/**
+ * The 128-bit MD5 hash of a downloaded page's character set and body, which tells whether two
+ * pages have the same contents.
+ */
+final class ContentHash {
+  private final long high;
+  private final long low;
+
+  ContentHash(long high, long low) {
+    this.high = high;
+    this.low = low;
+  }
+
+  /**
+   * Hashes the given page. Use {@link FetchedPage#getContentHash()} instead, which only hashes
+   * each page once.
+   */
+  static ContentHash of(FetchedPage page) {
+    MessageDigest md5;
+    try {
+      md5 = MessageDigest.getInstance("MD5");
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform supports MD5.
+      throw new AssertionError(e);
+    }
+    // The same bytes in a different character set can be a different page.
+    md5.update(Objects.toString(page.getCharset(), "").getBytes(StandardCharsets.UTF_8));
+    md5.update((byte) 0);
+    ByteBuffer hash = ByteBuffer.wrap(md5.digest(page.getBody()));
+    return new ContentHash(hash.getLong(), hash.getLong());
+  }
+
+  long getHigh() {
+    return high;
+  }
+
+  long getLow() {
+    return low;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (!(o instanceof ContentHash)) {
+      return false;
+    }
+    ContentHash other = (ContentHash) o;
+    return other.high == high && other.low == low;
+  }
+
+  @Override
+  public int hashCode() {
+    return Long.hashCode(low);
+  }
+}
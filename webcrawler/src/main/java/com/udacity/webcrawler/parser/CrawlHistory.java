@@ -0,0 +1,280 @@
+package com.udacity.webcrawler.parser;
+
+import com.udacity.webcrawler.profiler.Profiler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The state of the last crawl, kept in a file between runs, so that a re-crawl of the same sites
+ * only parses the pages that changed since then.
+ *
+ * <p>For every page the crawl visited, the history keeps a hash of the page's contents, along with
+ * the words and links that were parsed out of it. When a page is visited again and its hash has
+ * not changed, its words and links are taken from the history instead of parsing the page again.
+ * Unchanged pages are still downloaded; combined with the page cache, that only costs a
+ * {@code 304 Not Modified} response for each of them.
+ *
+ * <p>The word counts of a crawl are the sum of the visited pages' words, so keeping each page's
+ * own words is enough to update the counts of the whole crawl: changed pages contribute their new
+ * words, and pages that were not visited again drop out.
+ *
+ * <p>{@link #save()} replaces the history with the pages visited since the last save, and records
+ * how many of them were unchanged, changed or new, and how many were not visited again, with the
+ * {@link Profiler} as the {@code CrawlHistory#pages.*} metrics.
+ *
+ * <p>All methods are thread-safe.
+ */
+public final class CrawlHistory {
+
+  static final String UNCHANGED_METRIC = CrawlHistory.class.getName() + "#pages.unchanged";
+  static final String CHANGED_METRIC = CrawlHistory.class.getName() + "#pages.changed";
+  static final String NEW_METRIC = CrawlHistory.class.getName() + "#pages.new";
+  static final String REMOVED_METRIC = CrawlHistory.class.getName() + "#pages.removed";
+
+  private static final int MAGIC = 0x43524157;
+  private static final int VERSION = 1;
+
+  private static final CrawlHistory DISABLED = new CrawlHistory(null, null, Map.of());
+
+  private final Path file;
+  private final Profiler profiler;
+
+  /**
+   * The pages as of the last save, or as loaded from the file.
+   */
+  private volatile Map<String, Page> saved;
+
+  /**
+   * The pages visited since the last save.
+   */
+  private final ConcurrentHashMap<String, Page> visited = new ConcurrentHashMap<>();
+  private final LongAdder unchanged = new LongAdder();
+  private final LongAdder changed = new LongAdder();
+  private final LongAdder added = new LongAdder();
+
+  private CrawlHistory(Path file, Profiler profiler, Map<String, Page> saved) {
+    this.file = file;
+    this.profiler = profiler;
+    this.saved = saved;
+  }
+
+  /**
+   * Returns a history that never remembers any pages, and parses every page.
+   */
+  static CrawlHistory disabled() {
+    return DISABLED;
+  }
+
+  /**
+   * Opens the history kept in the given file, which is created on the first {@link #save()}.
+   *
+   * <p>If the file cannot be read, for example because it was written by another version of the
+   * crawler, the history starts out empty, and the next crawl parses every page.
+   */
+  static CrawlHistory open(Path file, Profiler profiler) {
+    Objects.requireNonNull(file);
+    Objects.requireNonNull(profiler);
+    Map<String, Page> pages;
+    try {
+      pages = Files.exists(file) ? readFile(file) : Map.of();
+    } catch (IOException | RuntimeException e) {
+      pages = Map.of();
+    }
+    return new CrawlHistory(file, profiler, pages);
+  }
+
+  /**
+   * Returns whether this history is kept in a file. If not, {@link #save()} does nothing.
+   */
+  public boolean isEnabled() {
+    return this != DISABLED;
+  }
+
+  /**
+   * Returns the words and links of the given page: from the history, if the page has not changed
+   * since it was last visited, and otherwise from the given parser.
+   *
+   * <p>If the parser returns {@code null}, for example because the page could not be parsed in
+   * time, the page is not remembered.
+   */
+  ParseResultCache.Content get(FetchedPage page, ParseResultCache.Parser parser)
+      throws IOException {
+    if (this == DISABLED) {
+      return parser.parse(page);
+    }
+    String url = page.getUrl();
+    ContentHash hash = page.getContentHash();
+    Page last = saved.get(url);
+    ParseResultCache.Content content;
+    if (last != null && last.hash.equals(hash)) {
+      content = last.content;
+    } else {
+      content = parser.parse(page);
+      if (content == null) {
+        return null;
+      }
+    }
+    if (visited.put(url, new Page(hash, content)) == null) {
+      // Only count each page once, even if it is visited more than once.
+      (last == null ? added : content == last.content ? unchanged : changed).increment();
+    }
+    return content;
+  }
+
+  /**
+   * Writes the pages visited since the last save to the history's file, replacing the pages that
+   * were there, and records what changed with the {@link Profiler}. Call it once a crawl is done.
+   *
+   * @throws IOException if the file could not be written. The history is then left as it was.
+   */
+  public synchronized void save() throws IOException {
+    if (this == DISABLED) {
+      return;
+    }
+    Map<String, Page> pages = Map.copyOf(visited);
+    Path parent = file.toAbsolutePath().getParent();
+    Files.createDirectories(parent);
+    // Written under a temporary name first, so that a crawl that stops halfway through writing it
+    // does not lose the last history.
+    Path temp = Files.createTempFile(parent, "history", ".tmp");
+    try {
+      writeFile(temp, pages);
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+
+    long removed = saved.keySet().stream().filter(url -> !pages.containsKey(url)).count();
+    profiler.recordMetric(UNCHANGED_METRIC, unchanged.sumThenReset());
+    profiler.recordMetric(CHANGED_METRIC, changed.sumThenReset());
+    profiler.recordMetric(NEW_METRIC, added.sumThenReset());
+    profiler.recordMetric(REMOVED_METRIC, removed);
+    saved = pages;
+    visited.keySet().removeAll(pages.keySet());
+  }
+
+  /**
+   * Returns the number of pages in the history, as of the last save.
+   */
+  int size() {
+    return saved.size();
+  }
+
+  private static Map<String, Page> readFile(Path file) throws IOException {
+    long size = Files.size(file);
+    try (DataInputStream in =
+             new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        throw new IOException("Not a crawl history: " + file);
+      }
+      int count = in.readInt();
+      Map<String, Page> pages = new HashMap<>();
+      for (int i = 0; i < count; i++) {
+        String url = readString(in, size);
+        ContentHash hash = new ContentHash(in.readLong(), in.readLong());
+        int wordCount = in.readInt();
+        Map<String, Integer> words = new HashMap<>();
+        for (int j = 0; j < wordCount; j++) {
+          words.put(readString(in, size), in.readInt());
+        }
+        List<String> hrefs = readStrings(in, size);
+        List<String> baseHrefs = readStrings(in, size);
+        pages.put(url, new Page(hash, new ParseResultCache.Content(words, hrefs, baseHrefs)));
+      }
+      return pages;
+    }
+  }
+
+  /**
+   * Lays out a history file: a header, then each page's URL, hash, word counts and links.
+   */
+  private static void writeFile(Path file, Map<String, Page> pages) throws IOException {
+    try (DataOutputStream out =
+             new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(pages.size());
+      for (Map.Entry<String, Page> entry : pages.entrySet()) {
+        Page page = entry.getValue();
+        writeString(out, entry.getKey());
+        out.writeLong(page.hash.getHigh());
+        out.writeLong(page.hash.getLow());
+        Map<String, Integer> words = page.content.getWordCounts();
+        out.writeInt(words.size());
+        for (Map.Entry<String, Integer> word : words.entrySet()) {
+          writeString(out, word.getKey());
+          out.writeInt(word.getValue());
+        }
+        writeStrings(out, page.content.getHrefs());
+        writeStrings(out, page.content.getBaseHrefs());
+      }
+    }
+  }
+
+  private static List<String> readStrings(DataInputStream in, long fileSize) throws IOException {
+    int count = in.readInt();
+    List<String> strings = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      strings.add(readString(in, fileSize));
+    }
+    return strings;
+  }
+
+  private static void writeStrings(DataOutputStream out, List<String> strings)
+      throws IOException {
+    out.writeInt(strings.size());
+    for (String string : strings) {
+      writeString(out, string);
+    }
+  }
+
+  /**
+   * Reads a length-prefixed string. The length is checked against the size of the file first, so
+   * that a corrupt length does not allocate a huge array.
+   */
+  private static String readString(DataInputStream in, long fileSize) throws IOException {
+    // Not readUTF(), which cannot hold strings longer than 64 KB, such as a very long link.
+    int length = in.readInt();
+    if (length < 0 || length > fileSize) {
+      throw new EOFException("Length " + length + " runs past the end of the file");
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static void writeString(DataOutputStream out, String string) throws IOException {
+    byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  /**
+   * A visited page: the hash of its contents, and what was parsed out of them.
+   */
+  private static final class Page {
+    private final ContentHash hash;
+    private final ParseResultCache.Content content;
+
+    Page(ContentHash hash, ParseResultCache.Content content) {
+      this.hash = hash;
+      this.content = content;
+    }
+  }
+}
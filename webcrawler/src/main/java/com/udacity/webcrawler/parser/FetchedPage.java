@@ -0,0 +1,71 @@
+package com.udacity.webcrawler.parser;
+
+import java.util.Objects;
+
+/**
+ * The raw, unparsed contents of a page that was downloaded by a {@link PageFetcher}.
+ */
+public final class FetchedPage {
+  private final String url;
+  private final String baseUri;
+  private final byte[] body;
+  private final String charset;
+  private ContentHash contentHash;
+
+  /**
+   * Creates a {@link FetchedPage}.
+   *
+   * @param url     the URL that was requested.
+   * @param baseUri the URI that relative links on the page should be resolved against, which may
+   *                differ from the requested URL if the request was redirected. Empty for local
+   *                files, whose links are resolved by the parser.
+   * @param body    the raw bytes of the page.
+   * @param charset the character set of the body, or {@code null} if it should be detected from
+   *                the page itself.
+   */
+  FetchedPage(String url, String baseUri, byte[] body, String charset) {
+    this.url = Objects.requireNonNull(url);
+    this.baseUri = Objects.requireNonNull(baseUri);
+    this.body = Objects.requireNonNull(body);
+    this.charset = charset;
+  }
+
+  /**
+   * Returns the URL that was requested.
+   */
+  public String getUrl() {
+    return url;
+  }
+
+  /**
+   * Returns the size of the page body, in bytes.
+   */
+  public int getSize() {
+    return body.length;
+  }
+
+  String getBaseUri() {
+    return baseUri;
+  }
+
+  byte[] getBody() {
+    return body;
+  }
+
+  String getCharset() {
+    return charset;
+  }
+
+  /**
+   * Returns the hash of the page's contents, which is only computed the first time it is needed.
+   */
+  ContentHash getContentHash() {
+    // Two threads may both compute it, but they get the same result.
+    ContentHash hash = contentHash;
+    if (hash == null) {
+      hash = ContentHash.of(this);
+      contentHash = hash;
+    }
+    return hash;
+  }
+}
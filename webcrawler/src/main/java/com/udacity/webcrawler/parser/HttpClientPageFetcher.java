@@ -0,0 +1,308 @@
+package com.udacity.webcrawler.parser;
+
+import com.udacity.webcrawler.Timeout;
+import org.jsoup.HttpStatusException;
+import org.jsoup.UnsupportedMimeTypeException;
+
+import javax.inject.Inject;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.Charset;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * A {@link PageFetcher} that downloads remote pages with a single, shared {@link HttpClient}.
+ *
+ * <p>Unlike {@link PageFetcherImpl}, which opens a new connection for every page, the shared client
+ * keeps connections to each host open between pages and reuses them. It prefers HTTP/2, which can
+ * download many pages from the same host over one connection, and asks for compressed responses.
+ * Downloads can also be started without blocking, using {@link #fetchAsync(String, Duration)}.
+ *
+ * <p>Local files are read the same way as by {@link PageFetcherImpl}, and remote pages go through
+ * the same content type and HTTP status checks.
+ *
+ * <p>If it has a {@link PageCache}, pages that were downloaded before are only downloaded again if
+ * the server says that they have changed.
+ */
+final class HttpClientPageFetcher implements PageFetcher {
+
+  /**
+   * The content encodings that this fetcher can decode. The JDK has no Brotli decoder.
+   */
+  private static final String ACCEPT_ENCODING = "gzip, deflate";
+
+  /**
+   * The same XML content types that Jsoup accepts, in addition to all {@code "text/*"} types.
+   */
+  private static final Pattern XML_CONTENT_TYPE =
+      Pattern.compile("(?i)(application|text)/\\w*\\+?xml.*");
+
+  private static final Pattern CHARSET =
+      Pattern.compile("(?i)\\bcharset=\\s*(?:[\"'])?([^\\s,;\"']*)");
+
+  private final HttpClient client;
+  private final Duration timeout;
+  private final PageCache cache;
+
+  HttpClientPageFetcher(Duration timeout) {
+    this(timeout, PageCache.disabled());
+  }
+
+  @Inject
+  HttpClientPageFetcher(@Timeout Duration timeout, PageCache cache) {
+    this(
+        HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build(),
+        timeout,
+        cache);
+  }
+
+  HttpClientPageFetcher(HttpClient client, Duration timeout) {
+    this(client, timeout, PageCache.disabled());
+  }
+
+  HttpClientPageFetcher(HttpClient client, Duration timeout, PageCache cache) {
+    this.client = Objects.requireNonNull(client);
+    this.timeout = Objects.requireNonNull(timeout);
+    this.cache = Objects.requireNonNull(cache);
+  }
+
+  @Override
+  public FetchedPage fetch(String url) throws IOException {
+    return fetch(url, timeout);
+  }
+
+  @Override
+  public FetchedPage fetch(String url, Duration timeout) throws IOException {
+    if (timeout.isNegative()) {
+      throw new SocketTimeoutException("No time left to download " + url);
+    }
+    URI uri = PageFetcherImpl.toUri(url);
+    if (PageParserImpl.isLocalFile(uri)) {
+      return PageFetcherImpl.readLocalFile(url, uri);
+    }
+
+    CompletableFuture<FetchedPage> page = send(url, uri, timeout, cache.get(url));
+    try {
+      // The request timeout only covers the wait for the response headers, so also limit the wait
+      // for the body.
+      return timeout.isZero()
+          ? page.get()
+          : page.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      page.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while downloading " + url);
+    } catch (TimeoutException e) {
+      page.cancel(true);
+      throw new HttpTimeoutException("Timed out downloading " + url);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException("Could not download " + url, e.getCause());
+    }
+  }
+
+  /**
+   * Starts downloading the page at the given URL, without waiting for it.
+   *
+   * <p>The returned future fails with an {@link IOException} if the page could not be downloaded,
+   * or is not an HTML page. Cancelling it aborts the download.
+   */
+  CompletableFuture<FetchedPage> fetchAsync(String url, Duration timeout) {
+    try {
+      if (timeout.isNegative()) {
+        throw new SocketTimeoutException("No time left to download " + url);
+      }
+      URI uri = PageFetcherImpl.toUri(url);
+      if (PageParserImpl.isLocalFile(uri)) {
+        return CompletableFuture.completedFuture(PageFetcherImpl.readLocalFile(url, uri));
+      }
+      return send(url, uri, timeout, cache.get(url));
+    } catch (IOException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  /**
+   * Starts downloading the page at the given URL. If a cached copy of the page is given, only asks
+   * for the page if it has changed since, and otherwise returns the cached copy.
+   */
+  private CompletableFuture<FetchedPage> send(
+      String url, URI uri, Duration timeout, PageCache.Entry cached) throws IOException {
+    CompletableFuture<FetchedPage> page = new CompletableFuture<>();
+    send(url, uri, timeout, cached, page);
+    return page;
+  }
+
+  /**
+   * Starts downloading the page at the given URL, and completes the given future with it.
+   *
+   * <p>The future is completed from the exchange's callbacks, rather than being a stage that
+   * depends on the exchange, because cancelling a dependent stage does not cancel the exchange.
+   * Instead, cancelling the future cancels the exchange, which makes the client abort it.
+   */
+  private void send(
+      String url,
+      URI uri,
+      Duration timeout,
+      PageCache.Entry cached,
+      CompletableFuture<FetchedPage> page) throws IOException {
+    HttpRequest.Builder request =
+        HttpRequest.newBuilder().GET().header("Accept-Encoding", ACCEPT_ENCODING);
+    if (cached != null && cached.getEtag() != null) {
+      request.header("If-None-Match", cached.getEtag());
+    }
+    if (cached != null && cached.getLastModified() != null) {
+      request.header("If-Modified-Since", cached.getLastModified());
+    }
+    try {
+      request.uri(uri);
+    } catch (IllegalArgumentException e) {
+      // Thrown for URLs that are not http or https.
+      throw new IOException("Unsupported URL: " + url, e);
+    }
+    if (!timeout.isZero()) {
+      request.timeout(timeout);
+    }
+    CompletableFuture<HttpResponse<byte[]>> exchange =
+        client.sendAsync(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    page.whenComplete((result, failure) -> {
+      if (page.isCancelled()) {
+        exchange.cancel(true);
+      }
+    });
+    exchange.whenComplete((response, failure) -> {
+      if (failure != null) {
+        page.completeExceptionally(failure);
+        return;
+      }
+      try {
+        if (cached != null && response.statusCode() == 304) {
+          readCached(url, uri, timeout, cached, page);
+          return;
+        }
+        FetchedPage fetched = toFetchedPage(url, response);
+        if (response.statusCode() == 200 && isCacheable(response)) {
+          cache.put(
+              fetched,
+              response.headers().firstValue("ETag").orElse(null),
+              response.headers().firstValue("Last-Modified").orElse(null));
+        }
+        page.complete(fetched);
+      } catch (IOException | RuntimeException e) {
+        page.completeExceptionally(e);
+      }
+    });
+  }
+
+  /**
+   * Completes the given future with the cached copy of a page that the server says has not
+   * changed. If the copy has been evicted in the meantime, downloads the page again instead.
+   */
+  private void readCached(
+      String url,
+      URI uri,
+      Duration timeout,
+      PageCache.Entry cached,
+      CompletableFuture<FetchedPage> page) throws IOException {
+    FetchedPage fetched;
+    try {
+      fetched = cache.read(cached, url);
+    } catch (IOException e) {
+      send(url, uri, timeout, null, page);
+      return;
+    }
+    page.complete(fetched);
+  }
+
+  private static boolean isCacheable(HttpResponse<?> response) {
+    return response.headers().allValues("Cache-Control")
+        .stream()
+        .noneMatch(value -> value.toLowerCase(Locale.ROOT).contains("no-store"));
+  }
+
+  private static FetchedPage toFetchedPage(String url, HttpResponse<byte[]> response)
+      throws IOException {
+    String finalUrl = response.uri().toString();
+    int status = response.statusCode();
+    if (status < 200 || status >= 400) {
+      throw new HttpStatusException("HTTP error fetching URL", status, finalUrl);
+    }
+    String contentType = response.headers().firstValue("Content-Type").orElse(null);
+    if (contentType != null
+        && !contentType.toLowerCase(Locale.ROOT).startsWith("text/")
+        && !XML_CONTENT_TYPE.matcher(contentType).matches()) {
+      throw new UnsupportedMimeTypeException(
+          "Unhandled content type. Must be text/*, application/xml, or application/*+xml",
+          contentType,
+          finalUrl);
+    }
+    byte[] body =
+        decode(response.headers().firstValue("Content-Encoding").orElse(""), response.body());
+    return new FetchedPage(url, finalUrl, body, getCharset(contentType));
+  }
+
+  /**
+   * Undoes the given content encoding of a response body.
+   */
+  private static byte[] decode(String encoding, byte[] body) throws IOException {
+    switch (encoding.trim().toLowerCase(Locale.ROOT)) {
+      case "":
+      case "identity":
+        return body;
+      case "gzip":
+      case "x-gzip":
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+          return in.readAllBytes();
+        }
+      case "deflate":
+        try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(body))) {
+          return in.readAllBytes();
+        }
+      default:
+        throw new IOException("Unsupported content encoding: " + encoding);
+    }
+  }
+
+  /**
+   * Returns the character set named in the given content type, or {@code null} if there is none,
+   * or it is not supported, so that the parser detects it from the page instead.
+   */
+  private static String getCharset(String contentType) {
+    if (contentType == null) {
+      return null;
+    }
+    Matcher matcher = CHARSET.matcher(contentType);
+    if (!matcher.find()) {
+      return null;
+    }
+    String charset = matcher.group(1).trim();
+    try {
+      return Charset.isSupported(charset) ? charset : null;
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+}
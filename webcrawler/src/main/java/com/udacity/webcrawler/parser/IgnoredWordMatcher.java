@@ -0,0 +1,145 @@
+package com.udacity.webcrawler.parser;
+
+import com.udacity.webcrawler.regex.PatternLiterals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Decides whether a word is matched by any of a list of ignored word {@link Pattern}s, at a cost
+ * that stays nearly flat as the list grows.
+ *
+ * <p>The list is compiled once, in two parts:
+ *
+ * <ul>
+ *   <li>Patterns that can only ever match one exact word, like {@code "the"} or {@code "^and$"},
+ *       go into a hash set, so any number of them are checked with a single lookup.</li>
+ *   <li>All the other patterns are joined into a single alternation, so that they are checked with
+ *       one regular expression match instead of one per pattern. The few patterns that cannot be
+ *       joined without changing their meaning, such as ones with compile flags or backreferences,
+ *       are kept apart.</li>
+ * </ul>
+ *
+ * <p>Instances are immutable and thread-safe. Use a {@link Session} for the actual matching.
+ */
+final class IgnoredWordMatcher {
+
+  private static final IgnoredWordMatcher NONE = new IgnoredWordMatcher(new String[1], List.of());
+
+  /**
+   * An open-addressing hash set of the exact words to ignore, with a power-of-two size.
+   */
+  private final String[] literals;
+  private final List<Pattern> patterns;
+
+  private IgnoredWordMatcher(String[] literals, List<Pattern> patterns) {
+    this.literals = literals;
+    this.patterns = patterns;
+  }
+
+  /**
+   * Compiles the given ignored word patterns. A word is ignored if it fully matches any of them.
+   */
+  static IgnoredWordMatcher compile(List<Pattern> ignoredWords) {
+    if (ignoredWords.isEmpty()) {
+      return NONE;
+    }
+    List<String> literalWords = new ArrayList<>();
+    List<Pattern> others = new ArrayList<>();
+    for (Pattern pattern : ignoredWords) {
+      String literal = PatternLiterals.toLiteral(pattern);
+      if (literal != null) {
+        literalWords.add(literal);
+      } else {
+        others.add(pattern);
+      }
+    }
+
+    String[] literals = new String[tableSize(literalWords.size())];
+    for (String word : literalWords) {
+      insert(literals, word);
+    }
+    return new IgnoredWordMatcher(literals, PatternLiterals.join(others));
+  }
+
+  /**
+   * Returns a new {@link Session} for matching words against this matcher.
+   */
+  Session newSession() {
+    return new Session();
+  }
+
+  /**
+   * Matches words against an {@link IgnoredWordMatcher}, reusing the same regular expression
+   * {@link Matcher}s for every word.
+   *
+   * <p>Sessions are not thread-safe. Create one for each page.
+   */
+  final class Session {
+    private final Matcher[] matchers;
+
+    private Session() {
+      matchers = new Matcher[patterns.size()];
+      for (int i = 0; i < matchers.length; i++) {
+        matchers[i] = patterns.get(i).matcher("");
+      }
+    }
+
+    /**
+     * Returns whether the given word fully matches any of the ignored word patterns.
+     */
+    boolean matches(CharSequence word) {
+      if (contains(literals, word)) {
+        return true;
+      }
+      for (Matcher matcher : matchers) {
+        if (matcher.reset(word).matches()) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  private static int tableSize(int words) {
+    // At most half full, so that lookups of words that are not in the set stop quickly.
+    return Integer.highestOneBit(Math.max(1, words) * 2 - 1) << 1;
+  }
+
+  private static void insert(String[] table, String word) {
+    int mask = table.length - 1;
+    for (int i = hash(word) & mask; ; i = (i + 1) & mask) {
+      if (table[i] == null) {
+        table[i] = word;
+        return;
+      }
+      if (table[i].equals(word)) {
+        return;
+      }
+    }
+  }
+
+  private static boolean contains(String[] table, CharSequence word) {
+    int mask = table.length - 1;
+    for (int i = hash(word) & mask; table[i] != null; i = (i + 1) & mask) {
+      if (table[i].contentEquals(word)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Hashes the characters of a word, without requiring it to be a {@link String}.
+   */
+  private static int hash(CharSequence word) {
+    int h = 0;
+    for (int i = 0; i < word.length(); i++) {
+      h = 31 * h + word.charAt(i);
+    }
+    // Spread the high bits down, since only the low bits pick a slot.
+    return h ^ (h >>> 16);
+  }
+}
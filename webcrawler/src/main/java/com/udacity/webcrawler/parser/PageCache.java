@@ -0,0 +1,351 @@
+package com.udacity.webcrawler.parser;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A persistent cache of downloaded pages, which lets repeated crawls of the same sites ask the
+ * server whether a page has changed instead of downloading it again.
+ *
+ * <p>Only pages with an {@code ETag} or {@code Last-Modified} header are cached, since those are
+ * what a conditional request is made from. Each page is kept in its own file in the cache
+ * directory, whose body is only read back after a {@code 304 Not Modified} response. An index of
+ * the cached pages is kept in memory, and rebuilt from the headers of the files when the cache is
+ * opened again.
+ *
+ * <p>The cache can be limited in total size and number of pages. Once it goes over either limit,
+ * the least recently used pages are dropped first. A page's file is touched whenever it is used,
+ * so that the order survives between crawls.
+ *
+ * <p>All methods are thread-safe.
+ */
+final class PageCache {
+
+  private static final int MAGIC = 0x50414745;
+  private static final int VERSION = 1;
+  private static final String SUFFIX = ".page";
+
+  private static final PageCache DISABLED = new PageCache(null, 0, 0);
+
+  private final Path directory;
+  private final long maxBytes;
+  private final int maxEntries;
+
+  /**
+   * The cached pages by URL, from least to most recently used.
+   */
+  private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private long totalBytes = 0;
+
+  private PageCache(Path directory, long maxBytes, int maxEntries) {
+    this.directory = directory;
+    this.maxBytes = maxBytes;
+    this.maxEntries = maxEntries;
+  }
+
+  /**
+   * Returns a cache that never holds any pages.
+   */
+  static PageCache disabled() {
+    return DISABLED;
+  }
+
+  /**
+   * Opens the cache in the given directory, creating the directory if needed, and picks up any
+   * pages that an earlier crawl left there.
+   *
+   * @param maxBytes   the largest total size of the cached pages' files, or 0 for no limit.
+   * @param maxEntries the largest number of cached pages, or 0 for no limit.
+   */
+  static PageCache open(Path directory, long maxBytes, int maxEntries) throws IOException {
+    if (maxBytes < 0) {
+      throw new IllegalArgumentException("maxBytes cannot be negative");
+    }
+    if (maxEntries < 0) {
+      throw new IllegalArgumentException("maxEntries cannot be negative");
+    }
+    Files.createDirectories(directory);
+    PageCache cache = new PageCache(directory, maxBytes, maxEntries);
+
+    Map<Path, FileTime> files = new HashMap<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+      for (Path file : stream) {
+        files.put(file, Files.getLastModifiedTime(file));
+      }
+    }
+    // The files that were used longest ago go first, which makes them the first to be evicted.
+    List<Path> leastRecentlyUsed = new ArrayList<>(files.keySet());
+    leastRecentlyUsed.sort(Comparator.comparing(files::get));
+    for (Path file : leastRecentlyUsed) {
+      try {
+        Page page = readFile(file, false);
+        cache.add(new Entry(page.url, file, page.etag, page.lastModified, Files.size(file)));
+      } catch (IOException | RuntimeException e) {
+        // Left over from a crawl that stopped while writing it, or from another version.
+        Files.deleteIfExists(file);
+      }
+    }
+    synchronized (cache) {
+      cache.evict();
+    }
+    return cache;
+  }
+
+  /**
+   * Returns the cached page for the given URL, or {@code null} if there is none. The page's body
+   * is not read until {@link #read(Entry, String)} is called.
+   */
+  Entry get(String url) {
+    if (this == DISABLED) {
+      return null;
+    }
+    Entry entry;
+    synchronized (this) {
+      entry = entries.get(url);
+    }
+    if (entry != null) {
+      try {
+        Files.setLastModifiedTime(entry.file, FileTime.fromMillis(System.currentTimeMillis()));
+      } catch (IOException e) {
+        // Only the order of eviction in later crawls suffers.
+      }
+    }
+    return entry;
+  }
+
+  /**
+   * Reads the page of the given cache entry, as a page downloaded from the given URL.
+   *
+   * @throws IOException if the page could not be read, for example because it has been evicted.
+   */
+  FetchedPage read(Entry entry, String url) throws IOException {
+    Page page = readFile(entry.file, true);
+    if (!page.url.equals(entry.url)) {
+      throw new IOException("Cached page does not match its entry: " + entry.file);
+    }
+    return new FetchedPage(url, page.baseUri, page.body, page.charset);
+  }
+
+  /**
+   * Caches the given downloaded page, unless it has neither an {@code ETag} nor a
+   * {@code Last-Modified} value. Replaces any page that is already cached for the same URL.
+   *
+   * <p>The page is only cached on a best-effort basis: if it cannot be written, it is not cached.
+   */
+  void put(FetchedPage page, String etag, String lastModified) {
+    if (this == DISABLED || (etag == null && lastModified == null)) {
+      return;
+    }
+    byte[] data = encode(page, etag, lastModified);
+    if (maxBytes > 0 && data.length > maxBytes) {
+      return;
+    }
+    Path file = directory.resolve(fileName(page.getUrl()));
+    try {
+      // Written under a temporary name first, so that no one ever reads a partly written page.
+      Path temp = Files.createTempFile(directory, "page", ".tmp");
+      try {
+        Files.write(temp, data);
+        synchronized (this) {
+          Files.move(
+              temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+          add(new Entry(page.getUrl(), file, etag, lastModified, data.length));
+          evict();
+        }
+      } finally {
+        Files.deleteIfExists(temp);
+      }
+    } catch (IOException e) {
+      // Not cached, which only costs a full download next time.
+    }
+  }
+
+  /**
+   * Returns the number of cached pages.
+   */
+  synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * Returns the total size of the cached pages' files, in bytes.
+   */
+  synchronized long sizeInBytes() {
+    return totalBytes;
+  }
+
+  private synchronized void add(Entry entry) {
+    Entry previous = entries.put(entry.url, entry);
+    if (previous != null) {
+      totalBytes -= previous.bytes;
+    }
+    totalBytes += entry.bytes;
+  }
+
+  private void evict() {
+    Iterator<Entry> leastRecentlyUsed = entries.values().iterator();
+    while (leastRecentlyUsed.hasNext()
+        && ((maxBytes > 0 && totalBytes > maxBytes)
+        || (maxEntries > 0 && entries.size() > maxEntries))) {
+      Entry entry = leastRecentlyUsed.next();
+      leastRecentlyUsed.remove();
+      totalBytes -= entry.bytes;
+      try {
+        Files.deleteIfExists(entry.file);
+      } catch (IOException e) {
+        // It will be picked up again, and evicted again, the next time the cache is opened.
+      }
+    }
+  }
+
+  private static String fileName(String url) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      return HexFormat.of().formatHex(digest.digest(url.getBytes(StandardCharsets.UTF_8))) + SUFFIX;
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform supports SHA-256.
+      throw new AssertionError(e);
+    }
+  }
+
+  /**
+   * Lays out a page file: a header with the page's URLs, validators and character set, followed
+   * by the page's body.
+   */
+  private static byte[] encode(FetchedPage page, String etag, String lastModified) {
+    byte[][] strings = {
+        page.getUrl().getBytes(StandardCharsets.UTF_8),
+        page.getBaseUri().getBytes(StandardCharsets.UTF_8),
+        Objects.requireNonNullElse(etag, "").getBytes(StandardCharsets.UTF_8),
+        Objects.requireNonNullElse(lastModified, "").getBytes(StandardCharsets.UTF_8),
+        Objects.requireNonNullElse(page.getCharset(), "").getBytes(StandardCharsets.UTF_8),
+    };
+    int size = 2 * Integer.BYTES;
+    for (byte[] string : strings) {
+      size += Integer.BYTES + string.length;
+    }
+    size += Integer.BYTES + page.getBody().length;
+    ByteBuffer buffer = ByteBuffer.allocate(size).putInt(MAGIC).putInt(VERSION);
+    for (byte[] string : strings) {
+      buffer.putInt(string.length).put(string);
+    }
+    buffer.putInt(page.getBody().length).put(page.getBody());
+    return buffer.array();
+  }
+
+  /**
+   * Reads a page file, leaving out the page's body unless {@code withBody} is {@code true}.
+   */
+  private static Page readFile(Path file, boolean withBody) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+         DataInputStream in =
+             new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)))) {
+      long size = channel.size();
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        throw new IOException("Not a cached page: " + file);
+      }
+      Page page = new Page();
+      page.url = readString(in, size);
+      page.baseUri = readString(in, size);
+      page.etag = emptyToNull(readString(in, size));
+      page.lastModified = emptyToNull(readString(in, size));
+      page.charset = emptyToNull(readString(in, size));
+      if (withBody) {
+        page.body = readBytes(in, size);
+      }
+      return page;
+    } catch (EOFException e) {
+      throw new IOException("Corrupt cached page: " + file, e);
+    }
+  }
+
+  private static String readString(DataInputStream in, long fileSize) throws IOException {
+    return new String(readBytes(in, fileSize), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Reads a length-prefixed array of bytes. The length is checked against the size of the file
+   * first, so that a corrupt length does not allocate a huge array.
+   */
+  private static byte[] readBytes(DataInputStream in, long fileSize) throws IOException {
+    int length = in.readInt();
+    if (length < 0 || length > fileSize) {
+      throw new EOFException("Length " + length + " runs past the end of the file");
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return bytes;
+  }
+
+  private static String emptyToNull(String value) {
+    return value.isEmpty() ? null : value;
+  }
+
+  /**
+   * The contents of a page file. The body is {@code null} if only the header was read.
+   */
+  private static final class Page {
+    private String url;
+    private String baseUri;
+    private String etag;
+    private String lastModified;
+    private String charset;
+    private byte[] body;
+  }
+
+  /**
+   * A cached page, without its body.
+   */
+  static final class Entry {
+    private final String url;
+    private final Path file;
+    private final String etag;
+    private final String lastModified;
+    private final long bytes;
+
+    private Entry(String url, Path file, String etag, String lastModified, long bytes) {
+      this.url = url;
+      this.file = file;
+      this.etag = etag;
+      this.lastModified = lastModified;
+      this.bytes = bytes;
+    }
+
+    /**
+     * Returns the page's {@code ETag} value, or {@code null} if it had none.
+     */
+    String getEtag() {
+      return etag;
+    }
+
+    /**
+     * Returns the page's {@code Last-Modified} value, or {@code null} if it had none.
+     */
+    String getLastModified() {
+      return lastModified;
+    }
+  }
+}
@@ -0,0 +1,28 @@
+package com.udacity.webcrawler.parser;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Downloads the raw contents of remote and local HTML pages, without parsing them.
+ *
+ * <p>Use {@link PageParserFactory#get(FetchedPage)} to parse a page that was downloaded with a
+ * {@link PageFetcher}.
+ */
+public interface PageFetcher {
+
+  /**
+   * Downloads the page at the given URL.
+   *
+   * @throws IOException if the page could not be downloaded, or is not an HTML page.
+   */
+  FetchedPage fetch(String url) throws IOException;
+
+  /**
+   * Downloads the page at the given URL, giving up if the download takes longer than the given
+   * timeout instead of the usual one. A timeout of zero means no timeout.
+   *
+   * @throws IOException if the page could not be downloaded in time, or is not an HTML page.
+   */
+  FetchedPage fetch(String url, Duration timeout) throws IOException;
+}
@@ -0,0 +1,96 @@
+package com.udacity.webcrawler.parser;
+
+import com.udacity.webcrawler.Timeout;
+import org.jsoup.Connection;
+import org.jsoup.Jsoup;
+
+import javax.inject.Inject;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * A {@link PageFetcher} that works for both local and remote files.
+ *
+ * <p>Remote pages are downloaded using the JSoup library, with the same content type and HTTP
+ * status checks that {@link Jsoup#parse(java.net.URL, int)} applies.
+ */
+final class PageFetcherImpl implements PageFetcher {
+  private final Duration timeout;
+
+  @Inject
+  PageFetcherImpl(@Timeout Duration timeout) {
+    this.timeout = Objects.requireNonNull(timeout);
+  }
+
+  @Override
+  public FetchedPage fetch(String url) throws IOException {
+    return fetch(url, timeout);
+  }
+
+  @Override
+  public FetchedPage fetch(String url, Duration timeout) throws IOException {
+    if (timeout.isNegative()) {
+      throw new SocketTimeoutException("No time left to download " + url);
+    }
+    URI uri = toUri(url);
+    if (PageParserImpl.isLocalFile(uri)) {
+      return readLocalFile(url, uri);
+    }
+
+    Connection.Response response;
+    try {
+      response =
+          Jsoup.connect(uri.toURL().toExternalForm())
+              .timeout(toJsoupTimeout(timeout))
+              .execute();
+    } catch (IllegalArgumentException e) {
+      // Thrown by Jsoup for URLs it does not know how to connect to.
+      throw new IOException("Unsupported URL: " + url, e);
+    }
+    return new FetchedPage(
+        url, response.url().toExternalForm(), response.bodyAsBytes(), response.charset());
+  }
+
+  /**
+   * Parses the given URL, for fetchers to download.
+   *
+   * @throws IOException if the URL is not valid.
+   */
+  static URI toUri(String url) throws IOException {
+    try {
+      return new URI(url);
+    } catch (URISyntaxException e) {
+      throw new IOException("Invalid URL: " + url, e);
+    }
+  }
+
+  /**
+   * Reads the local file at the given {@link PageParserImpl#isLocalFile(URI) local} URI.
+   */
+  static FetchedPage readLocalFile(String url, URI uri) throws IOException {
+    // Unfortunately, Jsoup.parse() has a baseUri parameter that does not work with local "file://"
+    // URIs. If we want the parser to support those URIs, which are very useful for testing, the
+    // work-around is to pass in an empty baseUri and manually add the base back to href
+    // attributes.
+    return new FetchedPage(
+        url, "", Files.readAllBytes(Path.of(uri)), StandardCharsets.UTF_8.name());
+  }
+
+  /**
+   * Converts the given timeout to whole milliseconds for Jsoup, which treats 0 as no timeout at
+   * all. Timeouts of less than a millisecond are rounded up, so that they are not mistaken for 0.
+   */
+  private static int toJsoupTimeout(Duration timeout) {
+    if (timeout.isZero()) {
+      return 0;
+    }
+    return (int) Math.max(1, Math.min(Integer.MAX_VALUE, timeout.toMillis()));
+  }
+}
@@ -28,10 +28,12 @@ public interface PageParser {
   final class Result {
     private final Map<String, Integer> wordCounts;
     private final List<String> links;
+    private final boolean cancelled;
 
-    private Result(Map<String, Integer> wordCounts, List<String> links) {
+    private Result(Map<String, Integer> wordCounts, List<String> links, boolean cancelled) {
       this.wordCounts = Objects.requireNonNull(wordCounts);
       this.links = Objects.requireNonNull(links);
+      this.cancelled = cancelled;
     }
 
     /**
@@ -49,6 +51,14 @@ public interface PageParser {
       return links;
     }
 
+    /**
+     * Returns {@code true} if the page was not fully downloaded and parsed because the crawl's
+     * deadline passed first. A cancelled result never has any words or links.
+     */
+    public boolean isCancelled() {
+      return cancelled;
+    }
+
     /**
      * A builder class for the parse {@link Result}. This builder keeps track of word counts and
      * hyperlinks encountered while parsing a web page.
@@ -56,6 +66,7 @@ public interface PageParser {
     static final class Builder {
       private final Map<String, Integer> wordCounts = new HashMap<>();
       private final Set<String> links = new HashSet<>();
+      private boolean cancelled = false;
 
       /**
        * Increments the frequency counter for the given word.
@@ -65,6 +76,13 @@ public interface PageParser {
         wordCounts.compute(word, (k, v) -> (v == null) ? 1 : v + 1);
       }
 
+      /**
+       * Adds the given counts to the frequency counters of their words.
+       */
+      void addWords(Map<String, Integer> counts) {
+        counts.forEach((word, count) -> wordCounts.merge(word, count, Integer::sum));
+      }
+
       /**
        * Adds the given link, if it has not already been added.
        */
@@ -72,13 +90,25 @@ public interface PageParser {
         links.add(Objects.requireNonNull(link));
       }
 
+      /**
+       * Marks the result as {@link Result#isCancelled() cancelled}, discarding any words and links
+       * that have been added so far.
+       */
+      Builder cancel() {
+        wordCounts.clear();
+        links.clear();
+        cancelled = true;
+        return this;
+      }
+
       /**
        * Constructs a {@link Result} from this builder.
        */
       Result build() {
         return new Result(
             Collections.unmodifiableMap(wordCounts),
-            links.stream().collect(Collectors.toUnmodifiableList()));
+            links.stream().collect(Collectors.toUnmodifiableList()),
+            cancelled);
       }
     }
   }
@@ -1,5 +1,7 @@
 package com.udacity.webcrawler.parser;
 
+import java.time.Instant;
+
 /**
  * A factory interface that supplies instances of {@link PageParser} that have common parameters
  * (such as the timeout and ignored words) preset from injected values.
@@ -10,4 +12,27 @@ public interface PageParserFactory {
    * Returns a {@link PageParser} that parses the given {@link url}.
    */
   PageParser get(String url);
+
+  /**
+   * Returns a {@link PageParser} that parses the given {@link url}, and returns a
+   * {@link PageParser.Result#isCancelled() cancelled} result if it is not done by the given
+   * deadline.
+   *
+   * <p>The download is given no more time than is left until the deadline, and parsing stops soon
+   * after the deadline passes, so the parser returns shortly after the deadline at the latest.
+   */
+  PageParser get(String url, Instant deadline);
+
+  /**
+   * Returns a {@link PageParser} that parses the given page, which has already been downloaded by
+   * a {@link PageFetcher}.
+   */
+  PageParser get(FetchedPage page);
+
+  /**
+   * Returns a {@link PageParser} that parses the given page, which has already been downloaded by
+   * a {@link PageFetcher}, and returns a {@link PageParser.Result#isCancelled() cancelled} result
+   * if it is not done by the given deadline.
+   */
+  PageParser get(FetchedPage page, Instant deadline);
 }
@@ -4,31 +4,74 @@ import com.udacity.webcrawler.Timeout;
 import com.udacity.webcrawler.profiler.Profiler;
 
 import javax.inject.Inject;
+import java.time.Clock;
 import java.time.Duration;
-import java.util.List;
-import java.util.regex.Pattern;
+import java.time.Instant;
+import java.util.Objects;
 
 /**
  * A {@link PageParserFactory} that wraps its returned instances using a {@link Profiler}.
  */
 final class PageParserFactoryImpl implements PageParserFactory {
   private final Profiler profiler;
-  private final List<Pattern> ignoredWords;
+  private final PageFetcher fetcher;
+  private final IgnoredWordMatcher ignoredWords;
+  private final ParseResultCache results;
+  private final CrawlHistory history;
   private final Duration timeout;
+  private final Clock clock;
 
   @Inject
   PageParserFactoryImpl(
-      Profiler profiler, @IgnoredWords List<Pattern> ignoredWords, @Timeout Duration timeout) {
+      Profiler profiler,
+      PageFetcher fetcher,
+      IgnoredWordMatcher ignoredWords,
+      ParseResultCache results,
+      CrawlHistory history,
+      @Timeout Duration timeout,
+      Clock clock) {
     this.profiler = profiler;
+    this.fetcher = fetcher;
     this.ignoredWords = ignoredWords;
+    this.results = results;
+    this.history = history;
     this.timeout = timeout;
+    this.clock = clock;
   }
 
   @Override
   public PageParser get(String url) {
     // Here, parse the page with the initial timeout (instead of just the time remaining), to make
     // the download less likely to fail. Deadline enforcement should happen at a higher level.
-    PageParser delegate = new PageParserImpl(url, timeout, ignoredWords);
+    PageParser delegate =
+        new PageParserImpl(url, fetcher, timeout, null, null, ignoredWords, results, history);
+    return profiler.wrap(PageParser.class, delegate);
+  }
+
+  @Override
+  public PageParser get(String url, Instant deadline) {
+    PageParser delegate = new PageParserImpl(
+        url,
+        fetcher,
+        timeout,
+        clock,
+        Objects.requireNonNull(deadline),
+        ignoredWords,
+        results,
+        history);
+    return profiler.wrap(PageParser.class, delegate);
+  }
+
+  @Override
+  public PageParser get(FetchedPage page) {
+    PageParser delegate = new PageParserImpl(page, null, null, ignoredWords, results, history);
+    return profiler.wrap(PageParser.class, delegate);
+  }
+
+  @Override
+  public PageParser get(FetchedPage page, Instant deadline) {
+    PageParser delegate = new PageParserImpl(
+        page, clock, Objects.requireNonNull(deadline), ignoredWords, results, history);
     return profiler.wrap(PageParser.class, delegate);
   }
 }
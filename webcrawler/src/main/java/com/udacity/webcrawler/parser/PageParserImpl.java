@@ -1,24 +1,32 @@
 package com.udacity.webcrawler.parser;
 
 import org.jsoup.Jsoup;
+import org.jsoup.internal.StringUtil;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.nodes.Node;
 import org.jsoup.nodes.TextNode;
 import org.jsoup.select.Evaluator.Tag;
-import org.jsoup.select.NodeVisitor;
+import org.jsoup.select.NodeFilter;
+import org.jsoup.select.NodeTraversor;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Clock;
 import java.time.Duration;
-import java.util.Arrays;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.regex.Pattern;
 
 /**
@@ -31,18 +39,18 @@ import java.util.regex.Pattern;
 final class PageParserImpl implements PageParser {
 
   /**
-   * Matches whitespace characters.
+   * How many nodes the parser visits between checks of the deadline.
    */
-  private static final Pattern WHITESPACE = Pattern.compile("\\s+");
-
-  /**
-   * Matches non-word characters.
-   */
-  private static final Pattern NON_WORD_CHARACTERS = Pattern.compile("\\W");
+  private static final int NODES_PER_DEADLINE_CHECK = 64;
 
   private final String uri;
+  private final Download download;
   private final Duration timeout;
-  private final List<Pattern> ignoredWords;
+  private final Clock clock;
+  private final Instant deadline;
+  private final IgnoredWordMatcher ignoredWords;
+  private final ParseResultCache results;
+  private final CrawlHistory history;
 
   /**
    * Constructs a page parser with the given parameters.
@@ -52,9 +60,184 @@ final class PageParserImpl implements PageParser {
    * @param ignoredWords patterns of which words should be ignored by the {@link #parse()} method.
    */
   PageParserImpl(String uri, Duration timeout, List<Pattern> ignoredWords) {
+    this(uri, timeout, null, null, IgnoredWordMatcher.compile(ignoredWords));
+  }
+
+  /**
+   * Constructs a page parser that gives up once the given deadline has passed, whether it is still
+   * downloading or already parsing the file.
+   *
+   * @param uri          the URI of the file to parse.
+   * @param timeout      the timeout to use when downloading the file, if it is remote. The download
+   *                     is given less time if the deadline is sooner.
+   * @param clock        the clock to check the deadline against.
+   * @param deadline     the time after which the parser should stop and return a cancelled
+   *                     result, or {@code null} if there is no deadline.
+   * @param ignoredWords the compiled patterns of which words should be ignored by the
+   *                     {@link #parse()} method.
+   */
+  PageParserImpl(
+      String uri,
+      Duration timeout,
+      Clock clock,
+      Instant deadline,
+      IgnoredWordMatcher ignoredWords) {
+    this(
+        uri,
+        new PageFetcherImpl(Objects.requireNonNull(timeout)),
+        timeout,
+        clock,
+        deadline,
+        ignoredWords,
+        ParseResultCache.disabled(),
+        CrawlHistory.disabled());
+  }
+
+  /**
+   * Constructs a page parser that downloads the file with the given {@link PageFetcher}, and gives
+   * up once the given deadline has passed.
+   *
+   * @param uri          the URI of the file to parse.
+   * @param fetcher      the fetcher to download the file with.
+   * @param timeout      the timeout to use when downloading the file, if it is remote. The download
+   *                     is given less time if the deadline is sooner.
+   * @param clock        the clock to check the deadline against.
+   * @param deadline     the time after which the parser should stop and return a cancelled
+   *                     result, or {@code null} if there is no deadline.
+   * @param ignoredWords the compiled patterns of which words should be ignored by the
+   *                     {@link #parse()} method.
+   */
+  PageParserImpl(
+      String uri,
+      PageFetcher fetcher,
+      Duration timeout,
+      Clock clock,
+      Instant deadline,
+      IgnoredWordMatcher ignoredWords) {
+    this(
+        uri,
+        fetcher,
+        timeout,
+        clock,
+        deadline,
+        ignoredWords,
+        ParseResultCache.disabled(),
+        CrawlHistory.disabled());
+  }
+
+  /**
+   * Constructs a page parser that downloads the file with the given {@link PageFetcher}, gives up
+   * once the given deadline has passed, and does not parse page bodies that the given cache has
+   * already seen, or pages that have not changed since the given crawl history last saw them.
+   *
+   * @param uri          the URI of the file to parse.
+   * @param fetcher      the fetcher to download the file with.
+   * @param timeout      the timeout to use when downloading the file, if it is remote. The download
+   *                     is given less time if the deadline is sooner.
+   * @param clock        the clock to check the deadline against.
+   * @param deadline     the time after which the parser should stop and return a cancelled
+   *                     result, or {@code null} if there is no deadline.
+   * @param ignoredWords the compiled patterns of which words should be ignored by the
+   *                     {@link #parse()} method.
+   * @param results      the cache of parsed page bodies to look the page up in.
+   * @param history      the crawl history to look the page up in.
+   */
+  PageParserImpl(
+      String uri,
+      PageFetcher fetcher,
+      Duration timeout,
+      Clock clock,
+      Instant deadline,
+      IgnoredWordMatcher ignoredWords,
+      ParseResultCache results,
+      CrawlHistory history) {
+    this(uri, (Download) fetcher::fetch, timeout, clock, deadline, ignoredWords, results, history);
+  }
+
+  /**
+   * Constructs a page parser for a page that has already been downloaded.
+   *
+   * @param page         the downloaded page to parse.
+   * @param ignoredWords patterns of which words should be ignored by the {@link #parse()} method.
+   */
+  PageParserImpl(FetchedPage page, List<Pattern> ignoredWords) {
+    this(page, null, null, IgnoredWordMatcher.compile(ignoredWords));
+  }
+
+  /**
+   * Constructs a page parser for a page that has already been downloaded, which gives up once the
+   * given deadline has passed.
+   *
+   * @param page         the downloaded page to parse.
+   * @param clock        the clock to check the deadline against.
+   * @param deadline     the time after which the parser should stop and return a cancelled
+   *                     result, or {@code null} if there is no deadline.
+   * @param ignoredWords the compiled patterns of which words should be ignored by the
+   *                     {@link #parse()} method.
+   */
+  PageParserImpl(
+      FetchedPage page, Clock clock, Instant deadline, IgnoredWordMatcher ignoredWords) {
+    this(
+        page,
+        clock,
+        deadline,
+        ignoredWords,
+        ParseResultCache.disabled(),
+        CrawlHistory.disabled());
+  }
+
+  /**
+   * Constructs a page parser for a page that has already been downloaded, which gives up once the
+   * given deadline has passed, and does not parse page bodies that the given cache has already
+   * seen, or pages that have not changed since the given crawl history last saw them.
+   *
+   * @param page         the downloaded page to parse.
+   * @param clock        the clock to check the deadline against.
+   * @param deadline     the time after which the parser should stop and return a cancelled
+   *                     result, or {@code null} if there is no deadline.
+   * @param ignoredWords the compiled patterns of which words should be ignored by the
+   *                     {@link #parse()} method.
+   * @param results      the cache of parsed page bodies to look the page up in.
+   * @param history      the crawl history to look the page up in.
+   */
+  PageParserImpl(
+      FetchedPage page,
+      Clock clock,
+      Instant deadline,
+      IgnoredWordMatcher ignoredWords,
+      ParseResultCache results,
+      CrawlHistory history) {
+    this(
+        page.getUrl(),
+        (url, timeout) -> page,
+        Duration.ZERO,
+        clock,
+        deadline,
+        ignoredWords,
+        results,
+        history);
+  }
+
+  private PageParserImpl(
+      String uri,
+      Download download,
+      Duration timeout,
+      Clock clock,
+      Instant deadline,
+      IgnoredWordMatcher ignoredWords,
+      ParseResultCache results,
+      CrawlHistory history) {
     this.uri = Objects.requireNonNull(uri);
+    this.download = Objects.requireNonNull(download);
     this.timeout = Objects.requireNonNull(timeout);
+    this.clock = clock;
+    this.deadline = deadline;
     this.ignoredWords = Objects.requireNonNull(ignoredWords);
+    this.results = Objects.requireNonNull(results);
+    this.history = Objects.requireNonNull(history);
+    if (deadline != null) {
+      Objects.requireNonNull(clock);
+    }
   }
 
   @Override
@@ -67,77 +250,140 @@ final class PageParserImpl implements PageParser {
       return new Result.Builder().build();
     }
 
-    Document document;
+    Duration fetchTimeout = timeout;
+    if (deadline != null) {
+      Duration remaining = Duration.between(clock.instant(), deadline);
+      if (remaining.isNegative() || remaining.isZero()) {
+        return new Result.Builder().cancel().build();
+      }
+      if (fetchTimeout.isZero() || remaining.compareTo(fetchTimeout) < 0) {
+        fetchTimeout = remaining;
+      }
+    }
+
+    FetchedPage page;
+    ParseResultCache.Content content;
     try {
-      document = parseDocument(parsedUri);
+      page = download.fetch(uri, fetchTimeout);
+      content = history.get(page, fetched -> results.get(fetched, this::parseContent));
     } catch (Exception e) {
+      if (isPastDeadline()) {
+        // Most likely the download was cut short by the deadline, rather than failing on its own.
+        return new Result.Builder().cancel().build();
+      }
       // There are multiple exceptions that can be encountered due to invalid URIs or Mimetypes that
       // Jsoup does not handle. There is not much we can do here.
       return new Result.Builder().build();
     }
+    if (content == null) {
+      return new Result.Builder().cancel().build();
+    }
 
     Result.Builder builder = new Result.Builder();
-    // Do a single pass over the document to gather all hyperlinks and text.
-    document.traverse(new NodeVisitor() {
+    builder.addWords(content.getWordCounts());
+    if (isLocalFile(parsedUri)) {
+      // If this is a local file, add the base path back in manually, since Jsoup only knows how to
+      // resolve relative hrefs if the base URI is a "real" remote URI.
+      String basePath = Path.of(parsedUri).getParent().toString();
+      for (String href : content.getHrefs()) {
+        builder.addLink(Path.of(basePath, href).toUri().toString());
+      }
+    } else {
+      // Otherwise, resolve them the same way as Jsoup, which uses the first <base> element with a
+      // usable href, if there is one.
+      String baseUri = page.getBaseUri();
+      for (String baseHref : content.getBaseHrefs()) {
+        String resolved = StringUtil.resolve(baseUri, baseHref);
+        if (!resolved.isEmpty()) {
+          baseUri = resolved;
+          break;
+        }
+      }
+      for (String href : content.getHrefs()) {
+        builder.addLink(StringUtil.resolve(baseUri, href));
+      }
+    }
+    return builder.build();
+  }
+
+  /**
+   * Parses the words and links out of the given page, or returns {@code null} if the deadline
+   * passes first.
+   */
+  private ParseResultCache.Content parseContent(FetchedPage page) throws IOException {
+    Document document = parseDocument(page);
+    Map<String, Integer> wordCounts = new HashMap<>();
+    Set<String> hrefs = new LinkedHashSet<>();
+    List<String> baseHrefs = new ArrayList<>();
+    WordTokenizer tokenizer = new WordTokenizer(ignoredWords);
+    Consumer<String> addWord = word -> wordCounts.merge(word, 1, Integer::sum);
+    // Do a single pass over the document to gather all hyperlinks and text, stopping early if the
+    // deadline passes.
+    NodeFilter.FilterResult outcome = NodeTraversor.filter(new NodeFilter() {
+      private int visited = 0;
+
       @Override
-      public void head(Node node, int depth) {
+      public FilterResult head(Node node, int depth) {
+        if (++visited % NODES_PER_DEADLINE_CHECK == 0 && isPastDeadline()) {
+          return FilterResult.STOP;
+        }
+        visit(node);
+        return FilterResult.CONTINUE;
+      }
+
+      @Override
+      public FilterResult tail(Node node, int depth) {
+        return FilterResult.CONTINUE;
+      }
+
+      private void visit(Node node) {
         if (node instanceof TextNode) {
-          String text = ((TextNode) node).text().strip();
-          Arrays.stream(WHITESPACE.split(text))
-              .filter(s -> !s.isBlank())
-              .filter(s -> ignoredWords.stream().noneMatch(p -> p.matcher(s).matches()))
-              .map(s -> NON_WORD_CHARACTERS.matcher(s).replaceAll(""))
-              .map(String::toLowerCase)
-              .forEach(builder::addWord);
+          tokenizer.tokenize(((TextNode) node).text(), addWord);
           return;
         }
-        if (!(node instanceof Element)) {
+        if (!(node instanceof Element) || !node.hasAttr("href")) {
           return;
         }
         Element element = (Element) node;
-        if (!element.is(new Tag("a")) || !element.hasAttr("href")) {
-          return;
-        }
-        if (isLocalFile(parsedUri)) {
-          // If this is a local file, add the base path back in manually, since Jsoup only knows how
-          // to resolve relative hrefs if the base URI is a "real" remote URI.
-          String basePath = Path.of(parsedUri).getParent().toString();
-          builder.addLink(Path.of(basePath, element.attr("href")).toUri().toString());
-        } else {
-          // Otherwise, let Jsoup resolve the absolute URL for us.
-          builder.addLink(element.attr("abs:href"));
+        if (element.is(new Tag("a"))) {
+          hrefs.add(element.attr("href"));
+        } else if (element.is(new Tag("base"))) {
+          baseHrefs.add(element.attr("href"));
         }
       }
+    }, document);
+    if (outcome == NodeFilter.FilterResult.STOP) {
+      return null;
+    }
+    return new ParseResultCache.Content(wordCounts, new ArrayList<>(hrefs), baseHrefs);
+  }
 
-      @Override
-      public void tail(Node node, int depth) {
-      }
-    });
-    return builder.build();
+  private boolean isPastDeadline() {
+    return deadline != null && clock.instant().isAfter(deadline);
   }
 
   /**
-   * Returns a Jsoup {@link Document} representation of the file at the given {@link URI}, which may
-   * refer to a local document or a remote web page.
+   * Returns a Jsoup {@link Document} representation of the given downloaded page, which may have
+   * come from a local document or a remote web page.
    */
-  private Document parseDocument(URI uri) throws IOException {
-    if (!isLocalFile(uri)) {
-      return Jsoup.parse(uri.toURL(), (int) timeout.toMillis());
-    }
-
-    // Unfortunately, Jsoup.parse() has a baseUri parameter that does not work with local
-    // "file://" URIs. If we want the parser to support those URIs, which are very useful for
-    // testing, the work-around is to pass in an empty baseUri and manually add the base back to
-    // href attributes.
-    try (InputStream in = Files.newInputStream(Path.of(uri))) {
-      return Jsoup.parse(in, StandardCharsets.UTF_8.name(), "");
+  private static Document parseDocument(FetchedPage page) throws IOException {
+    try (InputStream in = new ByteArrayInputStream(page.getBody())) {
+      return Jsoup.parse(in, page.getCharset(), page.getBaseUri());
     }
   }
 
   /**
    * Returns true if and only if the given {@link URI} represents a local file.
    */
-  private static boolean isLocalFile(URI uri) {
+  static boolean isLocalFile(URI uri) {
     return uri.getScheme() != null && uri.getScheme().equals("file");
   }
+
+  /**
+   * Downloads the page to parse, giving up after the given timeout.
+   */
+  @FunctionalInterface
+  private interface Download {
+    FetchedPage fetch(String url, Duration timeout) throws IOException;
+  }
 }
\ No newline at end of file
@@ -0,0 +1,204 @@
+package com.udacity.webcrawler.parser;
+
+import com.udacity.webcrawler.profiler.Profiler;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of what was parsed out of each page body, so that a body that has already been
+ * parsed, for example because a site serves it under several URLs, is not parsed again.
+ *
+ * <p>Pages are looked up by a 128-bit hash of their body and character set. The cache keeps the
+ * page's words and its links as written in the page, and not the links resolved against the
+ * page's URL, so that the same cached {@link Content} serves identical pages at any URL.
+ *
+ * <p>The cache is split into segments, each with its own lock, and each segment drops its least
+ * recently used pages once it is full. Hits and misses are only counted while pages are parsed,
+ * and are recorded with the {@link Profiler} as the {@link #HITS_METRIC} and
+ * {@link #MISSES_METRIC} metrics by {@link #recordMetrics()}, once per crawl.
+ *
+ * <p>All methods are thread-safe.
+ */
+public final class ParseResultCache {
+
+  static final String HITS_METRIC = PageParser.class.getName() + "#resultCache.hits";
+  static final String MISSES_METRIC = PageParser.class.getName() + "#resultCache.misses";
+
+  private static final int MAX_SEGMENTS = 16;
+
+  /**
+   * The smallest number of entries per segment. Smaller caches have fewer segments, so that they
+   * stay close to a true least recently used order.
+   */
+  private static final int MIN_SEGMENT_SIZE = 256;
+
+  private static final ParseResultCache DISABLED = new ParseResultCache();
+
+  private final Segment[] segments;
+  private final Profiler profiler;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  private ParseResultCache() {
+    this.segments = new Segment[0];
+    this.profiler = null;
+  }
+
+  /**
+   * Creates a cache that holds the contents of at most about {@code maxEntries} page bodies, and
+   * records its hits and misses with the given profiler.
+   */
+  ParseResultCache(int maxEntries, Profiler profiler) {
+    if (maxEntries <= 0) {
+      throw new IllegalArgumentException("maxEntries must be positive");
+    }
+    int segmentCount = Math.max(1, Math.min(MAX_SEGMENTS, maxEntries / MIN_SEGMENT_SIZE));
+    this.segments = new Segment[segmentCount];
+    for (int i = 0; i < segmentCount; i++) {
+      segments[i] = new Segment((maxEntries + segmentCount - 1) / segmentCount);
+    }
+    this.profiler = Objects.requireNonNull(profiler);
+  }
+
+  /**
+   * Returns a cache that never holds anything, and parses every page.
+   */
+  static ParseResultCache disabled() {
+    return DISABLED;
+  }
+
+  /**
+   * Returns whether this cache holds anything, rather than parsing every page.
+   */
+  public boolean isEnabled() {
+    return this != DISABLED;
+  }
+
+  /**
+   * Returns the cached contents of the given page's body, or parses the page with the given parser
+   * and caches the contents, if they were not cached yet.
+   *
+   * <p>The parser runs without holding any locks, so two threads that get the same new body at the
+   * same time may both parse it. If the parser returns {@code null}, for example because the page
+   * could not be parsed in time, nothing is cached.
+   */
+  Content get(FetchedPage page, Parser parser) throws IOException {
+    if (this == DISABLED) {
+      return parser.parse(page);
+    }
+    ContentHash key = page.getContentHash();
+    Segment segment = segments[(int) ((key.getHigh() >>> 1) % segments.length)];
+    Content content;
+    synchronized (segment) {
+      content = segment.get(key);
+    }
+    if (content != null) {
+      hits.increment();
+      return content;
+    }
+    misses.increment();
+    content = parser.parse(page);
+    if (content != null) {
+      synchronized (segment) {
+        segment.put(key, content);
+      }
+    }
+    return content;
+  }
+
+  /**
+   * Returns the number of page bodies whose contents are cached.
+   */
+  int size() {
+    int size = 0;
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        size += segment.size();
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Records the numbers of hits and misses since the last call with the profiler, and starts
+   * counting again from zero. This is meant to be called when a crawl ends, rather than on every
+   * lookup, so that parsing threads only ever update their own counter cells, and so that each
+   * crawl reports its own hits and misses even though crawls share the cache.
+   */
+  public void recordMetrics() {
+    if (this == DISABLED) {
+      return;
+    }
+    profiler.recordMetric(HITS_METRIC, hits.sumThenReset());
+    profiler.recordMetric(MISSES_METRIC, misses.sumThenReset());
+  }
+
+  /**
+   * Parses a page into its {@link Content}.
+   */
+  @FunctionalInterface
+  interface Parser {
+
+    /**
+     * Returns the contents of the given page, or {@code null} if they should not be cached.
+     */
+    Content parse(FetchedPage page) throws IOException;
+  }
+
+  /**
+   * What was parsed out of a page body, independently of the page's URL.
+   */
+  static final class Content {
+    private final Map<String, Integer> wordCounts;
+    private final List<String> hrefs;
+    private final List<String> baseHrefs;
+
+    /**
+     * Creates a {@link Content}.
+     *
+     * @param wordCounts the page's words, and how often each of them occurs.
+     * @param hrefs      the {@code href} values of the page's links, as written in the page.
+     * @param baseHrefs  the {@code href} values of the page's {@code <base>} elements, in order.
+     */
+    Content(Map<String, Integer> wordCounts, List<String> hrefs, List<String> baseHrefs) {
+      this.wordCounts = Map.copyOf(wordCounts);
+      this.hrefs = List.copyOf(hrefs);
+      this.baseHrefs = List.copyOf(baseHrefs);
+    }
+
+    Map<String, Integer> getWordCounts() {
+      return wordCounts;
+    }
+
+    List<String> getHrefs() {
+      return hrefs;
+    }
+
+    List<String> getBaseHrefs() {
+      return baseHrefs;
+    }
+  }
+
+  /**
+   * A part of the cache, which drops its least recently used entry once it is full.
+   */
+  @SuppressWarnings("serial")
+  private static final class Segment extends LinkedHashMap<ContentHash, Content> {
+    private final int capacity;
+
+    Segment(int capacity) {
+      super(16, 0.75f, true);
+      this.capacity = capacity;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<ContentHash, Content> eldest) {
+      return size() > capacity;
+    }
+  }
+}
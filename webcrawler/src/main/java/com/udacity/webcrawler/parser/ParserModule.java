@@ -2,7 +2,13 @@ package com.udacity.webcrawler.parser;
 
 import com.google.inject.AbstractModule;
 import com.google.inject.Key;
+import com.google.inject.Provides;
+import com.google.inject.Singleton;
+import com.udacity.webcrawler.profiler.Profiler;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.List;
 import java.util.Objects;
@@ -10,25 +16,88 @@ import java.util.regex.Pattern;
 
 /**
  * Guice dependency injection module that installs a {@link PageParserFactory} that can be used to
- * create page parsers.
+ * create page parsers, and a {@link PageFetcher} that can be used to download pages separately from
+ * parsing them.
  */
 public final class ParserModule extends AbstractModule {
   private final Duration timeout;
   private final List<Pattern> ignoredWords;
+  private final boolean useHttpClient;
+  private final Path pageCacheDirectory;
+  private final long pageCacheMaxBytes;
+  private final int pageCacheMaxEntries;
+  private final int parseResultCacheSize;
+  private final Path crawlHistoryFile;
 
   /**
-   * Creates a {@link ParserModule} from the given timeout and ignored word patterns.
+   * Creates a {@link ParserModule} from the given timeout, ignored word patterns, choice of
+   * {@link PageFetcher} and cache settings.
    */
-  private ParserModule(Duration timeout, List<Pattern> ignoredWords) {
+  private ParserModule(
+      Duration timeout,
+      List<Pattern> ignoredWords,
+      boolean useHttpClient,
+      Path pageCacheDirectory,
+      long pageCacheMaxBytes,
+      int pageCacheMaxEntries,
+      int parseResultCacheSize,
+      Path crawlHistoryFile) {
     this.timeout = timeout;
     this.ignoredWords = ignoredWords;
+    this.useHttpClient = useHttpClient;
+    this.pageCacheDirectory = pageCacheDirectory;
+    this.pageCacheMaxBytes = pageCacheMaxBytes;
+    this.pageCacheMaxEntries = pageCacheMaxEntries;
+    this.parseResultCacheSize = parseResultCacheSize;
+    this.crawlHistoryFile = crawlHistoryFile;
   }
 
   @Override
   protected void configure() {
     bind(Key.get(Duration.class, ParseDeadline.class)).toInstance(timeout);
     bind(new Key<List<Pattern>>(IgnoredWords.class) {}).toInstance(ignoredWords);
+    // Compiled once here, rather than for every page, so that long ignored word lists stay cheap.
+    bind(IgnoredWordMatcher.class).toInstance(IgnoredWordMatcher.compile(ignoredWords));
     bind(PageParserFactory.class).to(PageParserFactoryImpl.class);
+    // Only the HttpClient fetcher can make the conditional requests that the page cache needs.
+    if (useHttpClient || pageCacheDirectory != null) {
+      // A singleton, so that every page is downloaded with the same client and its open
+      // connections.
+      bind(PageFetcher.class).to(HttpClientPageFetcher.class).in(Singleton.class);
+    } else {
+      bind(PageFetcher.class).to(PageFetcherImpl.class);
+    }
+  }
+
+  @Provides
+  @Singleton
+  PageCache providePageCache() {
+    if (pageCacheDirectory == null) {
+      return PageCache.disabled();
+    }
+    try {
+      return PageCache.open(pageCacheDirectory, pageCacheMaxBytes, pageCacheMaxEntries);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Provides
+  @Singleton
+  ParseResultCache provideParseResultCache(Profiler profiler) {
+    if (parseResultCacheSize == 0) {
+      return ParseResultCache.disabled();
+    }
+    return new ParseResultCache(parseResultCacheSize, profiler);
+  }
+
+  @Provides
+  @Singleton
+  CrawlHistory provideCrawlHistory(Profiler profiler) {
+    if (crawlHistoryFile == null) {
+      return CrawlHistory.disabled();
+    }
+    return CrawlHistory.open(crawlHistoryFile, profiler);
   }
 
   /**
@@ -37,6 +106,12 @@ public final class ParserModule extends AbstractModule {
   public static final class Builder {
     private Duration timeout;
     private List<Pattern> ignoredWords;
+    private boolean useHttpClient = false;
+    private Path pageCacheDirectory = null;
+    private long pageCacheMaxBytes = 0;
+    private int pageCacheMaxEntries = 0;
+    private int parseResultCacheSize = 0;
+    private Path crawlHistoryFile = null;
 
     /**
      * Sets the timeout that will be used by the page parser.
@@ -54,11 +129,74 @@ public final class ParserModule extends AbstractModule {
       return this;
     }
 
+    /**
+     * Sets whether remote pages are downloaded with a shared {@link java.net.http.HttpClient},
+     * rather than with Jsoup. The default is {@code false}.
+     */
+    public Builder setUseHttpClient(boolean useHttpClient) {
+      this.useHttpClient = useHttpClient;
+      return this;
+    }
+
+    /**
+     * Sets the directory where downloaded pages are cached between crawls, so that unchanged pages
+     * are not downloaded again. Pages are then always downloaded with a shared
+     * {@link java.net.http.HttpClient}. The default is {@code null}, which means no cache.
+     */
+    public Builder setPageCacheDirectory(Path pageCacheDirectory) {
+      this.pageCacheDirectory = pageCacheDirectory;
+      return this;
+    }
+
+    /**
+     * Sets the largest total size of the page cache, in bytes, or 0 for no limit. The default is 0.
+     */
+    public Builder setPageCacheMaxBytes(long pageCacheMaxBytes) {
+      this.pageCacheMaxBytes = pageCacheMaxBytes;
+      return this;
+    }
+
+    /**
+     * Sets the largest number of pages in the page cache, or 0 for no limit. The default is 0.
+     */
+    public Builder setPageCacheMaxEntries(int pageCacheMaxEntries) {
+      this.pageCacheMaxEntries = pageCacheMaxEntries;
+      return this;
+    }
+
+    /**
+     * Sets how many distinct page bodies the parser remembers the words and links of, so that
+     * pages with the same body as one of them are not parsed again. The default is 0, which means
+     * every page is parsed.
+     */
+    public Builder setParseResultCacheSize(int parseResultCacheSize) {
+      this.parseResultCacheSize = parseResultCacheSize;
+      return this;
+    }
+
+    /**
+     * Sets the file where the {@link CrawlHistory} is kept between crawls, so that pages that have
+     * not changed since the last crawl are not parsed again. The default is {@code null}, which
+     * means every page is parsed.
+     */
+    public Builder setCrawlHistoryFile(Path crawlHistoryFile) {
+      this.crawlHistoryFile = crawlHistoryFile;
+      return this;
+    }
+
     /**
      * Builds a {@link ParserModule} from this {@link Builder}.
      */
     public ParserModule build() {
-      return new ParserModule(timeout, ignoredWords);
+      return new ParserModule(
+          timeout,
+          ignoredWords,
+          useHttpClient,
+          pageCacheDirectory,
+          pageCacheMaxBytes,
+          pageCacheMaxEntries,
+          parseResultCacheSize,
+          crawlHistoryFile);
     }
   }
 }
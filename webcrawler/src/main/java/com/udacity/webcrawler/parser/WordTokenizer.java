@@ -0,0 +1,162 @@
+package com.udacity.webcrawler.parser;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Splits the text of a page into the words that should be counted.
+ *
+ * <p>Text is split on whitespace. Each piece that matches one of the ignored word patterns is
+ * dropped; every other piece has its non-word characters (anything other than ASCII letters,
+ * digits and {@code '_'}) removed and is lower-cased, and the result is counted as a word.
+ *
+ * <p>This is done in a single pass over the characters of the text. The only objects it creates
+ * are the strings of the words that are counted, so it is much cheaper than splitting and
+ * rewriting the text with regular expressions.
+ *
+ * <p>Instances reuse their buffers and are not thread-safe. Create one for each page.
+ */
+final class WordTokenizer {
+
+  private final IgnoredWordMatcher.Session ignoredWords;
+  private final TextSlice slice = new TextSlice();
+  private char[] word = new char[32];
+
+  /**
+   * Creates a tokenizer that drops the pieces of text that fully match any of the given patterns.
+   */
+  WordTokenizer(List<Pattern> ignoredWords) {
+    this(IgnoredWordMatcher.compile(ignoredWords));
+  }
+
+  /**
+   * Creates a tokenizer that drops the pieces of text that the given matcher matches.
+   */
+  WordTokenizer(IgnoredWordMatcher ignoredWords) {
+    this.ignoredWords = ignoredWords.newSession();
+  }
+
+  /**
+   * Passes each word in the given text to the given consumer, in order.
+   */
+  void tokenize(String text, Consumer<String> words) {
+    Objects.requireNonNull(words);
+    // Like String.strip(), skip any leading and trailing Unicode whitespace first, so that it never
+    // ends up in the first or last word.
+    int i = 0;
+    int end = text.length();
+    while (i < end && Character.isWhitespace(text.codePointAt(i))) {
+      i += Character.charCount(text.codePointAt(i));
+    }
+    while (end > i && Character.isWhitespace(text.codePointBefore(end))) {
+      end -= Character.charCount(text.codePointBefore(end));
+    }
+    while (true) {
+      while (i < end && isSplitCharacter(text.charAt(i))) {
+        i++;
+      }
+      if (i == end) {
+        return;
+      }
+      int start = i;
+      while (i < end && !isSplitCharacter(text.charAt(i))) {
+        i++;
+      }
+      String counted = toWord(text, start, i);
+      if (counted != null) {
+        words.accept(counted);
+      }
+    }
+  }
+
+  /**
+   * Returns the word to count for {@code text[start, end)}, or {@code null} if it should not be
+   * counted.
+   */
+  private String toWord(String text, int start, int end) {
+    if (isBlank(text, start, end)) {
+      return null;
+    }
+    slice.set(text, start, end);
+    if (ignoredWords.matches(slice)) {
+      return null;
+    }
+
+    if (word.length < end - start) {
+      word = new char[Math.max(end - start, word.length * 2)];
+    }
+    int length = 0;
+    for (int i = start; i < end; i++) {
+      char c = text.charAt(i);
+      if (c >= 'A' && c <= 'Z') {
+        word[length++] = (char) (c + ('a' - 'A'));
+      } else if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '_') {
+        word[length++] = c;
+      }
+    }
+    return new String(word, 0, length);
+  }
+
+  /**
+   * Returns whether the given character separates words. These are the same characters that the
+   * {@code "\\s"} regular expression matches.
+   */
+  private static boolean isSplitCharacter(char c) {
+    return c == ' ' || (c >= '\t' && c <= '\r');
+  }
+
+  /**
+   * Returns whether {@code text[start, end)} is made up entirely of whitespace, including Unicode
+   * whitespace that does not separate words.
+   */
+  private static boolean isBlank(String text, int start, int end) {
+    for (int i = start; i < end; ) {
+      int codePoint = text.codePointAt(i);
+      if (!Character.isWhitespace(codePoint)) {
+        return false;
+      }
+      i += Character.charCount(codePoint);
+    }
+    return true;
+  }
+
+  /**
+   * A reusable view of part of a string, so that it can be matched against the ignored word
+   * patterns without copying it.
+   */
+  private static final class TextSlice implements CharSequence {
+    private String text = "";
+    private int start;
+    private int end;
+
+    void set(String text, int start, int end) {
+      this.text = text;
+      this.start = start;
+      this.end = end;
+    }
+
+    @Override
+    public int length() {
+      return end - start;
+    }
+
+    @Override
+    public char charAt(int index) {
+      Objects.checkIndex(index, end - start);
+      return text.charAt(start + index);
+    }
+
+    @Override
+    public CharSequence subSequence(int from, int to) {
+      Objects.checkFromToIndex(from, to, end - start);
+      return text.substring(start + from, start + to);
+    }
+
+    @Override
+    public String toString() {
+      return text.substring(start, end);
+    }
+  }
+}
@@ -0,0 +1,135 @@
+package com.udacity.webcrawler.profiler;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records how long the calls to one profiled method took: their count, total, minimum and maximum,
+ * and a histogram that percentiles can be read from.
+ *
+ * <p>The histogram is log-linear, like an HDR histogram: each power of two is split into
+ * {@value #SUB_BUCKETS} equal buckets, so any recorded value is reported within about 3% of what
+ * was measured, from nanoseconds to hours. The buckets are allocated up front, and recording a
+ * value only increments counters, without locking or allocating.
+ */
+final class LatencyRecorder {
+
+  private static final int SUB_BUCKET_BITS = 5;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  /**
+   * Enough buckets for every non-negative {@code long}.
+   */
+  private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder totalNanos = new LongAdder();
+  private final AtomicLong minNanos = new AtomicLong(Long.MAX_VALUE);
+  private final AtomicLong maxNanos = new AtomicLong(Long.MIN_VALUE);
+
+  /**
+   * Records a call that took the given number of nanoseconds, which must not be negative.
+   */
+  void record(long nanos) {
+    buckets.incrementAndGet(bucketOf(nanos));
+    count.increment();
+    totalNanos.add(nanos);
+    if (nanos < minNanos.get()) {
+      minNanos.accumulateAndGet(nanos, Math::min);
+    }
+    if (nanos > maxNanos.get()) {
+      maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+  }
+
+  /**
+   * Returns a copy of what has been recorded so far. Calls that are recorded while the copy is
+   * taken may be only partly in it.
+   */
+  Snapshot snapshot() {
+    long[] counts = new long[BUCKET_COUNT];
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      counts[i] = buckets.get(i);
+    }
+    return new Snapshot(counts, count.sum(), totalNanos.sum(), minNanos.get(), maxNanos.get());
+  }
+
+  /**
+   * Values below {@code 2 * SUB_BUCKETS} get a bucket each. Above that, each power of two gets
+   * {@code SUB_BUCKETS} buckets, which are twice as wide as those of the power below.
+   */
+  private static int bucketOf(long nanos) {
+    int shift = Math.max(0, 64 - Long.numberOfLeadingZeros(nanos) - (SUB_BUCKET_BITS + 1));
+    return (shift << SUB_BUCKET_BITS) + (int) (nanos >>> shift);
+  }
+
+  /**
+   * Returns the largest value that falls in the given bucket.
+   */
+  private static long highestValueIn(int bucket) {
+    int shift = Math.max(0, (bucket >> SUB_BUCKET_BITS) - 1);
+    long lowest = (long) (bucket - (shift << SUB_BUCKET_BITS)) << shift;
+    return lowest + (1L << shift) - 1;
+  }
+
+  /**
+   * What a {@link LatencyRecorder} had recorded at some point.
+   */
+  static final class Snapshot {
+    private final long[] buckets;
+    private final long count;
+    private final long totalNanos;
+    private final long minNanos;
+    private final long maxNanos;
+
+    private Snapshot(long[] buckets, long count, long totalNanos, long minNanos, long maxNanos) {
+      this.buckets = buckets;
+      this.count = count;
+      this.totalNanos = totalNanos;
+      this.minNanos = minNanos;
+      this.maxNanos = maxNanos;
+    }
+
+    long getCount() {
+      return count;
+    }
+
+    long getTotalNanos() {
+      return totalNanos;
+    }
+
+    long getMinNanos() {
+      return count == 0 ? 0 : minNanos;
+    }
+
+    long getMaxNanos() {
+      return count == 0 ? 0 : maxNanos;
+    }
+
+    long getMeanNanos() {
+      return count == 0 ? 0 : totalNanos / count;
+    }
+
+    /**
+     * Returns the value that the given fraction of the calls took at most, such as 0.99 for the
+     * 99th percentile.
+     */
+    long getPercentileNanos(double fraction) {
+      if (count == 0) {
+        return 0;
+      }
+      long rank = Math.max(1, (long) Math.ceil(fraction * count));
+      long seen = 0;
+      for (int i = 0; i < buckets.length; i++) {
+        seen += buckets[i];
+        if (seen >= rank) {
+          // Clamped, so that a method that always takes the same time reports exactly that.
+          return Math.max(getMinNanos(), Math.min(getMaxNanos(), highestValueIn(i)));
+        }
+      }
+      return getMaxNanos();
+    }
+  }
+}
@@ -0,0 +1,49 @@
+package com.udacity.webcrawler.profiler;
+
+import java.lang.reflect.Method;
+import java.util.Objects;
+
+/**
+ * Times the calls to one profiled method of a generated wrapper. See {@link WrapperClass}.
+ *
+ * <p>The generated code calls {@link #start()} before it calls the delegate, and
+ * {@link #end(Object, long)} after the delegate returns or throws.
+ */
+final class ProfiledMethod {
+
+  /**
+   * What {@link #start()} returns for calls that the {@link Sampler} skips. A {@link Ticker} could
+   * read this, but only once every few hundred years.
+   */
+  private static final long NOT_SAMPLED = Long.MIN_VALUE;
+
+  private final Ticker ticker;
+  private final Sampler sampler;
+  private final ProfilingState state;
+  private final Method method;
+
+  ProfiledMethod(Ticker ticker, Sampler sampler, ProfilingState state, Method method) {
+    this.ticker = Objects.requireNonNull(ticker);
+    this.sampler = Objects.requireNonNull(sampler);
+    this.state = Objects.requireNonNull(state);
+    this.method = Objects.requireNonNull(method);
+  }
+
+  /**
+   * Returns the time the call started at, to be passed back to {@link #end(Object, long)}.
+   */
+  long start() {
+    return sampler.sample() ? ticker.read() : NOT_SAMPLED;
+  }
+
+  /**
+   * Records a call to the given delegate that started at the given time, unless it was not
+   * sampled.
+   */
+  void end(Object delegate, long start) {
+    if (start == NOT_SAMPLED) {
+      return;
+    }
+    state.record(delegate.getClass(), method, ticker.read() - start);
+  }
+}
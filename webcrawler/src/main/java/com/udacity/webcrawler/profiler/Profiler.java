@@ -26,6 +26,17 @@ public interface Profiler {
    */
   <T> T wrap(Class<T> klass, T delegate);
 
+  /**
+   * Records a named measurement, such as a queue depth or a throughput, that should be written
+   * along with the profiled method timings.
+   *
+   * <p>If a measurement with the same name was already recorded, it is replaced.
+   *
+   * @param name  the name of the measurement.
+   * @param value the measured value.
+   */
+  void recordMetric(String name, long value);
+
   /**
    * Formats the profile data as a string and writes it to the given {@link Path}.
    *
@@ -1,6 +1,5 @@
 package com.udacity.webcrawler.profiler;
 
-import javax.inject.Inject;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.Writer;
@@ -8,10 +7,12 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.nio.file.Path;
 import java.time.Clock;
+import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 import static java.time.format.DateTimeFormatter.RFC_1123_DATE_TIME;
@@ -22,13 +23,62 @@ import static java.time.format.DateTimeFormatter.RFC_1123_DATE_TIME;
 final class ProfilerImpl implements Profiler {
 
     private final Clock clock;
-    private final ProfilingState state = new ProfilingState();
+    private final Ticker ticker;
+    private final ProfilingState state;
     private final ZonedDateTime startTime;
+    private final ProfilerModule.Backend backend;
+    private final Sampler sampler;
 
-    @Inject
-    ProfilerImpl(Clock clock) {
+    /**
+     * The {@link ProfiledMethod}s that this profiler's generated wrappers of each interface share.
+     */
+    private final ClassValue<ProfiledMethod[]> profiledMethods =
+            new ClassValue<>() {
+                @Override
+                protected ProfiledMethod[] computeValue(Class<?> klass) {
+                    return WrapperClass.forInterface(klass).orElseThrow()
+                            .getProfiledMethods()
+                            .stream()
+                            .map(method -> new ProfiledMethod(ticker, sampler, state, method))
+                            .toArray(ProfiledMethod[]::new);
+                }
+            };
+
+    /**
+     * Creates a profiler that times calls with the given {@link Ticker}. The {@link Clock} only
+     * gives the time that the profile data was started at.
+     *
+     * <p>Not injectable: {@link ProfilerModule} provides the profiler, with the system ticker.
+     */
+    ProfilerImpl(Clock clock, Ticker ticker, ProfilerModule.Backend backend, Sampler sampler) {
         this.clock = Objects.requireNonNull(clock);
+        this.ticker = Objects.requireNonNull(ticker);
         this.startTime = ZonedDateTime.now(clock);
+        this.backend = Objects.requireNonNull(backend);
+        this.sampler = Objects.requireNonNull(sampler);
+        this.state = new ProfilingState(sampler.getWeight());
+    }
+
+    /**
+     * Returns a profiler that times every call with the given {@link Clock} instead of a
+     * {@link Ticker}, so that tests can drive it with a fake clock.
+     *
+     * <p>For tests only. A real clock is not monotonic, and reading it allocates.
+     */
+    static ProfilerImpl forTesting(Clock clock, ProfilerModule.Backend backend) {
+        return forTesting(clock, backend, Sampler.all());
+    }
+
+    /**
+     * Like {@link #forTesting(Clock, ProfilerModule.Backend)}, but only times the calls that the
+     * given {@link Sampler} picks.
+     */
+    static ProfilerImpl forTesting(Clock clock, ProfilerModule.Backend backend, Sampler sampler) {
+        Ticker clockTicker = () -> {
+            Instant now = clock.instant();
+            return now.getEpochSecond() * 1_000_000_000L + now.getNano();
+        };
+        return new ProfilerImpl(clock, clockTicker, backend, sampler);
     }
 
     @Override
@@ -41,13 +91,26 @@ final class ProfilerImpl implements Profiler {
         if (!isAnnotatedProfiled(klass)) {
             throw new IllegalArgumentException(klass.getName() + " does not contain a @Profiled method.");
         }
+        if (backend == ProfilerModule.Backend.GENERATED) {
+            // Falls back to a proxy for interfaces that the generated class could not refer to.
+            Optional<WrapperClass> wrapperClass = WrapperClass.forInterface(klass);
+            if (wrapperClass.isPresent()) {
+                return klass.cast(
+                        wrapperClass.get().newInstance(delegate, profiledMethods.get(klass)));
+            }
+        }
         Object proxy = Proxy.newProxyInstance(
                 ProfilerImpl.class.getClassLoader(),
                 new Class<?>[]{klass},
-                new ProfilingMethodInterceptor(clock, state, delegate, startTime));
+                new ProfilingMethodInterceptor(ticker, sampler, state, delegate, startTime, klass));
         return (T) proxy;
     }
 
+    @Override
+    public void recordMetric(String name, long value) {
+        state.recordMetric(name, value);
+    }
+
     @Override
     public void writeData(Path path) {
         // TODO: Write the ProfilingState data to the given file path. If a file already exists at that
@@ -5,16 +5,109 @@ import com.google.inject.Provides;
 import com.google.inject.Singleton;
 
 import java.time.Clock;
+import java.time.Duration;
+import java.util.Objects;
 
 /**
  * Guice dependency injection module that installs a {@link Profiler} singleton.
  *
- * <p>Requires a {@link java.time.Clock} to already be bound.
+ * <p>Requires a {@link java.time.Clock} to already be bound. Binds the {@link Ticker} that the
+ * profiler times calls with to the {@link Ticker#systemTicker() system ticker}; tests can override
+ * it with a fake one.
  */
 public final class ProfilerModule extends AbstractModule {
+
+  /**
+   * How the installed {@link Profiler} wraps objects.
+   */
+  public enum Backend {
+    /**
+     * In a {@link java.lang.reflect.Proxy}, whose calls all go through one method interceptor.
+     */
+    PROXY,
+
+    /**
+     * In an instance of a class generated for each interface, which calls the wrapped object
+     * directly. Interfaces that the generated class cannot refer to, such as package-private ones
+     * from other packages, are still wrapped in a proxy.
+     */
+    GENERATED,
+  }
+
+  private final Backend backend;
+  private final int sampleEvery;
+  private final Duration sampleWindow;
+
+  /**
+   * Creates a module whose profiler wraps objects in proxies, and times every call.
+   */
+  public ProfilerModule() {
+    this(Backend.PROXY, 1, Duration.ofSeconds(1));
+  }
+
+  private ProfilerModule(Backend backend, int sampleEvery, Duration sampleWindow) {
+    this.backend = Objects.requireNonNull(backend);
+    this.sampleEvery = sampleEvery;
+    this.sampleWindow = Objects.requireNonNull(sampleWindow);
+  }
+
+  @Override
+  protected void configure() {
+    bind(Ticker.class).toInstance(Ticker.systemTicker());
+  }
+
   @Provides
   @Singleton
-  Profiler provideProfiler(Clock clock) {
-    return new ProfilerImpl(clock);
+  Profiler provideProfiler(Clock clock, Ticker ticker) {
+    return new ProfilerImpl(
+        clock, ticker, backend, Sampler.create(clock, sampleEvery, sampleWindow));
+  }
+
+  /**
+   * Helper class to build a {@link ProfilerModule}.
+   */
+  public static final class Builder {
+    private Backend backend = Backend.PROXY;
+    private int sampleEvery = 1;
+    private Duration sampleWindow = Duration.ofSeconds(1);
+
+    /**
+     * Sets how the profiler wraps objects. Defaults to {@link Backend#PROXY}.
+     */
+    public Builder setBackend(Backend backend) {
+      this.backend = Objects.requireNonNull(backend);
+      return this;
+    }
+
+    /**
+     * Sets the profiler to time only one in {@code every} calls to each profiled method, picked
+     * at random. The profile data is extrapolated from the timed calls. Defaults to 1, which
+     * times every call.
+     */
+    public Builder setSampleEvery(int every) {
+      this.sampleEvery = every;
+      return this;
+    }
+
+    /**
+     * Sets the profiler to time only calls that start within the first {@code window} of each
+     * second. The profile data is extrapolated from the timed calls. Defaults to one second,
+     * which times calls whenever they start.
+     */
+    public Builder setSampleWindow(Duration window) {
+      this.sampleWindow = Objects.requireNonNull(window);
+      return this;
+    }
+
+    /**
+     * Builds a {@link ProfilerModule} from this builder.
+     *
+     * @throws IllegalArgumentException if the sampling settings are out of range.
+     */
+    public ProfilerModule build() {
+      // Fails here, rather than when the profiler is first injected.
+      Sampler.create(Clock.systemUTC(), sampleEvery, sampleWindow);
+      return new ProfilerModule(backend, sampleEvery, sampleWindow);
+    }
   }
 }
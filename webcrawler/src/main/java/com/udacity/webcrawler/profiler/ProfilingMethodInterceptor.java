@@ -1,32 +1,59 @@
 package com.udacity.webcrawler.profiler;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.time.Clock;
-import java.time.Duration;
-import java.time.Instant;
 import java.time.ZonedDateTime;
+import java.util.Arrays;
 import java.util.Objects;
 
 /**
  * A method interceptor that checks whether {@link Method}s are annotated with the {@link Profiled}
  * annotation. If they are, the method interceptor records how long the method invocation took.
+ *
+ * <p>What the interceptor needs to know about each method, whether it is profiled and how to call
+ * it, is worked out on the first call through any proxy of the same interface, and cached. Later
+ * calls skip the annotation lookup, and call the delegate through a {@link MethodHandle} instead
+ * of {@link Method#invoke}.
  */
 final class ProfilingMethodInterceptor implements InvocationHandler {
 
-    private final Clock clock;
+    /**
+     * The cached methods of each wrapped interface. Its proxies all share one proxy class, which
+     * passes the same {@link Method} objects to their interceptors.
+     */
+    private static final ClassValue<Targets> TARGETS =
+            new ClassValue<>() {
+                @Override
+                protected Targets computeValue(Class<?> klass) {
+                    return new Targets();
+                }
+            };
+
+    private final Ticker ticker;
+    private final Sampler sampler;
 
     // TODO: You will need to add more instance fields and constructor arguments to this class.
     private final ProfilingState state;
     private final Object delegate;
     private final ZonedDateTime startTime;
+    private final Targets targets;
 
-    ProfilingMethodInterceptor(Clock clock, ProfilingState state, Object delegate, ZonedDateTime startTime) {
-        this.clock = Objects.requireNonNull(clock);
+    ProfilingMethodInterceptor(
+            Ticker ticker,
+            Sampler sampler,
+            ProfilingState state,
+            Object delegate,
+            ZonedDateTime startTime,
+            Class<?> klass) {
+        this.ticker = Objects.requireNonNull(ticker);
+        this.sampler = Objects.requireNonNull(sampler);
         this.state = state;
         this.delegate = delegate;
         this.startTime = startTime;
+        this.targets = TARGETS.get(klass);
     }
 
     @Override
@@ -36,23 +63,89 @@ final class ProfilingMethodInterceptor implements InvocationHandler {
         //       invoke the method using the object that is being profiled. Finally, for profiled
         //       methods, the interceptor should record how long the method call took, using the
         //       ProfilingState methods.
-        Object invoke;
-        Instant startTime = null;
-        if (method.getAnnotation(Profiled.class) != null) {
-            startTime = clock.instant();
+        Target target = targets.get(method);
+        if (!target.profiled || !sampler.sample()) {
+            return target.invoke(delegate, args);
         }
+        long start = ticker.read();
         try {
-            invoke = method.invoke(delegate, args);
-        } catch (InvocationTargetException e) {
-            throw e.getTargetException();
-        } catch (IllegalAccessException e1) {
-            throw new RuntimeException(e1);
+            return target.invoke(delegate, args);
         } finally {
-            if (method.getAnnotation(Profiled.class) != null) {
-                Duration duration = Duration.between(startTime, clock.instant());
-                state.record(delegate.getClass(), method, duration);
+            state.record(delegate.getClass(), method, ticker.read() - start);
+        }
+    }
+
+    /**
+     * The methods of one wrapped interface that have been called so far. They are found by
+     * identity, in an array that is only copied when a method is called for the first time.
+     */
+    private static final class Targets {
+        private volatile Target[] targets = new Target[0];
+
+        Target get(Method method) {
+            for (Target target : targets) {
+                if (target.method == method) {
+                    return target;
+                }
+            }
+            return add(method);
+        }
+
+        private synchronized Target add(Method method) {
+            for (Target target : targets) {
+                if (target.method == method) {
+                    return target;
+                }
+            }
+            Target[] added = Arrays.copyOf(targets, targets.length + 1);
+            added[targets.length] = new Target(method);
+            targets = added;
+            return added[targets.length - 1];
+        }
+    }
+
+    /**
+     * A proxied method, with what the interceptor needs to know to call it.
+     */
+    private static final class Target {
+        private final Method method;
+        private final boolean profiled;
+
+        /**
+         * Takes the delegate and the argument array, and returns the boxed result, or
+         * {@code null} if the method could not be looked up and has to be called reflectively.
+         */
+        private final MethodHandle handle;
+
+        Target(Method method) {
+            this.method = method;
+            this.profiled = method.getAnnotation(Profiled.class) != null;
+            this.handle = spreader(method);
+        }
+
+        Object invoke(Object delegate, Object[] args) throws Throwable {
+            if (handle != null) {
+                return (Object) handle.invokeExact(delegate, args);
+            }
+            try {
+                return method.invoke(delegate, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            } catch (IllegalAccessException e1) {
+                throw new RuntimeException(e1);
+            }
+        }
+
+        private static MethodHandle spreader(Method method) {
+            MethodHandle handle;
+            try {
+                handle = MethodHandles.lookup().unreflect(method);
+            } catch (IllegalAccessException e) {
+                // For example a method of an interface that this package cannot see.
+                return null;
             }
+            return handle.asType(handle.type().generic())
+                    .asSpreader(Object[].class, method.getParameterCount());
         }
-        return invoke;
     }
 }
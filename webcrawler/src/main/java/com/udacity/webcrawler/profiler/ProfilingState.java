@@ -4,51 +4,101 @@ import java.io.IOException;
 import java.io.Writer;
 import java.lang.reflect.Method;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Helper class that records method performance data from the method interceptor.
+ *
+ * <p>Each profiled method has its own {@link LatencyRecorder}, looked up by the {@link Method}
+ * and then by the calling class. Once a method has been called, recording another call only
+ * increments that recorder's counters; the report's method names are only formatted when it is
+ * written.
+ *
+ * <p>If only some calls are recorded, as decided by a {@link Sampler}, each recorded call stands
+ * for {@code weight} calls: the number of calls and the total time are scaled up by it when they
+ * are written.
  */
 final class ProfilingState {
-  private final Map<String, Duration> data = new ConcurrentHashMap<>();
+  private final Map<Method, Map<Class<?>, LatencyRecorder>> data = new ConcurrentHashMap<>();
+  private final Map<String, Long> metrics = new ConcurrentHashMap<>();
+  private final double weight;
+
+  /**
+   * Creates a {@link ProfilingState} that every call is recorded in.
+   */
+  ProfilingState() {
+    this(1);
+  }
+
+  /**
+   * Creates a {@link ProfilingState} in which each recorded call stands for the given number of
+   * calls.
+   */
+  ProfilingState(double weight) {
+    if (!(weight >= 1)) {
+      throw new IllegalArgumentException("weight must be at least 1");
+    }
+    this.weight = weight;
+  }
 
   /**
    * Records the given method invocation data.
    *
    * @param callingClass the Java class of the object that called the method.
    * @param method       the method that was called.
-   * @param elapsed      the amount of time that passed while the method was called.
+   * @param elapsedNanos the number of nanoseconds that passed while the method was called, as
+   *                     measured by a {@link Ticker}.
    */
-  void record(Class<?> callingClass, Method method, Duration elapsed) {
+  void record(Class<?> callingClass, Method method, long elapsedNanos) {
     Objects.requireNonNull(callingClass);
     Objects.requireNonNull(method);
-    Objects.requireNonNull(elapsed);
-    if (elapsed.isNegative()) {
+    if (elapsedNanos < 0) {
       throw new IllegalArgumentException("negative elapsed time");
     }
-    String key = formatMethodCall(callingClass, method);
-    data.compute(key, (k, v) -> (v == null) ? elapsed : v.plus(elapsed));
+    data.computeIfAbsent(method, m -> new ConcurrentHashMap<>())
+        .computeIfAbsent(callingClass, c -> new LatencyRecorder())
+        .record(elapsedNanos);
+  }
+
+  /**
+   * Records a named measurement, replacing any previous measurement with the same name.
+   */
+  void recordMetric(String name, long value) {
+    metrics.put(Objects.requireNonNull(name), value);
   }
 
   /**
-   * Writes the method invocation data to the given {@link Writer}.
+   * Writes the method invocation data, followed by the recorded measurements, to the given
+   * {@link Writer}.
+   *
+   * <p>Times are only converted from nanoseconds, and formatted, here.
    *
    * <p>Recorded data is aggregated across calls to the same method. For example, suppose
-   * {@link #record(Class, Method, Duration) record} is called three times for the same method
+   * {@link #record(Class, Method, long) record} is called three times for the same method
    * {@code M()}, with each invocation taking 1 second. The total {@link Duration} reported by
    * this {@code write()} method for {@code M()} should be 3 seconds.
+   *
+   * <p>Each method's total is followed by its number of calls, and by the minimum, mean, maximum
+   * and percentiles of how long a single call took. If calls were sampled, the number of calls
+   * is followed by the number that were recorded.
    */
   void write(Writer writer) throws IOException {
-    List<String> entries =
-        data.entrySet()
-            .stream()
-            .sorted(Map.Entry.comparingByKey())
-            .map(e -> e.getKey() + " took " + formatDuration(e.getValue()) + System.lineSeparator())
-            .collect(Collectors.toList());
+    List<String> entries = new ArrayList<>();
+    data.forEach((method, recorders) -> recorders.forEach((callingClass, recorder) ->
+        entries.add(formatMethodCall(callingClass, method)
+            + " took " + formatStatistics(recorder.snapshot()) + System.lineSeparator())));
+    Collections.sort(entries);
+    metrics.entrySet()
+        .stream()
+        .sorted(Map.Entry.comparingByKey())
+        .map(e -> e.getKey() + " = " + e.getValue() + System.lineSeparator())
+        .forEach(entries::add);
 
     // We have to use a for-loop here instead of a Stream API method because Writer#write() can
     // throw an IOException, and lambdas are not allowed to throw checked exceptions.
@@ -75,4 +125,29 @@ final class ProfilingState {
     return String.format(
         "%sm %ss %sms", duration.toMinutes(), duration.toSecondsPart(), duration.toMillisPart());
   }
+
+  /**
+   * Formats the total time, and the per-call statistics, of the given calls for writing to a text
+   * file.
+   */
+  private String formatStatistics(LatencyRecorder.Snapshot calls) {
+    return String.format(
+        "%s (calls: %d%s, min: %s, mean: %s, p50: %s, p99: %s, p999: %s, max: %s)",
+        formatDuration(Duration.ofNanos(Math.round(calls.getTotalNanos() * weight))),
+        Math.round(calls.getCount() * weight),
+        weight == 1 ? "" : ", sampled: " + calls.getCount(),
+        formatMillis(calls.getMinNanos()),
+        formatMillis(calls.getMeanNanos()),
+        formatMillis(calls.getPercentileNanos(0.5)),
+        formatMillis(calls.getPercentileNanos(0.99)),
+        formatMillis(calls.getPercentileNanos(0.999)),
+        formatMillis(calls.getMaxNanos()));
+  }
+
+  /**
+   * Formats the given number of nanoseconds as milliseconds, to the microsecond.
+   */
+  private static String formatMillis(long nanos) {
+    return String.format("%.3fms", (double) nanos / TimeUnit.MILLISECONDS.toNanos(1));
+  }
 }
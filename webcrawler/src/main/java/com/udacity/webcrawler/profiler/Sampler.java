@@ -0,0 +1,82 @@
+package com.udacity.webcrawler.profiler;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides which calls to profiled methods are timed, so that the profiler can stay on for crawls
+ * whose methods are called too often to time every call.
+ *
+ * <p>A call is timed if it starts within the first {@code window} of a second, and then only one
+ * in {@code every} of those calls is, picked at random. Each timed call stands for
+ * {@link #getWeight()} calls in the profile data, so its counts and totals are extrapolated, while
+ * its per-call statistics are those of the timed calls.
+ */
+final class Sampler {
+
+  private static final long PERIOD_MILLIS = 1000;
+
+  private static final Sampler ALL = new Sampler(Clock.systemUTC(), 1, PERIOD_MILLIS);
+
+  private final Clock clock;
+  private final int every;
+  private final long windowMillis;
+
+  private Sampler(Clock clock, int every, long windowMillis) {
+    this.clock = clock;
+    this.every = every;
+    this.windowMillis = windowMillis;
+  }
+
+  /**
+   * Returns a {@link Sampler} that times every call.
+   */
+  static Sampler all() {
+    return ALL;
+  }
+
+  /**
+   * Returns a {@link Sampler} that times one in {@code every} calls that start within the first
+   * {@code window} of each second of the given clock.
+   *
+   * @throws IllegalArgumentException if {@code every} is not positive, or {@code window} is not
+   *                                  between one millisecond and one second.
+   */
+  static Sampler create(Clock clock, int every, Duration window) {
+    Objects.requireNonNull(clock);
+    if (every <= 0) {
+      throw new IllegalArgumentException("every must be positive");
+    }
+    long windowMillis = window.toMillis();
+    if (windowMillis <= 0 || windowMillis > PERIOD_MILLIS) {
+      throw new IllegalArgumentException("window must be between 1ms and 1s");
+    }
+    if (every == 1 && windowMillis == PERIOD_MILLIS) {
+      return ALL;
+    }
+    return new Sampler(clock, every, windowMillis);
+  }
+
+  /**
+   * Returns whether a call that is about to start should be timed.
+   */
+  boolean sample() {
+    if (this == ALL) {
+      return true;
+    }
+    if (windowMillis < PERIOD_MILLIS
+        && Math.floorMod(clock.millis(), PERIOD_MILLIS) >= windowMillis) {
+      return false;
+    }
+    return every == 1 || ThreadLocalRandom.current().nextInt(every) == 0;
+  }
+
+  /**
+   * Returns how many calls each timed call stands for, on average.
+   */
+  double getWeight() {
+    return every * ((double) PERIOD_MILLIS / windowMillis);
+  }
+}
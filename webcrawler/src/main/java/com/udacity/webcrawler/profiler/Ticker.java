@@ -0,0 +1,26 @@
+package com.udacity.webcrawler.profiler;
+
+import java.time.Clock;
+
+/**
+ * A source of nanosecond time that the profiler measures calls with.
+ *
+ * <p>Unlike a {@link Clock}, a ticker does not tell the time of day: its readings only mean
+ * something relative to one another. In exchange, the system ticker never goes backwards, even if
+ * the wall clock is set back, and reading it does not allocate.
+ */
+public interface Ticker {
+
+  /**
+   * Returns the number of nanoseconds since some fixed but arbitrary origin. The difference
+   * between two readings is the time that passed between them.
+   */
+  long read();
+
+  /**
+   * Returns a {@link Ticker} that reads {@link System#nanoTime()}.
+   */
+  static Ticker systemTicker() {
+    return System::nanoTime;
+  }
+}
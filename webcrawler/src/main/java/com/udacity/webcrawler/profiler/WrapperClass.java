@@ -0,0 +1,641 @@
+package com.udacity.webcrawler.profiler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * A class, generated at run time, that wraps objects of one interface to have their
+ * {@link Profiled} methods timed, as an alternative to a {@link java.lang.reflect.Proxy}.
+ *
+ * <p>The class is written as bytecode and defined as a hidden class in this package, once per
+ * interface. It is equivalent to this Java code, for an interface with one profiled method:
+ *
+ * <pre>{@code
+ *   final class GeneratedWrapper implements Interface {
+ *     private final Interface delegate;
+ *     private final ProfiledMethod[] methods;
+ *
+ *     public GeneratedWrapper(Interface delegate, ProfiledMethod[] methods) { ... }
+ *
+ *     public final Result profiled(Argument argument) {
+ *       long start = methods[0].start();
+ *       try {
+ *         return delegate.profiled(argument);
+ *       } finally {
+ *         methods[0].end(delegate, start);
+ *       }
+ *     }
+ *
+ *     public final Result notProfiled(Argument argument) {
+ *       return delegate.notProfiled(argument);
+ *     }
+ *
+ *     // And equals(), hashCode() and toString(), which call the delegate's.
+ *   }
+ * }</pre>
+ *
+ * <p>So wrapping an object is a constructor call, and calling a method of the wrapper is a plain
+ * interface call, which the JIT compiler can inline, with no argument array or boxing.
+ */
+final class WrapperClass {
+
+  private static final String CLASS_NAME = "com/udacity/webcrawler/profiler/GeneratedWrapper";
+  private static final String OBJECT = "java/lang/Object";
+  private static final String PROFILED_METHOD = "com/udacity/webcrawler/profiler/ProfiledMethod";
+
+  private static final ClassValue<Optional<WrapperClass>> CLASSES =
+      new ClassValue<>() {
+        @Override
+        protected Optional<WrapperClass> computeValue(Class<?> klass) {
+          return Optional.ofNullable(generate(klass));
+        }
+      };
+
+  private final List<Method> profiledMethods;
+
+  /**
+   * Takes the delegate and the {@link ProfiledMethod}s, and returns a new wrapper.
+   */
+  private final MethodHandle constructor;
+
+  private WrapperClass(List<Method> profiledMethods, MethodHandle constructor) {
+    this.profiledMethods = List.copyOf(profiledMethods);
+    this.constructor = constructor;
+  }
+
+  /**
+   * Returns the wrapper class for the given interface, generating it the first time, or nothing if
+   * the interface cannot be wrapped this way. That is the case when the interface, or a type that
+   * its methods use, cannot be seen from this package.
+   */
+  static Optional<WrapperClass> forInterface(Class<?> klass) {
+    return CLASSES.get(klass);
+  }
+
+  /**
+   * Returns the profiled methods of the interface. A new wrapper takes a {@link ProfiledMethod}
+   * for each of them, in the same order.
+   */
+  List<Method> getProfiledMethods() {
+    return profiledMethods;
+  }
+
+  /**
+   * Creates a wrapper for the given delegate.
+   */
+  Object newInstance(Object delegate, ProfiledMethod[] methods) {
+    try {
+      return (Object) constructor.invokeExact(delegate, methods);
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static WrapperClass generate(Class<?> klass) {
+    if (!klass.isInterface() || !isVisible(klass)) {
+      return null;
+    }
+    // Like a proxy, the wrapper always passes these to the delegate, and never profiles them.
+    List<Method> forwarded = new ArrayList<>();
+    try {
+      forwarded.add(Object.class.getMethod("equals", Object.class));
+      forwarded.add(Object.class.getMethod("hashCode"));
+      forwarded.add(Object.class.getMethod("toString"));
+    } catch (NoSuchMethodException e) {
+      throw new AssertionError(e);
+    }
+    Set<String> signatures = new HashSet<>();
+    for (Method method : forwarded) {
+      signatures.add(method.getName() + descriptor(method));
+    }
+    for (Method method : klass.getMethods()) {
+      if (Modifier.isStatic(method.getModifiers())) {
+        continue;
+      }
+      if (!signatures.add(method.getName() + descriptor(method))) {
+        // Declared by more than one of the interface's superinterfaces, or by Object.
+        continue;
+      }
+      if (!isVisible(method.getReturnType())) {
+        return null;
+      }
+      for (Class<?> parameter : method.getParameterTypes()) {
+        if (!isVisible(parameter)) {
+          return null;
+        }
+      }
+      forwarded.add(method);
+    }
+
+    List<Method> profiled = new ArrayList<>();
+    byte[] bytes = new ClassWriter(klass).write(forwarded, profiled);
+    try {
+      MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(bytes, true);
+      MethodHandle constructor =
+          lookup.findConstructor(
+              lookup.lookupClass(),
+              MethodType.methodType(void.class, klass, ProfiledMethod[].class));
+      return new WrapperClass(
+          profiled,
+          constructor.asType(
+              MethodType.methodType(Object.class, Object.class, ProfiledMethod[].class)));
+    } catch (IllegalAccessException | NoSuchMethodException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Returns whether the generated class can refer to the given type: it has to be accessible from
+   * this package, and be the same class when loaded by this package's class loader.
+   */
+  private static boolean isVisible(Class<?> type) {
+    while (type.isArray()) {
+      type = type.getComponentType();
+    }
+    if (type.isPrimitive()) {
+      return true;
+    }
+    try {
+      MethodHandles.lookup().accessClass(type);
+      return Class.forName(type.getName(), false, WrapperClass.class.getClassLoader()) == type;
+    } catch (IllegalAccessException | ClassNotFoundException e) {
+      return false;
+    }
+  }
+
+  private static String descriptor(Method method) {
+    return MethodType.methodType(method.getReturnType(), method.getParameterTypes())
+        .toMethodDescriptorString();
+  }
+
+  private static String internalName(Class<?> type) {
+    return type.isArray() ? type.descriptorString() : type.getName().replace('.', '/');
+  }
+
+  /**
+   * Writes the bytecode of the wrapper class of one interface.
+   */
+  private static final class ClassWriter {
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_PRIVATE = 0x0002;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+
+    private static final int ICONST_0 = 0x03;
+    private static final int BIPUSH = 0x10;
+    private static final int SIPUSH = 0x11;
+    private static final int ALOAD_0 = 0x2a;
+    private static final int ALOAD_1 = 0x2b;
+    private static final int ALOAD_2 = 0x2c;
+    private static final int AALOAD = 0x32;
+    private static final int ASTORE = 0x3a;
+    private static final int LLOAD = 0x16;
+    private static final int LSTORE = 0x37;
+    private static final int ALOAD = 0x19;
+    private static final int RETURN = 0xb1;
+    private static final int GETFIELD = 0xb4;
+    private static final int PUTFIELD = 0xb5;
+    private static final int INVOKEVIRTUAL = 0xb6;
+    private static final int INVOKESPECIAL = 0xb7;
+    private static final int INVOKEINTERFACE = 0xb9;
+    private static final int ATHROW = 0xbf;
+
+    private final Class<?> klass;
+    private final ConstantPool pool = new ConstantPool();
+
+    ClassWriter(Class<?> klass) {
+      this.klass = klass;
+    }
+
+    /**
+     * Writes a class that forwards the given methods, and adds the profiled ones to the given
+     * list, in the order of their {@link ProfiledMethod}s.
+     */
+    byte[] write(List<Method> forwarded, List<Method> profiled) {
+      try {
+        ByteArrayOutputStream methods = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(methods);
+        writeConstructor(out);
+        for (Method method : forwarded) {
+          if (method.getDeclaringClass() != Object.class
+              && method.getAnnotation(Profiled.class) != null) {
+            writeProfiledMethod(out, method, profiled.size());
+            profiled.add(method);
+          } else {
+            writeForwardingMethod(out, method);
+          }
+        }
+        int thisClass = pool.classInfo(CLASS_NAME);
+        int superClass = pool.classInfo(OBJECT);
+        int iface = pool.classInfo(internalName(klass));
+        int delegateName = pool.utf8("delegate");
+        int delegateType = pool.utf8(klass.descriptorString());
+        int methodsName = pool.utf8("methods");
+        int methodsType = pool.utf8("[L" + PROFILED_METHOD + ";");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream file = new DataOutputStream(bytes);
+        file.writeInt(0xcafebabe);
+        file.writeShort(0);
+        // Java 8, the oldest version that hidden classes and the split verifier both handle.
+        file.writeShort(52);
+        pool.writeTo(file);
+        file.writeShort(ACC_FINAL | ACC_SUPER);
+        file.writeShort(thisClass);
+        file.writeShort(superClass);
+        file.writeShort(1);
+        file.writeShort(iface);
+        file.writeShort(2);
+        for (int[] field : new int[][]{{delegateName, delegateType}, {methodsName, methodsType}}) {
+          file.writeShort(ACC_PRIVATE | ACC_FINAL);
+          file.writeShort(field[0]);
+          file.writeShort(field[1]);
+          file.writeShort(0);
+        }
+        file.writeShort(forwarded.size() + 1);
+        methods.writeTo(file);
+        file.writeShort(0);
+        return bytes.toByteArray();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    private void writeConstructor(DataOutputStream out) throws IOException {
+      Code code = new Code();
+      code.op(ALOAD_0);
+      code.op(INVOKESPECIAL).u2(pool.methodRef(OBJECT, "<init>", "()V", false));
+      code.op(ALOAD_0).op(ALOAD_1).op(PUTFIELD).u2(delegateField());
+      code.op(ALOAD_0).op(ALOAD_2).op(PUTFIELD).u2(methodsField());
+      code.op(RETURN);
+      String descriptor =
+          "(" + klass.descriptorString() + "[L" + PROFILED_METHOD + ";)V";
+      writeMethod(out, ACC_PUBLIC, "<init>", descriptor, code, 2, 3, -1, null);
+    }
+
+    /**
+     * Writes a method that calls the delegate's method, and returns what it returns.
+     */
+    private void writeForwardingMethod(DataOutputStream out, Method method) throws IOException {
+      Code code = new Code();
+      int slots = callDelegate(code, method);
+      code.op(returnOpcode(method.getReturnType()));
+      writeMethod(
+          out, ACC_PUBLIC | ACC_FINAL, method.getName(), descriptor(method), code,
+          Math.max(2, 1 + slots), 1 + slots, -1, null);
+    }
+
+    /**
+     * Writes a method that times the call to the delegate's method with the {@link ProfiledMethod}
+     * at the given index, whether the call returns or throws.
+     */
+    private void writeProfiledMethod(DataOutputStream out, Method method, int index)
+        throws IOException {
+      int slots = 0;
+      for (Class<?> parameter : method.getParameterTypes()) {
+        slots += size(parameter);
+      }
+      int start = 1 + slots;
+      int local = start + 2;
+      Class<?> returnType = method.getReturnType();
+
+      Code code = new Code();
+      loadProfiledMethod(code, index);
+      code.op(INVOKEVIRTUAL).u2(pool.methodRef(PROFILED_METHOD, "start", "()J", false));
+      code.local(LSTORE, start);
+      int tryStart = code.size();
+      callDelegate(code, method);
+      int tryEnd = code.size();
+      if (returnType != void.class) {
+        code.local(storeOpcode(returnType), local);
+      }
+      callEnd(code, index, start);
+      if (returnType != void.class) {
+        code.local(loadOpcode(returnType), local);
+      }
+      code.op(returnOpcode(returnType));
+
+      int handler = code.size();
+      code.local(ASTORE, local);
+      callEnd(code, index, start);
+      code.local(ALOAD, local);
+      code.op(ATHROW);
+      code.exception(tryStart, tryEnd, handler);
+
+      writeMethod(
+          out, ACC_PUBLIC | ACC_FINAL, method.getName(), descriptor(method), code,
+          Math.max(4, 1 + slots), local + 2, handler, method);
+    }
+
+    /**
+     * Pushes the delegate and the method's arguments, and calls the method. Returns the number of
+     * local variable slots that the arguments take up.
+     */
+    private int callDelegate(Code code, Method method) {
+      code.op(ALOAD_0).op(GETFIELD).u2(delegateField());
+      int slot = 1;
+      for (Class<?> parameter : method.getParameterTypes()) {
+        code.local(loadOpcode(parameter), slot);
+        slot += size(parameter);
+      }
+      if (method.getDeclaringClass() == Object.class) {
+        code.op(INVOKEVIRTUAL)
+            .u2(pool.methodRef(OBJECT, method.getName(), descriptor(method), false));
+      } else {
+        code.op(INVOKEINTERFACE)
+            .u2(pool.methodRef(internalName(klass), method.getName(), descriptor(method), true))
+            .u1(slot)
+            .u1(0);
+      }
+      return slot - 1;
+    }
+
+    private void callEnd(Code code, int index, int start) {
+      loadProfiledMethod(code, index);
+      code.op(ALOAD_0).op(GETFIELD).u2(delegateField());
+      code.local(LLOAD, start);
+      code.op(INVOKEVIRTUAL)
+          .u2(pool.methodRef(PROFILED_METHOD, "end", "(L" + OBJECT + ";J)V", false));
+    }
+
+    private void loadProfiledMethod(Code code, int index) {
+      code.op(ALOAD_0).op(GETFIELD).u2(methodsField());
+      if (index <= 5) {
+        code.op(ICONST_0 + index);
+      } else if (index <= Byte.MAX_VALUE) {
+        code.op(BIPUSH).u1(index);
+      } else {
+        code.op(SIPUSH).u2(index);
+      }
+      code.op(AALOAD);
+    }
+
+    private int delegateField() {
+      return pool.fieldRef(CLASS_NAME, "delegate", klass.descriptorString());
+    }
+
+    private int methodsField() {
+      return pool.fieldRef(CLASS_NAME, "methods", "[L" + PROFILED_METHOD + ";");
+    }
+
+    /**
+     * Writes a method with a Code attribute. If {@code handler} is not negative, the code has an
+     * exception handler there, for which a stack map frame is written: the locals are this, the
+     * arguments of the given method and the long start time, and the stack holds the exception.
+     */
+    private void writeMethod(
+        DataOutputStream out,
+        int access,
+        String name,
+        String descriptor,
+        Code code,
+        int maxStack,
+        int maxLocals,
+        int handler,
+        Method method) throws IOException {
+      ByteArrayOutputStream attribute = new ByteArrayOutputStream();
+      DataOutputStream attr = new DataOutputStream(attribute);
+      attr.writeShort(maxStack);
+      attr.writeShort(maxLocals);
+      attr.writeInt(code.size());
+      code.writeTo(attr);
+      if (handler < 0) {
+        attr.writeShort(0);
+        attr.writeShort(0);
+      } else {
+        attr.writeShort(1);
+        attr.writeShort(code.tryStart);
+        attr.writeShort(code.tryEnd);
+        attr.writeShort(code.handler);
+        attr.writeShort(0);
+        attr.writeShort(1);
+        writeStackMapTable(attr, handler, method);
+      }
+
+      out.writeShort(access);
+      out.writeShort(pool.utf8(name));
+      out.writeShort(pool.utf8(descriptor));
+      out.writeShort(1);
+      out.writeShort(pool.utf8("Code"));
+      out.writeInt(attribute.size());
+      attribute.writeTo(out);
+    }
+
+    private void writeStackMapTable(DataOutputStream out, int handler, Method method)
+        throws IOException {
+      ByteArrayOutputStream table = new ByteArrayOutputStream();
+      DataOutputStream frames = new DataOutputStream(table);
+      frames.writeShort(1);
+      // A full_frame.
+      frames.writeByte(255);
+      frames.writeShort(handler);
+      Class<?>[] parameters = method.getParameterTypes();
+      frames.writeShort(parameters.length + 2);
+      writeVerificationType(frames, CLASS_NAME);
+      for (Class<?> parameter : parameters) {
+        writeVerificationType(frames, parameter);
+      }
+      writeVerificationType(frames, long.class);
+      frames.writeShort(1);
+      writeVerificationType(frames, "java/lang/Throwable");
+
+      out.writeShort(pool.utf8("StackMapTable"));
+      out.writeInt(table.size());
+      table.writeTo(out);
+    }
+
+    private void writeVerificationType(DataOutputStream out, Class<?> type) throws IOException {
+      if (type == long.class) {
+        out.writeByte(4);
+      } else if (type == double.class) {
+        out.writeByte(3);
+      } else if (type == float.class) {
+        out.writeByte(2);
+      } else if (type.isPrimitive()) {
+        out.writeByte(1);
+      } else {
+        writeVerificationType(out, internalName(type));
+      }
+    }
+
+    private void writeVerificationType(DataOutputStream out, String className)
+        throws IOException {
+      out.writeByte(7);
+      out.writeShort(pool.classInfo(className));
+    }
+
+    private static int size(Class<?> type) {
+      return type == long.class || type == double.class ? 2 : 1;
+    }
+
+    private static int loadOpcode(Class<?> type) {
+      return 0x15 + kind(type);
+    }
+
+    private static int storeOpcode(Class<?> type) {
+      return 0x36 + kind(type);
+    }
+
+    private static int returnOpcode(Class<?> type) {
+      return type == void.class ? RETURN : 0xac + kind(type);
+    }
+
+    /**
+     * The offset of the type's instructions from the int ones, which come first in each group of
+     * loads, stores and returns: int, long, float, double, then reference.
+     */
+    private static int kind(Class<?> type) {
+      if (type == long.class) {
+        return 1;
+      } else if (type == float.class) {
+        return 2;
+      } else if (type == double.class) {
+        return 3;
+      } else if (type.isPrimitive()) {
+        return 0;
+      }
+      return 4;
+    }
+  }
+
+  /**
+   * The bytecode of one method, and its exception handler if it has one.
+   */
+  private static final class Code {
+    private static final int WIDE = 0xc4;
+
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private int tryStart;
+    private int tryEnd;
+    private int handler;
+
+    Code op(int opcode) {
+      bytes.write(opcode);
+      return this;
+    }
+
+    Code u1(int value) {
+      bytes.write(value);
+      return this;
+    }
+
+    Code u2(int value) {
+      bytes.write(value >>> 8);
+      bytes.write(value);
+      return this;
+    }
+
+    /**
+     * Writes a load or store of the local variable in the given slot.
+     */
+    void local(int opcode, int slot) {
+      if (slot > 0xff) {
+        op(WIDE).op(opcode).u2(slot);
+      } else {
+        op(opcode).u1(slot);
+      }
+    }
+
+    void exception(int start, int end, int handler) {
+      this.tryStart = start;
+      this.tryEnd = end;
+      this.handler = handler;
+    }
+
+    int size() {
+      return bytes.size();
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+      bytes.writeTo(out);
+    }
+  }
+
+  /**
+   * The constant pool of the class being written. Each constant is only added once.
+   */
+  private static final class ConstantPool {
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final DataOutputStream out = new DataOutputStream(bytes);
+    private final Map<String, Integer> indexes = new HashMap<>();
+    private int count = 0;
+
+    int utf8(String value) {
+      return add("utf8:" + value, () -> {
+        out.writeByte(1);
+        out.writeUTF(value);
+      });
+    }
+
+    int classInfo(String internalName) {
+      int name = utf8(internalName);
+      return add("class:" + internalName, () -> {
+        out.writeByte(7);
+        out.writeShort(name);
+      });
+    }
+
+    int fieldRef(String owner, String name, String descriptor) {
+      return memberRef(9, owner, name, descriptor);
+    }
+
+    int methodRef(String owner, String name, String descriptor, boolean isInterface) {
+      return memberRef(isInterface ? 11 : 10, owner, name, descriptor);
+    }
+
+    private int memberRef(int tag, String owner, String name, String descriptor) {
+      int ownerIndex = classInfo(owner);
+      int nameIndex = utf8(name);
+      int descriptorIndex = utf8(descriptor);
+      int nameAndType = add("nameAndType:" + name + ":" + descriptor, () -> {
+        out.writeByte(12);
+        out.writeShort(nameIndex);
+        out.writeShort(descriptorIndex);
+      });
+      return add(tag + ":" + owner + "." + name + ":" + descriptor, () -> {
+        out.writeByte(tag);
+        out.writeShort(ownerIndex);
+        out.writeShort(nameAndType);
+      });
+    }
+
+    void writeTo(DataOutputStream file) throws IOException {
+      file.writeShort(count + 1);
+      bytes.writeTo(file);
+    }
+
+    private int add(String key, Entry entry) {
+      Integer index = indexes.get(key);
+      if (index != null) {
+        return index;
+      }
+      try {
+        entry.write();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      indexes.put(key, ++count);
+      return count;
+    }
+
+    private interface Entry {
+      void write() throws IOException;
+    }
+  }
+}
@@ -0,0 +1,127 @@
+package com.udacity.webcrawler.regex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.Collectors;
+
+/**
+ * Utility class that takes apart lists of user-supplied {@link Pattern}s, so that they can be
+ * matched more cheaply than one regular expression at a time.
+ *
+ * <p>Used by the ignored word and ignored URL matchers, which both pull out the patterns that are
+ * plain text, and join the rest into a single alternation. Those matchers live in different
+ * packages, so this class lives in a package of its own, rather than in the API of either.
+ */
+public final class PatternLiterals {
+
+  /**
+   * Returns the one string the given pattern can fully match, or {@code null} if it can match
+   * other strings, or if working that out would take more than a simple scan of the pattern.
+   */
+  public static String toLiteral(Pattern pattern) {
+    if (pattern.flags() != 0) {
+      return null;
+    }
+    String body = stripAnchors(pattern.pattern());
+    return toLiteral(body, 0, body.length());
+  }
+
+  /**
+   * Returns the given regular expression without a leading {@code ^} or a trailing {@code $},
+   * neither of which changes what it fully matches.
+   */
+  public static String stripAnchors(String regex) {
+    int start = regex.startsWith("^") ? 1 : 0;
+    int end = regex.length();
+    if (end > start && regex.charAt(end - 1) == '$' && !isEscaped(regex, end - 1)) {
+      end--;
+    }
+    return regex.substring(start, end);
+  }
+
+  /**
+   * Returns the text that the given part of a regular expression stands for, or {@code null} if
+   * it has any special characters other than escaped punctuation.
+   */
+  public static String toLiteral(String regex, int start, int end) {
+    StringBuilder literal = new StringBuilder(end - start);
+    for (int i = start; i < end; i++) {
+      char c = regex.charAt(i);
+      if (c == '\\') {
+        // An escaped punctuation character stands for itself. Escaped letters and digits are
+        // character classes, backreferences and the like.
+        if (i + 1 >= end || Character.isLetterOrDigit(regex.charAt(i + 1))) {
+          return null;
+        }
+        literal.append(regex.charAt(++i));
+      } else if ("^$.|?*+()[]{}".indexOf(c) >= 0) {
+        return null;
+      } else {
+        literal.append(c);
+      }
+    }
+    return literal.toString();
+  }
+
+  /**
+   * Returns whether the character at the given index of a regular expression is escaped by an
+   * odd number of backslashes.
+   */
+  public static boolean isEscaped(String regex, int index) {
+    int backslashes = 0;
+    while (index - backslashes - 1 >= 0 && regex.charAt(index - backslashes - 1) == '\\') {
+      backslashes++;
+    }
+    return backslashes % 2 == 1;
+  }
+
+  /**
+   * Joins the given patterns into as few patterns as possible, that together fully match the same
+   * strings. Patterns that cannot be joined without changing their meaning are kept apart.
+   */
+  public static List<Pattern> join(List<Pattern> patterns) {
+    List<Pattern> joinable = new ArrayList<>();
+    List<Pattern> separate = new ArrayList<>();
+    for (Pattern pattern : patterns) {
+      if (isJoinable(pattern)) {
+        joinable.add(pattern);
+      } else {
+        separate.add(pattern);
+      }
+    }
+
+    List<Pattern> joined = new ArrayList<>();
+    if (joinable.size() == 1) {
+      joined.add(joinable.get(0));
+    } else if (joinable.size() > 1) {
+      String alternation = joinable
+          .stream()
+          .map(p -> "(?:" + p.pattern() + ")")
+          .collect(Collectors.joining("|"));
+      try {
+        joined.add(Pattern.compile(alternation));
+      } catch (PatternSyntaxException e) {
+        // For example, two patterns that use the same group name. Check them one by one instead.
+        joined.addAll(joinable);
+      }
+    }
+    joined.addAll(separate);
+    return List.copyOf(joined);
+  }
+
+  /**
+   * Returns whether the given pattern means the same thing as one alternative of a larger
+   * alternation.
+   */
+  private static boolean isJoinable(Pattern pattern) {
+    // Compile flags would have to apply to the whole alternation, and the numbers of any
+    // backreferences would shift.
+    return pattern.flags() == 0 && !pattern.pattern().matches("(?s).*\\\\(\\d|k<).*");
+  }
+
+  private PatternLiterals() {
+    // This class cannot be instantiated.
+  }
+}
@@ -0,0 +1,147 @@
+package com.udacity.webcrawler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class CrawlCheckpointerTest {
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  public void resumesFromLastCheckpoint() {
+    Path file = tempDir.resolve("crawl.checkpoint");
+    CrawlCheckpointer checkpointer = checkpointer(file, Duration.ofHours(1), false);
+    CrawlCheckpointer.State initial = checkpointer.start(List.of("http://a/"), 3);
+    assertThat(initial.getPendingUrls()).containsExactly("http://a/", 3);
+
+    checkpointer.recordPage("http://a/", Map.of("apple", 2), List.of("http://b/", "http://c/"), 2);
+    // Recorded before the page that links to it, as can happen with concurrent workers.
+    checkpointer.recordPage("http://d/", Map.of("date", 1), List.of(), 0);
+    checkpointer.recordPage("http://b/", Map.of("apple", 1), List.of("http://c/", "http://d/"), 1);
+    checkpointer.finish();
+
+    CrawlCheckpointer.State resumed = resume(file);
+    assertThat(resumed.getWordCounts()).containsExactly("apple", 3L, "date", 1L);
+    assertThat(resumed.getVisitedUrls()).containsExactly("http://a/", "http://b/", "http://d/");
+    // The deepest depth that the page was queued with wins.
+    assertThat(resumed.getPendingUrls()).containsExactly("http://c/", 2);
+  }
+
+  @Test
+  public void startsFromStartingUrlsUnlessResuming() {
+    Path file = tempDir.resolve("crawl.checkpoint");
+    CrawlCheckpointer checkpointer = checkpointer(file, Duration.ofHours(1), true);
+    // There is no checkpoint yet, so this is a new crawl.
+    assertThat(checkpointer.start(List.of("http://a/"), 2).getPendingUrls())
+        .containsExactly("http://a/", 2);
+    checkpointer.recordPage("http://a/", Map.of("apple", 1), List.of("http://b/"), 1);
+    checkpointer.finish();
+
+    CrawlCheckpointer.State fresh =
+        checkpointer(file, Duration.ofHours(1), false).start(List.of("http://a/"), 2);
+    assertThat(fresh.getWordCounts()).isEmpty();
+    assertThat(fresh.getVisitedUrls()).isEmpty();
+    assertThat(fresh.getPendingUrls()).containsExactly("http://a/", 2);
+  }
+
+  @Test
+  public void deletesCheckpointOnceFrontierDrains() {
+    Path file = tempDir.resolve("crawl.checkpoint");
+    CrawlCheckpointer checkpointer = checkpointer(file, Duration.ofHours(1), false);
+    checkpointer.start(List.of("http://a/"), 2);
+    checkpointer.recordPage("http://a/", Map.of("apple", 1), List.of("http://b/"), 1);
+    checkpointer.recordPage("http://b/", Map.of("banana", 1), List.of("http://a/"), 0);
+    checkpointer.finish();
+
+    assertThat(Files.exists(file)).isFalse();
+    // So a later crawl that asks to resume starts over.
+    assertThat(resume(file).getPendingUrls()).isEmpty();
+  }
+
+  @Test
+  public void checkpointsInBackground() throws Exception {
+    Path file = tempDir.resolve("crawl.checkpoint");
+    CrawlCheckpointer checkpointer = checkpointer(file, Duration.ofMillis(10), false);
+    checkpointer.start(List.of("http://a/"), 2);
+    checkpointer.recordPage("http://a/", Map.of("apple", 1), List.of("http://b/"), 1);
+
+    // Not finished, as if the process had died in the middle of the crawl.
+    CrawlCheckpointer.State resumed = null;
+    for (int i = 0; i < 500; i++) {
+      if (Files.exists(file)) {
+        resumed = resume(file);
+        if (resumed.getVisitedUrls().contains("http://a/")) {
+          break;
+        }
+      }
+      Thread.sleep(10);
+    }
+    checkpointer.finish();
+
+    assertThat(resumed).isNotNull();
+    assertThat(resumed.getWordCounts()).containsExactly("apple", 1L);
+    assertThat(resumed.getPendingUrls()).containsExactly("http://b/", 1);
+  }
+
+  @Test
+  public void disabledCheckpointerStartsFromStartingUrls() {
+    CrawlCheckpointer checkpointer = CrawlCheckpointer.disabled();
+
+    CrawlCheckpointer.State initial = checkpointer.start(List.of("http://a/", "http://b/"), 1);
+    checkpointer.recordPage("http://a/", Map.of("apple", 1), List.of(), 0);
+    checkpointer.finish();
+
+    assertThat(initial.getPendingUrls())
+        .containsExactly("http://a/", 1, "http://b/", 1)
+        .inOrder();
+    assertThat(CrawlCheckpointer.disabled().start(List.of("http://a/"), 0).getPendingUrls())
+        .isEmpty();
+  }
+
+  @Test
+  public void failsToResumeFromCorruptLength() throws Exception {
+    Path file = tempDir.resolve("crawl.checkpoint");
+    CrawlCheckpointer checkpointer = checkpointer(file, Duration.ofHours(1), false);
+    checkpointer.start(List.of("http://a/"), 2);
+    checkpointer.recordPage("http://a/", Map.of("apple", 1), List.of("http://b/"), 1);
+    checkpointer.finish();
+    // Overwrite the length of the first word, which follows the header and the word count.
+    byte[] bytes;
+    try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+      bytes = in.readAllBytes();
+    }
+    ByteBuffer.wrap(bytes).putInt(12, Integer.MAX_VALUE);
+    try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+      out.write(bytes);
+    }
+
+    assertThrows(UncheckedIOException.class, () -> resume(file));
+  }
+
+  private static CrawlCheckpointer.State resume(Path file) {
+    CrawlCheckpointer checkpointer = checkpointer(file, Duration.ofHours(1), true);
+    CrawlCheckpointer.State state = checkpointer.start(List.of(), 1);
+    checkpointer.finish();
+    return state;
+  }
+
+  private static CrawlCheckpointer checkpointer(Path file, Duration interval, boolean resume) {
+    return new CrawlCheckpointer(file, interval, resume, new NoOpProfiler());
+  }
+}
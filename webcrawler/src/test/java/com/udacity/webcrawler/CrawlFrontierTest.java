@@ -0,0 +1,72 @@
+package com.udacity.webcrawler;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class CrawlFrontierTest {
+
+  @Test
+  public void takesShallowestUrlsFirst() throws InterruptedException {
+    CrawlFrontier frontier = new CrawlFrontier(10);
+    frontier.offer("http://a.com/deep", 1);
+    frontier.offer("http://b.com/shallow", 2);
+
+    assertThat(frontier.take().getUrl()).isEqualTo("http://b.com/shallow");
+    assertThat(frontier.take().getUrl()).isEqualTo("http://a.com/deep");
+  }
+
+  @Test
+  public void rotatesAcrossHostsAtTheirConcurrencyLimit() throws InterruptedException {
+    CrawlFrontier frontier = new CrawlFrontier(10, new HostLimiter(1, Duration.ZERO));
+    frontier.offer("http://a.com/1", 1);
+    frontier.offer("http://a.com/2", 1);
+    frontier.offer("http://a.com/3", 1);
+    frontier.offer("http://b.com/1", 1);
+
+    CrawlFrontier.Entry first = frontier.take();
+    assertThat(first.getUrl()).isEqualTo("http://a.com/1");
+    // a.com already has a download in flight, so b.com goes next.
+    CrawlFrontier.Entry second = frontier.take();
+    assertThat(second.getUrl()).isEqualTo("http://b.com/1");
+
+    frontier.complete(first);
+    assertThat(frontier.take().getUrl()).isEqualTo("http://a.com/2");
+  }
+
+  @Test
+  public void waitsBetweenDownloadsFromTheSameHost() throws InterruptedException {
+    AtomicLong now = new AtomicLong();
+    HostLimiter limiter = new HostLimiter(0, Duration.ofSeconds(1), now::get);
+    CrawlFrontier frontier = new CrawlFrontier(10, limiter);
+    frontier.offer("http://a.com/1", 1);
+    frontier.offer("http://a.com/2", 1);
+    frontier.offer("http://b.com/1", 1);
+
+    assertThat(frontier.take().getUrl()).isEqualTo("http://a.com/1");
+    assertThat(frontier.take().getUrl()).isEqualTo("http://b.com/1");
+    assertThat(limiter.tryAcquire("a.com")).isEqualTo(Duration.ofSeconds(1).toNanos());
+
+    now.addAndGet(Duration.ofSeconds(1).toNanos());
+    assertThat(frontier.take().getUrl()).isEqualTo("http://a.com/2");
+  }
+
+  @Test
+  public void releasingHostBeforeCompletionLetsItsNextUrlStart() throws InterruptedException {
+    CrawlFrontier frontier = new CrawlFrontier(10, new HostLimiter(1, Duration.ZERO));
+    frontier.offer("http://a.com/1", 1);
+    frontier.offer("http://a.com/2", 1);
+
+    CrawlFrontier.Entry first = frontier.take();
+    frontier.releaseHost(first);
+    CrawlFrontier.Entry second = frontier.take();
+    assertThat(second.getUrl()).isEqualTo("http://a.com/2");
+
+    frontier.complete(first);
+    frontier.complete(second);
+    assertThat(frontier.take()).isNull();
+  }
+}
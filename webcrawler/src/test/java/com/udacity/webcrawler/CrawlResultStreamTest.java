@@ -0,0 +1,118 @@
+package com.udacity.webcrawler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.udacity.webcrawler.json.CrawlResult;
+import com.udacity.webcrawler.json.JsonCodec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class CrawlResultStreamTest {
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  public void streamsPagesWhileCrawling() throws Exception {
+    Path file = tempDir.resolve("results.ndjson");
+    CrawlResultStream stream = stream(file, Duration.ofHours(1));
+    stream.start();
+    stream.pageVisited("http://a/", Map.of("apple", 2));
+
+    // Not finished, so the page can only have been written in the background.
+    List<JsonNode> events = List.of();
+    for (int i = 0; i < 500 && events.isEmpty(); i++) {
+      Thread.sleep(10);
+      events = read(file);
+    }
+    stream.finish(new CrawlResult.Builder().setWordCounts(Map.of("apple", 2)).build());
+
+    assertThat(events).hasSize(1);
+    assertThat(events.get(0).get("event").asText()).isEqualTo("page");
+    assertThat(events.get(0).get("url").asText()).isEqualTo("http://a/");
+  }
+
+  @Test
+  public void writesSnapshotsOfPopularWords() throws Exception {
+    Path file = tempDir.resolve("results.ndjson");
+    CrawlResultStream stream = stream(file, Duration.ofMillis(10));
+    stream.start();
+    stream.pageVisited("http://a/", Map.of("apple", 2, "banana", 1));
+    stream.pageVisited("http://b/", Map.of("banana", 3));
+
+    JsonNode snapshot = null;
+    for (int i = 0; i < 500 && snapshot == null; i++) {
+      Thread.sleep(10);
+      for (JsonNode event : read(file)) {
+        if (event.get("event").asText().equals("snapshot")
+            && event.get("urlsVisited").asInt() == 2) {
+          snapshot = event;
+        }
+      }
+    }
+    stream.finish(null);
+
+    assertThat(snapshot).isNotNull();
+    assertThat(snapshot.get("wordCounts").size()).isEqualTo(1);
+    assertThat(snapshot.get("wordCounts").get("banana").asInt()).isEqualTo(4);
+  }
+
+  @Test
+  public void finishWritesRemainingPagesAndResult() throws Exception {
+    Path file = tempDir.resolve("results.ndjson");
+    CrawlResultStream stream = stream(file, Duration.ofHours(1));
+    stream.start();
+    stream.pageVisited("http://a/", Map.of("apple", 1));
+    stream.pageVisited("http://b/", Map.of("banana", 1));
+    stream.finish(new CrawlResult.Builder().setUrlsVisited(2).build());
+
+    List<JsonNode> events = read(file);
+    assertThat(events).hasSize(3);
+    assertThat(events.get(1).get("url").asText()).isEqualTo("http://b/");
+    assertThat(events.get(2).get("event").asText()).isEqualTo("result");
+    assertThat(events.get(2).get("urlsVisited").asInt()).isEqualTo(2);
+  }
+
+  @Test
+  public void disabledStreamWritesNothing() {
+    CrawlResultStream stream = CrawlResultStream.disabled();
+
+    stream.start();
+    stream.pageVisited("http://a/", Map.of("apple", 1));
+    stream.finish(new CrawlResult.Builder().build());
+
+    assertThat(stream.isEnabled()).isFalse();
+  }
+
+  private static CrawlResultStream stream(Path file, Duration snapshotInterval) {
+    return new CrawlResultStream(file, snapshotInterval, 1, JsonCodec.getDefault());
+  }
+
+  /**
+   * Reads the whole events written so far. The last line may not be complete yet.
+   */
+  private static List<JsonNode> read(Path file) throws Exception {
+    List<JsonNode> events = new ArrayList<>();
+    if (!Files.exists(file)) {
+      return events;
+    }
+    String content = Files.readString(file);
+    ObjectMapper mapper = new ObjectMapper();
+    int end;
+    int start = 0;
+    while ((end = content.indexOf('\n', start)) >= 0) {
+      events.add(mapper.readTree(content.substring(start, end)));
+      start = end + 1;
+    }
+    return events;
+  }
+}
@@ -0,0 +1,22 @@
+package com.udacity.webcrawler;
+
+import com.google.inject.Guice;
+import com.udacity.webcrawler.json.CrawlerConfiguration;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class FrontierWebCrawlerTest {
+  @Inject
+  private FrontierWebCrawler frontierWebCrawler;
+
+  @Test
+  public void testMaxParallelism() {
+    CrawlerConfiguration config = new CrawlerConfiguration.Builder().build();
+    Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+        .injectMembers(this);
+    assertThat(frontierWebCrawler.getMaxParallelism()).isGreaterThan(1);
+  }
+}
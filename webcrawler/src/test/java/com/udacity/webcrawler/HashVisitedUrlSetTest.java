@@ -0,0 +1,45 @@
+package com.udacity.webcrawler;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class HashVisitedUrlSetTest {
+  @ParameterizedTest
+  @ValueSource(booleans = {false, true})
+  public void treatsSpellingsOfTheSamePageAsOne(boolean presized) {
+    VisitedUrlSet visited = newSet(presized);
+
+    assertThat(visited.add("http://example.com/a/b")).isTrue();
+    assertThat(visited.add("http://example.com/a/b/")).isFalse();
+    assertThat(visited.add("http://EXAMPLE.com/a/b#x")).isFalse();
+    assertThat(visited.add("http://example.com/a/c")).isTrue();
+
+    assertThat(visited.contains("http://example.com:80/a/b")).isTrue();
+    assertThat(visited.contains("http://example.com/a/d")).isFalse();
+    assertThat(visited.size()).isEqualTo(2);
+  }
+
+  @ParameterizedTest
+  @ValueSource(booleans = {false, true})
+  public void containsEveryAddedUrl(boolean presized) {
+    VisitedUrlSet visited = newSet(presized);
+    // Twice as many URLs as the presized set expects, so that it has to grow anyway.
+    for (int i = 0; i < 2000; i++) {
+      assertThat(visited.add("http://example.com/" + i)).isTrue();
+    }
+
+    for (int i = 0; i < 2000; i++) {
+      assertThat(visited.contains("http://example.com/" + i)).isTrue();
+    }
+    for (int i = 2000; i < 4000; i++) {
+      assertThat(visited.contains("http://example.com/" + i)).isFalse();
+    }
+    assertThat(visited.size()).isEqualTo(2000);
+  }
+
+  private static VisitedUrlSet newSet(boolean presized) {
+    return presized ? new HashVisitedUrlSet(1000) : new HashVisitedUrlSet();
+  }
+}
@@ -0,0 +1,80 @@
+package com.udacity.webcrawler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Measures how the cost of checking URLs against the ignored URL patterns grows with the number of
+ * patterns, using {@link IgnoredUrlMatcher} versus matching each pattern in turn.
+ *
+ * <p>Most of the patterns block a whole site, like {@code "https://site1\\.example\\.com/.*"}. One
+ * in ten is a general pattern instead, like {@code ".*-tag1\\.html"}. Each operation checks the
+ * same 1,000 URLs, about a tenth of which are ignored.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class IgnoredUrlMatcherBenchmark {
+
+  /**
+   * The number of ignored URL patterns.
+   */
+  @Param({"10", "100", "1000", "5000"})
+  public int patterns;
+
+  private List<Pattern> ignoredUrls;
+  private IgnoredUrlMatcher matcher;
+  private List<String> urls;
+
+  @Setup
+  public void setUp() {
+    ignoredUrls = new ArrayList<>();
+    for (int i = 0; i < patterns; i++) {
+      ignoredUrls.add(Pattern.compile(i % 10 == 9
+          ? ".*-tag" + i + "\\.html"
+          : "https://site" + i + "\\.example\\.com/.*"));
+    }
+    matcher = IgnoredUrlMatcher.compile(ignoredUrls);
+
+    Random random = new Random(42);
+    urls = new ArrayList<>();
+    for (int i = 0; i < 1_000; i++) {
+      urls.add(random.nextInt(10) == 0
+          ? "https://site" + random.nextInt(patterns) + ".example.com/page.html"
+          : "https://other" + random.nextInt(1_000) + ".example.org/page-" + i + ".html");
+    }
+  }
+
+  @Benchmark
+  public void eachPattern(Blackhole blackhole) {
+    for (String url : urls) {
+      blackhole.consume(ignoredUrls.stream().anyMatch(p -> p.matcher(url).matches()));
+    }
+  }
+
+  @Benchmark
+  public void ignoredUrlMatcher(Blackhole blackhole) {
+    for (String url : urls) {
+      blackhole.consume(matcher.matches(url));
+    }
+  }
+}
@@ -0,0 +1,78 @@
+package com.udacity.webcrawler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+public final class IgnoredUrlMatcherTest {
+
+  private static final List<String> URLS = List.of(
+      "", "http://example.com", "http://example.com/", "http://example.com/a/b.html",
+      "https://example.com/private/", "https://example.com/private/x?y=1",
+      "https://example.com/privatex", "https://example.com/private/\nx", "http://exampleXcom/",
+      "http://other.org/dead-link.html", "http://other.org/page-loop.html", "HTTP://EXAMPLE.COM/",
+      "https://example.com/a.*", "http://example.com/$", "aa", "abab", "ftp://files.example.com/",
+      "x\nhttp://example.com/a/b.html", "a\nb");
+
+  @ParameterizedTest
+  @ValueSource(strings = {
+      "",
+      ".*-loop\\.html$ .*dead-.*",
+      "https://example\\.com/private/.* http://example\\.com/",
+      "^http://example\\.com$ http://example\\.com/a/b\\.html$ https://example\\.com/a\\.\\*",
+      "http://example.com/.* https?://example\\.com/private/.*",
+      ".* http://example\\.com/.*",
+      "(a)\\1 (?<x>a)b (?<x>b)a ftp://.*",
+      "(?i)http://example\\.com/ \\Qhttp://example.com/$\\E http://example\\.com/\\$",
+      "https://example\\.com/private.*$ aa|abab",
+      ".*private.* .*\\.html ^.*$",
+      ".*.* \\.*$ .*dead-.*$ ^.*b\\.html",
+  })
+  public void matchesLikeEachPatternInTurn(String regexes) {
+    List<Pattern> patterns = Arrays.stream(regexes.split(" "))
+        .filter(s -> !s.isEmpty())
+        .map(Pattern::compile)
+        .collect(Collectors.toList());
+    IgnoredUrlMatcher matcher = IgnoredUrlMatcher.compile(patterns);
+
+    for (String url : URLS) {
+      assertWithMessage("Wrong match for \"" + url + "\" with ignored URLs " + patterns)
+          .that(matcher.matches(url))
+          .isEqualTo(patterns.stream().anyMatch(p -> p.matcher(url).matches()));
+    }
+  }
+
+  @Test
+  public void keepsCompileFlags() {
+    IgnoredUrlMatcher matcher = IgnoredUrlMatcher.compile(List.of(
+        Pattern.compile("http://example\\.com/.*", Pattern.CASE_INSENSITIVE),
+        Pattern.compile("http://other\\.org/.*", Pattern.DOTALL)));
+
+    assertThat(matcher.matches("HTTP://EXAMPLE.COM/")).isTrue();
+    assertThat(matcher.matches("http://other.org/a\nb")).isTrue();
+    assertThat(matcher.matches("HTTP://OTHER.ORG/")).isFalse();
+  }
+
+  @Test
+  public void manyHostPrefixes() {
+    List<Pattern> patterns = IntStream.range(0, 5_000)
+        .mapToObj(i -> Pattern.compile("https://site" + i + "\\.example\\.com/.*"))
+        .collect(Collectors.toList());
+    IgnoredUrlMatcher matcher = IgnoredUrlMatcher.compile(patterns);
+
+    for (int i = 0; i < 5_000; i++) {
+      assertThat(matcher.matches("https://site" + i + ".example.com/index.html")).isTrue();
+    }
+    assertThat(matcher.matches("https://site5000.example.com/")).isFalse();
+    assertThat(matcher.matches("https://site42.example.com")).isFalse();
+  }
+}
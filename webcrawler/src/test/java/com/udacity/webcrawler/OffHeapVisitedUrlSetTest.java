@@ -0,0 +1,73 @@
+package com.udacity.webcrawler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class OffHeapVisitedUrlSetTest {
+  @Test
+  public void treatsSpellingsOfTheSamePageAsOne() {
+    OffHeapVisitedUrlSet visited = new OffHeapVisitedUrlSet(100);
+
+    assertThat(visited.add("http://example.com/a/b")).isTrue();
+    assertThat(visited.add("http://example.com/a/b/")).isFalse();
+    assertThat(visited.add("http://EXAMPLE.com/a/b#x")).isFalse();
+    assertThat(visited.add("http://example.com/a/c")).isTrue();
+
+    assertThat(visited.contains("http://example.com:80/a/b")).isTrue();
+    assertThat(visited.contains("http://example.com/a/d")).isFalse();
+    assertThat(visited.size()).isEqualTo(2);
+  }
+
+  @Test
+  public void stopsAddingOnceFull() {
+    OffHeapVisitedUrlSet visited = new OffHeapVisitedUrlSet(100);
+    int maxSize = visited.getMaxSize();
+    assertThat(maxSize).isAtLeast(100);
+
+    for (int i = 0; i < maxSize; i++) {
+      assertThat(visited.add("http://example.com/" + i)).isTrue();
+    }
+    assertThat(visited.add("http://example.com/one-too-many")).isFalse();
+
+    assertThat(visited.size()).isEqualTo(maxSize);
+    assertThat(visited.contains("http://example.com/0")).isTrue();
+    assertThat(visited.contains("http://example.com/" + (maxSize - 1))).isTrue();
+  }
+
+  @Test
+  public void eachUrlIsAddedByExactlyOneThread() throws Exception {
+    OffHeapVisitedUrlSet visited = new OffHeapVisitedUrlSet(10_000);
+    int threads = 4;
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      List<Callable<Integer>> tasks = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        tasks.add(() -> {
+          int added = 0;
+          for (int i = 0; i < 10_000; i++) {
+            if (visited.add("http://example.com/" + i)) {
+              added++;
+            }
+          }
+          return added;
+        });
+      }
+      int total = 0;
+      for (Future<Integer> future : pool.invokeAll(tasks)) {
+        total += future.get();
+      }
+      assertThat(total).isEqualTo(10_000);
+      assertThat(visited.size()).isEqualTo(10_000);
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+}
@@ -1,14 +1,31 @@
 package com.udacity.webcrawler;
 
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
+import com.google.inject.util.Modules;
+import com.udacity.webcrawler.json.CrawlResult;
 import com.udacity.webcrawler.json.CrawlerConfiguration;
+import com.udacity.webcrawler.parser.FetchedPage;
+import com.udacity.webcrawler.parser.PageParser;
+import com.udacity.webcrawler.parser.PageParserFactory;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import javax.inject.Inject;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.google.common.truth.Truth.assertThat;
 
 public final class ParallelWebCrawlerTest {
+  private static final int PAGES = 40;
+
   @Inject
   private ParallelWebCrawler parallelWebCrawler;
 
@@ -19,4 +36,77 @@ public final class ParallelWebCrawlerTest {
             .injectMembers(this);
     assertThat(parallelWebCrawler.getMaxParallelism()).isGreaterThan(1);
   }
+
+  @Test
+  public void boundsPoolWhileWaitingOnHostLimits(@TempDir Path tempDir) throws IOException {
+    StringBuilder index = new StringBuilder("<html><body>");
+    for (int i = 0; i < PAGES; i++) {
+      Files.writeString(tempDir.resolve("page-" + i + ".html"), "<html><body>page</body></html>");
+      index.append("<a href=\"page-").append(i).append(".html\">link</a>");
+    }
+    Path start = Files.writeString(tempDir.resolve("index.html"), index.append("</body></html>"));
+    CrawlerConfiguration config =
+        new CrawlerConfiguration.Builder()
+            .setParallelism(2)
+            .setMaxDepth(2)
+            .setPerHostConcurrency(1)
+            .addStartPages(start.toUri().toString())
+            .build();
+    PageParserFactory parsers =
+        Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+            .getInstance(PageParserFactory.class);
+    PoolSizeRecordingParserFactory recording = new PoolSizeRecordingParserFactory(parsers);
+    Guice.createInjector(
+            Modules.override(new WebCrawlerModule(config)).with(new AbstractModule() {
+              @Override
+              protected void configure() {
+                bind(PageParserFactory.class).toInstance(recording);
+              }
+            }),
+            new NoOpProfilerModule())
+        .injectMembers(this);
+
+    CrawlResult result = parallelWebCrawler.crawl(config.getStartPages());
+
+    // All the pages are local files, which count as the same host, so every worker but one waits
+    // on the limit at any time. That must not make the pool grow a thread for each waiting page.
+    assertThat(result.getUrlsVisited()).isEqualTo(PAGES + 1);
+    assertThat(recording.largestPoolSize.get()).isAtMost(4);
+  }
+
+  /**
+   * Hands out parsers that take a little while, and record the size of the pool they ran in.
+   */
+  private static final class PoolSizeRecordingParserFactory implements PageParserFactory {
+    private final PageParserFactory delegate;
+    private final AtomicInteger largestPoolSize = new AtomicInteger();
+
+    PoolSizeRecordingParserFactory(PageParserFactory delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public PageParser get(String url) {
+      return get(url, Instant.MAX);
+    }
+
+    @Override
+    public PageParser get(String url, Instant deadline) {
+      return () -> {
+        largestPoolSize.accumulateAndGet(ForkJoinTask.getPool().getPoolSize(), Math::max);
+        Uninterruptibles.sleepUninterruptibly(Duration.ofMillis(20));
+        return delegate.get(url, deadline).parse();
+      };
+    }
+
+    @Override
+    public PageParser get(FetchedPage page) {
+      return delegate.get(page);
+    }
+
+    @Override
+    public PageParser get(FetchedPage page, Instant deadline) {
+      return delegate.get(page, deadline);
+    }
+  }
 }
@@ -0,0 +1,95 @@
+package com.udacity.webcrawler;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.util.Modules;
+import com.udacity.webcrawler.json.CrawlerConfiguration;
+import com.udacity.webcrawler.parser.FetchedPage;
+import com.udacity.webcrawler.parser.PageParser;
+import com.udacity.webcrawler.parser.PageParserFactory;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+public final class PipelinedWebCrawlerTest {
+  private static final String DATA_DIR = System.getProperty("testDataDir");
+
+  @Inject
+  private PipelinedWebCrawler pipelinedWebCrawler;
+
+  @Test
+  public void testMaxParallelism() {
+    CrawlerConfiguration config = new CrawlerConfiguration.Builder().build();
+    Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+        .injectMembers(this);
+    assertThat(pipelinedWebCrawler.getMaxParallelism()).isGreaterThan(1);
+  }
+
+  @Test
+  public void rethrowsErrorFromParseStage() {
+    String startPage = Paths.get(DATA_DIR, "test-page.html").toUri().toString();
+    CrawlerConfiguration config =
+        new CrawlerConfiguration.Builder()
+            .setMaxDepth(10)
+            .setTimeoutSeconds(10)
+            .addStartPages(startPage)
+            .build();
+    AssertionError parserBug = new AssertionError("parser bug");
+    Guice.createInjector(
+            Modules.override(new WebCrawlerModule(config)).with(new AbstractModule() {
+              @Override
+              protected void configure() {
+                bind(PageParserFactory.class).toInstance(new FailingParserFactory(parserBug));
+              }
+            }),
+            new NoOpProfilerModule())
+        .injectMembers(this);
+
+    Error thrown = assertTimeoutPreemptively(
+        Duration.ofSeconds(5),
+        () -> assertThrows(
+            Error.class, () -> pipelinedWebCrawler.crawl(config.getStartPages())));
+
+    assertThat(thrown).isSameInstanceAs(parserBug);
+  }
+
+  /**
+   * Hands out parsers for downloaded pages that fail with the given {@link Error}.
+   */
+  private static final class FailingParserFactory implements PageParserFactory {
+    private final Error error;
+
+    FailingParserFactory(Error error) {
+      this.error = error;
+    }
+
+    @Override
+    public PageParser get(String url) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public PageParser get(String url, Instant deadline) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public PageParser get(FetchedPage page) {
+      return get(page, Instant.MAX);
+    }
+
+    @Override
+    public PageParser get(FetchedPage page, Instant deadline) {
+      return () -> {
+        throw error;
+      };
+    }
+  }
+}
@@ -0,0 +1,74 @@
+package com.udacity.webcrawler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class RobotsRulesTest {
+
+  private static final String ROBOTS_TXT = String.join("\n",
+      "# Rules for everyone else",
+      "User-agent: *",
+      "Disallow: /",
+      "",
+      "User-agent: other-crawler",
+      "User-agent: Udacity-WebCrawler  # matched case-insensitively",
+      "Disallow: /private/",
+      "Allow: /private/public",
+      "Disallow: /search",
+      "Allow: /search$",
+      "Disallow: /*.pdf$",
+      "Disallow: /tmp*/cache",
+      "Disallow:",
+      "Sitemap: https://example.com/sitemap.xml");
+
+  @ParameterizedTest
+  @CsvSource({
+      "/, true",
+      "/index.html, true",
+      "/private, true",
+      "/private/, false",
+      "/private/secret.html, false",
+      "/private/public, true",
+      "/private/public/page.html, true",
+      "/search, true",
+      "/search?q=java, false",
+      "/searches, false",
+      "/docs/guide.pdf, false",
+      "/docs/guide.pdf?download=1, true",
+      "/tmp1/cache/a, false",
+      "/tmp/other, true",
+      "/robots.txt, true",
+  })
+  public void usesLongestMatchingRuleOfOwnGroup(String path, boolean allowed) {
+    RobotsRules rules = RobotsRules.parse(ROBOTS_TXT, RobotsTxtCache.USER_AGENT);
+
+    assertThat(rules.isAllowed(path)).isEqualTo(allowed);
+  }
+
+  @Test
+  public void fallsBackToDefaultGroup() {
+    RobotsRules rules = RobotsRules.parse(ROBOTS_TXT, "some-other-bot");
+
+    assertThat(rules.isAllowed("/index.html")).isFalse();
+    assertThat(rules.isAllowed("/robots.txt")).isTrue();
+  }
+
+  @Test
+  public void allowWinsTie() {
+    RobotsRules rules = RobotsRules.parse(
+        "User-agent: *\nDisallow: /page\nAllow: /page\n", RobotsTxtCache.USER_AGENT);
+
+    assertThat(rules.isAllowed("/page")).isTrue();
+  }
+
+  @Test
+  public void emptyFileAllowsEverything() {
+    assertThat(RobotsRules.parse("", RobotsTxtCache.USER_AGENT))
+        .isSameInstanceAs(RobotsRules.ALLOW_ALL);
+    assertThat(RobotsRules.ALLOW_ALL.isAllowed("/anything")).isTrue();
+    assertThat(RobotsRules.DISALLOW_ALL.isAllowed("/anything")).isFalse();
+  }
+}
@@ -0,0 +1,123 @@
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.profiler.FakeClock;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class RobotsTxtCacheTest {
+
+  private final List<String> downloads = new ArrayList<>();
+  private final List<Duration> timeouts = new ArrayList<>();
+  private final AtomicLong now = new AtomicLong();
+  private final FakeClock clock = new FakeClock();
+  private final Instant deadline = clock.instant().plus(Duration.ofHours(1));
+
+  private RobotsTxtCache newCache(int maxSites) {
+    return newCache(
+        maxSites,
+        CompletableFuture.completedFuture(
+            RobotsRules.parse("User-agent: *\nDisallow: /private", RobotsTxtCache.USER_AGENT)));
+  }
+
+  private RobotsTxtCache newCache(int maxSites, CompletableFuture<RobotsRules> rules) {
+    return new RobotsTxtCache(
+        (origin, timeout) -> {
+          downloads.add(origin);
+          timeouts.add(timeout);
+          return rules;
+        },
+        maxSites,
+        Duration.ofHours(1),
+        now::get,
+        clock);
+  }
+
+  @Test
+  public void downloadsEachSiteOnce() {
+    RobotsTxtCache cache = newCache(10);
+
+    assertThat(cache.isAllowed("http://example.com/page", deadline)).isTrue();
+    assertThat(cache.isAllowed("http://EXAMPLE.com/private/page", deadline)).isFalse();
+    assertThat(cache.isAllowed("https://example.com/private", deadline)).isFalse();
+    assertThat(cache.isAllowed("http://example.com:8080/private", deadline)).isFalse();
+
+    assertThat(downloads)
+        .containsExactly(
+            "http://example.com", "https://example.com", "http://example.com:8080")
+        .inOrder();
+  }
+
+  @Test
+  public void downloadsAgainAfterTimeToLive() {
+    RobotsTxtCache cache = newCache(10);
+
+    cache.isAllowed("http://example.com/", deadline);
+    now.addAndGet(Duration.ofMinutes(59).toNanos());
+    cache.isAllowed("http://example.com/", deadline);
+    now.addAndGet(Duration.ofMinutes(1).toNanos());
+    cache.isAllowed("http://example.com/", deadline);
+
+    assertThat(downloads).hasSize(2);
+    assertThat(cache.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void dropsOldestSitesWhenFull() {
+    RobotsTxtCache cache = newCache(2);
+
+    cache.isAllowed("http://a.com/", deadline);
+    cache.isAllowed("http://b.com/", deadline);
+    cache.isAllowed("http://c.com/", deadline);
+    assertThat(cache.size()).isEqualTo(2);
+
+    cache.isAllowed("http://a.com/", deadline);
+    assertThat(downloads)
+        .containsExactly("http://a.com", "http://b.com", "http://c.com", "http://a.com")
+        .inOrder();
+  }
+
+  @Test
+  public void allowsUrlsWithoutRobotsTxt() {
+    RobotsTxtCache cache = newCache(10);
+
+    assertThat(cache.isAllowed("file:///private/page.html", deadline)).isTrue();
+    assertThat(cache.isAllowed("not a url", deadline)).isTrue();
+    assertThat(RobotsTxtCache.disabled().isAllowed("http://example.com/private", deadline))
+        .isTrue();
+    assertThat(downloads).isEmpty();
+  }
+
+  @Test
+  public void capsDownloadTimeoutAtDeadline() {
+    RobotsTxtCache cache = newCache(10);
+
+    cache.isAllowed("http://a.com/", deadline);
+    cache.isAllowed("http://b.com/", clock.instant().plusSeconds(2));
+
+    assertThat(timeouts)
+        .containsExactly(RobotsTxtCache.FETCH_TIMEOUT, Duration.ofSeconds(2))
+        .inOrder();
+  }
+
+  @Test
+  public void stopsWaitingAtDeadline() {
+    CompletableFuture<RobotsRules> slow = new CompletableFuture<>();
+    RobotsTxtCache cache = newCache(10, slow);
+
+    assertThat(cache.isAllowed("http://example.com/", clock.instant().plusMillis(20))).isFalse();
+    assertThat(cache.isAllowed("http://example.com/", clock.instant())).isFalse();
+    assertThat(downloads).hasSize(1);
+
+    // The download goes on, and a later check uses its rules.
+    slow.complete(RobotsRules.ALLOW_ALL);
+    assertThat(cache.isAllowed("http://example.com/", clock.instant())).isTrue();
+  }
+}
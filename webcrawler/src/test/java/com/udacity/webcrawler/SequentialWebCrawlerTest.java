@@ -1,14 +1,19 @@
 package com.udacity.webcrawler;
 
 import com.google.inject.Guice;
+import com.udacity.webcrawler.json.CrawlResult;
 import com.udacity.webcrawler.json.CrawlerConfiguration;
 import org.junit.jupiter.api.Test;
 
 import javax.inject.Inject;
+import java.nio.file.Paths;
+import java.time.Duration;
 
 import static com.google.common.truth.Truth.assertThat;
 
 public final class SequentialWebCrawlerTest {
+  private static final String DATA_DIR = System.getProperty("testDataDir");
+
   @Inject
   private SequentialWebCrawler sequentialWebCrawler;
 
@@ -19,4 +24,24 @@ public final class SequentialWebCrawlerTest {
         .injectMembers(this);
     assertThat(sequentialWebCrawler.getMaxParallelism()).isEqualTo(1);
   }
+
+  @Test
+  public void waitsOutPerHostDelay() {
+    CrawlerConfiguration config =
+        new CrawlerConfiguration.Builder()
+            .setMaxDepth(10)
+            .setPerHostDelayMillis(250)
+            .addStartPages(Paths.get(DATA_DIR, "test-page.html").toUri().toString())
+            .build();
+    Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+        .injectMembers(this);
+
+    long start = System.nanoTime();
+    CrawlResult result = sequentialWebCrawler.crawl(config.getStartPages());
+    Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+    // All three pages are local files, which count as the same host.
+    assertThat(result.getUrlsVisited()).isEqualTo(3);
+    assertThat(elapsed).isAtLeast(Duration.ofMillis(500));
+  }
 }
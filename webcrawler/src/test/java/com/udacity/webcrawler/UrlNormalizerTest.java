@@ -0,0 +1,34 @@
+package com.udacity.webcrawler;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static com.google.common.truth.Truth.assertWithMessage;
+
+public final class UrlNormalizerTest {
+  @ParameterizedTest
+  @CsvSource({
+      "http://example.com/a/b, http://example.com/a/b",
+      "http://example.com/a/b/, http://example.com/a/b",
+      "http://example.com/a/b#x, http://example.com/a/b",
+      "HTTP://Example.COM/A/b, http://example.com/A/b",
+      "http://example.com, http://example.com/",
+      "http://example.com/, http://example.com/",
+      "http://example.com:80/a, http://example.com/a",
+      "https://example.com:443/a, https://example.com/a",
+      "http://example.com:8080/a, http://example.com:8080/a",
+      "https://example.com:80/a, https://example.com:80/a",
+      "http://example.com/a/./b/../c, http://example.com/a/c",
+      "http://example.com/a?q=1#x, http://example.com/a?q=1",
+      "http://user@example.com/a, http://user@example.com/a",
+      "file:///tmp/a.html, file:/tmp/a.html",
+      "file:/tmp/a.html, file:/tmp/a.html",
+      "mailto:someone@example.com, mailto:someone@example.com",
+      "not a url#x, not a url#x",
+  })
+  public void normalizesUrls(String url, String expected) {
+    assertWithMessage("Wrong canonical form for " + url)
+        .that(UrlNormalizer.normalize(url))
+        .isEqualTo(expected);
+  }
+}
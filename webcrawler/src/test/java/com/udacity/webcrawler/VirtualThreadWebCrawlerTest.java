@@ -0,0 +1,136 @@
+package com.udacity.webcrawler;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.util.Modules;
+import com.udacity.webcrawler.json.CrawlResult;
+import com.udacity.webcrawler.json.CrawlerConfiguration;
+import com.udacity.webcrawler.parser.FetchedPage;
+import com.udacity.webcrawler.parser.PageParser;
+import com.udacity.webcrawler.parser.PageParserFactory;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class VirtualThreadWebCrawlerTest {
+  private static final String DATA_DIR = System.getProperty("testDataDir");
+
+  @Inject
+  private VirtualThreadWebCrawler virtualThreadWebCrawler;
+
+  @Inject
+  private WebCrawler crawler;
+
+  @Test
+  public void testMaxParallelism() {
+    CrawlerConfiguration config = new CrawlerConfiguration.Builder().build();
+    Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+        .injectMembers(this);
+    assertThat(virtualThreadWebCrawler.getMaxParallelism())
+        .isGreaterThan(Runtime.getRuntime().availableProcessors());
+  }
+
+  @Test
+  public void testHighParallelism() {
+    CrawlerConfiguration config =
+        new CrawlerConfiguration.Builder()
+            .setParallelism(Runtime.getRuntime().availableProcessors() + 100)
+            .build();
+    Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+        .injectMembers(this);
+    assertThat(crawler.getClass()).isAssignableTo(VirtualThreadWebCrawler.class);
+  }
+
+  @Test
+  public void waitsForVisitsInFlightWhenFrontierCloses() {
+    String slowPage = Paths.get(DATA_DIR, "test-page.html").toUri().toString();
+    String cancelledPage = Paths.get(DATA_DIR, "test-page-copy.html").toUri().toString();
+    CrawlerConfiguration config =
+        new CrawlerConfiguration.Builder()
+            .setParallelism(4)
+            .setMaxDepth(1)
+            .setPopularWordCount(10)
+            .setTimeoutSeconds(10)
+            .addStartPages(slowPage, cancelledPage)
+            .build();
+    PageParserFactory parsers =
+        Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+            .getInstance(PageParserFactory.class);
+    Guice.createInjector(
+            Modules.override(new WebCrawlerModule(config)).with(new AbstractModule() {
+              @Override
+              protected void configure() {
+                bind(PageParserFactory.class)
+                    .toInstance(new SlowParserFactory(parsers, slowPage, cancelledPage));
+              }
+            }),
+            new NoOpProfilerModule())
+        .injectMembers(this);
+
+    CrawlResult result = virtualThreadWebCrawler.crawl(config.getStartPages());
+
+    // The cancelled page closes the frontier while the slow page is still being visited, and the
+    // slow page's words must still be in the result.
+    assertThat(result.getCancelledFetches()).isEqualTo(1);
+    assertThat(result.getUrlsVisited()).isEqualTo(2);
+    assertThat(result.getWordCounts()).isNotEmpty();
+  }
+
+  /**
+   * Hands out parsers that cancel one page once another has been parsed, and only return the
+   * other page's result some time after that.
+   */
+  private static final class SlowParserFactory implements PageParserFactory {
+    private final PageParserFactory delegate;
+    private final String slowPage;
+    private final String cancelledPage;
+    private final CountDownLatch parsed = new CountDownLatch(1);
+
+    SlowParserFactory(PageParserFactory delegate, String slowPage, String cancelledPage) {
+      this.delegate = delegate;
+      this.slowPage = slowPage;
+      this.cancelledPage = cancelledPage;
+    }
+
+    @Override
+    public PageParser get(String url) {
+      return get(url, Instant.MAX);
+    }
+
+    @Override
+    public PageParser get(String url, Instant deadline) {
+      if (url.equals(cancelledPage)) {
+        return () -> {
+          Uninterruptibles.awaitUninterruptibly(parsed);
+          return delegate.get(url, Instant.EPOCH).parse();
+        };
+      }
+      if (url.equals(slowPage)) {
+        return () -> {
+          PageParser.Result result = delegate.get(url, deadline).parse();
+          parsed.countDown();
+          Uninterruptibles.sleepUninterruptibly(Duration.ofMillis(500));
+          return result;
+        };
+      }
+      return delegate.get(url, deadline);
+    }
+
+    @Override
+    public PageParser get(FetchedPage page) {
+      return delegate.get(page);
+    }
+
+    @Override
+    public PageParser get(FetchedPage page, Instant deadline) {
+      return delegate.get(page, deadline);
+    }
+  }
+}
@@ -1,15 +1,22 @@
 package com.udacity.webcrawler;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.inject.Guice;
 import com.udacity.webcrawler.json.CrawlResult;
 import com.udacity.webcrawler.json.CrawlerConfiguration;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 
 import javax.inject.Inject;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Stream;
@@ -154,6 +161,216 @@ public final class WebCrawlerTest {
         .inOrder();
   }
 
+  @ParameterizedTest
+  @MethodSource("provideTestParameters")
+  public void crawlsSameWithPerHostLimits(Class<?> crawlerClass) {
+    CrawlerConfiguration config =
+        new CrawlerConfiguration.Builder()
+            .setImplementationOverride(crawlerClass.getName())
+            .setMaxDepth(10)
+            .setPopularWordCount(3)
+            .setPerHostConcurrency(1)
+            .setPerHostDelayMillis(10)
+            .addStartPages(Paths.get(DATA_DIR, "test-page.html").toUri().toString())
+            .build();
+    Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+        .injectMembers(this);
+    assertThat(crawler.getClass()).isAssignableTo(crawlerClass);
+
+    CrawlResult result = crawler.crawl(config.getStartPages());
+
+    assertThat(result.getUrlsVisited()).isEqualTo(3);
+    assertThat(result.getWordCounts().entrySet())
+        .containsExactly(
+            Map.entry("the", 4),
+            Map.entry("jumped", 2),
+            Map.entry("brown", 2))
+        .inOrder();
+  }
+
+  @ParameterizedTest
+  @MethodSource("provideTestParameters")
+  public void crawlsSameWithParseResultCache(Class<?> crawlerClass) {
+    List<CrawlResult> results = new ArrayList<>();
+    for (int cacheSize : new int[]{0, 100}) {
+      CrawlerConfiguration config =
+          new CrawlerConfiguration.Builder()
+              .setImplementationOverride(crawlerClass.getName())
+              .setMaxDepth(10)
+              .setPopularWordCount(3)
+              .setParseResultCacheSize(cacheSize)
+              .addStartPages(Paths.get(DATA_DIR, "test-page.html").toUri().toString())
+              // Has the same body as test-page.html.
+              .addStartPages(Paths.get(DATA_DIR, "test-page-copy.html").toUri().toString())
+              .build();
+      Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+          .injectMembers(this);
+      if (cacheSize == 0) {
+        assertThat(crawler.getClass()).isAssignableTo(crawlerClass);
+      } else {
+        // Wraps the crawler, to record the cache's hits and misses once the crawl ends.
+        assertThat(crawler).isInstanceOf(ParseCacheMetricsWebCrawler.class);
+      }
+      results.add(crawler.crawl(config.getStartPages()));
+    }
+
+    assertThat(results.get(1).getUrlsVisited()).isEqualTo(results.get(0).getUrlsVisited());
+    assertThat(results.get(1).getWordCounts()).isEqualTo(results.get(0).getWordCounts());
+    assertThat(results.get(1).getWordCounts()).containsEntry("the", 6);
+  }
+
+  @ParameterizedTest
+  @MethodSource("provideTestParameters")
+  public void recrawlWithHistoryMatchesFullCrawl(Class<?> crawlerClass, @TempDir Path tempDir)
+      throws Exception {
+    for (String name : List.of("test-page.html", "link-1.html")) {
+      Files.copy(Paths.get(DATA_DIR, name), tempDir.resolve(name));
+    }
+    String startPage = tempDir.resolve("test-page.html").toUri().toString();
+    CrawlerConfiguration.Builder builder =
+        new CrawlerConfiguration.Builder()
+            .setImplementationOverride(crawlerClass.getName())
+            .setMaxDepth(10)
+            .setPopularWordCount(3)
+            .addStartPages(startPage);
+    CrawlerConfiguration incremental =
+        builder.setCrawlHistoryPath(tempDir.resolve("history.bin").toString()).build();
+    CrawlerConfiguration full = builder.setCrawlHistoryPath("").build();
+
+    Guice.createInjector(new WebCrawlerModule(incremental), new NoOpProfilerModule())
+        .injectMembers(this);
+    crawler.crawl(incremental.getStartPages());
+    Path changedPage = tempDir.resolve("link-1.html");
+    Files.writeString(
+        changedPage, Files.readString(changedPage).replace("quick brown", "slow slow slow"));
+
+    // A new injector, so that the history is read back from its file.
+    Guice.createInjector(new WebCrawlerModule(incremental), new NoOpProfilerModule())
+        .injectMembers(this);
+    CrawlResult recrawled = crawler.crawl(incremental.getStartPages());
+    Guice.createInjector(new WebCrawlerModule(full), new NoOpProfilerModule())
+        .injectMembers(this);
+    CrawlResult expected = crawler.crawl(full.getStartPages());
+
+    assertThat(recrawled.getUrlsVisited()).isEqualTo(expected.getUrlsVisited());
+    assertThat(recrawled.getWordCounts()).isEqualTo(expected.getWordCounts());
+    assertThat(recrawled.getWordCounts()).containsEntry("slow", 3);
+  }
+
+  @ParameterizedTest
+  @MethodSource("provideTestParameters")
+  public void resumesFromCheckpoint(Class<?> crawlerClass, @TempDir Path tempDir) {
+    String startPage = Paths.get(DATA_DIR, "test-page.html").toUri().toString();
+    String linkedPage = Paths.get(DATA_DIR, "link-1.html").toUri().toString();
+    Path checkpointFile = tempDir.resolve("crawl.checkpoint");
+    // As if an earlier run had finished the start page, and then died.
+    CrawlCheckpointer earlierRun =
+        new CrawlCheckpointer(checkpointFile, Duration.ofHours(1), false, new NoOpProfiler());
+    earlierRun.start(List.of(startPage), 10);
+    earlierRun.recordPage(startPage, Map.of("resumed", 5), List.of(linkedPage), 9);
+    earlierRun.finish();
+
+    CrawlerConfiguration resume =
+        new CrawlerConfiguration.Builder()
+            .setImplementationOverride(crawlerClass.getName())
+            .setMaxDepth(10)
+            .setPopularWordCount(100)
+            .setCheckpointPath(checkpointFile.toString())
+            .setResumeFromCheckpoint(true)
+            .addStartPages(startPage)
+            .build();
+    Guice.createInjector(new WebCrawlerModule(resume), new NoOpProfilerModule())
+        .injectMembers(this);
+    CrawlResult resumed = crawler.crawl(resume.getStartPages());
+    CrawlerConfiguration rest =
+        new CrawlerConfiguration.Builder()
+            .setImplementationOverride(crawlerClass.getName())
+            .setMaxDepth(9)
+            .setPopularWordCount(100)
+            .addStartPages(linkedPage)
+            .build();
+    Guice.createInjector(new WebCrawlerModule(rest), new NoOpProfilerModule())
+        .injectMembers(this);
+    CrawlResult restOfCrawl = crawler.crawl(rest.getStartPages());
+
+    // The start page is not visited again, and the earlier run's counts carry over.
+    Map<String, Integer> expected = new HashMap<>(restOfCrawl.getWordCounts());
+    expected.put("resumed", 5);
+    assertThat(resumed.getWordCounts()).isEqualTo(expected);
+    assertThat(resumed.getUrlsVisited()).isEqualTo(restOfCrawl.getUrlsVisited() + 1);
+    assertWithMessage("The completed crawl should leave no checkpoint to resume from")
+        .that(Files.exists(checkpointFile))
+        .isFalse();
+  }
+
+  @ParameterizedTest
+  @MethodSource("provideTestParameters")
+  public void deletesCheckpointWhenUrlRepeatsWithFragment(
+      Class<?> crawlerClass, @TempDir Path tempDir) {
+    String page = Paths.get(DATA_DIR, "test-page.html").toUri().toString();
+    Path checkpointFile = tempDir.resolve("crawl.checkpoint");
+    CrawlerConfiguration config =
+        new CrawlerConfiguration.Builder()
+            .setImplementationOverride(crawlerClass.getName())
+            .setMaxDepth(1)
+            .setCheckpointPath(checkpointFile.toString())
+            .addStartPages(page, page + "#top")
+            .build();
+    Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+        .injectMembers(this);
+
+    CrawlResult result = crawler.crawl(config.getStartPages());
+
+    // The page is only visited once, but both of its URLs have to leave the checkpoint's frontier.
+    assertThat(result.getUrlsVisited()).isEqualTo(1);
+    assertWithMessage("The completed crawl should leave no checkpoint to resume from")
+        .that(Files.exists(checkpointFile))
+        .isFalse();
+  }
+
+  @ParameterizedTest
+  @MethodSource("provideTestParameters")
+  public void streamsPagesAndResult(Class<?> crawlerClass, @TempDir Path tempDir)
+      throws Exception {
+    Path resultFile = tempDir.resolve("results.ndjson");
+    CrawlerConfiguration config =
+        new CrawlerConfiguration.Builder()
+            .setImplementationOverride(crawlerClass.getName())
+            .setMaxDepth(10)
+            .setPopularWordCount(3)
+            .setResultPath(resultFile.toString())
+            .setStreamResults(true)
+            .addStartPages(Paths.get(DATA_DIR, "test-page.html").toUri().toString())
+            .build();
+    Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+        .injectMembers(this);
+
+    CrawlResult result = crawler.crawl(config.getStartPages());
+
+    ObjectMapper mapper = new ObjectMapper();
+    List<JsonNode> events = new ArrayList<>();
+    for (String line : Files.readAllLines(resultFile)) {
+      events.add(mapper.readTree(line));
+    }
+    Map<String, Integer> streamedCounts = new HashMap<>();
+    int pages = 0;
+    for (JsonNode event : events.subList(0, events.size() - 1)) {
+      if (event.get("event").asText().equals("page")) {
+        pages++;
+        event.get("wordCounts").fields().forEachRemaining(
+            word -> streamedCounts.merge(word.getKey(), word.getValue().asInt(), Integer::sum));
+      }
+    }
+    JsonNode last = events.get(events.size() - 1);
+
+    assertThat(pages).isEqualTo(result.getUrlsVisited());
+    assertThat(streamedCounts).containsAtLeastEntriesIn(result.getWordCounts());
+    assertThat(last.get("event").asText()).isEqualTo("result");
+    assertThat(last.get("urlsVisited").asInt()).isEqualTo(result.getUrlsVisited());
+    assertThat(mapper.convertValue(last.get("wordCounts"), Map.class))
+        .isEqualTo(result.getWordCounts());
+  }
+
   @ParameterizedTest
   @MethodSource("provideTestParameters")
   public void respectsIgnoredUrls(Class<?> crawlerClass) {
@@ -0,0 +1,123 @@
+package com.udacity.webcrawler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how fast crawler threads can merge per-page word counts into the shared totals, using
+ * {@link WordCountAccumulator} versus the {@link ConcurrentMap#compute} loop that the crawlers used
+ * before it.
+ *
+ * <p>Each operation merges one page of word counts. The words are drawn from a skewed distribution,
+ * so that, like real pages, every page contains the same handful of very common words.
+ *
+ * <p>Run {@link #main} to measure both approaches at 1, 2, 4, ... threads, up to the number of
+ * CPU cores. See the README for how to run it through Maven.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WordCountAccumulatorBenchmark {
+
+  private static final int VOCABULARY_SIZE = 10_000;
+  private static final int WORDS_PER_PAGE = 500;
+  private static final int PAGES_PER_THREAD = 64;
+
+  /**
+   * The shared totals, one of each kind, that all benchmark threads merge into.
+   */
+  @State(Scope.Benchmark)
+  public static class Totals {
+    ConcurrentMap<String, Integer> map;
+    WordCountAccumulator accumulator;
+
+    @Setup
+    public void setUp() {
+      map = new ConcurrentHashMap<>();
+      accumulator = new WordCountAccumulator();
+    }
+  }
+
+  /**
+   * The pages that a single benchmark thread merges, in round-robin order.
+   */
+  @State(Scope.Thread)
+  public static class Pages {
+    List<Map<String, Integer>> pages;
+    int next;
+
+    @Setup
+    public void setUp() {
+      Random random = new Random(Thread.currentThread().getId());
+      pages = new ArrayList<>(PAGES_PER_THREAD);
+      for (int i = 0; i < PAGES_PER_THREAD; i++) {
+        Map<String, Integer> page = new HashMap<>();
+        for (int j = 0; j < WORDS_PER_PAGE; j++) {
+          // Squaring a uniform value favors small indexes, i.e. the common words.
+          double u = random.nextDouble();
+          page.merge("word" + (int) (u * u * VOCABULARY_SIZE), 1, Integer::sum);
+        }
+        pages.add(page);
+      }
+    }
+
+    Map<String, Integer> nextPage() {
+      Map<String, Integer> page = pages.get(next);
+      next = (next + 1) % pages.size();
+      return page;
+    }
+  }
+
+  @Benchmark
+  public Object concurrentMapCompute(Totals totals, Pages pages) {
+    ConcurrentMap<String, Integer> counts = totals.map;
+    for (Map.Entry<String, Integer> e : pages.nextPage().entrySet()) {
+      counts.compute(e.getKey(), (k, v) -> (v == null) ? e.getValue() : e.getValue() + v);
+    }
+    return counts;
+  }
+
+  @Benchmark
+  public Object wordCountAccumulator(Totals totals, Pages pages) {
+    WordCountAccumulator counts = totals.accumulator;
+    counts.addAll(pages.nextPage());
+    return counts;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    int maxThreads = Runtime.getRuntime().availableProcessors();
+    for (int threads = 1; ; threads = Math.min(threads * 2, maxThreads)) {
+      Options options = new OptionsBuilder()
+          .include(WordCountAccumulatorBenchmark.class.getSimpleName())
+          .threads(threads)
+          .build();
+      new Runner(options).run();
+      if (threads == maxThreads) {
+        break;
+      }
+    }
+  }
+}
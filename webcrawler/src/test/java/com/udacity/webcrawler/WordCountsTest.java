@@ -1,9 +1,17 @@
 package com.udacity.webcrawler;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
 
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static com.google.common.truth.Truth.assertWithMessage;
 
@@ -82,4 +90,53 @@ public final class WordCountsTest {
             Map.entry("quick", 1),
             Map.entry("fox", 1))
         .inOrder();  }
+
+  @ParameterizedTest
+  @MethodSource("provideEquivalenceCases")
+  public void testMatchesFullSort(int wordCount, int popularWordCount, boolean parallel) {
+    Random random = new Random(wordCount * 31L + popularWordCount);
+    Map<String, Integer> unsortedCounts = new HashMap<>();
+    while (unsortedCounts.size() < wordCount) {
+      // Short words and small counts, so that there are lots of ties to break.
+      String word = Integer.toString(random.nextInt(wordCount * 4), 36);
+      unsortedCounts.put(word, 1 + random.nextInt(10));
+    }
+
+    Map<String, Integer> result = WordCounts.sort(unsortedCounts, popularWordCount, parallel);
+
+    assertWithMessage("Returned different popular words than a full sort")
+        .that(result.entrySet())
+        .containsExactlyElementsIn(fullSort(unsortedCounts, popularWordCount))
+        .inOrder();
+  }
+
+  private static Stream<Arguments> provideEquivalenceCases() {
+    return Stream.of(
+        Arguments.of(0, 5, false),
+        Arguments.of(1, 5, false),
+        Arguments.of(100, 0, false),
+        Arguments.of(100, 1, false),
+        Arguments.of(100, 100, false),
+        Arguments.of(100, 1000, false),
+        Arguments.of(10_000, 10, false),
+        Arguments.of(10_000, 10, true),
+        Arguments.of(10_000, 5000, true),
+        Arguments.of(WordCounts.PARALLEL_THRESHOLD, 100, true));
+  }
+
+  /**
+   * The original sorting algorithm, which sorts every word before taking the most popular ones.
+   */
+  private static List<Map.Entry<String, Integer>> fullSort(
+      Map<String, Integer> wordCounts, int popularWordCount) {
+    return wordCounts.entrySet()
+        .stream()
+        .sorted(Comparator.<Map.Entry<String, Integer>>comparingInt(Map.Entry::getValue)
+            .reversed()
+            .thenComparing(e -> e.getKey().length(), Comparator.reverseOrder())
+            .thenComparing(Map.Entry::getKey))
+        .limit(popularWordCount)
+        .map(e -> Map.entry(e.getKey(), e.getValue()))
+        .collect(Collectors.toList());
+  }
 }
@@ -8,6 +8,7 @@ import java.io.StringReader;
 import java.time.Duration;
 
 import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.fail;
 
 public final class ConfigurationLoaderTest {
@@ -78,4 +79,128 @@ public final class ConfigurationLoaderTest {
     assertThat(config.getProfileOutputPath()).isEmpty();
     assertThat(config.getResultPath()).isEmpty();
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testVisitedUrlOptions() {
+    String json = "{ " +
+        "\"expectedUrlCount\": 50000000, " +
+        "\"visitedUrlStore\": \"offheap\" " +
+        " }";
+
+    CrawlerConfiguration config = ConfigurationLoader.read(new StringReader(json));
+
+    assertThat(config.getExpectedUrlCount()).isEqualTo(50_000_000);
+    assertThat(config.getVisitedUrlStore())
+        .isEqualTo(CrawlerConfiguration.VisitedUrlStore.OFFHEAP);
+    assertThat(new CrawlerConfiguration.Builder().build().getVisitedUrlStore())
+        .isEqualTo(CrawlerConfiguration.VisitedUrlStore.MEMORY);
+  }
+
+  @Test
+  public void testFetcherOption() {
+    CrawlerConfiguration config =
+        ConfigurationLoader.read(new StringReader("{ \"fetcher\": \"httpclient\" }"));
+
+    assertThat(config.getFetcher()).isEqualTo(CrawlerConfiguration.Fetcher.HTTPCLIENT);
+    assertThat(new CrawlerConfiguration.Builder().build().getFetcher())
+        .isEqualTo(CrawlerConfiguration.Fetcher.JSOUP);
+  }
+
+  @Test
+  public void testPerHostOptions() {
+    String json = "{ " +
+        "\"perHostConcurrency\": 2, " +
+        "\"perHostDelayMillis\": 250 " +
+        " }";
+
+    CrawlerConfiguration config = ConfigurationLoader.read(new StringReader(json));
+
+    assertThat(config.getPerHostConcurrency()).isEqualTo(2);
+    assertThat(config.getPerHostDelay()).isEqualTo(Duration.ofMillis(250));
+  }
+
+  @Test
+  public void testPageCacheOptions() {
+    String json = "{ " +
+        "\"pageCacheDirectory\": \"/tmp/page-cache\", " +
+        "\"pageCacheMaxMegabytes\": 64, " +
+        "\"pageCacheMaxEntries\": 1000 " +
+        " }";
+
+    CrawlerConfiguration config = ConfigurationLoader.read(new StringReader(json));
+
+    assertThat(config.getPageCacheDirectory()).isEqualTo("/tmp/page-cache");
+    assertThat(config.getPageCacheMaxMegabytes()).isEqualTo(64);
+    assertThat(config.getPageCacheMaxEntries()).isEqualTo(1000);
+  }
+
+  @Test
+  public void testParseResultCacheOption() {
+    CrawlerConfiguration config =
+        ConfigurationLoader.read(new StringReader("{ \"parseResultCacheSize\": 5000 }"));
+
+    assertThat(config.getParseResultCacheSize()).isEqualTo(5000);
+    assertThat(new CrawlerConfiguration.Builder().build().getParseResultCacheSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void testCrawlHistoryOption() {
+    CrawlerConfiguration config =
+        ConfigurationLoader.read(new StringReader("{ \"crawlHistoryPath\": \"history.bin\" }"));
+
+    assertThat(config.getCrawlHistoryPath()).isEqualTo("history.bin");
+    assertThat(new CrawlerConfiguration.Builder().build().getCrawlHistoryPath()).isEmpty();
+  }
+
+  @Test
+  public void testCheckpointOptions() {
+    String json = "{ " +
+        "\"checkpointPath\": \"crawl.checkpoint\", " +
+        "\"checkpointIntervalSeconds\": 5, " +
+        "\"resumeFromCheckpoint\": true " +
+        " }";
+
+    CrawlerConfiguration config = ConfigurationLoader.read(new StringReader(json));
+
+    assertThat(config.getCheckpointPath()).isEqualTo("crawl.checkpoint");
+    assertThat(config.getCheckpointInterval()).isEqualTo(Duration.ofSeconds(5));
+    assertThat(config.isResumeFromCheckpoint()).isTrue();
+    assertThat(new CrawlerConfiguration.Builder().build().getCheckpointInterval())
+        .isEqualTo(Duration.ofSeconds(30));
+  }
+
+  @Test
+  public void testStreamResultsOptions() {
+    String json = "{ " +
+        "\"streamResults\": true, " +
+        "\"streamSnapshotIntervalSeconds\": 2 " +
+        " }";
+
+    CrawlerConfiguration config = ConfigurationLoader.read(new StringReader(json));
+
+    assertThat(config.isStreamResults()).isTrue();
+    assertThat(config.getStreamSnapshotInterval()).isEqualTo(Duration.ofSeconds(2));
+    assertThat(new CrawlerConfiguration.Builder().build().isStreamResults()).isFalse();
+    assertThat(new CrawlerConfiguration.Builder().build().getStreamSnapshotInterval())
+        .isEqualTo(Duration.ofSeconds(5));
+  }
+
+  @Test
+  public void testProfileSampleOptions() {
+    String json = "{ " +
+        "\"profileSampleEvery\": 10, " +
+        "\"profileSampleWindowMillis\": 250 " +
+        " }";
+
+    CrawlerConfiguration config = ConfigurationLoader.read(new StringReader(json));
+
+    assertThat(config.getProfileSampleEvery()).isEqualTo(10);
+    assertThat(config.getProfileSampleWindow()).isEqualTo(Duration.ofMillis(250));
+    assertThat(new CrawlerConfiguration.Builder().build().getProfileSampleEvery()).isEqualTo(1);
+    assertThat(new CrawlerConfiguration.Builder().build().getProfileSampleWindow())
+        .isEqualTo(Duration.ofSeconds(1));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new CrawlerConfiguration.Builder().setProfileSampleWindowMillis(1001).build());
+  }
+}
@@ -0,0 +1,92 @@
+package com.udacity.webcrawler.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of loading a configuration and writing a result with a new
+ * {@link ObjectMapper} for each call, as the json package used to, versus with the shared
+ * {@link JsonCodec}.
+ *
+ * <p>The configuration is like {@code sample_config.json}. The result has 100 popular words.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JsonCodecBenchmark {
+
+  private static final String CONFIGURATION = "{" +
+      "\"startPages\": [\"http://example.com\", \"http://example.com/2\"]," +
+      "\"ignoredUrls\": [\"http://example\\\\.com/.*\"]," +
+      "\"ignoredWords\": [\"^.{1,3}$\"]," +
+      "\"parallelism\": 4," +
+      "\"implementationOverride\": \"\"," +
+      "\"maxDepth\": 10," +
+      "\"timeoutSeconds\": 2," +
+      "\"popularWordCount\": 3," +
+      "\"profileOutputPath\": \"profileData.txt\"," +
+      "\"resultPath\": \"crawlResults.json\"" +
+      "}";
+
+  private final JsonCodec codec = JsonCodec.getDefault();
+  private CrawlResult result;
+
+  @Setup
+  public void setUp() {
+    Map<String, Integer> counts = new LinkedHashMap<>();
+    for (int i = 0; i < 100; i++) {
+      counts.put("word" + i, 1_000 - i);
+    }
+    result = new CrawlResult.Builder().setWordCounts(counts).setUrlsVisited(500).build();
+  }
+
+  @Benchmark
+  public CrawlerConfiguration loadConfigurationNewMapper() throws IOException {
+    ObjectMapper mapper = new ObjectMapper();
+    mapper.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+    return mapper.readValue(new StringReader(CONFIGURATION), CrawlerConfiguration.Builder.class)
+        .build();
+  }
+
+  @Benchmark
+  public CrawlerConfiguration loadConfigurationCodec() throws IOException {
+    return codec.readConfiguration(new StringReader(CONFIGURATION));
+  }
+
+  @Benchmark
+  public String writeResultNewMapper() throws IOException {
+    StringWriter writer = new StringWriter();
+    ObjectMapper mapper = new ObjectMapper();
+    mapper.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    mapper.writeValue(writer, result);
+    return writer.toString();
+  }
+
+  @Benchmark
+  public String writeResultCodec() throws IOException {
+    StringWriter writer = new StringWriter();
+    codec.writeResult(result, writer);
+    return writer.toString();
+  }
+}
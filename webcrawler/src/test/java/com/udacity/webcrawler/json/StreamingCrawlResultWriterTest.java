@@ -0,0 +1,58 @@
+package com.udacity.webcrawler.json;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.udacity.webcrawler.testing.CloseableStringWriter;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+public final class StreamingCrawlResultWriterTest {
+  @Test
+  public void writesOneEventPerLine() throws Exception {
+    // We are using a LinkedHashMap because the iteration order of the map matters.
+    Map<String, Integer> counts = new LinkedHashMap<>();
+    counts.put("foo", 12);
+    counts.put("bar", 1);
+    CrawlResult result =
+        new CrawlResult.Builder()
+            .setUrlsVisited(2)
+            .setWordCounts(counts)
+            .setCancelledFetches(1)
+            .build();
+
+    CloseableStringWriter stringWriter = new CloseableStringWriter();
+    StreamingCrawlResultWriter writer = new StreamingCrawlResultWriter(stringWriter);
+    writer.writePage("http://example.com/", Map.of("foo", 12));
+    writer.writeSnapshot(1, Map.of("foo", 12));
+    writer.writePage("http://example.com/bar", Map.of("bar", 1));
+    writer.writeResult(result);
+    writer.close();
+    assertWithMessage("Streams should usually be closed in the same scope where they were created")
+        .that(stringWriter.isClosed())
+        .isFalse();
+
+    String[] lines = stringWriter.toString().split("\n");
+    assertThat(lines).hasLength(4);
+    ObjectMapper mapper = new ObjectMapper();
+    JsonNode page = mapper.readTree(lines[0]);
+    assertThat(page.get("event").asText()).isEqualTo("page");
+    assertThat(page.get("url").asText()).isEqualTo("http://example.com/");
+    assertThat(page.get("wordCounts").get("foo").asInt()).isEqualTo(12);
+    JsonNode snapshot = mapper.readTree(lines[1]);
+    assertThat(snapshot.get("event").asText()).isEqualTo("snapshot");
+    assertThat(snapshot.get("urlsVisited").asInt()).isEqualTo(1);
+    JsonNode last = mapper.readTree(lines[3]);
+    assertThat(last.get("event").asText()).isEqualTo("result");
+    assertThat(last.get("urlsVisited").asInt()).isEqualTo(2);
+    assertThat(last.get("cancelledFetches").asInt()).isEqualTo(1);
+    assertThat(ImmutableList.copyOf(last.get("wordCounts").fieldNames()))
+        .containsExactly("foo", "bar")
+        .inOrder();
+  }
+}
@@ -0,0 +1,133 @@
+package com.udacity.webcrawler.parser;
+
+import com.udacity.webcrawler.profiler.Profiler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class CrawlHistoryTest {
+
+  private static final IgnoredWordMatcher NO_IGNORED_WORDS = IgnoredWordMatcher.compile(List.of());
+
+  @TempDir
+  Path tempDir;
+
+  private final Map<String, Long> metrics = new ConcurrentHashMap<>();
+  private final Profiler profiler = new Profiler() {
+    @Override
+    public <T> T wrap(Class<T> klass, T delegate) {
+      return delegate;
+    }
+
+    @Override
+    public void recordMetric(String name, long value) {
+      metrics.put(name, value);
+    }
+
+    @Override
+    public void writeData(Path path) {
+    }
+
+    @Override
+    public void writeData(Writer writer) {
+    }
+  };
+
+  /**
+   * Counts how often pages are actually parsed, as its misses.
+   */
+  private final ParseResultCache cache = new ParseResultCache(100, profiler);
+
+  @Test
+  public void onlyParsesChangedPagesAfterReopening() throws Exception {
+    Path file = tempDir.resolve("state").resolve("history.bin");
+    CrawlHistory history = CrawlHistory.open(file, profiler);
+    parse(page("http://example.com/a", "<p>apple <a href='b'>banana</a></p>"), history);
+    parse(page("http://example.com/b", "<p>banana</p>"), history);
+    parse(page("http://example.com/c", "<p>cherry</p>"), history);
+    history.save();
+    cache.recordMetrics();
+    assertThat(metrics).containsEntry(ParseResultCache.MISSES_METRIC, 3L);
+    assertThat(metrics).containsEntry(CrawlHistory.NEW_METRIC, 3L);
+
+    history = CrawlHistory.open(file, profiler);
+    assertThat(history.size()).isEqualTo(3);
+    PageParser.Result unchanged =
+        parse(page("http://example.com/a", "<p>apple <a href='b'>banana</a></p>"), history);
+    PageParser.Result changed = parse(page("http://example.com/b", "<p>blueberry</p>"), history);
+    parse(page("http://example.com/d", "<p>date</p>"), history);
+    history.save();
+    cache.recordMetrics();
+
+    // Only the changed and the new page were parsed in the second crawl.
+    assertThat(metrics).containsEntry(ParseResultCache.MISSES_METRIC, 2L);
+    assertThat(unchanged.getWordCounts()).containsExactly("apple", 1, "banana", 1);
+    assertThat(unchanged.getLinks()).containsExactly("http://example.com/b");
+    assertThat(changed.getWordCounts()).containsExactly("blueberry", 1);
+    assertThat(metrics).containsAtLeast(
+        CrawlHistory.UNCHANGED_METRIC, 1L,
+        CrawlHistory.CHANGED_METRIC, 1L,
+        CrawlHistory.NEW_METRIC, 1L,
+        CrawlHistory.REMOVED_METRIC, 1L);
+    // The page that was not visited again is dropped.
+    assertThat(CrawlHistory.open(file, profiler).size()).isEqualTo(3);
+  }
+
+  @Test
+  public void doesNotRememberCancelledPages() throws Exception {
+    CrawlHistory history = CrawlHistory.open(tempDir.resolve("history.bin"), profiler);
+
+    ParseResultCache.Content content =
+        history.get(page("http://example.com/", "<p>apple</p>"), page -> null);
+    history.save();
+
+    assertThat(content).isNull();
+    assertThat(history.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void startsOverFromUnreadableFile() throws Exception {
+    Path file = tempDir.resolve("history.bin");
+    Files.write(file, new byte[]{1, 2, 3});
+
+    CrawlHistory history = CrawlHistory.open(file, profiler);
+    parse(page("http://example.com/", "<p>apple</p>"), history);
+    history.save();
+    cache.recordMetrics();
+
+    assertThat(metrics).containsEntry(ParseResultCache.MISSES_METRIC, 1L);
+    assertThat(CrawlHistory.open(file, profiler).size()).isEqualTo(1);
+  }
+
+  @Test
+  public void startsOverFromCorruptLength() throws Exception {
+    Path file = tempDir.resolve("history.bin");
+    CrawlHistory history = CrawlHistory.open(file, profiler);
+    parse(page("http://example.com/", "<p>apple</p>"), history);
+    history.save();
+    // Overwrite the length of the first page's URL, which follows the header and the page count.
+    byte[] bytes = Files.readAllBytes(file);
+    ByteBuffer.wrap(bytes).putInt(12, Integer.MAX_VALUE);
+    Files.write(file, bytes);
+
+    assertThat(CrawlHistory.open(file, profiler).size()).isEqualTo(0);
+  }
+
+  private PageParser.Result parse(FetchedPage page, CrawlHistory history) {
+    return new PageParserImpl(page, null, null, NO_IGNORED_WORDS, cache, history).parse();
+  }
+
+  private static FetchedPage page(String url, String html) {
+    return new FetchedPage(url, url, html.getBytes(StandardCharsets.UTF_8), "UTF-8");
+  }
+}
@@ -0,0 +1,226 @@
+package com.udacity.webcrawler.parser;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.jsoup.HttpStatusException;
+import org.jsoup.UnsupportedMimeTypeException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class HttpClientPageFetcherTest {
+
+  private static final Path DATA_DIR = Path.of(System.getProperty("testDataDir"));
+
+  private final ExecutorService handlers = Executors.newCachedThreadPool();
+  private HttpServer server;
+  private String baseUrl;
+  private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+  private final AtomicInteger fullResponses = new AtomicInteger();
+  private final CountDownLatch endlessStarted = new CountDownLatch(1);
+  private final CountDownLatch endlessAborted = new CountDownLatch(1);
+  private final HttpClientPageFetcher fetcher = new HttpClientPageFetcher(Duration.ofSeconds(5));
+
+  @BeforeEach
+  public void startServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/", this::serveTestData);
+    server.createContext("/image.png", exchange -> {
+      exchange.getResponseHeaders().set("Content-Type", "image/png");
+      respond(exchange, 200, new byte[]{1, 2, 3});
+    });
+    server.createContext("/endless", exchange -> {
+      exchange.getResponseHeaders().set("Content-Type", "text/html");
+      exchange.sendResponseHeaders(200, 0);
+      byte[] chunk = new byte[8192];
+      try (OutputStream out = exchange.getResponseBody()) {
+        while (true) {
+          out.write(chunk);
+          out.flush();
+          endlessStarted.countDown();
+          Thread.sleep(10);
+        }
+      } catch (IOException e) {
+        endlessAborted.countDown();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    server.createContext("/redirect", exchange -> {
+      exchange.getResponseHeaders().set("Location", "/test-page.html");
+      respond(exchange, 302, new byte[0]);
+    });
+    server.setExecutor(handlers);
+    server.start();
+    baseUrl = "http://localhost:" + server.getAddress().getPort();
+  }
+
+  @AfterEach
+  public void stopServer() {
+    server.stop(0);
+    handlers.shutdownNow();
+  }
+
+  @Test
+  public void fetchesPage() throws IOException {
+    FetchedPage page = fetcher.fetch(baseUrl + "/test-page.html");
+
+    assertThat(page.getUrl()).isEqualTo(baseUrl + "/test-page.html");
+    assertThat(page.getBaseUri()).isEqualTo(baseUrl + "/test-page.html");
+    assertThat(page.getBody()).isEqualTo(Files.readAllBytes(DATA_DIR.resolve("test-page.html")));
+    assertThat(page.getCharset()).isEqualTo("UTF-8");
+  }
+
+  @Test
+  public void decodesCompressedPage() throws IOException {
+    FetchedPage page = fetcher.fetch(baseUrl + "/test-page.html?gzip");
+
+    assertThat(page.getBody()).isEqualTo(Files.readAllBytes(DATA_DIR.resolve("test-page.html")));
+  }
+
+  @Test
+  public void reusesConnection() throws IOException {
+    for (String name : List.of("test-page.html", "link-1.html", "test-page.html")) {
+      fetcher.fetch(baseUrl + "/" + name);
+    }
+
+    assertThat(clientPorts).hasSize(1);
+  }
+
+  @Test
+  public void followsRedirects() throws IOException {
+    FetchedPage page = fetcher.fetch(baseUrl + "/redirect");
+
+    assertThat(page.getUrl()).isEqualTo(baseUrl + "/redirect");
+    assertThat(page.getBaseUri()).isEqualTo(baseUrl + "/test-page.html");
+  }
+
+  @Test
+  public void rejectsMissingPage() {
+    HttpStatusException e =
+        assertThrows(HttpStatusException.class, () -> fetcher.fetch(baseUrl + "/missing.html"));
+    assertThat(e.getStatusCode()).isEqualTo(404);
+  }
+
+  @Test
+  public void rejectsNonHtmlPage() {
+    assertThrows(
+        UnsupportedMimeTypeException.class, () -> fetcher.fetch(baseUrl + "/image.png"));
+  }
+
+  @Test
+  public void fetchesAsynchronously() throws Exception {
+    FetchedPage page = fetcher.fetchAsync(baseUrl + "/link-1.html", Duration.ZERO).get();
+    assertThat(page.getBody()).isEqualTo(Files.readAllBytes(DATA_DIR.resolve("link-1.html")));
+
+    ExecutionException e = assertThrows(
+        ExecutionException.class,
+        () -> fetcher.fetchAsync(baseUrl + "/missing.html", Duration.ZERO).get());
+    assertThat(e).hasCauseThat().isInstanceOf(HttpStatusException.class);
+  }
+
+  @Test
+  public void cancellingAbortsDownload() throws Exception {
+    CompletableFuture<FetchedPage> page = fetcher.fetchAsync(baseUrl + "/endless", Duration.ZERO);
+    assertThat(endlessStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+    page.cancel(true);
+
+    assertThat(endlessAborted.await(5, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test
+  public void revalidatesCachedPage(@TempDir Path cacheDir) throws IOException {
+    HttpClientPageFetcher cachingFetcher =
+        new HttpClientPageFetcher(Duration.ofSeconds(5), PageCache.open(cacheDir, 0, 0));
+    byte[] expected = Files.readAllBytes(DATA_DIR.resolve("test-page.html"));
+
+    for (int i = 0; i < 3; i++) {
+      FetchedPage page = cachingFetcher.fetch(baseUrl + "/test-page.html?etag");
+      assertThat(page.getBody()).isEqualTo(expected);
+      assertThat(page.getCharset()).isEqualTo("UTF-8");
+    }
+    // Pages without validators are downloaded in full every time.
+    cachingFetcher.fetch(baseUrl + "/link-1.html");
+    cachingFetcher.fetch(baseUrl + "/link-1.html");
+
+    assertThat(fullResponses.get()).isEqualTo(3);
+  }
+
+  @Test
+  public void parsesFetchedPage() {
+    PageParser.Result result = new PageParserImpl(
+        baseUrl + "/test-page.html",
+        fetcher,
+        Duration.ZERO,
+        null,
+        null,
+        IgnoredWordMatcher.compile(List.of()))
+        .parse();
+
+    assertThat(result.getLinks()).containsExactly(baseUrl + "/link-1.html");
+    assertThat(result.getWordCounts()).containsEntry("the", 2);
+  }
+
+  private void serveTestData(HttpExchange exchange) throws IOException {
+    clientPorts.add(exchange.getRemoteAddress().getPort());
+    Path file = DATA_DIR.resolve(exchange.getRequestURI().getPath().substring(1));
+    if (!Files.isRegularFile(file)) {
+      respond(exchange, 404, new byte[0]);
+      return;
+    }
+    byte[] body = Files.readAllBytes(file);
+    exchange.getResponseHeaders().set("Content-Type", "text/html; charset=UTF-8");
+    if ("gzip".equals(exchange.getRequestURI().getQuery())
+        && exchange.getRequestHeaders().getFirst("Accept-Encoding").contains("gzip")) {
+      ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+      try (OutputStream out = new GZIPOutputStream(compressed)) {
+        out.write(body);
+      }
+      body = compressed.toByteArray();
+      exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+    }
+    String etag = "\"" + Integer.toHexString(Arrays.hashCode(body)) + "\"";
+    if ("etag".equals(exchange.getRequestURI().getQuery())) {
+      exchange.getResponseHeaders().set("ETag", etag);
+      if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+        respond(exchange, 304, new byte[0]);
+        return;
+      }
+    }
+    fullResponses.incrementAndGet();
+    respond(exchange, 200, body);
+  }
+
+  private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+    exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+}
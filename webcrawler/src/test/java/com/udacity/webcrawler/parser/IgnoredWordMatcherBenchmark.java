@@ -0,0 +1,79 @@
+package com.udacity.webcrawler.parser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Measures how the cost of checking words against the ignored word patterns grows with the number
+ * of patterns, using {@link IgnoredWordMatcher} versus matching each pattern in turn.
+ *
+ * <p>The patterns are a stop-word list of exact words, like {@code "^the$"}, plus two general
+ * patterns. Each operation checks the same 1,000 words, about a tenth of which are stop words.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class IgnoredWordMatcherBenchmark {
+
+  /**
+   * The number of exact words in the stop-word list.
+   */
+  @Param({"10", "100", "1000", "5000"})
+  public int stopWords;
+
+  private List<Pattern> ignoredWords;
+  private IgnoredWordMatcher.Session session;
+  private List<String> words;
+
+  @Setup
+  public void setUp() {
+    ignoredWords = new ArrayList<>();
+    for (int i = 0; i < stopWords; i++) {
+      ignoredWords.add(Pattern.compile("^stop" + i + "$"));
+    }
+    ignoredWords.add(Pattern.compile("^.{1,3}$"));
+    ignoredWords.add(Pattern.compile("^\\d+$"));
+    session = IgnoredWordMatcher.compile(ignoredWords).newSession();
+
+    Random random = new Random(42);
+    words = new ArrayList<>();
+    for (int i = 0; i < 1_000; i++) {
+      words.add(random.nextInt(10) == 0
+          ? "stop" + random.nextInt(stopWords)
+          : "word" + random.nextInt(1_000_000));
+    }
+  }
+
+  @Benchmark
+  public void eachPattern(Blackhole blackhole) {
+    for (String word : words) {
+      blackhole.consume(ignoredWords.stream().anyMatch(p -> p.matcher(word).matches()));
+    }
+  }
+
+  @Benchmark
+  public void ignoredWordMatcher(Blackhole blackhole) {
+    for (String word : words) {
+      blackhole.consume(session.matches(word));
+    }
+  }
+}
@@ -0,0 +1,77 @@
+package com.udacity.webcrawler.parser;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+public final class IgnoredWordMatcherTest {
+
+  private static final List<String> WORDS = List.of(
+      "", "a", "an", "and", "And", "the", "then", "them", "e.g.", "eXg.", "a+b", "ab", "abab",
+      "abba", "42", "4.2", "x1", "hello", "HELLO", "THEN", "na\u00efve", "$5", "the\n", "don't",
+      "foo$", "foo");
+
+  @ParameterizedTest
+  @ValueSource(strings = {
+      "",
+      "the and",
+      "^the$ ^and$ ^a$",
+      "e\\.g\\. a\\+b don't foo\\$",
+      "^.{1,3}$ ^\\d+$",
+      "the ^an?$ [A-Z]+ \\w\\d",
+      "(ab)\\1 ^(a)(b)\\2\\1$ the",
+      "(?<x>a)b (?<x>b)a and",
+      "(?i)hello th(e|en) ^$",
+      "na\u00efve \\$5 foo$ foo\\\\",
+  })
+  public void matchesLikeEachPatternInTurn(String regexes) {
+    List<Pattern> patterns = Arrays.stream(regexes.split(" "))
+        .filter(s -> !s.isEmpty())
+        .map(Pattern::compile)
+        .collect(Collectors.toList());
+    IgnoredWordMatcher.Session session = IgnoredWordMatcher.compile(patterns).newSession();
+
+    for (String word : WORDS) {
+      assertWithMessage("Wrong match for \"" + word + "\" with ignored words " + patterns)
+          .that(session.matches(word))
+          .isEqualTo(patterns.stream().anyMatch(p -> p.matcher(word).matches()));
+    }
+  }
+
+  @Test
+  public void keepsCompileFlags() {
+    IgnoredWordMatcher.Session session = IgnoredWordMatcher.compile(List.of(
+        Pattern.compile("hello", Pattern.CASE_INSENSITIVE),
+        Pattern.compile("a.b", Pattern.DOTALL),
+        Pattern.compile("the"))).newSession();
+
+    assertThat(session.matches("HeLLo")).isTrue();
+    assertThat(session.matches("a\nb")).isTrue();
+    assertThat(session.matches("the")).isTrue();
+    assertThat(session.matches("The")).isFalse();
+  }
+
+  @Test
+  public void manyLiteralWords() {
+    List<Pattern> patterns = IntStream.range(0, 5_000)
+        .mapToObj(i -> Pattern.compile("^word" + i + "$"))
+        .collect(Collectors.toList());
+    IgnoredWordMatcher.Session session = IgnoredWordMatcher.compile(patterns).newSession();
+
+    for (int i = 0; i < 5_000; i++) {
+      assertThat(session.matches("word" + i)).isTrue();
+    }
+    assertThat(session.matches("word5000")).isFalse();
+    assertThat(session.matches("word")).isFalse();
+    assertThat(session.matches(new StringBuilder("word42"))).isTrue();
+  }
+}
@@ -0,0 +1,120 @@
+package com.udacity.webcrawler.parser;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class PageCacheTest {
+
+  @TempDir
+  public Path directory;
+
+  @Test
+  public void readsCachedPage() throws IOException {
+    PageCache cache = PageCache.open(directory, 0, 0);
+    cache.put(page("http://example.com/a", "hello"), "\"v1\"", "Tue, 01 Jan 2030 00:00:00 GMT");
+
+    PageCache.Entry entry = cache.get("http://example.com/a");
+    assertThat(entry.getEtag()).isEqualTo("\"v1\"");
+    assertThat(entry.getLastModified()).isEqualTo("Tue, 01 Jan 2030 00:00:00 GMT");
+    FetchedPage page = cache.read(entry, "http://example.com/a");
+    assertThat(page.getUrl()).isEqualTo("http://example.com/a");
+    assertThat(page.getBaseUri()).isEqualTo("http://example.com/a/");
+    assertThat(new String(page.getBody(), StandardCharsets.UTF_8)).isEqualTo("hello");
+    assertThat(page.getCharset()).isEqualTo("UTF-8");
+    assertThat(cache.get("http://example.com/b")).isNull();
+  }
+
+  @Test
+  public void skipsPagesWithoutValidators() throws IOException {
+    PageCache cache = PageCache.open(directory, 0, 0);
+    cache.put(page("http://example.com/a", "hello"), null, null);
+
+    assertThat(cache.get("http://example.com/a")).isNull();
+    assertThat(cache.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void keepsPagesBetweenCrawls() throws IOException {
+    PageCache.open(directory, 0, 0).put(page("http://example.com/a", "hello"), "\"v1\"", null);
+    // Not a page file, so it should be deleted.
+    Files.writeString(directory.resolve("broken.page"), "broken");
+
+    PageCache cache = PageCache.open(directory, 0, 0);
+    PageCache.Entry entry = cache.get("http://example.com/a");
+
+    assertThat(entry.getEtag()).isEqualTo("\"v1\"");
+    assertThat(cache.read(entry, "http://example.com/a").getBody())
+        .isEqualTo("hello".getBytes(StandardCharsets.UTF_8));
+    assertThat(cache.size()).isEqualTo(1);
+    assertThat(Files.exists(directory.resolve("broken.page"))).isFalse();
+  }
+
+  @Test
+  public void opensWithoutReadingBodies() throws IOException {
+    PageCache.open(directory, 0, 0).put(page("http://example.com/a", "hello"), "\"v1\"", null);
+    Path file;
+    try (Stream<Path> files = Files.list(directory)) {
+      file = files.findFirst().orElseThrow();
+    }
+    // Cuts off the end of the body, which only matters once the body is read.
+    byte[] data = Files.readAllBytes(file);
+    Files.write(file, Arrays.copyOf(data, data.length - 2));
+
+    PageCache cache = PageCache.open(directory, 0, 0);
+    PageCache.Entry entry = cache.get("http://example.com/a");
+
+    assertThat(entry.getEtag()).isEqualTo("\"v1\"");
+    assertThrows(IOException.class, () -> cache.read(entry, "http://example.com/a"));
+  }
+
+  @Test
+  public void evictsLeastRecentlyUsedPages() throws IOException {
+    PageCache cache = PageCache.open(directory, 0, 2);
+    cache.put(page("http://example.com/a", "a"), "\"a\"", null);
+    cache.put(page("http://example.com/b", "b"), "\"b\"", null);
+    PageCache.Entry a = cache.get("http://example.com/a");
+    PageCache.Entry b = cache.get("http://example.com/b");
+    cache.get("http://example.com/a");
+    cache.put(page("http://example.com/c", "c"), "\"c\"", null);
+
+    assertThat(cache.size()).isEqualTo(2);
+    assertThat(cache.get("http://example.com/b")).isNull();
+    assertThat(cache.get("http://example.com/a")).isNotNull();
+    assertThat(cache.get("http://example.com/c")).isNotNull();
+    assertThrows(IOException.class, () -> cache.read(b, "http://example.com/b"));
+    assertThat(cache.read(a, "http://example.com/a").getBody()).hasLength(1);
+  }
+
+  @Test
+  public void limitsTotalSize() throws IOException {
+    PageCache cache = PageCache.open(directory, 0, 0);
+    cache.put(page("http://example.com/a", "a".repeat(1_000)), "\"a\"", null);
+    long pageBytes = cache.sizeInBytes();
+
+    PageCache limited = PageCache.open(directory, pageBytes * 2, 0);
+    limited.put(page("http://example.com/b", "b".repeat(1_000)), "\"b\"", null);
+    limited.put(page("http://example.com/c", "c".repeat(1_000)), "\"c\"", null);
+    limited.put(page("http://example.com/d", "d".repeat(1_000_000)), "\"d\"", null);
+
+    assertThat(limited.sizeInBytes()).isAtMost(pageBytes * 2);
+    assertThat(limited.get("http://example.com/a")).isNull();
+    assertThat(limited.get("http://example.com/b")).isNotNull();
+    assertThat(limited.get("http://example.com/c")).isNotNull();
+    // Larger than the whole cache, so never cached.
+    assertThat(limited.get("http://example.com/d")).isNull();
+  }
+
+  private static FetchedPage page(String url, String body) {
+    return new FetchedPage(url, url + "/", body.getBytes(StandardCharsets.UTF_8), "UTF-8");
+  }
+}
@@ -1,9 +1,13 @@
 package com.udacity.webcrawler.parser;
 
+import com.udacity.webcrawler.profiler.FakeClock;
+import org.jsoup.Jsoup;
 import org.junit.jupiter.api.Test;
 
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
 import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 import java.util.regex.Pattern;
 
@@ -12,6 +16,7 @@ import static com.google.common.truth.Truth.assertThat;
 public final class PageParserImplTest {
 
   private static final String DATA_DIR = System.getProperty("testDataDir");
+  private static final IgnoredWordMatcher NO_IGNORED_WORDS = IgnoredWordMatcher.compile(List.of());
   private final String testPage = Paths.get(DATA_DIR, "test-page.html").toUri().toString();
 
   @Test
@@ -45,4 +50,68 @@ public final class PageParserImplTest {
     assertThat(result.getWordCounts()).containsEntry("over", 1);
     assertThat(result.getWordCounts()).containsEntry("lazy", 1);
   }
-}
\ No newline at end of file
+
+  @Test
+  public void parsingPrefetchedPage() throws Exception {
+    FetchedPage page = new PageFetcherImpl(Duration.ZERO).fetch(testPage);
+    PageParser.Result result = new PageParserImpl(page, List.of()).parse();
+
+    assertThat(result.getLinks())
+        .containsExactly(Paths.get(DATA_DIR, "link-1.html").toUri().toString());
+    assertThat(result.getWordCounts())
+        .isEqualTo(new PageParserImpl(testPage, Duration.ZERO, List.of()).parse().getWordCounts());
+  }
+
+  @Test
+  public void parsingBeforeDeadline() {
+    FakeClock clock = new FakeClock();
+    PageParser.Result result =
+        new PageParserImpl(
+            testPage, Duration.ZERO, clock, clock.instant().plusSeconds(1), NO_IGNORED_WORDS)
+            .parse();
+
+    assertThat(result.isCancelled()).isFalse();
+    assertThat(result.getWordCounts())
+        .isEqualTo(new PageParserImpl(testPage, Duration.ZERO, List.of()).parse().getWordCounts());
+  }
+
+  @Test
+  public void parsingAfterDeadline() throws Exception {
+    FakeClock clock = new FakeClock();
+    Instant deadline = clock.instant().minusMillis(1);
+
+    PageParser.Result result =
+        new PageParserImpl(testPage, Duration.ZERO, clock, deadline, NO_IGNORED_WORDS).parse();
+    assertThat(result.isCancelled()).isTrue();
+    assertThat(result.getWordCounts()).isEmpty();
+    assertThat(result.getLinks()).isEmpty();
+
+    FetchedPage page = new PageFetcherImpl(Duration.ZERO).fetch(testPage);
+    PageParser.Result prefetchedResult =
+        new PageParserImpl(page, clock, deadline, NO_IGNORED_WORDS).parse();
+    assertThat(prefetchedResult.isCancelled()).isTrue();
+    assertThat(prefetchedResult.getWordCounts()).isEmpty();
+  }
+
+  @Test
+  public void resolvesLinksLikeJsoup() {
+    String baseUri = "http://example.com/dir/page.html?q=1";
+    List<String> pages = List.of(
+        "<a href='a.html'>a</a> <a href='/b.html'>b</a> <a href='//other.org/c'>c</a>",
+        "<a href='../up.html'>up</a> <a href='?x=2'>query</a> <a href='#top'>top</a>",
+        "<head><base href='http://mirror.net/sub/'></head><a href='a.html'>a</a>",
+        "<a href='early.html'>early</a><base href='/base/'><a href='late.html'>late</a>",
+        "<base><base href=''><base href='other/'><a href='a.html'>a</a>",
+        "<a href='mailto:someone@example.com'>mail</a> <a href=' spaced.html '>x</a>");
+    for (String html : pages) {
+      FetchedPage page =
+          new FetchedPage(baseUri, baseUri, html.getBytes(StandardCharsets.UTF_8), "UTF-8");
+
+      PageParser.Result result = new PageParserImpl(page, List.of()).parse();
+
+      assertThat(result.getLinks())
+          .containsExactlyElementsIn(
+              Jsoup.parse(html, baseUri).select("a[href]").eachAttr("abs:href"));
+    }
+  }
+}
@@ -0,0 +1,135 @@
+package com.udacity.webcrawler.parser;
+
+import com.udacity.webcrawler.profiler.FakeClock;
+import com.udacity.webcrawler.profiler.Profiler;
+import org.junit.jupiter.api.Test;
+
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class ParseResultCacheTest {
+
+  private static final IgnoredWordMatcher NO_IGNORED_WORDS = IgnoredWordMatcher.compile(List.of());
+  private static final String HTML = "<p>the quick fox <a href='next.html'>the next</a></p>";
+
+  private final Map<String, Long> metrics = new ConcurrentHashMap<>();
+  private final Profiler profiler = new Profiler() {
+    @Override
+    public <T> T wrap(Class<T> klass, T delegate) {
+      return delegate;
+    }
+
+    @Override
+    public void recordMetric(String name, long value) {
+      metrics.put(name, value);
+    }
+
+    @Override
+    public void writeData(Path path) {
+    }
+
+    @Override
+    public void writeData(Writer writer) {
+    }
+  };
+
+  @Test
+  public void reusesResultForIdenticalBody() {
+    ParseResultCache cache = new ParseResultCache(10, profiler);
+
+    PageParser.Result first = parse(page("http://a.example.com/page", HTML, "UTF-8"), cache);
+    PageParser.Result second = parse(page("http://b.example.org/x/y", HTML, "UTF-8"), cache);
+
+    assertThat(first.getWordCounts()).containsExactly("the", 2, "quick", 1, "fox", 1, "next", 1);
+    assertThat(second.getWordCounts()).isEqualTo(first.getWordCounts());
+    // Links are still resolved against each page's own URL.
+    assertThat(first.getLinks()).containsExactly("http://a.example.com/next.html");
+    assertThat(second.getLinks()).containsExactly("http://b.example.org/x/next.html");
+    assertThat(metrics).isEmpty();
+    cache.recordMetrics();
+    assertThat(metrics).containsExactly(
+        ParseResultCache.HITS_METRIC, 1L, ParseResultCache.MISSES_METRIC, 1L);
+    assertThat(cache.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void recordsMetricsPerCrawl() {
+    ParseResultCache cache = new ParseResultCache(10, profiler);
+    parse(page("http://example.com/1", HTML, "UTF-8"), cache);
+    parse(page("http://example.com/2", HTML, "UTF-8"), cache);
+    cache.recordMetrics();
+
+    parse(page("http://example.com/3", HTML, "UTF-8"), cache);
+    cache.recordMetrics();
+
+    // The second crawl only counts its own lookup.
+    assertThat(metrics).containsExactly(
+        ParseResultCache.HITS_METRIC, 1L, ParseResultCache.MISSES_METRIC, 0L);
+  }
+
+  @Test
+  public void separatesDifferentBodiesAndCharsets() {
+    ParseResultCache cache = new ParseResultCache(10, profiler);
+
+    parse(page("http://example.com/1", HTML, "UTF-8"), cache);
+    parse(page("http://example.com/2", HTML + " ", "UTF-8"), cache);
+    parse(page("http://example.com/3", HTML, "ISO-8859-1"), cache);
+    cache.recordMetrics();
+
+    assertThat(metrics).containsEntry(ParseResultCache.HITS_METRIC, 0L);
+    assertThat(cache.size()).isEqualTo(3);
+  }
+
+  @Test
+  public void evictsLeastRecentlyUsedBodies() {
+    ParseResultCache cache = new ParseResultCache(2, profiler);
+    FetchedPage a = page("http://example.com/a", "<p>a</p>", null);
+    FetchedPage b = page("http://example.com/b", "<p>b</p>", null);
+    FetchedPage c = page("http://example.com/c", "<p>c</p>", null);
+
+    parse(a, cache);
+    parse(b, cache);
+    parse(a, cache);
+    parse(c, cache);
+    parse(b, cache);
+    cache.recordMetrics();
+
+    assertThat(cache.size()).isEqualTo(2);
+    assertThat(metrics).containsExactly(
+        ParseResultCache.HITS_METRIC, 1L, ParseResultCache.MISSES_METRIC, 4L);
+  }
+
+  @Test
+  public void doesNotCacheCancelledResult() {
+    ParseResultCache cache = new ParseResultCache(10, profiler);
+    FakeClock clock = new FakeClock();
+    FetchedPage page = page("http://example.com/", HTML.repeat(100), "UTF-8");
+
+    PageParser.Result cancelled = new PageParserImpl(
+        page,
+        clock,
+        clock.instant().minusMillis(1),
+        NO_IGNORED_WORDS,
+        cache,
+        CrawlHistory.disabled()).parse();
+
+    assertThat(cancelled.isCancelled()).isTrue();
+    assertThat(cache.size()).isEqualTo(0);
+    assertThat(parse(page, cache).getWordCounts()).containsEntry("the", 200);
+  }
+
+  private static PageParser.Result parse(FetchedPage page, ParseResultCache cache) {
+    return new PageParserImpl(
+        page, null, null, NO_IGNORED_WORDS, cache, CrawlHistory.disabled()).parse();
+  }
+
+  private static FetchedPage page(String url, String html, String charset) {
+    return new FetchedPage(url, url, html.getBytes(StandardCharsets.UTF_8), charset);
+  }
+}
@@ -0,0 +1,98 @@
+package com.udacity.webcrawler.parser;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.TextNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Measures how fast the text of the pages in the test data directory can be split into words,
+ * using {@link WordTokenizer} versus the regular expressions that {@link PageParserImpl} used
+ * before it.
+ *
+ * <p>Each operation tokenizes the text of every page once. The pages are parsed up front, so only
+ * the tokenization itself is measured.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WordTokenizerBenchmark {
+
+  private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+  private static final Pattern NON_WORD_CHARACTERS = Pattern.compile("\\W");
+
+  /**
+   * The ignored word patterns to use, separated by spaces.
+   */
+  @Param({"", "^.{1,3}$ ^\\d+$"})
+  public String ignoredWordPatterns;
+
+  private List<Pattern> ignoredWords;
+  private List<String> texts;
+
+  @Setup
+  public void setUp() throws IOException {
+    ignoredWords = Arrays.stream(ignoredWordPatterns.split(" "))
+        .filter(p -> !p.isEmpty())
+        .map(Pattern::compile)
+        .collect(Collectors.toList());
+    texts = new ArrayList<>();
+    try (Stream<Path> pages = Files.list(Path.of(System.getProperty("testDataDir")))) {
+      for (Path page : (Iterable<Path>) pages.sorted()::iterator) {
+        Document document = Jsoup.parse(page.toFile(), StandardCharsets.UTF_8.name());
+        for (Element element : document.getAllElements()) {
+          for (TextNode node : element.textNodes()) {
+            texts.add(node.text());
+          }
+        }
+      }
+    }
+  }
+
+  @Benchmark
+  public void regularExpressions(Blackhole blackhole) {
+    for (String text : texts) {
+      Arrays.stream(WHITESPACE.split(text.strip()))
+          .filter(s -> !s.isBlank())
+          .filter(s -> ignoredWords.stream().noneMatch(p -> p.matcher(s).matches()))
+          .map(s -> NON_WORD_CHARACTERS.matcher(s).replaceAll(""))
+          .map(String::toLowerCase)
+          .forEach(blackhole::consume);
+    }
+  }
+
+  @Benchmark
+  public void wordTokenizer(Blackhole blackhole) {
+    WordTokenizer tokenizer = new WordTokenizer(ignoredWords);
+    for (String text : texts) {
+      tokenizer.tokenize(text, blackhole::consume);
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package com.udacity.webcrawler.parser;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static com.google.common.truth.Truth.assertWithMessage;
+
+public final class WordTokenizerTest {
+
+  private static final List<Pattern> IGNORED_WORDS =
+      List.of(Pattern.compile("^.{1,3}$"), Pattern.compile("^\\d+$"));
+
+  @ParameterizedTest
+  @ValueSource(strings = {
+      "",
+      "   ",
+      "the quick brown fox",
+      "  The QUICK\tbrown\n\nfox  ",
+      "don't stop-believing, ok?",
+      "snake_case and 42 and 1234",
+      "— … !!",
+      "café naïve Über",
+      "\u2003leading and trailing em spaces\u2003",
+      "a \u2003 b\u00a0c",
+      "\u000bvertical\u000btab and form\ffeed",
+  })
+  public void matchesRegexTokenization(String text) {
+    for (List<Pattern> ignoredWords : List.of(List.<Pattern>of(), IGNORED_WORDS)) {
+      List<String> words = new ArrayList<>();
+      new WordTokenizer(ignoredWords).tokenize(text, words::add);
+
+      assertWithMessage("Wrong words for \"" + text + "\" with ignored words " + ignoredWords)
+          .that(words)
+          .containsExactlyElementsIn(regexTokenize(text, ignoredWords))
+          .inOrder();
+    }
+  }
+
+  /**
+   * The original, regular expression based tokenization.
+   */
+  private static List<String> regexTokenize(String text, List<Pattern> ignoredWords) {
+    return Arrays.stream(Pattern.compile("\\s+").split(text.strip()))
+        .filter(s -> !s.isBlank())
+        .filter(s -> ignoredWords.stream().noneMatch(p -> p.matcher(s).matches()))
+        .map(s -> Pattern.compile("\\W").matcher(s).replaceAll(""))
+        .map(String::toLowerCase)
+        .collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,34 @@
+package com.udacity.webcrawler.profiler;
+
+import javax.inject.Inject;
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * A fake {@link Ticker} implementation for tests, which only advances when it is told to.
+ */
+public final class FakeTicker implements Ticker {
+
+  private long nanos;
+
+  @Inject
+  public FakeTicker() {
+    this(0);
+  }
+
+  public FakeTicker(long nanos) {
+    this.nanos = nanos;
+  }
+
+  @Override
+  public long read() {
+    return nanos;
+  }
+
+  /**
+   * Advances the fake ticker by the given amount.
+   */
+  public void tick(Duration duration) {
+    nanos += Objects.requireNonNull(duration).toNanos();
+  }
+}
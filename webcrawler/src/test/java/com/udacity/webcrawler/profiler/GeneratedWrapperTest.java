@@ -0,0 +1,222 @@
+package com.udacity.webcrawler.profiler;
+
+import com.udacity.webcrawler.testing.CloseableStringWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks that wrappers from a {@link ProfilerModule.Backend#GENERATED} profiler behave like the
+ * proxies that {@link ProfilerImplTest} tests, for methods of every kind of signature.
+ */
+public final class GeneratedWrapperTest {
+  private static final Instant START = Instant.parse("2021-01-01T00:00:00Z");
+
+  @Test
+  public void wrapsInGeneratedClass() {
+    FakeClock clock = new FakeClock();
+    Signatures wrapper = ProfilerImpl.forTesting(clock, ProfilerModule.Backend.GENERATED)
+        .wrap(Signatures.class, new SignaturesImpl(clock));
+
+    assertThat(Proxy.isProxyClass(wrapper.getClass())).isFalse();
+    assertWithMessage("The generated class should be made once per interface")
+        .that(ProfilerImpl.forTesting(clock, ProfilerModule.Backend.GENERATED)
+            .wrap(Signatures.class, new SignaturesImpl(clock))
+            .getClass())
+        .isSameInstanceAs(wrapper.getClass());
+  }
+
+  @ParameterizedTest
+  @EnumSource(ProfilerModule.Backend.class)
+  public void forwardsArgumentsAndResults(ProfilerModule.Backend backend) throws Exception {
+    FakeClock clock = new FakeClock();
+    SignaturesImpl delegate = new SignaturesImpl(clock);
+    Signatures wrapper = ProfilerImpl.forTesting(clock, backend).wrap(Signatures.class, delegate);
+
+    assertThat(wrapper.primitives(true, (byte) 1, 'a', (short) 2, 3, 4L, 5.5f, 6.5d))
+        .isEqualTo(1 + 'a' + 2 + 3 + 4 + 5.5 + 6.5 + 1);
+    assertThat(wrapper.join(new String[]{"a", "b"}, List.of("c"))).isEqualTo("[a, b][c]");
+    assertThat(wrapper.wide(1L, 2.0d, 3, 4L)).isEqualTo(10L);
+    assertThat(wrapper.notProfiled(7)).isEqualTo(8);
+    assertThat(wrapper.inherited()).isEqualTo("inherited");
+    wrapper.nothing();
+    assertThat(delegate.nothingCalls).isEqualTo(1);
+
+    assertThat(wrapper.toString()).isEqualTo(delegate.toString());
+    assertThat(wrapper.hashCode()).isEqualTo(delegate.hashCode());
+    assertThat(wrapper).isEqualTo(delegate);
+    assertThat(wrapper)
+        .isEqualTo(ProfilerImpl.forTesting(clock, backend).wrap(Signatures.class, delegate));
+  }
+
+  @ParameterizedTest
+  @EnumSource(ProfilerModule.Backend.class)
+  public void forwardsExceptions(ProfilerModule.Backend backend) throws Exception {
+    FakeClock clock = new FakeClock();
+    Profiler profiler = ProfilerImpl.forTesting(clock, backend);
+    Signatures wrapper = profiler.wrap(Signatures.class, new SignaturesImpl(clock));
+
+    IOException checked = new IOException("checked");
+    assertThat(assertThrows(IOException.class, () -> wrapper.fail(checked)))
+        .isSameInstanceAs(checked);
+    IllegalStateException unchecked = new IllegalStateException("unchecked");
+    assertThat(assertThrows(IllegalStateException.class, () -> wrapper.fail(unchecked)))
+        .isSameInstanceAs(unchecked);
+
+    CloseableStringWriter writer = new CloseableStringWriter();
+    profiler.writeData(writer);
+    assertWithMessage("Calls that throw should still be recorded")
+        .that(writer.toString())
+        .contains("$SignaturesImpl#fail took 0m 2s 0ms (calls: 2,");
+  }
+
+  @Test
+  public void writesSameProfileAsProxy() throws Exception {
+    assertThat(profile(ProfilerModule.Backend.GENERATED))
+        .isEqualTo(profile(ProfilerModule.Backend.PROXY));
+  }
+
+  /**
+   * Calls every method of a wrapper from a profiler with the given backend, and returns the
+   * profile data it writes.
+   */
+  private static String profile(ProfilerModule.Backend backend) throws Exception {
+    FakeClock clock = new FakeClock(START, ZoneOffset.UTC);
+    Profiler profiler = ProfilerImpl.forTesting(clock, backend);
+    Signatures wrapper = profiler.wrap(Signatures.class, new SignaturesImpl(clock));
+    for (int i = 0; i < 3; i++) {
+      wrapper.primitives(false, (byte) 0, 'b', (short) 0, i, 0L, 0f, 0d);
+      wrapper.join(new String[]{"a"}, List.of());
+      wrapper.wide(0L, 0d, i, 0L);
+      wrapper.notProfiled(i);
+      wrapper.inherited();
+      wrapper.nothing();
+      assertThrows(IOException.class, () -> wrapper.fail(new IOException()));
+    }
+    profiler.recordMetric("calls", 21);
+
+    CloseableStringWriter writer = new CloseableStringWriter();
+    profiler.writeData(writer);
+    return writer.toString();
+  }
+
+  /**
+   * A test interface whose methods take and return every kind of type.
+   */
+  private interface Signatures extends Inherited {
+    @Profiled
+    double primitives(
+        boolean z, byte b, char c, short s, int i, long j, float f, double d);
+
+    @Profiled
+    String join(String[] array, List<String> list);
+
+    /**
+     * Arguments that take two local variable slots, between ones that take one.
+     */
+    @Profiled
+    long wide(long a, double b, int c, long d);
+
+    @Profiled
+    void nothing();
+
+    @Profiled
+    void fail(Exception exception) throws Exception;
+
+    int notProfiled(int value);
+
+    /**
+     * Redeclares {@link Inherited#inherited()}, which should only be wrapped once.
+     */
+    @Override
+    String inherited();
+  }
+
+  private interface Inherited {
+    @Profiled
+    String inherited();
+  }
+
+  /**
+   * Concrete implementation of {@link Signatures}, whose profiled methods each take one second.
+   */
+  private static final class SignaturesImpl implements Signatures {
+    private final FakeClock clock;
+    private int nothingCalls = 0;
+
+    SignaturesImpl(FakeClock clock) {
+      this.clock = Objects.requireNonNull(clock);
+    }
+
+    @Override
+    public double primitives(
+        boolean z, byte b, char c, short s, int i, long j, float f, double d) {
+      clock.tick(Duration.ofSeconds(1));
+      return b + c + s + i + j + f + d + (z ? 1 : 0);
+    }
+
+    @Override
+    public String join(String[] array, List<String> list) {
+      clock.tick(Duration.ofSeconds(1));
+      return Arrays.toString(array) + list;
+    }
+
+    @Override
+    public long wide(long a, double b, int c, long d) {
+      clock.tick(Duration.ofSeconds(1));
+      return a + (long) b + c + d;
+    }
+
+    @Override
+    public void nothing() {
+      clock.tick(Duration.ofSeconds(1));
+      nothingCalls++;
+    }
+
+    @Override
+    public void fail(Exception exception) throws Exception {
+      clock.tick(Duration.ofSeconds(1));
+      throw exception;
+    }
+
+    @Override
+    public int notProfiled(int value) {
+      return value + 1;
+    }
+
+    @Override
+    public String inherited() {
+      clock.tick(Duration.ofSeconds(1));
+      return "inherited";
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      // All instances of Signatures are equal to one another.
+      return other instanceof Signatures;
+    }
+
+    @Override
+    public int hashCode() {
+      return 42;
+    }
+
+    @Override
+    public String toString() {
+      return "SignaturesImpl";
+    }
+  }
+}
@@ -0,0 +1,80 @@
+package com.udacity.webcrawler.profiler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class LatencyRecorderTest {
+
+  @Test
+  public void reportsPercentilesWithinThreePercent() {
+    LatencyRecorder recorder = new LatencyRecorder();
+    for (long micros = 1; micros <= 10_000; micros++) {
+      recorder.record(micros * 1_000);
+    }
+
+    LatencyRecorder.Snapshot snapshot = recorder.snapshot();
+
+    assertThat(snapshot.getCount()).isEqualTo(10_000);
+    assertThat(snapshot.getMinNanos()).isEqualTo(1_000);
+    assertThat(snapshot.getMaxNanos()).isEqualTo(10_000_000);
+    assertThat(snapshot.getMeanNanos()).isEqualTo(5_000_500);
+    assertThat((double) snapshot.getPercentileNanos(0.5)).isWithin(0.03 * 5_000_000).of(5_000_000);
+    assertThat((double) snapshot.getPercentileNanos(0.99)).isWithin(0.03 * 9_900_000).of(9_900_000);
+    assertThat((double) snapshot.getPercentileNanos(0.999))
+        .isWithin(0.03 * 9_990_000)
+        .of(9_990_000);
+  }
+
+  @Test
+  public void recordsSmallAndLargeValues() {
+    LatencyRecorder recorder = new LatencyRecorder();
+    recorder.record(0);
+    recorder.record(7);
+    recorder.record(Long.MAX_VALUE);
+
+    LatencyRecorder.Snapshot snapshot = recorder.snapshot();
+
+    assertThat(snapshot.getPercentileNanos(0.1)).isEqualTo(0);
+    assertThat(snapshot.getPercentileNanos(0.5)).isEqualTo(7);
+    assertThat(snapshot.getPercentileNanos(1.0)).isEqualTo(Long.MAX_VALUE);
+  }
+
+  @Test
+  public void emptyRecorderReportsZeros() {
+    LatencyRecorder.Snapshot snapshot = new LatencyRecorder().snapshot();
+
+    assertThat(snapshot.getCount()).isEqualTo(0);
+    assertThat(snapshot.getMinNanos()).isEqualTo(0);
+    assertThat(snapshot.getMaxNanos()).isEqualTo(0);
+    assertThat(snapshot.getPercentileNanos(0.99)).isEqualTo(0);
+  }
+
+  @Test
+  public void recordsConcurrentCalls() throws Exception {
+    LatencyRecorder recorder = new LatencyRecorder();
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      Thread thread = new Thread(() -> {
+        for (long nanos = 1; nanos <= 10_000; nanos++) {
+          recorder.record(nanos);
+        }
+      });
+      thread.start();
+      threads.add(thread);
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    LatencyRecorder.Snapshot snapshot = recorder.snapshot();
+
+    assertThat(snapshot.getCount()).isEqualTo(40_000);
+    assertThat(snapshot.getTotalNanos()).isEqualTo(4 * 10_000L * 10_001 / 2);
+    assertThat(snapshot.getMinNanos()).isEqualTo(1);
+    assertThat(snapshot.getMaxNanos()).isEqualTo(10_000);
+  }
+}
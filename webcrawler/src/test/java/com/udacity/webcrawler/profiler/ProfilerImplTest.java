@@ -1,8 +1,12 @@
 package com.udacity.webcrawler.profiler;
 
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.util.Modules;
 import com.udacity.webcrawler.testing.CloseableStringWriter;
 import org.junit.jupiter.api.Test;
 
+import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Objects;
@@ -13,7 +17,7 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public final class ProfilerImplTest {
   private final FakeClock clock = new FakeClock();
-  private final Profiler profiler = new ProfilerImpl(clock);
+  private final Profiler profiler = ProfilerImpl.forTesting(clock, ProfilerModule.Backend.PROXY);
   private final ProfiledInterfaceImpl delegate = new ProfiledInterfaceImpl(clock);
 
   @Test
@@ -136,6 +140,87 @@ public final class ProfilerImplTest {
     assertThat(written).contains("0m 1s 0ms");
   }
 
+  @Test
+  public void testCallStatistics() throws Exception {
+    ProfiledInterface proxy = profiler.wrap(ProfiledInterface.class, delegate);
+
+    proxy.profiled();
+    proxy.profiled();
+    proxy.profiled();
+
+    CloseableStringWriter writer = new CloseableStringWriter();
+    profiler.writeData(writer);
+    String written = writer.toString();
+    assertWithMessage("Each profiled method should report its calls and their latency percentiles")
+        .that(written)
+        .contains("#profiled took 0m 3s 0ms (calls: 3, min: 1000.000ms, mean: 1000.000ms, " +
+            "p50: 1000.000ms, p99: 1000.000ms, p999: 1000.000ms, max: 1000.000ms)");
+  }
+
+  @Test
+  public void testSampledCallStatistics() throws Exception {
+    clock.setTime(Instant.parse("2021-01-01T00:00:00Z"));
+    Profiler sampled = ProfilerImpl.forTesting(
+        clock, ProfilerModule.Backend.PROXY, Sampler.create(clock, 1, Duration.ofMillis(500)));
+    ProfiledInterface proxy = sampled.wrap(ProfiledInterface.class, delegate);
+
+    // These start at the top of a second, so they are timed.
+    proxy.profiled();
+    proxy.profiled();
+    // This one starts outside the first half of a second, so it is not.
+    clock.tick(Duration.ofMillis(600));
+    proxy.profiled();
+
+    CloseableStringWriter writer = new CloseableStringWriter();
+    sampled.writeData(writer);
+    assertWithMessage("Sampled calls should be extrapolated to the calls that were not timed")
+        .that(writer.toString())
+        .contains("#profiled took 0m 4s 0ms (calls: 4, sampled: 2, min: 1000.000ms, ");
+  }
+
+  @Test
+  public void testInjectedTicker() throws Exception {
+    FakeTicker ticker = new FakeTicker();
+    Profiler tickerProfiler = Guice.createInjector(
+            Modules.override(new ProfilerModule()).with(new AbstractModule() {
+              @Override
+              protected void configure() {
+                bind(Clock.class).toInstance(clock);
+                bind(Ticker.class).toInstance(ticker);
+              }
+            }))
+        .getInstance(Profiler.class);
+    ProfiledInterface proxy = tickerProfiler.wrap(
+        ProfiledInterface.class,
+        new ProfiledInterfaceImpl(() -> {
+          // The wall clock is set back during the call, which the ticker does not notice.
+          clock.tick(Duration.ofHours(-1));
+          ticker.tick(Duration.ofNanos(1_500_000));
+        }));
+
+    assertThat(proxy.profiled()).isEqualTo("profiled");
+
+    CloseableStringWriter writer = new CloseableStringWriter();
+    tickerProfiler.writeData(writer);
+    assertWithMessage("Calls should be timed by the injected ticker, not the clock")
+        .that(writer.toString())
+        .contains("#profiled took 0m 0s 1ms (calls: 1, min: 1.500ms, ");
+  }
+
+  @Test
+  public void testMetrics() throws Exception {
+    profiler.recordMetric("queueDepth", 3);
+    profiler.recordMetric("queueDepth", 7);
+
+    CloseableStringWriter writer = new CloseableStringWriter();
+    profiler.writeData(writer);
+    String written = writer.toString();
+    assertWithMessage("Recording a metric again should replace its value")
+        .that(written)
+        .contains("queueDepth = 7");
+    assertThat(written).doesNotContain("queueDepth = 3");
+  }
+
   /**
    * A test interface that does not have any {@link Profiled} methods.
    */
@@ -165,22 +250,32 @@ public final class ProfilerImplTest {
    * Concrete implementation of {@link ProfiledInterface}.
    */
   private static final class ProfiledInterfaceImpl implements ProfiledInterface {
-    private final FakeClock fakeClock;
+    private final Runnable duringCall;
     private boolean wasFakeEqualsCalled = false;
 
+    /**
+     * Creates an implementation whose profiled methods take one second of the given clock.
+     */
     ProfiledInterfaceImpl(FakeClock fakeClock) {
-      this.fakeClock = Objects.requireNonNull(fakeClock);
+      this(() -> fakeClock.tick(Duration.ofSeconds(1)));
+    }
+
+    /**
+     * Creates an implementation whose profiled methods run the given code.
+     */
+    ProfiledInterfaceImpl(Runnable duringCall) {
+      this.duringCall = Objects.requireNonNull(duringCall);
     }
 
     @Override
     public String profiled() {
-      fakeClock.tick(Duration.ofSeconds(1));
+      duringCall.run();
       return "profiled";
     }
 
     @Override
     public void throwSomething(Throwable throwable) throws Throwable {
-      fakeClock.tick(Duration.ofSeconds(1));
+      duringCall.run();
       throw throwable;
     }
 
@@ -0,0 +1,154 @@
+package com.udacity.webcrawler.profiler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of calling a method directly, through a proxy with the interceptor as it used
+ * to be, which looked up the {@link Profiled} annotation twice and called {@link Method#invoke} on
+ * every call, through a proxy from {@link ProfilerImpl#wrap}, and through the wrapper it generates
+ * with the {@link ProfilerModule.Backend#GENERATED} backend.
+ *
+ * <p>Each is measured for a method that is profiled and one that is not. The profiled calls also
+ * pay for reading the time twice and recording it: the old interceptor reads the clock, and the
+ * others the system {@link Ticker}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ProfilingMethodInterceptorBenchmark {
+
+  private Target raw;
+  private Target reflective;
+  private Target optimized;
+  private Target generated;
+  private int argument;
+
+  @Setup
+  public void setUp() {
+    Clock clock = Clock.systemUTC();
+    raw = new TargetImpl();
+    reflective = (Target) Proxy.newProxyInstance(
+        ProfilingMethodInterceptorBenchmark.class.getClassLoader(),
+        new Class<?>[]{Target.class},
+        new ReflectiveInterceptor(clock, new ProfilingState(), raw));
+    optimized = new ProfilerImpl(clock, Ticker.systemTicker(), ProfilerModule.Backend.PROXY,
+        Sampler.all()).wrap(Target.class, raw);
+    generated = new ProfilerImpl(clock, Ticker.systemTicker(), ProfilerModule.Backend.GENERATED,
+        Sampler.all()).wrap(Target.class, raw);
+  }
+
+  @Benchmark
+  public int rawProfiled() {
+    return raw.profiled(argument++);
+  }
+
+  @Benchmark
+  public int rawNotProfiled() {
+    return raw.notProfiled(argument++);
+  }
+
+  @Benchmark
+  public int reflectiveProxyProfiled() {
+    return reflective.profiled(argument++);
+  }
+
+  @Benchmark
+  public int reflectiveProxyNotProfiled() {
+    return reflective.notProfiled(argument++);
+  }
+
+  @Benchmark
+  public int optimizedProxyProfiled() {
+    return optimized.profiled(argument++);
+  }
+
+  @Benchmark
+  public int optimizedProxyNotProfiled() {
+    return optimized.notProfiled(argument++);
+  }
+
+  @Benchmark
+  public int generatedProfiled() {
+    return generated.profiled(argument++);
+  }
+
+  @Benchmark
+  public int generatedNotProfiled() {
+    return generated.notProfiled(argument++);
+  }
+
+  public interface Target {
+    @Profiled
+    int profiled(int value);
+
+    int notProfiled(int value);
+  }
+
+  private static final class TargetImpl implements Target {
+    @Override
+    public int profiled(int value) {
+      return value * 31;
+    }
+
+    @Override
+    public int notProfiled(int value) {
+      return value * 31;
+    }
+  }
+
+  /**
+   * The interceptor as it was before its methods were cached.
+   */
+  private static final class ReflectiveInterceptor implements InvocationHandler {
+    private final Clock clock;
+    private final ProfilingState state;
+    private final Object delegate;
+
+    ReflectiveInterceptor(Clock clock, ProfilingState state, Object delegate) {
+      this.clock = clock;
+      this.state = state;
+      this.delegate = delegate;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      Object invoke;
+      Instant startTime = null;
+      if (method.getAnnotation(Profiled.class) != null) {
+        startTime = clock.instant();
+      }
+      try {
+        invoke = method.invoke(delegate, args);
+      } catch (InvocationTargetException e) {
+        throw e.getTargetException();
+      } finally {
+        if (method.getAnnotation(Profiled.class) != null) {
+          Duration duration = Duration.between(startTime, clock.instant());
+          state.record(delegate.getClass(), method, duration.toNanos());
+        }
+      }
+      return invoke;
+    }
+  }
+}
@@ -0,0 +1,65 @@
+package com.udacity.webcrawler.profiler;
+
+import com.google.common.collect.Range;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class SamplerTest {
+  private final FakeClock clock =
+      new FakeClock(Instant.parse("2021-01-01T00:00:00Z"), ZoneOffset.UTC);
+
+  @Test
+  public void timesEveryCallByDefault() {
+    Sampler sampler = Sampler.create(clock, 1, Duration.ofSeconds(1));
+
+    assertThat(sampler).isSameInstanceAs(Sampler.all());
+    assertThat(sampler.sample()).isTrue();
+    assertThat(sampler.getWeight()).isEqualTo(1.0);
+  }
+
+  @Test
+  public void timesCallsThatStartInWindow() {
+    Sampler sampler = Sampler.create(clock, 1, Duration.ofMillis(250));
+
+    assertThat(sampler.sample()).isTrue();
+    clock.tick(Duration.ofMillis(249));
+    assertThat(sampler.sample()).isTrue();
+    clock.tick(Duration.ofMillis(1));
+    assertThat(sampler.sample()).isFalse();
+    clock.tick(Duration.ofMillis(749));
+    assertThat(sampler.sample()).isFalse();
+    clock.tick(Duration.ofMillis(1));
+    assertThat(sampler.sample()).isTrue();
+    assertThat(sampler.getWeight()).isEqualTo(4.0);
+  }
+
+  @Test
+  public void timesOneInEveryCalls() {
+    Sampler sampler = Sampler.create(clock, 10, Duration.ofSeconds(1));
+
+    int sampled = 0;
+    for (int i = 0; i < 100_000; i++) {
+      if (sampler.sample()) {
+        sampled++;
+      }
+    }
+    // The expected 10000, give or take more than ten standard deviations.
+    assertThat(sampled).isIn(Range.closed(9_000, 11_000));
+    assertThat(sampler.getWeight()).isEqualTo(10.0);
+  }
+
+  @Test
+  public void rejectsSettingsOutOfRange() {
+    assertThrows(
+        IllegalArgumentException.class, () -> Sampler.create(clock, 0, Duration.ofSeconds(1)));
+    assertThrows(IllegalArgumentException.class, () -> Sampler.create(clock, 1, Duration.ZERO));
+    assertThrows(
+        IllegalArgumentException.class, () -> Sampler.create(clock, 1, Duration.ofMillis(1001)));
+  }
+}
@@ -0,0 +1,45 @@
+package com.udacity.webcrawler.regex;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class PatternLiteralsTest {
+
+  @Test
+  public void findsLiterals() {
+    assertThat(PatternLiterals.toLiteral(Pattern.compile("the"))).isEqualTo("the");
+    assertThat(PatternLiterals.toLiteral(Pattern.compile("^and$"))).isEqualTo("and");
+    assertThat(PatternLiterals.toLiteral(Pattern.compile("a\\.b\\$"))).isEqualTo("a.b$");
+    assertThat(PatternLiterals.toLiteral(Pattern.compile("a.b"))).isNull();
+    assertThat(PatternLiterals.toLiteral(Pattern.compile("\\d+"))).isNull();
+    assertThat(PatternLiterals.toLiteral(Pattern.compile("the", Pattern.CASE_INSENSITIVE)))
+        .isNull();
+  }
+
+  @Test
+  public void stripsOnlyUnescapedAnchors() {
+    assertThat(PatternLiterals.stripAnchors("^abc$")).isEqualTo("abc");
+    assertThat(PatternLiterals.stripAnchors("abc\\$")).isEqualTo("abc\\$");
+    assertThat(PatternLiterals.stripAnchors("abc\\\\$")).isEqualTo("abc\\\\");
+  }
+
+  @Test
+  public void joinsPatternsThatKeepTheirMeaning() {
+    Pattern first = Pattern.compile("a+");
+    Pattern second = Pattern.compile("b+");
+    Pattern flagged = Pattern.compile("c+", Pattern.CASE_INSENSITIVE);
+    Pattern backreference = Pattern.compile("(d)\\1");
+
+    List<Pattern> joined = PatternLiterals.join(List.of(first, flagged, second, backreference));
+
+    assertThat(joined).hasSize(3);
+    assertThat(joined.get(0).pattern()).isEqualTo("(?:a+)|(?:b+)");
+    assertThat(joined.subList(1, 3)).containsExactly(flagged, backreference).inOrder();
+    assertThat(PatternLiterals.join(List.of(first))).containsExactly(first);
+    assertThat(PatternLiterals.join(List.of())).isEmpty();
+  }
+}